@@ -206,7 +206,7 @@ public class CachePerformanceAspect {
             }
             
             // Check common cache names for the key
-            String[] cacheNames = {"userUrls", "userQRCodes", "userFiles", "urlAnalytics", 
+            String[] cacheNames = {"userUrls", "userQRCodeSummaries", "userFileSummaries", "urlAnalytics", 
                                  "userAnalytics", "dashboardOverview", "realtimeAnalytics"};
             
             for (String cacheName : cacheNames) {
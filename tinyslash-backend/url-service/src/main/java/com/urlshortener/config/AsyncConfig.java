@@ -34,4 +34,20 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
+
+    /**
+     * Long batch jobs (compaction, archive sealing, filter rebuilds,
+     * reconciliation) run here so they never hold a scheduler thread the
+     * periodic flushers need
+     */
+    @Bean(name = "batchJobExecutor")
+    public Executor batchJobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(16);
+        executor.setThreadNamePrefix("Batch-");
+        executor.initialize();
+        return executor;
+    }
 }
\ No newline at end of file
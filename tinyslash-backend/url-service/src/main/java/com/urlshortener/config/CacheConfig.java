@@ -1,5 +1,7 @@
 package com.urlshortener.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
@@ -10,27 +12,41 @@ import org.springframework.context.annotation.Primary;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
     private static final Logger logger = LoggerFactory.getLogger(CacheConfig.class);
 
+    @Value("${app.cache.l1.enabled:true}")
+    private boolean l1Enabled;
+
+    @Value("${app.cache.l1.max-size:1000}")
+    private int l1MaxSize;
+
+    @Value("${app.cache.l1.ttl-seconds:60}")
+    private long l1TtlSeconds;
+
+    @Value("${app.cache.l1.policies:}")
+    private List<String> l1Policies;
+
     /**
-     * Fallback cache manager when Redis is not available
+     * Fallback cache manager when Redis is not available: the bounded L1
+     * alone, or an unbounded map cache if L1 is disabled
      */
     @Bean
     @Primary
     @ConditionalOnProperty(name = "spring.cache.type", havingValue = "simple", matchIfMissing = true)
-    public CacheManager simpleCacheManager() {
-        logger.info("Using simple in-memory cache manager (Redis not configured)");
-        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
-
+    public CacheManager simpleCacheManager(MeterRegistry meterRegistry) {
         // Pre-configure cache names
-        cacheManager.setCacheNames(java.util.Arrays.asList(
+        List<String> cacheNames = Arrays.asList(
                 "userUrls",
-                "userQRCodes",
-                "userFiles",
+                "userQRCodeSummaries",
+                "userFileSummaries",
                 "urlAnalytics",
                 "userAnalytics",
                 "dashboardOverview",
@@ -38,12 +54,26 @@ public class CacheConfig {
                 "clickCounts",
                 "countryStats",
                 "short_urls", // Added missing cache for URL lookups
+                "redirect_entries",
                 "systemAnalytics",
                 "adminDashboard",
                 "domains_list",
                 "verified_domains",
-                "geoData"));
+                "geoData");
+
+        if (l1Enabled) {
+            logger.info("Using bounded in-memory cache manager (Redis not configured)");
+            TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(null,
+                    new TwoLevelCacheManager.Policy(l1MaxSize, Duration.ofSeconds(l1TtlSeconds)),
+                    TwoLevelCacheManager.Policy.parseAll(l1Policies), null, null);
+            cacheManager.setCacheNames(cacheNames);
+            cacheManager.bindTo(meterRegistry);
+            return cacheManager;
+        }
 
+        logger.info("Using simple in-memory cache manager (Redis not configured)");
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
+        cacheManager.setCacheNames(cacheNames);
         cacheManager.setAllowNullValues(false);
         return cacheManager;
     }
@@ -0,0 +1,326 @@
+package com.urlshortener.config;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded per-node cache with W-TinyLFU-style admission and a per-entry TTL.
+ *
+ * New entries land in a small admission window (1% of the capacity). An entry
+ * leaving the window only enters the main region if a count-min frequency
+ * sketch says it is requested more often than the main region's eviction
+ * victim, so one-off keys (a scan over every link, a crawler walking pages)
+ * cannot flush the hot set. Both regions evict in CLOCK order: reads only set
+ * a reference bit and bump the sketch, so hits never take the lock.
+ */
+final class LocalCache {
+
+    private static final class Node {
+        private final String key;
+        private volatile Object value;
+        private volatile long expiresAt; // System.nanoTime() deadline, unused without a TTL
+        private volatile boolean referenced;
+        private boolean inMain; // guarded by lock
+        private boolean removed; // guarded by lock
+
+        private Node(String key, Object value, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final int windowMax;
+    private final int mainMax;
+
+    private final ConcurrentHashMap<String, Node> data;
+    private final FrequencySketch sketch;
+    private final Object lock = new Object();
+
+    // Regions hold removed nodes until they are polled or compacted; the sizes count live ones
+    private final ArrayDeque<Node> window = new ArrayDeque<>();
+    private final ArrayDeque<Node> main = new ArrayDeque<>();
+    private int windowSize;
+    private int mainSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    /**
+     * @param ttlNanos time to live after the last write, 0 for none
+     */
+    LocalCache(int maxSize, long ttlNanos) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlNanos;
+        this.windowMax = Math.max(1, maxSize / 100);
+        this.mainMax = maxSize - windowMax;
+        this.data = new ConcurrentHashMap<>(Math.min(maxSize, 1 << 16));
+        this.sketch = new FrequencySketch(maxSize);
+    }
+
+    /**
+     * The stored value, or null on a miss or an expired entry
+     */
+    Object get(String key) {
+        sketch.increment(key);
+        Node node = data.get(key);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        if (isExpired(node)) {
+            synchronized (lock) {
+                remove(node);
+            }
+            misses.increment();
+            return null;
+        }
+        node.referenced = true;
+        hits.increment();
+        return node.value;
+    }
+
+    void put(String key, Object value) {
+        long expiresAt = System.nanoTime() + ttlNanos;
+        synchronized (lock) {
+            Node existing = data.get(key);
+            if (existing != null) {
+                existing.value = value;
+                existing.expiresAt = expiresAt;
+                existing.referenced = true;
+                return;
+            }
+            Node node = new Node(key, value, expiresAt);
+            data.put(key, node);
+            window.addLast(node);
+            windowSize++;
+            evictIfNeeded();
+        }
+    }
+
+    boolean evict(String key) {
+        synchronized (lock) {
+            Node node = data.get(key);
+            return node != null && remove(node);
+        }
+    }
+
+    int evictByPrefix(String prefix) {
+        int removed = 0;
+        synchronized (lock) {
+            for (Node node : data.values()) {
+                if (node.key.startsWith(prefix) && remove(node)) {
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    void clear() {
+        synchronized (lock) {
+            for (Node node : data.values()) {
+                node.removed = true;
+            }
+            data.clear();
+            window.clear();
+            main.clear();
+            windowSize = 0;
+            mainSize = 0;
+        }
+    }
+
+    int size() { return data.size(); }
+    int getMaxSize() { return maxSize; }
+    long getTtlNanos() { return ttlNanos; }
+    long getHits() { return hits.sum(); }
+    long getMisses() { return misses.sum(); }
+    long getEvictions() { return evictions.sum(); }
+    long getRejections() { return rejections.sum(); }
+
+    private boolean isExpired(Node node) {
+        return ttlNanos > 0 && System.nanoTime() - node.expiresAt >= 0;
+    }
+
+    // Callers hold the lock
+    private boolean remove(Node node) {
+        if (node.removed || !data.remove(node.key, node)) {
+            return false;
+        }
+        node.removed = true;
+        if (node.inMain) {
+            mainSize--;
+        } else {
+            windowSize--;
+        }
+        compact(window, windowSize);
+        compact(main, mainSize);
+        return true;
+    }
+
+    /**
+     * Move window overflow into the main region, admitting each candidate
+     * only if it is more frequent than the victim it would displace
+     */
+    private void evictIfNeeded() {
+        while (windowSize > windowMax) {
+            Node candidate = pollLive(window);
+            if (candidate == null) {
+                windowSize = 0;
+                return;
+            }
+            windowSize--;
+            if (mainSize < mainMax) {
+                admit(candidate);
+                continue;
+            }
+            Node victim = mainMax > 0 ? clockVictim() : null;
+            if (victim != null && (isExpired(victim)
+                    || sketch.frequency(candidate.key) > sketch.frequency(victim.key))) {
+                main.pollFirst();
+                mainSize--;
+                drop(victim);
+                admit(candidate);
+            } else {
+                drop(candidate);
+                rejections.increment();
+            }
+        }
+    }
+
+    private void admit(Node node) {
+        node.inMain = true;
+        main.addLast(node);
+        mainSize++;
+    }
+
+    private void drop(Node node) {
+        node.removed = true;
+        data.remove(node.key, node);
+        evictions.increment();
+    }
+
+    /**
+     * Head of the main region after giving referenced, unexpired entries a
+     * second chance; left at the head for the caller to poll
+     */
+    private Node clockVictim() {
+        for (int scanned = 0; scanned <= mainSize; scanned++) {
+            Node head = pollLive(main);
+            if (head == null) {
+                return null;
+            }
+            if (head.referenced && !isExpired(head)) {
+                head.referenced = false;
+                main.addLast(head);
+            } else {
+                main.addFirst(head);
+                return head;
+            }
+        }
+        Node head = pollLive(main);
+        if (head != null) {
+            main.addFirst(head);
+        }
+        return head;
+    }
+
+    private static Node pollLive(ArrayDeque<Node> region) {
+        Node node;
+        while ((node = region.pollFirst()) != null) {
+            if (!node.removed) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    private static void compact(ArrayDeque<Node> region, int live) {
+        if (region.size() > 2 * live + 64) {
+            Iterator<Node> it = region.iterator();
+            while (it.hasNext()) {
+                if (it.next().removed) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Count-min sketch of 4-bit counters, four per key, halved every ten
+     * times the capacity additions so old popularity fades. Updates are not
+     * atomic: an increment lost to a race only makes the estimate slightly low.
+     */
+    static final class FrequencySketch {
+
+        private static final long[] SEEDS = {
+                0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private final long[] table;
+        private final int tableMask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int maxSize) {
+            int capacity = Math.max(16, maxSize);
+            int length = Integer.highestOneBit(capacity - 1) << 1;
+            this.table = new long[length];
+            this.tableMask = length - 1;
+            this.sampleSize = 10 * capacity;
+        }
+
+        int frequency(String key) {
+            int hash = spread(key.hashCode());
+            int frequency = 15;
+            for (int i = 0; i < 4; i++) {
+                long slot = slot(hash, i);
+                int index = (int) (slot >>> 32) & tableMask;
+                int shift = ((int) slot & 15) << 2;
+                frequency = Math.min(frequency, (int) (table[index] >>> shift) & 15);
+            }
+            return frequency;
+        }
+
+        void increment(String key) {
+            int hash = spread(key.hashCode());
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                long slot = slot(hash, i);
+                int index = (int) (slot >>> 32) & tableMask;
+                int shift = ((int) slot & 15) << 2;
+                long word = table[index];
+                if (((word >>> shift) & 15) < 15) {
+                    table[index] = word + (1L << shift);
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            additions /= 2;
+        }
+
+        private static int spread(int hash) {
+            hash *= 0x9E3779B9;
+            return hash ^ (hash >>> 16);
+        }
+
+        private static long slot(int hash, int row) {
+            long slot = (hash + SEEDS[row]) * SEEDS[row];
+            return slot ^ (slot >>> 29);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.urlshortener.config;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.CompoundIndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.stereotype.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.urlshortener.model.QrCode;
+import com.urlshortener.model.ShortenedUrl;
+import com.urlshortener.model.SupportTicket;
+import com.urlshortener.model.UploadedFile;
+
+/**
+ * Compound indexes backing keyset-paginated list endpoints.
+ *
+ * Each index ends with (timestamp DESC, _id DESC) after the equality filters,
+ * so a page is a bounded index range scan with no in-memory sort.
+ */
+@Component
+public class PaginationIndexConfig implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaginationIndexConfig.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public void run(String... args) throws Exception {
+        ensure(ShortenedUrl.class, "idx_user_active_created_keyset",
+                new Document("userId", 1).append("isActive", 1).append("createdAt", -1).append("_id", -1));
+        ensure(ShortenedUrl.class, "idx_scope_active_created_keyset",
+                new Document("scopeType", 1).append("scopeId", 1).append("isActive", 1)
+                        .append("createdAt", -1).append("_id", -1));
+        ensure(ShortenedUrl.class, "idx_created_keyset",
+                new Document("createdAt", -1).append("_id", -1));
+
+        ensure(QrCode.class, "idx_user_active_created_keyset",
+                new Document("userId", 1).append("isActive", 1).append("createdAt", -1).append("_id", -1));
+        ensure(QrCode.class, "idx_created_keyset",
+                new Document("createdAt", -1).append("_id", -1));
+
+        ensure(UploadedFile.class, "idx_user_active_uploaded_keyset",
+                new Document("userId", 1).append("isActive", 1).append("uploadedAt", -1).append("_id", -1));
+        ensure(UploadedFile.class, "idx_uploaded_keyset",
+                new Document("uploadedAt", -1).append("_id", -1));
+
+        ensure(SupportTicket.class, "idx_created_keyset",
+                new Document("createdAt", -1).append("_id", -1));
+
+        logger.info("Keyset pagination indexes created/verified");
+    }
+
+    private void ensure(Class<?> entity, String name, Document keys) {
+        try {
+            IndexDefinition index = new CompoundIndexDefinition(keys).named(name);
+            mongoTemplate.indexOps(entity).ensureIndex(index);
+        } catch (Exception e) {
+            logger.warn("Index {} on {} already exists or conflicts: {}", name,
+                    mongoTemplate.getCollectionName(entity), e.getMessage());
+        }
+    }
+}
@@ -18,11 +18,18 @@ import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Configuration
@@ -39,9 +46,24 @@ public class RedisConfig {
         @Value("${app.cache.geo-ttl:86400}")
         private long geoCacheTtl;
 
+        @Value("${app.cache.l1.enabled:true}")
+        private boolean l1Enabled;
+
+        @Value("${app.cache.l1.max-size:1000}")
+        private int l1MaxSize;
+
+        @Value("${app.cache.l1.ttl-seconds:60}")
+        private long l1TtlSeconds;
+
+        @Value("${app.cache.l1.policies:}")
+        private List<String> l1Policies;
+
+        @Value("${app.cache.l1.channel:tinyslash:cache-invalidation}")
+        private String invalidationChannel;
+
         @Bean
         @Primary
-        public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory) {
+        public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory, MeterRegistry meterRegistry) {
                 RedisCacheConfiguration defaultCacheConfig = RedisCacheConfiguration.defaultCacheConfig()
                                 .entryTtl(Duration.ofSeconds(urlCacheTtl))
                                 .disableCachingNullValues()
@@ -84,11 +106,11 @@ public class RedisConfig {
                                 .entryTtl(Duration.ofSeconds(600)));
 
                 // User QR codes cache - 10 minutes
-                cacheConfigurations.put("userQRCodes", defaultCacheConfig
+                cacheConfigurations.put("userQRCodeSummaries", defaultCacheConfig
                                 .entryTtl(Duration.ofSeconds(600)));
 
                 // User files cache - 10 minutes
-                cacheConfigurations.put("userFiles", defaultCacheConfig
+                cacheConfigurations.put("userFileSummaries", defaultCacheConfig
                                 .entryTtl(Duration.ofSeconds(600)));
 
                 // Dashboard overview cache - 5 minutes
@@ -112,6 +134,13 @@ public class RedisConfig {
                 cacheConfigurations.put("short_urls", defaultCacheConfig
                                 .entryTtl(Duration.ofSeconds(urlCacheTtl)));
 
+                // Redirect entries - 1 hour, stored in their own compact string encoding
+                cacheConfigurations.put("redirect_entries", defaultCacheConfig
+                                .entryTtl(Duration.ofSeconds(urlCacheTtl))
+                                .serializeValuesWith(
+                                                org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair
+                                                                .fromSerializer(new StringRedisSerializer())));
+
                 // Domains list cache - 1 hour
                 cacheConfigurations.put("domains_list", defaultCacheConfig
                                 .entryTtl(Duration.ofSeconds(3600)));
@@ -120,10 +149,39 @@ public class RedisConfig {
                 cacheConfigurations.put("verified_domains", defaultCacheConfig
                                 .entryTtl(Duration.ofSeconds(3600)));
 
-                return RedisCacheManager.builder(redisConnectionFactory)
+                RedisCacheManager redisCacheManager = RedisCacheManager.builder(redisConnectionFactory)
                                 .cacheDefaults(defaultCacheConfig)
                                 .withInitialCacheConfigurations(cacheConfigurations)
                                 .build();
+                if (!l1Enabled) {
+                        return redisCacheManager;
+                }
+
+                // Node-local L1 in front of Redis, evictions broadcast to the other nodes
+                TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(redisCacheManager,
+                                new TwoLevelCacheManager.Policy(l1MaxSize, Duration.ofSeconds(l1TtlSeconds)),
+                                TwoLevelCacheManager.Policy.parseAll(l1Policies),
+                                new StringRedisTemplate(redisConnectionFactory), invalidationChannel);
+                cacheManager.setCacheNames(cacheConfigurations.keySet());
+                cacheManager.bindTo(meterRegistry);
+                return cacheManager;
+        }
+
+        /**
+         * Applies other nodes' cache invalidations to this node's L1
+         */
+        @Bean
+        public RedisMessageListenerContainer cacheInvalidationListener(RedisConnectionFactory redisConnectionFactory,
+                        CacheManager cacheManager) {
+                RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+                container.setConnectionFactory(redisConnectionFactory);
+                if (cacheManager instanceof TwoLevelCacheManager) {
+                        TwoLevelCacheManager twoLevel = (TwoLevelCacheManager) cacheManager;
+                        container.addMessageListener((message, pattern) -> twoLevel.onInvalidation(
+                                        new String(message.getBody(), StandardCharsets.UTF_8)),
+                                        new ChannelTopic(twoLevel.getChannel()));
+                }
+                return container;
         }
 
         @Bean
@@ -0,0 +1,115 @@
+package com.urlshortener.config;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * A node-local {@link LocalCache} in front of a shared cache (Redis).
+ *
+ * Hits in the local level skip the network round trip and deserialization.
+ * Misses fall through to the shared level and copy what they find. Writes go to
+ * both levels. Evictions and clears go to both levels and are then announced
+ * to the other nodes through the manager.
+ *
+ * Puts are not announced. Every put in this code base follows a miss, and
+ * whatever caused the miss already announced its eviction. Cached objects are
+ * shared by reference between callers on a node, as with the simple cache
+ * manager.
+ */
+class TwoLevelCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final LocalCache local;
+    private final Cache remote; // null when the local level is all there is
+    private final TwoLevelCacheManager manager;
+
+    TwoLevelCache(String name, LocalCache local, Cache remote, TwoLevelCacheManager manager) {
+        super(false);
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.manager = manager;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote != null ? remote.getNativeCache() : local;
+    }
+
+    LocalCache getLocal() {
+        return local;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String localKey = String.valueOf(key);
+        Object value = local.get(localKey);
+        if (value != null || remote == null) {
+            return value;
+        }
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper == null || wrapper.get() == null) {
+            return null;
+        }
+        local.put(localKey, wrapper.get());
+        return wrapper.get();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = String.valueOf(key);
+        Object cached = local.get(localKey);
+        if (cached != null) {
+            return (T) cached;
+        }
+        T value;
+        if (remote != null) {
+            value = remote.get(key, valueLoader);
+        } else {
+            try {
+                value = valueLoader.call();
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+        }
+        if (value != null) {
+            local.put(localKey, value);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Object storeValue = toStoreValue(value);
+        if (remote != null) {
+            remote.put(key, storeValue);
+        }
+        local.put(String.valueOf(key), storeValue);
+    }
+
+    @Override
+    public void evict(Object key) {
+        if (remote != null) {
+            remote.evict(key);
+        }
+        local.evict(String.valueOf(key));
+        manager.publishEviction(name, String.valueOf(key));
+    }
+
+    @Override
+    public void clear() {
+        if (remote != null) {
+            remote.clear();
+        }
+        local.clear();
+        manager.publishClear(name);
+    }
+}
@@ -0,0 +1,361 @@
+package com.urlshortener.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache manager putting a bounded per-node L1 ({@link LocalCache}) in front
+ * of a shared L2 manager (Redis), or standing alone when there is no L2.
+ *
+ * Each cache has its own L1 size and TTL. A cache with size 0 skips L1 and
+ * goes straight to L2. Evictions and clears are published on a Redis channel.
+ * Every node drops the matching L1 entries, so a change on one node reaches
+ * the others after one pub/sub hop instead of after the L1 TTL. Pub/sub is
+ * fire-and-forget, so the L1 TTL is what bounds staleness when a message is
+ * lost. Keep it short.
+ */
+public class TwoLevelCacheManager implements CacheManager, InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(TwoLevelCacheManager.class);
+
+    // ASCII unit separator: cannot appear in cache names or the keys used here
+    private static final char SEPARATOR = '\u001f';
+    private static final String OP_KEYS = "K";
+    private static final String OP_PREFIX = "P";
+    private static final String OP_CLEAR = "C";
+
+    private final CacheManager remote;
+    private final Policy defaultPolicy;
+    private final Map<String, Policy> policies;
+    private final StringRedisTemplate publisher;
+    private final String channel;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+    private final Set<String> cacheNames = new LinkedHashSet<>();
+    private MeterRegistry meterRegistry;
+    private Counter publishedCounter;
+    private Counter receivedCounter;
+    private Counter publishFailureCounter;
+
+    /**
+     * @param remote    shared L2, or null for an L1-only manager
+     * @param publisher connection for invalidation messages, or null on a single node
+     */
+    public TwoLevelCacheManager(CacheManager remote, Policy defaultPolicy, Map<String, Policy> policies,
+            StringRedisTemplate publisher, String channel) {
+        this.remote = remote;
+        this.defaultPolicy = defaultPolicy;
+        this.policies = policies;
+        this.publisher = publisher;
+        this.channel = channel;
+    }
+
+    /**
+     * Caches to open at startup; others are still created on first use
+     */
+    public void setCacheNames(Collection<String> names) {
+        synchronized (cacheNames) {
+            cacheNames.addAll(names);
+        }
+    }
+
+    /**
+     * Register per-cache L1 meters (cache.l1.*) and the invalidation counters
+     */
+    public void bindTo(MeterRegistry registry) {
+        this.meterRegistry = registry;
+        publishedCounter = Counter.builder("cache.l1.invalidations_published")
+                .description("Cache invalidation messages published to other nodes")
+                .register(registry);
+        receivedCounter = Counter.builder("cache.l1.invalidations_received")
+                .description("Cache invalidation messages received from other nodes")
+                .register(registry);
+        publishFailureCounter = Counter.builder("cache.l1.invalidation_publish_failures")
+                .description("Cache invalidation messages that could not be published")
+                .register(registry);
+        caches.values().forEach(this::registerMeters);
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        if (remote instanceof InitializingBean) {
+            ((InitializingBean) remote).afterPropertiesSet();
+        }
+        getCacheNames().forEach(this::getCache);
+        logger.info("Two-level cache manager ready: L2 {}, {} per-cache L1 policies, invalidation {}",
+                remote != null ? remote.getClass().getSimpleName() : "none", policies.size(),
+                publisher != null ? "on channel " + channel : "local only");
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache remoteCache = remote != null ? remote.getCache(name) : null;
+        if (remote != null && remoteCache == null) {
+            return null;
+        }
+        Policy policy = policies.getOrDefault(name, defaultPolicy);
+        Cache created;
+        if (policy.getMaxSize() <= 0) {
+            if (remoteCache == null) {
+                return null;
+            }
+            created = remoteCache;
+        } else {
+            created = new TwoLevelCache(name, new LocalCache(policy.getMaxSize(), policy.getTtl().toNanos()),
+                    remoteCache, this);
+        }
+        Cache existing = caches.putIfAbsent(name, created);
+        if (existing != null) {
+            return existing;
+        }
+        synchronized (cacheNames) {
+            cacheNames.add(name);
+        }
+        if (meterRegistry != null) {
+            registerMeters(created);
+        }
+        return created;
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        synchronized (cacheNames) {
+            return new ArrayList<>(cacheNames);
+        }
+    }
+
+    /**
+     * The L2 manager, or null for an L1-only manager
+     */
+    public CacheManager getRemote() {
+        return remote;
+    }
+
+    /**
+     * Drop keys from this node's L1 and every other node's, for callers that
+     * already removed them from L2 in bulk
+     */
+    public void evictLocal(String cacheName, Collection<String> keys) {
+        LocalCache local = local(cacheName);
+        if (local == null || keys.isEmpty()) {
+            return;
+        }
+        keys.forEach(local::evict);
+        publish(OP_KEYS, cacheName, keys);
+    }
+
+    /**
+     * Drop every key starting with the prefix from all nodes' L1
+     */
+    public void evictLocalByPrefix(String cacheName, String prefix) {
+        LocalCache local = local(cacheName);
+        if (local == null) {
+            return;
+        }
+        local.evictByPrefix(prefix);
+        publish(OP_PREFIX, cacheName, List.of(prefix));
+    }
+
+    void publishEviction(String cacheName, String key) {
+        publish(OP_KEYS, cacheName, List.of(key));
+    }
+
+    void publishClear(String cacheName) {
+        publish(OP_CLEAR, cacheName, List.of());
+    }
+
+    /**
+     * Apply an invalidation message from another node; a node's own messages are ignored
+     */
+    public void onInvalidation(String message) {
+        String[] parts = message.split(String.valueOf(SEPARATOR), -1);
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        if (receivedCounter != null) {
+            receivedCounter.increment();
+        }
+        // Caches this node never opened have nothing to drop
+        Cache cache = caches.get(parts[2]);
+        if (!(cache instanceof TwoLevelCache)) {
+            return;
+        }
+        LocalCache local = ((TwoLevelCache) cache).getLocal();
+        switch (parts[1]) {
+            case OP_KEYS:
+                for (int i = 3; i < parts.length; i++) {
+                    local.evict(parts[i]);
+                }
+                break;
+            case OP_PREFIX:
+                for (int i = 3; i < parts.length; i++) {
+                    local.evictByPrefix(parts[i]);
+                }
+                break;
+            case OP_CLEAR:
+                local.clear();
+                break;
+            default:
+                logger.debug("Ignoring unknown cache invalidation: {}", parts[1]);
+        }
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    /**
+     * L1 size, hits, misses and evictions per cache, plus invalidation traffic
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> perCache = new LinkedHashMap<>();
+        caches.forEach((name, cache) -> {
+            if (!(cache instanceof TwoLevelCache)) {
+                perCache.put(name, Map.of("l1", false));
+                return;
+            }
+            LocalCache local = ((TwoLevelCache) cache).getLocal();
+            long lookups = local.getHits() + local.getMisses();
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("l1", true);
+            stats.put("size", local.size());
+            stats.put("maxSize", local.getMaxSize());
+            stats.put("ttlSeconds", Duration.ofNanos(local.getTtlNanos()).getSeconds());
+            stats.put("hits", local.getHits());
+            stats.put("misses", local.getMisses());
+            stats.put("hitRatio", lookups == 0 ? 0.0 : (double) local.getHits() / lookups);
+            stats.put("evictions", local.getEvictions());
+            stats.put("admissionRejections", local.getRejections());
+            perCache.put(name, stats);
+        });
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("nodeId", nodeId);
+        stats.put("l2", remote != null ? remote.getClass().getSimpleName() : null);
+        stats.put("channel", publisher != null ? channel : null);
+        stats.put("invalidationsPublished", publishedCounter != null ? (long) publishedCounter.count() : 0L);
+        stats.put("invalidationsReceived", receivedCounter != null ? (long) receivedCounter.count() : 0L);
+        stats.put("publishFailures", publishFailureCounter != null ? (long) publishFailureCounter.count() : 0L);
+        stats.put("caches", perCache);
+        return stats;
+    }
+
+    private LocalCache local(String cacheName) {
+        Cache cache = getCache(cacheName);
+        return cache instanceof TwoLevelCache ? ((TwoLevelCache) cache).getLocal() : null;
+    }
+
+    private void publish(String op, String cacheName, Collection<String> values) {
+        if (publisher == null) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder(64).append(nodeId).append(SEPARATOR).append(op).append(SEPARATOR)
+                .append(cacheName);
+        values.forEach(value -> sb.append(SEPARATOR).append(value));
+        try {
+            publisher.convertAndSend(channel, sb.toString());
+            if (publishedCounter != null) {
+                publishedCounter.increment();
+            }
+        } catch (Exception e) {
+            // Other nodes catch up when their L1 copies expire
+            if (publishFailureCounter != null) {
+                publishFailureCounter.increment();
+            }
+            logger.warn("Failed to publish cache invalidation for {}: {}", cacheName, e.getMessage());
+        }
+    }
+
+    private void registerMeters(Cache cache) {
+        if (!(cache instanceof TwoLevelCache)) {
+            return;
+        }
+        LocalCache local = ((TwoLevelCache) cache).getLocal();
+        String name = cache.getName();
+        Gauge.builder("cache.l1.size", local, LocalCache::size)
+                .description("Entries in the node-local cache level")
+                .tag("cache", name)
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.l1.hits", local, LocalCache::getHits)
+                .description("Lookups answered by the node-local cache level")
+                .tag("cache", name)
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.l1.misses", local, LocalCache::getMisses)
+                .description("Lookups that fell through to the shared cache level")
+                .tag("cache", name)
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.l1.evictions", local, LocalCache::getEvictions)
+                .description("Entries evicted or refused admission by the node-local cache level")
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * L1 size and TTL of one cache
+     */
+    public static final class Policy {
+        private final int maxSize;
+        private final Duration ttl;
+
+        public Policy(int maxSize, Duration ttl) {
+            this.maxSize = maxSize;
+            this.ttl = ttl;
+        }
+
+        /**
+         * Parse "cacheName=maxSize/ttlSeconds" entries; malformed ones are skipped
+         */
+        public static Map<String, Policy> parseAll(List<String> entries) {
+            Map<String, Policy> policies = new HashMap<>();
+            if (entries == null) {
+                return policies;
+            }
+            for (String entry : entries) {
+                int eq = entry.indexOf('=');
+                int slash = entry.indexOf('/', eq + 1);
+                if (eq <= 0 || slash < 0) {
+                    if (!entry.isBlank()) {
+                        logger.warn("Ignoring malformed cache policy: {}", entry);
+                    }
+                    continue;
+                }
+                try {
+                    policies.put(entry.substring(0, eq).trim(), new Policy(
+                            Integer.parseInt(entry.substring(eq + 1, slash).trim()),
+                            Duration.ofSeconds(Long.parseLong(entry.substring(slash + 1).trim()))));
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignoring malformed cache policy: {}", entry);
+                }
+            }
+            return policies;
+        }
+
+        public int getMaxSize() { return maxSize; }
+        public Duration getTtl() { return ttl; }
+    }
+}
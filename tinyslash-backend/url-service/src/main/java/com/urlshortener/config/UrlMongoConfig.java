@@ -60,7 +60,8 @@ public class UrlMongoConfig implements CommandLineRunner {
             "idx_created_at_desc",
             "idx_expires_cleanup",
             "idx_total_clicks_desc",
-            "idx_domain_created"
+            "idx_domain_created",
+            "idx_domain_shortcode_unique"
         };
         
         Index[] indexes = {
@@ -115,7 +116,14 @@ public class UrlMongoConfig implements CommandLineRunner {
             new Index()
                 .on("domain", org.springframework.data.domain.Sort.Direction.ASC)
                 .on("createdAt", org.springframework.data.domain.Sort.Direction.DESC)
-                .named("idx_domain_created")
+                .named("idx_domain_created"),
+            
+            // 11. Unique (domain, shortCode) pair backing the redirect resolver
+            new Index()
+                .on("domain", org.springframework.data.domain.Sort.Direction.ASC)
+                .on("shortCode", org.springframework.data.domain.Sort.Direction.ASC)
+                .unique()
+                .named("idx_domain_shortcode_unique")
         };
         
         int createdIndexes = 1; // Count the first index if it was created
@@ -1,12 +1,22 @@
 package com.urlshortener.controller;
 
+import com.urlshortener.config.TwoLevelCacheManager;
 import com.urlshortener.dto.response.ApiResponse;
+import com.urlshortener.service.BotDetectionService;
+import com.urlshortener.service.ClickArchiveService;
+import com.urlshortener.service.ClickRetentionService;
+import com.urlshortener.service.GeoIpService;
 import com.urlshortener.service.SystemHealthService;
+import com.urlshortener.service.UserAgentService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.util.Locale;
 import java.util.Map;
 
 @RestController
@@ -17,6 +27,24 @@ public class AdminSystemController {
     @Autowired
     private SystemHealthService systemHealthService;
 
+    @Autowired
+    private ClickRetentionService clickRetentionService;
+
+    @Autowired
+    private ClickArchiveService clickArchiveService;
+
+    @Autowired
+    private GeoIpService geoIpService;
+
+    @Autowired
+    private UserAgentService userAgentService;
+
+    @Autowired
+    private BotDetectionService botDetectionService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
     @GetMapping("/health")
     public ResponseEntity<ApiResponse<Map<String, Object>>> getSystemHealth() {
         try {
@@ -46,4 +74,67 @@ public class AdminSystemController {
             return ResponseEntity.ok(ApiResponse.error("Failed to fetch services health: " + e.getMessage()));
         }
     }
-}
\ No newline at end of file
+
+    @GetMapping("/click-retention")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getClickRetention() {
+        try {
+            Map<String, Object> retention = clickRetentionService.getRetentionStats();
+            return ResponseEntity.ok(ApiResponse.success(retention));
+        } catch (Exception e) {
+            return ResponseEntity.ok(ApiResponse.error("Failed to fetch click retention: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/geoip")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getGeoIp() {
+        return ResponseEntity.ok(ApiResponse.success(geoIpService.getStats()));
+    }
+
+    @GetMapping("/user-agents")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getUserAgentCache() {
+        return ResponseEntity.ok(ApiResponse.success(userAgentService.getStats()));
+    }
+
+    @GetMapping("/bots")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getBotDetection() {
+        return ResponseEntity.ok(ApiResponse.success(botDetectionService.getStats()));
+    }
+
+    @GetMapping("/caches")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getCaches() {
+        if (cacheManager instanceof TwoLevelCacheManager) {
+            return ResponseEntity.ok(ApiResponse.success(((TwoLevelCacheManager) cacheManager).getStats()));
+        }
+        return ResponseEntity.ok(ApiResponse.success(Map.of(
+                "manager", cacheManager.getClass().getSimpleName(),
+                "caches", cacheManager.getCacheNames())));
+    }
+
+    @GetMapping("/click-archive")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getClickArchive() {
+        return ResponseEntity.ok(ApiResponse.success(clickArchiveService.getArchiveStats()));
+    }
+
+    /**
+     * Long-range click group-by answered from the sealed archive segments
+     */
+    @GetMapping("/click-archive/query")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> queryClickArchive(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "country") String groupBy,
+            @RequestParam(required = false) String shortCode,
+            @RequestParam(required = false) String userId) {
+        try {
+            ClickArchiveService.GroupBy group = ClickArchiveService.GroupBy
+                    .valueOf(groupBy.toUpperCase(Locale.ROOT).replace('-', '_'));
+            Map<String, Object> result = clickArchiveService.query(from.atStartOfDay(),
+                    to.plusDays(1).atStartOfDay(), group, shortCode, userId);
+            return ResponseEntity.ok(ApiResponse.success(result));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Unknown groupBy: " + groupBy));
+        } catch (Exception e) {
+            return ResponseEntity.ok(ApiResponse.error("Failed to query click archive: " + e.getMessage()));
+        }
+    }
+}
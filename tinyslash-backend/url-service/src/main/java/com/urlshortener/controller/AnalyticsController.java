@@ -5,6 +5,7 @@ import com.urlshortener.service.AnalyticsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
 
@@ -57,6 +58,50 @@ public class AnalyticsController {
         }
     }
 
+    @GetMapping("/campaigns/{userId}")
+    @RequiresPlan(feature = "analytics")
+    public ResponseEntity<Map<String, Object>> getCampaignAnalytics(@PathVariable String userId,
+            @RequestParam(defaultValue = "30") int days) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            Map<String, Object> analytics = analyticsService.getCampaignAnalytics(userId,
+                    Math.max(1, Math.min(days, 365)));
+
+            response.put("success", true);
+            response.put("data", analytics);
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @GetMapping("/campaigns/{userId}/{campaign}")
+    @RequiresPlan(feature = "analytics")
+    public ResponseEntity<Map<String, Object>> getCampaignPerformance(@PathVariable String userId,
+            @PathVariable String campaign, @RequestParam(defaultValue = "30") int days) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            Map<String, Object> analytics = analyticsService.getCampaignPerformance(userId, campaign,
+                    Math.max(1, Math.min(days, 365)));
+
+            response.put("success", true);
+            response.put("data", analytics);
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     @GetMapping("/admin/summary")
     // @PreAuthorize("hasRole('ADMIN')") - Uncomment if security is enabled
     public ResponseEntity<Map<String, Object>> getSystemAnalytics() {
@@ -77,6 +122,27 @@ public class AnalyticsController {
         }
     }
 
+    @GetMapping("/domain/{domain}/top-links")
+    public ResponseEntity<Map<String, Object>> getDomainTopLinks(@PathVariable String domain,
+            @RequestParam(defaultValue = "10") int limit) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            List<Map<String, Object>> topLinks = analyticsService.getDomainTopLinks(domain,
+                    Math.max(1, Math.min(limit, 50)));
+
+            response.put("success", true);
+            response.put("data", topLinks);
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     @GetMapping("/realtime/{userId}")
     public ResponseEntity<Map<String, Object>> getRealtimeAnalytics(@PathVariable String userId) {
         Map<String, Object> response = new HashMap<>();
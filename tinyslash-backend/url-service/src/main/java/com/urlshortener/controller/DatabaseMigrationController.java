@@ -13,6 +13,7 @@ import org.springframework.web.bind.annotation.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.urlshortener.service.ClickStorageMigrationService;
 import com.urlshortener.service.DatabaseMigrationService;
 import com.urlshortener.service.ProductionDatabaseMigrationService;
 import com.urlshortener.model.Domain;
@@ -38,6 +39,9 @@ public class DatabaseMigrationController {
     @Autowired
     private ProductionDatabaseMigrationService productionMigrationService;
     
+    @Autowired
+    private ClickStorageMigrationService clickStorageMigrationService;
+    
     @PostMapping("/deploy-team-collaboration")
     public ResponseEntity<Map<String, Object>> deployTeamCollaboration() {
         Map<String, Object> response = new HashMap<>();
@@ -414,6 +418,63 @@ public class DatabaseMigrationController {
         }
     }
     
+    @PostMapping("/migrate-clicks-to-time-series")
+    public ResponseEntity<Map<String, Object>> migrateClicksToTimeSeries(
+            @RequestParam(defaultValue = "1000") int batchSize,
+            @RequestParam(defaultValue = "100000") long maxDocuments) {
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            logger.info("Copying up to {} clicks to the time-series collection...", maxDocuments);
+            
+            Map<String, Object> progress = clickStorageMigrationService.migrateToTimeSeries(
+                    Math.max(1, Math.min(batchSize, 10000)), Math.max(1, maxDocuments));
+            
+            response.put("success", true);
+            response.put("message", Boolean.TRUE.equals(progress.get("done"))
+                    ? "All clicks copied to the time-series collection"
+                    : "Batch copied, run again to continue");
+            response.put("data", progress);
+            response.put("timestamp", LocalDateTime.now());
+            
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            logger.error("Click time-series migration failed", e);
+            
+            response.put("success", false);
+            response.put("message", "Migration failed: " + e.getMessage());
+            response.put("error", e.getClass().getSimpleName());
+            
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+    
+    @PostMapping("/benchmark-click-storage")
+    public ResponseEntity<Map<String, Object>> benchmarkClickStorage(
+            @RequestParam(defaultValue = "100000") int rows) {
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            logger.info("Benchmarking click storage layouts with {} rows...", rows);
+            
+            response.put("success", true);
+            response.put("data", clickStorageMigrationService.benchmark(Math.max(1000, Math.min(rows, 2000000))));
+            response.put("timestamp", LocalDateTime.now());
+            
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            logger.error("Click storage benchmark failed", e);
+            
+            response.put("success", false);
+            response.put("message", "Benchmark failed: " + e.getMessage());
+            response.put("error", e.getClass().getSimpleName());
+            
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+    
     @PostMapping("/cleanup-expired-domains")
     public ResponseEntity<Map<String, Object>> cleanupExpiredDomains() {
         Map<String, Object> response = new HashMap<>();
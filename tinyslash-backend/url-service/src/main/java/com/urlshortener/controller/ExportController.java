@@ -0,0 +1,116 @@
+package com.urlshortener.controller;
+
+import com.urlshortener.service.ExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming exports of a user's links, click events and QR codes as NDJSON or
+ * CSV. Rows are written while the Mongo cursor is read, so exports of any
+ * size never build the whole result in memory.
+ */
+@RestController
+@RequestMapping("/api/v1/export")
+@CrossOrigin(origins = "*")
+public class ExportController {
+
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv");
+
+    @Autowired
+    private ExportService exportService;
+
+    @GetMapping("/links")
+    public ResponseEntity<?> exportLinks(
+            @RequestParam String userId,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return export(ExportService.Dataset.LINKS, userId, null, format, fields, from, to, gzip);
+    }
+
+    @GetMapping("/clicks")
+    public ResponseEntity<?> exportClicks(
+            @RequestParam String userId,
+            @RequestParam(required = false) String shortCode,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return export(ExportService.Dataset.CLICKS, userId, shortCode, format, fields, from, to, gzip);
+    }
+
+    @GetMapping("/qr-codes")
+    public ResponseEntity<?> exportQrCodes(
+            @RequestParam String userId,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return export(ExportService.Dataset.QR_CODES, userId, null, format, fields, from, to, gzip);
+    }
+
+    private ResponseEntity<?> export(ExportService.Dataset dataset, String userId, String shortCode,
+            String format, String fields, LocalDate from, LocalDate to, boolean gzip) {
+        Map<String, Object> response = new HashMap<>();
+
+        ExportService.Format exportFormat;
+        try {
+            exportFormat = ExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", "Unsupported export format: " + format);
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        List<String> exportFields;
+        try {
+            exportFields = exportService.resolveFields(dataset, fields);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        if (from != null && to != null && from.isAfter(to)) {
+            response.put("success", false);
+            response.put("message", "'from' must not be after 'to'");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream zipped = new GZIPOutputStream(out, 64 * 1024);
+                exportService.export(dataset, userId, shortCode, from, to, exportFields, exportFormat, zipped);
+                zipped.finish();
+            } else {
+                exportService.export(dataset, userId, shortCode, from, to, exportFields, exportFormat, out);
+            }
+            out.flush();
+        };
+
+        String extension = exportFormat == ExportService.Format.CSV ? "csv" : "ndjson";
+        String filename = dataset.name().toLowerCase(Locale.ROOT).replace('_', '-') + "-" + LocalDate.now()
+                + "." + extension + (gzip ? ".gz" : "");
+
+        return ResponseEntity.ok()
+                .contentType(gzip ? new MediaType("application", "gzip")
+                        : exportFormat == ExportService.Format.CSV ? TEXT_CSV : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+}
@@ -1,8 +1,11 @@
 package com.urlshortener.controller;
 
 import com.urlshortener.annotation.RequiresPlan;
+import com.urlshortener.dto.CursorPage;
+import com.urlshortener.dto.FileSummary;
 import com.urlshortener.model.UploadedFile;
 import com.urlshortener.service.FileUploadService;
+import com.urlshortener.service.BulkDeleteService;
 import com.urlshortener.service.DashboardService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.Resource;
@@ -28,6 +31,9 @@ public class FileController {
     @Autowired
     private DashboardService dashboardService;
 
+    @Autowired
+    private BulkDeleteService bulkDeleteService;
+
     @PostMapping("/upload")
     @RequiresPlan(feature = "fileUpload", checkLimit = true)
     public ResponseEntity<Map<String, Object>> uploadFile(
@@ -159,12 +165,21 @@ public class FileController {
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<Map<String, Object>> getUserFiles(@PathVariable String userId) {
+    public ResponseEntity<Map<String, Object>> getUserFiles(@PathVariable String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         Map<String, Object> response = new HashMap<>();
 
         try {
-            // Use cached dashboard service for better performance
-            List<UploadedFile> files = dashboardService.getUserFiles(userId);
+            // Keyset-paged when a cursor or limit is given, otherwise the cached full list
+            CursorPage<FileSummary> page = null;
+            List<FileSummary> files;
+            if (cursor != null || limit != null) {
+                page = fileUploadService.getUserFilesPage(userId, cursor, limit);
+                files = page.getItems();
+            } else {
+                files = dashboardService.getUserFiles(userId);
+            }
 
             List<Map<String, Object>> filesData = files.stream().map(file -> {
                 Map<String, Object> fileData = new HashMap<>();
@@ -188,6 +203,10 @@ public class FileController {
             response.put("success", true);
             response.put("count", files.size());
             response.put("data", filesData);
+            if (page != null) {
+                response.put("nextCursor", page.getNextCursor());
+                response.put("hasMore", page.hasMore());
+            }
 
             return ResponseEntity.ok(response);
 
@@ -200,10 +219,19 @@ public class FileController {
 
     @GetMapping("/admin/all")
     @org.springframework.security.access.prepost.PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Map<String, Object>> getAllFilesForAdmin() {
+    public ResponseEntity<Map<String, Object>> getAllFilesForAdmin(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         Map<String, Object> response = new HashMap<>();
         try {
-            List<UploadedFile> files = fileUploadService.getAllFiles();
+            CursorPage<UploadedFile> page = null;
+            List<UploadedFile> files;
+            if (cursor != null || limit != null) {
+                page = fileUploadService.getAllFilesPage(cursor, limit);
+                files = page.getItems();
+            } else {
+                files = fileUploadService.getAllFiles();
+            }
 
             // Map to response format
             List<Map<String, Object>> fileList = files.stream().map(file -> {
@@ -238,7 +266,15 @@ public class FileController {
 
             response.put("success", true);
             response.put("files", fileList);
+            if (page != null) {
+                response.put("nextCursor", page.getNextCursor());
+                response.put("hasMore", page.hasMore());
+            }
             return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", e.getMessage());
@@ -328,19 +364,11 @@ public class FileController {
                 return ResponseEntity.badRequest().body(response);
             }
 
-            int successCount = 0;
-            int failCount = 0;
-            List<String> errors = new ArrayList<>();
-
-            for (String fileCode : fileCodes) {
-                try {
-                    fileUploadService.deleteFile(fileCode, userId);
-                    successCount++;
-                } catch (Exception e) {
-                    failCount++;
-                    errors.add(fileCode + ": " + e.getMessage());
-                }
-            }
+            // One owned-keys lookup, one deleteMany and one batched cache eviction
+            BulkDeleteService.BulkDeleteResult result = bulkDeleteService.deleteFiles(fileCodes, userId);
+            long successCount = result.getDeletedCount();
+            int failCount = result.getFailedCount();
+            List<String> errors = result.getErrors();
 
             response.put("success", true);
             response.put("message", String.format("Deleted %d files successfully", successCount));
@@ -197,8 +197,8 @@ public class MonitoringController {
             cacheService.clearEntireCache("userAnalytics");
             cacheService.clearEntireCache("urlAnalytics");
             cacheService.clearEntireCache("userUrls");
-            cacheService.clearEntireCache("userQRCodes");
-            cacheService.clearEntireCache("userFiles");
+            cacheService.clearEntireCache("userQRCodeSummaries");
+            cacheService.clearEntireCache("userFileSummaries");
             cacheService.clearEntireCache("dashboardOverview");
             cacheService.clearEntireCache("countryStats");
             cacheService.clearEntireCache("realtimeAnalytics");
@@ -1,8 +1,11 @@
 package com.urlshortener.controller;
 
 import com.urlshortener.annotation.RequiresPlan;
+import com.urlshortener.dto.CursorPage;
+import com.urlshortener.dto.QrCodeSummary;
 import com.urlshortener.model.QrCode;
 import com.urlshortener.service.QrCodeService;
+import com.urlshortener.service.BulkDeleteService;
 import com.urlshortener.service.DashboardService;
 import com.urlshortener.service.SubscriptionService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,6 +31,9 @@ public class QrCodeController {
     @Autowired
     private DashboardService dashboardService;
 
+    @Autowired
+    private BulkDeleteService bulkDeleteService;
+
     @PostMapping
     @RequiresPlan(feature = "qrCreation", checkLimit = true)
     public ResponseEntity<Map<String, Object>> createQrCode(@RequestBody Map<String, Object> request) {
@@ -175,12 +181,21 @@ public class QrCodeController {
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<Map<String, Object>> getUserQrCodes(@PathVariable String userId) {
+    public ResponseEntity<Map<String, Object>> getUserQrCodes(@PathVariable String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         Map<String, Object> response = new HashMap<>();
 
         try {
-            // Use cached dashboard service for better performance
-            List<QrCode> qrCodes = dashboardService.getUserQRCodes(userId);
+            // Keyset-paged when a cursor or limit is given, otherwise the cached full list
+            CursorPage<QrCodeSummary> page = null;
+            List<QrCodeSummary> qrCodes;
+            if (cursor != null || limit != null) {
+                page = qrCodeService.getUserQrCodesPage(userId, cursor, limit);
+                qrCodes = page.getItems();
+            } else {
+                qrCodes = dashboardService.getUserQRCodes(userId);
+            }
 
             List<Map<String, Object>> qrCodesData = qrCodes.stream().map(qr -> {
                 Map<String, Object> qrData = new HashMap<>();
@@ -208,6 +223,10 @@ public class QrCodeController {
             response.put("success", true);
             response.put("count", qrCodes.size());
             response.put("data", qrCodesData);
+            if (page != null) {
+                response.put("nextCursor", page.getNextCursor());
+                response.put("hasMore", page.hasMore());
+            }
 
             return ResponseEntity.ok(response);
 
@@ -322,19 +341,11 @@ public class QrCodeController {
                 return ResponseEntity.badRequest().body(response);
             }
 
-            int successCount = 0;
-            int failCount = 0;
-            List<String> errors = new ArrayList<>();
-
-            for (String qrCodeId : qrCodeIds) {
-                try {
-                    qrCodeService.deleteQrCode(qrCodeId, userId);
-                    successCount++;
-                } catch (Exception e) {
-                    failCount++;
-                    errors.add(qrCodeId + ": " + e.getMessage());
-                }
-            }
+            // One owned-keys lookup, one deleteMany and one batched cache eviction
+            BulkDeleteService.BulkDeleteResult result = bulkDeleteService.deleteQrCodes(qrCodeIds, userId);
+            long successCount = result.getDeletedCount();
+            int failCount = result.getFailedCount();
+            List<String> errors = result.getErrors();
 
             response.put("success", true);
             response.put("message", String.format("Deleted %d QR codes successfully", successCount));
@@ -466,10 +477,19 @@ public class QrCodeController {
     // Admin Endpoints
     @GetMapping("/admin/all")
     @org.springframework.security.access.prepost.PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Map<String, Object>> getAllQrCodesForAdmin() {
+    public ResponseEntity<Map<String, Object>> getAllQrCodesForAdmin(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         Map<String, Object> response = new HashMap<>();
         try {
-            List<QrCode> qrCodes = qrCodeService.getAllQrCodes();
+            CursorPage<QrCode> page = null;
+            List<QrCode> qrCodes;
+            if (cursor != null || limit != null) {
+                page = qrCodeService.getAllQrCodesPage(cursor, limit);
+                qrCodes = page.getItems();
+            } else {
+                qrCodes = qrCodeService.getAllQrCodes();
+            }
 
             // Map to response format
             List<Map<String, Object>> qrCodesData = qrCodes.stream().map(qr -> {
@@ -507,8 +527,16 @@ public class QrCodeController {
             response.put("success", true);
             response.put("count", qrCodes.size());
             response.put("qrCodes", qrCodesData);
+            if (page != null) {
+                response.put("nextCursor", page.getNextCursor());
+                response.put("hasMore", page.hasMore());
+            }
 
             return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", "Error fetching all QR codes: " + e.getMessage());
@@ -1,8 +1,16 @@
 package com.urlshortener.controller;
 
+import com.urlshortener.dto.RedirectEntry;
+import com.urlshortener.dto.RedirectResolution;
+import com.urlshortener.model.ClickEvent;
 import com.urlshortener.model.ShortenedUrl;
+import com.urlshortener.service.BotDetectionService;
+import com.urlshortener.service.ClickCounterService;
+import com.urlshortener.service.DomainRoutingTable;
+import com.urlshortener.service.DomainRoutingTable.HostRoute;
+import com.urlshortener.service.RedirectResolver;
 import com.urlshortener.service.UrlShorteningService;
-import com.urlshortener.service.AnalyticsService;
+import com.urlshortener.service.ClickIngestionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -10,6 +18,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.view.RedirectView;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.time.LocalDateTime;
+import java.util.Locale;
 import java.util.Optional;
 
 @RestController
@@ -19,19 +30,34 @@ public class RedirectController {
     @Autowired
     private UrlShorteningService urlShorteningService;
     
-    @Autowired(required = false)
-    private AnalyticsService analyticsService;
+    @Autowired
+    private ClickIngestionService clickIngestionService;
+
+    @Autowired
+    private ClickCounterService clickCounterService;
+
+    @Autowired
+    private RedirectResolver redirectResolver;
+
+    @Autowired
+    private DomainRoutingTable domainRoutingTable;
+
+    @Autowired
+    private BotDetectionService botDetectionService;
     
     @GetMapping("/debug/{shortCode}")
     public ResponseEntity<String> debugUrl(@PathVariable String shortCode, HttpServletRequest request) {
         try {
-            String hostDomain = getOriginalHostDomain(request);
+            HostRoute route = resolveHostRoute(request);
+            String hostDomain = route.getDomainKey();
             
             StringBuilder debug = new StringBuilder();
             debug.append("🔍 DEBUG INFO:\n");
             debug.append("ShortCode: ").append(shortCode).append("\n");
             debug.append("HostDomain: ").append(hostDomain).append("\n");
             debug.append("ServerName: ").append(request.getServerName()).append("\n");
+            debug.append("Custom domain: ").append(route.isCustom())
+                    .append(" (owner: ").append(route.getOwnerType()).append("/").append(route.getOwnerId()).append(")\n");
             
             // Try all lookup methods
             Optional<ShortenedUrl> urlOpt1 = urlShorteningService.getByShortCodeAndDomain(shortCode, hostDomain);
@@ -43,6 +69,11 @@ public class RedirectController {
             Optional<ShortenedUrl> urlOpt3 = urlShorteningService.findByShortCodeIgnoreDomain(shortCode);
             debug.append("Lookup 3 (ignore domain): ").append(urlOpt3.isPresent() ? "FOUND" : "NOT FOUND").append("\n");
             
+            RedirectResolution resolution = redirectResolver.resolve(shortCode, hostDomain);
+            debug.append("Resolver: ").append(resolution.getStatus())
+                    .append(" (domainKey: ").append(resolution.getDomainKey())
+                    .append(", domainMatched: ").append(resolution.isDomainMatched()).append(")\n");
+            
             if (urlOpt3.isPresent()) {
                 ShortenedUrl url = urlOpt3.get();
                 debug.append("Found URL:\n");
@@ -59,178 +90,104 @@ public class RedirectController {
     }
 
     @GetMapping("/{shortCode}")
-    public RedirectView redirect(@PathVariable String shortCode, HttpServletRequest request) {
+    public RedirectView redirect(@PathVariable String shortCode, HttpServletRequest request,
+            HttpServletResponse response) {
         try {
-            // Get the host domain from the request - check proxy headers first
-            String hostDomain = getOriginalHostDomain(request);
-            
-            System.out.println("🔍 Redirect Request - ShortCode: " + shortCode + ", HostDomain: " + hostDomain);
-            
-            // Enhanced URL lookup with multiple fallback strategies
-            Optional<ShortenedUrl> urlOpt = Optional.empty();
-            
-            try {
-                // Strategy 1: Find by shortCode and exact domain match
-                urlOpt = urlShorteningService.getByShortCodeAndDomain(shortCode, hostDomain);
-                if (urlOpt.isPresent()) {
-                    System.out.println("✅ Found URL with exact domain match: " + hostDomain);
-                }
-            } catch (Exception e) {
-                System.err.println("⚠️ Domain lookup failed, trying fallbacks: " + e.getMessage());
-            }
-            
-            // Strategy 2: For default domain, try with null domain (legacy URLs)
-            if (urlOpt.isEmpty() && "pebly.vercel.app".equals(hostDomain)) {
-                try {
-                    urlOpt = urlShorteningService.getByShortCodeAndDomain(shortCode, null);
-                    if (urlOpt.isPresent()) {
-                        System.out.println("✅ Found URL with null domain (legacy default domain URL)");
-                    }
-                } catch (Exception e) {
-                    System.err.println("⚠️ Null domain lookup failed: " + e.getMessage());
-                }
-            }
-            
-            // Strategy 3: Try shortCode only (most permissive fallback)
-            if (urlOpt.isEmpty()) {
-                try {
-                    urlOpt = urlShorteningService.getByShortCode(shortCode);
-                    if (urlOpt.isPresent()) {
-                        System.out.println("✅ Found URL with shortCode-only lookup");
-                    }
-                } catch (Exception e) {
-                    System.err.println("⚠️ ShortCode-only lookup failed: " + e.getMessage());
-                }
-            }
-            
-            // Strategy 4: Final fallback using ignore domain method
-            if (urlOpt.isEmpty()) {
-                try {
-                    System.out.println("🔍 Trying final fallback search for shortCode: " + shortCode);
-                    urlOpt = urlShorteningService.findByShortCodeIgnoreDomain(shortCode);
-                    if (urlOpt.isPresent()) {
-                        System.out.println("✅ Found URL with fallback search: " + urlOpt.get().getOriginalUrl());
-                    }
-                } catch (Exception e) {
-                    System.err.println("⚠️ Final fallback failed: " + e.getMessage());
-                }
-            }
-            
-            if (urlOpt.isEmpty()) {
-                System.out.println("❌ URL not found for shortCode: " + shortCode);
-                // Redirect to a 404 page or error page
-                RedirectView redirectView = new RedirectView();
-                redirectView.setUrl("https://pebly.vercel.app/404?error=url-not-found");
-                redirectView.setStatusCode(HttpStatus.NOT_FOUND);
-                return redirectView;
-            }
-            
-            ShortenedUrl url = urlOpt.get();
-            
-            // ✅ CHECK PASSWORD PROTECTION
-            if (url.isPasswordProtected()) {
-                System.out.println("🔒 Password-protected link detected - redirecting to password page");
-                // Redirect to frontend password page
-                RedirectView redirectView = new RedirectView();
-                redirectView.setUrl("https://pebly.vercel.app/redirect/" + shortCode);
-                redirectView.setStatusCode(HttpStatus.TEMPORARY_REDIRECT);
-                return redirectView;
-            }
-            
-            // ✅ CHECK IF URL IS ACTIVE
-            if (!url.isActive()) {
-                System.out.println("❌ URL is not active");
-                RedirectView redirectView = new RedirectView();
-                redirectView.setUrl("https://pebly.vercel.app/404?error=url-inactive");
-                redirectView.setStatusCode(HttpStatus.GONE);
-                return redirectView;
-            }
-            
-            // ✅ CHECK IF URL HAS EXPIRED
-            if (url.getExpiresAt() != null && url.getExpiresAt().isBefore(java.time.LocalDateTime.now())) {
-                System.out.println("❌ URL has expired");
-                RedirectView redirectView = new RedirectView();
-                redirectView.setUrl("https://pebly.vercel.app/404?error=url-expired");
-                redirectView.setStatusCode(HttpStatus.GONE);
-                return redirectView;
-            }
-            
-            // ✅ CHECK IF MAX CLICKS LIMIT REACHED
-            if (url.getMaxClicks() != null && url.getTotalClicks() >= url.getMaxClicks()) {
-                System.out.println("❌ URL has reached maximum clicks limit");
-                RedirectView redirectView = new RedirectView();
-                redirectView.setUrl("https://pebly.vercel.app/404?error=max-clicks-reached");
-                redirectView.setStatusCode(HttpStatus.GONE);
-                return redirectView;
+            // Route the host from the request - check proxy headers first
+            HostRoute route = resolveHostRoute(request);
+
+            // Single cache hit or indexed lookup, classified into a typed result
+            RedirectResolution resolution = redirectResolver.resolve(shortCode, route.getDomainKey());
+
+            switch (resolution.getStatus()) {
+                case NOT_FOUND:
+                    return buildRedirect("https://pebly.vercel.app/404?error=url-not-found", HttpStatus.NOT_FOUND);
+                case PASSWORD_PROTECTED:
+                    // Redirect to frontend password page
+                    return buildRedirect("https://pebly.vercel.app/redirect/" + shortCode,
+                            HttpStatus.TEMPORARY_REDIRECT);
+                case INACTIVE:
+                    return buildRedirect("https://pebly.vercel.app/404?error=url-inactive", HttpStatus.GONE);
+                case EXPIRED:
+                    return buildRedirect("https://pebly.vercel.app/404?error=url-expired", HttpStatus.GONE);
+                case MAX_CLICKS_REACHED:
+                    return buildRedirect("https://pebly.vercel.app/404?error=max-clicks-reached", HttpStatus.GONE);
+                default:
+                    break;
             }
-            
-            // Record analytics if service is available
-            if (analyticsService != null) {
-                try {
-                    String userAgent = request.getHeader("User-Agent");
-                    String referer = request.getHeader("Referer");
-                    String clientIp = getClientIpAddress(request);
-                    
-                    analyticsService.recordClick(shortCode, clientIp, userAgent, referer, 
-                                                null, null, null, null, null);
-                } catch (Exception e) {
-                    // Log error but don't fail the redirect
-                    System.err.println("Failed to record analytics: " + e.getMessage());
+
+            RedirectEntry entry = resolution.getEntry();
+            domainRoutingTable.recordRedirect(route);
+            
+            // Hand the raw click to the async ingestion pipeline; it records the
+            // event and bumps the link counters, so nothing here waits on Mongo.
+            // Crawlers and link previews only bump the link's bot counter.
+            // Untracked links still bump totalClicks so maxClicks keeps limiting them.
+            String ipAddress = getClientIpAddress(request);
+            String userAgent = request.getHeader("User-Agent");
+            String bot = botDetectionService.classify(userAgent, ipAddress, request.getHeader("Accept-Language"));
+            if (bot != null) {
+                if (entry.isTrackClicks()) {
+                    botDetectionService.recordBotClick(shortCode, entry.getUserId(), bot);
                 }
+            } else if (botDetectionService.isPrefetch(getPurpose(request))) {
+                // A cached 301 would serve the real navigation from the browser and
+                // lose the click; answer uncacheably so the navigation comes back
+                response.setHeader("Cache-Control", "no-store");
+                return buildRedirect(entry.getOriginalUrl(), HttpStatus.TEMPORARY_REDIRECT);
+            } else if (entry.isTrackClicks()) {
+                clickIngestionService.submit(new ClickEvent(shortCode, entry.getUserId(), entry.getTeamId(),
+                        entry.getDomain(), ipAddress, userAgent, request.getHeader("Referer"),
+                        LocalDateTime.now(), getEdgeCountry(request), null, null, null, null,
+                        entry.getUtm()));
+            } else {
+                clickCounterService.increment(shortCode, entry.getUserId(), "totalClicks", 1);
             }
             
-            // Increment click count
-            urlShorteningService.incrementClicks(shortCode);
-            
             // Perform the redirect
-            System.out.println("✅ Redirecting to: " + url.getOriginalUrl());
-            RedirectView redirectView = new RedirectView();
-            redirectView.setUrl(url.getOriginalUrl());
-            redirectView.setStatusCode(HttpStatus.MOVED_PERMANENTLY);
-            return redirectView;
+            return buildRedirect(entry.getOriginalUrl(), HttpStatus.MOVED_PERMANENTLY);
             
         } catch (Exception e) {
             System.err.println("Redirect error: " + e.getMessage());
             // Redirect to error page
-            RedirectView redirectView = new RedirectView();
-            redirectView.setUrl("https://pebly.vercel.app/404?error=redirect-failed");
-            redirectView.setStatusCode(HttpStatus.INTERNAL_SERVER_ERROR);
-            return redirectView;
+            return buildRedirect("https://pebly.vercel.app/404?error=redirect-failed",
+                    HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
+
+    private RedirectView buildRedirect(String target, HttpStatus status) {
+        RedirectView redirectView = new RedirectView();
+        redirectView.setUrl(target);
+        redirectView.setStatusCode(status);
+        return redirectView;
+    }
     
     /**
-     * Get the original host domain, checking proxy headers first for custom domains
+     * Route the original host, checking proxy headers first for custom domains
      */
-    private String getOriginalHostDomain(HttpServletRequest request) {
+    private HostRoute resolveHostRoute(HttpServletRequest request) {
         // For custom domains coming through Cloudflare Worker proxy
-        String xForwardedHost = request.getHeader("X-Forwarded-Host");
-        if (xForwardedHost != null && !xForwardedHost.isEmpty() && 
-            !xForwardedHost.contains("onrender.com") &&
-            !xForwardedHost.contains("pebly.vercel.app")) { // Don't treat default domain as custom
-            System.out.println("🌐 Custom Domain via X-Forwarded-Host: " + xForwardedHost);
-            return xForwardedHost;
+        HostRoute forwarded = customHostRoute(request.getHeader("X-Forwarded-Host"));
+        if (forwarded != null) {
+            return forwarded;
         }
-        
-        String xOriginalHost = request.getHeader("X-Original-Host");
-        if (xOriginalHost != null && !xOriginalHost.isEmpty() && 
-            !xOriginalHost.contains("onrender.com") &&
-            !xOriginalHost.contains("pebly.vercel.app")) { // Don't treat default domain as custom
-            System.out.println("🌐 Custom Domain via X-Original-Host: " + xOriginalHost);
-            return xOriginalHost;
+
+        HostRoute original = customHostRoute(request.getHeader("X-Original-Host"));
+        if (original != null) {
+            return original;
         }
-        
-        // For default domain requests (either direct backend access or via Vercel)
-        String serverName = request.getServerName();
-        System.out.println("🌐 Server Name: " + serverName);
-        
-        // Normalize default domain requests to use the frontend domain
-        if (serverName.contains("onrender.com") || serverName.contains("pebly.vercel.app")) {
-            System.out.println("🌐 Normalized to Default Domain: pebly.vercel.app");
-            return "pebly.vercel.app";
+
+        // Direct backend access or via Vercel: default hosts normalize to the default domain
+        return domainRoutingTable.route(request.getServerName());
+    }
+
+    private HostRoute customHostRoute(String header) {
+        if (header == null || header.isEmpty()) {
+            return null;
         }
-        
-        return serverName;
+        HostRoute route = domainRoutingTable.route(header);
+        // Don't treat default domain as custom
+        return route.getDomainKey().equals(domainRoutingTable.getDefaultDomainKey()) ? null : route;
     }
     
     private String getClientIpAddress(HttpServletRequest request) {
@@ -246,4 +203,30 @@ public class RedirectController {
         
         return request.getRemoteAddr();
     }
+
+    /**
+     * Country Cloudflare resolved for the visitor, if the request came through it.
+     * XX (unknown) and T1 (Tor) are left to the geo database.
+     */
+    private String getEdgeCountry(HttpServletRequest request) {
+        String country = request.getHeader("CF-IPCountry");
+        if (country == null || country.length() != 2 || "XX".equals(country) || "T1".equals(country)) {
+            return null;
+        }
+        return country.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Prefetch/preview intent, under whichever header name the client uses
+     */
+    private String getPurpose(HttpServletRequest request) {
+        String purpose = request.getHeader("Sec-Purpose");
+        if (purpose == null) {
+            purpose = request.getHeader("Purpose");
+        }
+        if (purpose == null) {
+            purpose = request.getHeader("X-Purpose");
+        }
+        return purpose;
+    }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.urlshortener.controller;
 
 import com.urlshortener.model.OptimizedDomain;
 import com.urlshortener.repository.OptimizedDomainRepository;
+import com.urlshortener.service.DomainRoutingTable;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.http.ResponseEntity;
@@ -27,6 +28,9 @@ public class SimpleOptimizedDomainController {
     
     @Autowired
     private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private DomainRoutingTable domainRoutingTable;
     
     /**
      * Create optimized domain with production-ready schema (simplified response)
@@ -212,6 +216,7 @@ public class SimpleOptimizedDomainController {
             domain.updatePerformanceMetrics(42);
             
             OptimizedDomain savedDomain = domainRepository.save(domain);
+            domainRoutingTable.refresh();
             
             response.put("success", true);
             response.put("message", "Domain verified and SSL activated!");
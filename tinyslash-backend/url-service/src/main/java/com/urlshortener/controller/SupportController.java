@@ -1,5 +1,6 @@
 package com.urlshortener.controller;
 
+import com.urlshortener.dto.CursorPage;
 import com.urlshortener.model.SupportTicket;
 import com.urlshortener.model.SupportResponse;
 import com.urlshortener.service.SupportService;
@@ -72,13 +73,30 @@ public class SupportController {
      */
     @GetMapping("/admin/all")
     // @PreAuthorize("hasRole('ADMIN')") - Uncomment if security is enabled
-    public ResponseEntity<Map<String, Object>> getAllTickets() {
+    public ResponseEntity<Map<String, Object>> getAllTickets(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         Map<String, Object> response = new HashMap<>();
         try {
-            List<SupportTicket> tickets = supportService.getAllTickets();
+            CursorPage<SupportTicket> page = null;
+            List<SupportTicket> tickets;
+            if (cursor != null || limit != null) {
+                page = supportService.getAllTicketsPage(cursor, limit);
+                tickets = page.getItems();
+            } else {
+                tickets = supportService.getAllTickets();
+            }
             response.put("success", true);
             response.put("data", tickets);
+            if (page != null) {
+                response.put("nextCursor", page.getNextCursor());
+                response.put("hasMore", page.hasMore());
+            }
             return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
         } catch (Exception e) {
             logger.error("Error fetching all tickets", e);
             response.put("success", false);
@@ -1,13 +1,25 @@
 package com.urlshortener.controller;
 
 import com.urlshortener.annotation.RequiresPlan;
+import com.urlshortener.dto.CursorPage;
+import com.urlshortener.dto.LinkSummary;
 import com.urlshortener.model.ShortenedUrl;
 import com.urlshortener.service.UrlShorteningService;
 import com.urlshortener.service.AnalyticsService;
+import com.urlshortener.service.BulkDeleteService;
 import com.urlshortener.service.DashboardService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.List;
@@ -29,6 +41,15 @@ public class UrlController {
     @Autowired
     private DashboardService dashboardService;
 
+    @Autowired
+    private BulkDeleteService bulkDeleteService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.bulk-urls.max-items:10000}")
+    private int maxBatchSize;
+
     @PostMapping("/fix-urls")
     public ResponseEntity<Map<String, Object>> fixExistingUrls() {
         Map<String, Object> response = new HashMap<>();
@@ -223,6 +244,58 @@ public class UrlController {
         }
     }
 
+    /**
+     * Bulk link creation. Accepts a JSON array or an NDJSON stream of entries
+     * shaped like the single-create request and streams back one NDJSON result
+     * per entry, in input order.
+     */
+    @PostMapping(value = "/batch", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    @RequiresPlan(feature = "urlCreation", checkLimit = true)
+    public ResponseEntity<?> createShortUrlsBatch(
+            @RequestParam String userId,
+            @RequestParam(defaultValue = "USER") String scopeType,
+            @RequestParam(required = false) String scopeId,
+            @RequestParam(required = false) String customDomain,
+            HttpServletRequest httpRequest) {
+        Map<String, Object> response = new HashMap<>();
+
+        List<Map<String, Object>> items = new ArrayList<>();
+        try (MappingIterator<Map<String, Object>> entries = objectMapper
+                .readerFor(new TypeReference<Map<String, Object>>() {})
+                .readValues(httpRequest.getInputStream())) {
+            while (entries.hasNextValue()) {
+                if (items.size() >= maxBatchSize) {
+                    response.put("success", false);
+                    response.put("message", "Batch exceeds the maximum of " + maxBatchSize + " entries");
+                    return ResponseEntity.status(413).body(response);
+                }
+                items.add(entries.nextValue());
+            }
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Invalid batch payload: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        String effectiveScopeId = scopeId != null ? scopeId : userId;
+        StreamingResponseBody body = out -> {
+            urlShorteningService.createShortUrlsBatch(userId, scopeType, effectiveScopeId, customDomain, items,
+                    result -> {
+                        try {
+                            out.write(objectMapper.writeValueAsBytes(result));
+                            out.write('\n');
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+            out.flush();
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     @GetMapping("/info/{shortCode}")
     public ResponseEntity<Map<String, Object>> getUrl(@PathVariable String shortCode) {
         Map<String, Object> response = new HashMap<>();
@@ -262,33 +335,28 @@ public class UrlController {
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<Map<String, Object>> getUserUrls(@PathVariable String userId) {
+    public ResponseEntity<Map<String, Object>> getUserUrls(@PathVariable String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         Map<String, Object> response = new HashMap<>();
 
         try {
-            // Use cached dashboard service for better performance
-            List<ShortenedUrl> urls = dashboardService.getUserUrls(userId);
+            // Paged variant: keyset pagination with per-page caching
+            if (cursor != null || limit != null) {
+                CursorPage<LinkSummary> page = dashboardService.getUserUrlsPage(userId, cursor, limit);
+                response.put("success", true);
+                response.put("count", page.size());
+                response.put("data", page.getItems().stream().map(this::toUserUrlData).toList());
+                response.put("nextCursor", page.getNextCursor());
+                response.put("hasMore", page.hasMore());
+                return ResponseEntity.ok(response);
+            }
 
-            List<Map<String, Object>> urlsData = urls.stream().map(url -> {
-                Map<String, Object> urlData = new HashMap<>();
-                urlData.put("id", url.getId());
-                urlData.put("shortCode", url.getShortCode());
-                urlData.put("shortUrl", url.getShortUrl());
-                urlData.put("originalUrl", url.getOriginalUrl());
-                urlData.put("title", url.getTitle());
-                urlData.put("description", url.getDescription());
-                urlData.put("totalClicks", url.getTotalClicks());
-                urlData.put("uniqueClicks", url.getUniqueClicks());
-                urlData.put("createdAt", url.getCreatedAt());
-                urlData.put("lastClickedAt", url.getLastClickedAt());
-                urlData.put("isPasswordProtected", url.isPasswordProtected());
-                urlData.put("hasQrCode", url.isHasQrCode());
-                return urlData;
-            }).toList();
+            List<LinkSummary> urls = dashboardService.getUserUrls(userId);
 
             response.put("success", true);
             response.put("count", urls.size());
-            response.put("data", urlsData);
+            response.put("data", urls.stream().map(this::toUserUrlData).toList());
 
             return ResponseEntity.ok(response);
 
@@ -299,6 +367,23 @@ public class UrlController {
         }
     }
 
+    private Map<String, Object> toUserUrlData(LinkSummary url) {
+        Map<String, Object> urlData = new HashMap<>();
+        urlData.put("id", url.getId());
+        urlData.put("shortCode", url.getShortCode());
+        urlData.put("shortUrl", url.getShortUrl());
+        urlData.put("originalUrl", url.getOriginalUrl());
+        urlData.put("title", url.getTitle());
+        urlData.put("description", url.getDescription());
+        urlData.put("totalClicks", url.getTotalClicks());
+        urlData.put("uniqueClicks", url.getUniqueClicks());
+        urlData.put("createdAt", url.getCreatedAt());
+        urlData.put("lastClickedAt", url.getLastClickedAt());
+        urlData.put("isPasswordProtected", url.isPasswordProtected());
+        urlData.put("hasQrCode", url.isHasQrCode());
+        return urlData;
+    }
+
     @PutMapping("/{shortCode}")
     public ResponseEntity<Map<String, Object>> updateUrl(@PathVariable String shortCode,
             @RequestBody Map<String, Object> request) {
@@ -381,19 +466,11 @@ public class UrlController {
                 return ResponseEntity.badRequest().body(response);
             }
 
-            int successCount = 0;
-            int failCount = 0;
-            List<String> errors = new ArrayList<>();
-
-            for (String shortCode : shortCodes) {
-                try {
-                    urlShorteningService.deleteUrl(shortCode, userId);
-                    successCount++;
-                } catch (Exception e) {
-                    failCount++;
-                    errors.add(shortCode + ": " + e.getMessage());
-                }
-            }
+            // One owned-keys lookup, one deleteMany and one batched cache eviction
+            BulkDeleteService.BulkDeleteResult result = bulkDeleteService.deleteUrls(shortCodes, userId);
+            long successCount = result.getDeletedCount();
+            int failCount = result.getFailedCount();
+            List<String> errors = result.getErrors();
 
             response.put("success", true);
             response.put("message", String.format("Deleted %d URLs successfully", successCount));
@@ -446,10 +523,22 @@ public class UrlController {
     @GetMapping("/scope/{scopeType}/{scopeId}")
     public ResponseEntity<Map<String, Object>> getUrlsByScope(
             @PathVariable String scopeType,
-            @PathVariable String scopeId) {
+            @PathVariable String scopeId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         Map<String, Object> response = new HashMap<>();
 
         try {
+            if (cursor != null || limit != null) {
+                CursorPage<ShortenedUrl> page = urlShorteningService.getUrlsByScopePage(scopeType, scopeId, cursor, limit);
+                response.put("success", true);
+                response.put("urls", page.getItems());
+                response.put("count", page.size());
+                response.put("nextCursor", page.getNextCursor());
+                response.put("hasMore", page.hasMore());
+                return ResponseEntity.ok(response);
+            }
+
             List<ShortenedUrl> urls = urlShorteningService.getUrlsByScope(scopeType, scopeId);
 
             response.put("success", true);
@@ -468,10 +557,19 @@ public class UrlController {
     // Admin Endpoints
     @GetMapping("/admin/all")
     @org.springframework.security.access.prepost.PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Map<String, Object>> getAllUrlsForAdmin() {
+    public ResponseEntity<Map<String, Object>> getAllUrlsForAdmin(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         Map<String, Object> response = new HashMap<>();
         try {
-            List<ShortenedUrl> urls = urlShorteningService.getAllUrls();
+            CursorPage<ShortenedUrl> page = null;
+            List<ShortenedUrl> urls;
+            if (cursor != null || limit != null) {
+                page = urlShorteningService.getAllUrlsPage(cursor, limit);
+                urls = page.getItems();
+            } else {
+                urls = urlShorteningService.getAllUrls();
+            }
 
             // Map to response format
             List<Map<String, Object>> urlsData = urls.stream().map(url -> {
@@ -498,8 +596,16 @@ public class UrlController {
             response.put("success", true);
             response.put("count", urls.size());
             response.put("urls", urlsData);
+            if (page != null) {
+                response.put("nextCursor", page.getNextCursor());
+                response.put("hasMore", page.hasMore());
+            }
 
             return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", "Error fetching all URLs: " + e.getMessage());
@@ -3,6 +3,7 @@ package com.urlshortener.controller;
 import com.urlshortener.model.Domain;
 import com.urlshortener.repository.DomainRepository;
 import com.urlshortener.repository.UserRepository;
+import com.urlshortener.service.DomainRoutingTable;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -33,6 +34,9 @@ public class WorkingDomainController {
     
     @Autowired(required = false)
     private UserRepository userRepository;
+
+    @Autowired(required = false)
+    private DomainRoutingTable domainRoutingTable;
     
     /**
      * Get domains for current user - WORKING VERSION
@@ -384,6 +388,10 @@ public class WorkingDomainController {
                 Domain savedDomain = domainRepository.save(domain);
                 logger.info("Domain {} verified successfully", domain.getDomainName());
                 
+                if (domainRoutingTable != null) {
+                    domainRoutingTable.refresh();
+                }
+                
                 response.put("success", true);
                 response.put("verified", true);
                 response.put("message", "Domain verified successfully");
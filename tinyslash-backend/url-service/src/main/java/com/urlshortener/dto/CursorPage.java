@@ -0,0 +1,35 @@
+package com.urlshortener.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated list. {@code nextCursor} is an opaque token
+ * for the following page and is null on the last page.
+ */
+public class CursorPage<T> {
+
+    private List<T> items = new ArrayList<>();
+    private String nextCursor;
+    private int limit;
+
+    // For cache deserialization
+    private CursorPage() {
+    }
+
+    public CursorPage(List<T> items, String nextCursor, int limit) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.limit = limit;
+    }
+
+    public List<T> getItems() { return items; }
+
+    public String getNextCursor() { return nextCursor; }
+
+    public boolean hasMore() { return nextCursor != null; }
+
+    public int getLimit() { return limit; }
+
+    public int size() { return items.size(); }
+}
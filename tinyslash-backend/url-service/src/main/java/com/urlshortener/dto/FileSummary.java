@@ -0,0 +1,121 @@
+package com.urlshortener.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row of a file list view: an UploadedFile without its download analytics
+ * maps, password or storage references
+ */
+public class FileSummary {
+
+    private String id;
+    private String fileCode;
+    private String originalFileName;
+    private String fileType;
+    private String fileExtension;
+    private long fileSize;
+    private String userId;
+    private String scopeType;
+    private String scopeId;
+    private boolean isPublic;
+    private boolean requiresPassword;
+    private LocalDateTime expiresAt;
+    private String title;
+    private String description;
+    private String[] tags;
+    private String category;
+    private int totalDownloads;
+    private int uniqueDownloads;
+    private String fileUrl;
+    private String shortUrl;
+    private boolean hasQrCode;
+    private String qrCodeUrl;
+    private boolean isActive;
+    private String status;
+    private LocalDateTime uploadedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime lastAccessedAt;
+
+    public FileSummary() {}
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getFileCode() { return fileCode; }
+    public void setFileCode(String fileCode) { this.fileCode = fileCode; }
+
+    public String getOriginalFileName() { return originalFileName; }
+    public void setOriginalFileName(String originalFileName) { this.originalFileName = originalFileName; }
+
+    public String getFileType() { return fileType; }
+    public void setFileType(String fileType) { this.fileType = fileType; }
+
+    public String getFileExtension() { return fileExtension; }
+    public void setFileExtension(String fileExtension) { this.fileExtension = fileExtension; }
+
+    public long getFileSize() { return fileSize; }
+    public void setFileSize(long fileSize) { this.fileSize = fileSize; }
+
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+
+    public String getScopeType() { return scopeType; }
+    public void setScopeType(String scopeType) { this.scopeType = scopeType; }
+
+    public String getScopeId() { return scopeId; }
+    public void setScopeId(String scopeId) { this.scopeId = scopeId; }
+
+    public boolean isPublic() { return isPublic; }
+    public void setPublic(boolean aPublic) { isPublic = aPublic; }
+
+    public boolean isRequiresPassword() { return requiresPassword; }
+    public void setRequiresPassword(boolean requiresPassword) { this.requiresPassword = requiresPassword; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public String[] getTags() { return tags; }
+    public void setTags(String[] tags) { this.tags = tags; }
+
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+
+    public int getTotalDownloads() { return totalDownloads; }
+    public void setTotalDownloads(int totalDownloads) { this.totalDownloads = totalDownloads; }
+
+    public int getUniqueDownloads() { return uniqueDownloads; }
+    public void setUniqueDownloads(int uniqueDownloads) { this.uniqueDownloads = uniqueDownloads; }
+
+    public String getFileUrl() { return fileUrl; }
+    public void setFileUrl(String fileUrl) { this.fileUrl = fileUrl; }
+
+    public String getShortUrl() { return shortUrl; }
+    public void setShortUrl(String shortUrl) { this.shortUrl = shortUrl; }
+
+    public boolean isHasQrCode() { return hasQrCode; }
+    public void setHasQrCode(boolean hasQrCode) { this.hasQrCode = hasQrCode; }
+
+    public String getQrCodeUrl() { return qrCodeUrl; }
+    public void setQrCodeUrl(String qrCodeUrl) { this.qrCodeUrl = qrCodeUrl; }
+
+    public boolean isActive() { return isActive; }
+    public void setActive(boolean active) { isActive = active; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public LocalDateTime getUploadedAt() { return uploadedAt; }
+    public void setUploadedAt(LocalDateTime uploadedAt) { this.uploadedAt = uploadedAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public LocalDateTime getLastAccessedAt() { return lastAccessedAt; }
+    public void setLastAccessedAt(LocalDateTime lastAccessedAt) { this.lastAccessedAt = lastAccessedAt; }
+}
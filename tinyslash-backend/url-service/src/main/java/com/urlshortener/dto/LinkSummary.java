@@ -0,0 +1,127 @@
+package com.urlshortener.dto;
+
+import org.springframework.data.annotation.Transient;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row of a link list view: the scalar fields of a ShortenedUrl without its
+ * per-link analytics maps or password. Loaded through a Mongo field
+ * projection; the full document is only read for detail views.
+ */
+public class LinkSummary {
+
+    private String id;
+    private String shortCode;
+    private String shortUrl;
+    private String originalUrl;
+    private String userId;
+    private String scopeType;
+    private String scopeId;
+    private String title;
+    private String description;
+    private String domain;
+    private String customAlias;
+    private boolean isPasswordProtected;
+    private LocalDateTime expiresAt;
+    private Integer maxClicks;
+    private boolean isActive;
+    private int totalClicks;
+    private int uniqueClicks;
+    @Transient
+    private int todayClicks;
+    @Transient
+    private int thisWeekClicks;
+    @Transient
+    private int thisMonthClicks;
+    private boolean hasQrCode;
+    private String qrCodeUrl;
+    private String[] tags;
+    private String category;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime lastClickedAt;
+
+    public LinkSummary() {}
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getShortCode() { return shortCode; }
+    public void setShortCode(String shortCode) { this.shortCode = shortCode; }
+
+    public String getShortUrl() { return shortUrl; }
+    public void setShortUrl(String shortUrl) { this.shortUrl = shortUrl; }
+
+    public String getOriginalUrl() { return originalUrl; }
+    public void setOriginalUrl(String originalUrl) { this.originalUrl = originalUrl; }
+
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+
+    public String getScopeType() { return scopeType; }
+    public void setScopeType(String scopeType) { this.scopeType = scopeType; }
+
+    public String getScopeId() { return scopeId; }
+    public void setScopeId(String scopeId) { this.scopeId = scopeId; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public String getDomain() { return domain; }
+    public void setDomain(String domain) { this.domain = domain; }
+
+    public String getCustomAlias() { return customAlias; }
+    public void setCustomAlias(String customAlias) { this.customAlias = customAlias; }
+
+    public boolean isPasswordProtected() { return isPasswordProtected; }
+    public void setPasswordProtected(boolean passwordProtected) { isPasswordProtected = passwordProtected; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+
+    public Integer getMaxClicks() { return maxClicks; }
+    public void setMaxClicks(Integer maxClicks) { this.maxClicks = maxClicks; }
+
+    public boolean isActive() { return isActive; }
+    public void setActive(boolean active) { isActive = active; }
+
+    public int getTotalClicks() { return totalClicks; }
+    public void setTotalClicks(int totalClicks) { this.totalClicks = totalClicks; }
+
+    public int getUniqueClicks() { return uniqueClicks; }
+    public void setUniqueClicks(int uniqueClicks) { this.uniqueClicks = uniqueClicks; }
+
+    public int getTodayClicks() { return todayClicks; }
+    public void setTodayClicks(int todayClicks) { this.todayClicks = todayClicks; }
+
+    public int getThisWeekClicks() { return thisWeekClicks; }
+    public void setThisWeekClicks(int thisWeekClicks) { this.thisWeekClicks = thisWeekClicks; }
+
+    public int getThisMonthClicks() { return thisMonthClicks; }
+    public void setThisMonthClicks(int thisMonthClicks) { this.thisMonthClicks = thisMonthClicks; }
+
+    public boolean isHasQrCode() { return hasQrCode; }
+    public void setHasQrCode(boolean hasQrCode) { this.hasQrCode = hasQrCode; }
+
+    public String getQrCodeUrl() { return qrCodeUrl; }
+    public void setQrCodeUrl(String qrCodeUrl) { this.qrCodeUrl = qrCodeUrl; }
+
+    public String[] getTags() { return tags; }
+    public void setTags(String[] tags) { this.tags = tags; }
+
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public LocalDateTime getLastClickedAt() { return lastClickedAt; }
+    public void setLastClickedAt(LocalDateTime lastClickedAt) { this.lastClickedAt = lastClickedAt; }
+}
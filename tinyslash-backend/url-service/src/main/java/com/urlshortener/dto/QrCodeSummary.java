@@ -0,0 +1,122 @@
+package com.urlshortener.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row of a QR code list view: a QrCode without its scan analytics maps.
+ * qrImagePath is kept on purpose: it holds the rendered image as a data URI
+ * (see QrCodeService), which the dashboard list displays.
+ */
+public class QrCodeSummary {
+
+    private String id;
+    private String qrCode;
+    private String contentType;
+    private String content;
+    private String shortCode;
+    private String fileCode;
+    private String userId;
+    private String scopeType;
+    private String scopeId;
+    private String style;
+    private String foregroundColor;
+    private String backgroundColor;
+    private int size;
+    private String format;
+    private String qrImageUrl;
+    private String qrImagePath;
+    private int totalScans;
+    private int uniqueScans;
+    private boolean isActive;
+    private LocalDateTime expiresAt;
+    private String title;
+    private String description;
+    private String[] tags;
+    private String category;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime lastScannedAt;
+
+    public QrCodeSummary() {}
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getQrCode() { return qrCode; }
+    public void setQrCode(String qrCode) { this.qrCode = qrCode; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+
+    public String getContent() { return content; }
+    public void setContent(String content) { this.content = content; }
+
+    public String getShortCode() { return shortCode; }
+    public void setShortCode(String shortCode) { this.shortCode = shortCode; }
+
+    public String getFileCode() { return fileCode; }
+    public void setFileCode(String fileCode) { this.fileCode = fileCode; }
+
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+
+    public String getScopeType() { return scopeType; }
+    public void setScopeType(String scopeType) { this.scopeType = scopeType; }
+
+    public String getScopeId() { return scopeId; }
+    public void setScopeId(String scopeId) { this.scopeId = scopeId; }
+
+    public String getStyle() { return style; }
+    public void setStyle(String style) { this.style = style; }
+
+    public String getForegroundColor() { return foregroundColor; }
+    public void setForegroundColor(String foregroundColor) { this.foregroundColor = foregroundColor; }
+
+    public String getBackgroundColor() { return backgroundColor; }
+    public void setBackgroundColor(String backgroundColor) { this.backgroundColor = backgroundColor; }
+
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+
+    public String getFormat() { return format; }
+    public void setFormat(String format) { this.format = format; }
+
+    public String getQrImageUrl() { return qrImageUrl; }
+    public void setQrImageUrl(String qrImageUrl) { this.qrImageUrl = qrImageUrl; }
+
+    public String getQrImagePath() { return qrImagePath; }
+    public void setQrImagePath(String qrImagePath) { this.qrImagePath = qrImagePath; }
+
+    public int getTotalScans() { return totalScans; }
+    public void setTotalScans(int totalScans) { this.totalScans = totalScans; }
+
+    public int getUniqueScans() { return uniqueScans; }
+    public void setUniqueScans(int uniqueScans) { this.uniqueScans = uniqueScans; }
+
+    public boolean isActive() { return isActive; }
+    public void setActive(boolean active) { isActive = active; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public String[] getTags() { return tags; }
+    public void setTags(String[] tags) { this.tags = tags; }
+
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public LocalDateTime getLastScannedAt() { return lastScannedAt; }
+    public void setLastScannedAt(LocalDateTime lastScannedAt) { this.lastScannedAt = lastScannedAt; }
+}
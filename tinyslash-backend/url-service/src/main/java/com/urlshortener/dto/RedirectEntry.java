@@ -0,0 +1,133 @@
+package com.urlshortener.dto;
+
+import com.urlshortener.model.UtmTags;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Immutable projection of a ShortenedUrl holding only what the redirect path
+ * reads. Cached in a compact delimited string instead of the full document,
+ * and tagged with the link's redirect version so stale copies can be rejected.
+ */
+public final class RedirectEntry {
+
+    // ASCII unit separator: cannot appear in hosts, ids or a valid URL
+    private static final char SEPARATOR = '\u001f';
+    private static final int FIELD_COUNT = 15;
+
+    private static final int FLAG_ACTIVE = 1;
+    private static final int FLAG_PASSWORD_PROTECTED = 1 << 1;
+    private static final int FLAG_TRACK_CLICKS = 1 << 2;
+
+    private final String shortCode;
+    private final String originalUrl;
+    private final String domain;
+    private final String userId;
+    private final String teamId; // scopeId for TEAM-scoped links, null otherwise
+    private final boolean active;
+    private final boolean passwordProtected;
+    private final boolean trackClicks;
+    private final LocalDateTime expiresAt;
+    private final Integer maxClicks;
+    private final int totalClicks;
+    private final UtmTags utm; // null when the destination carries no campaign parameters
+    private final long version;
+
+    public RedirectEntry(String shortCode, String originalUrl, String domain, String userId, String teamId,
+            boolean active, boolean passwordProtected, boolean trackClicks, LocalDateTime expiresAt,
+            Integer maxClicks, int totalClicks, UtmTags utm, long version) {
+        this.shortCode = shortCode;
+        this.originalUrl = originalUrl;
+        this.domain = domain;
+        this.userId = userId;
+        this.teamId = teamId;
+        this.active = active;
+        this.passwordProtected = passwordProtected;
+        this.trackClicks = trackClicks;
+        this.expiresAt = expiresAt;
+        this.maxClicks = maxClicks;
+        this.totalClicks = totalClicks;
+        this.utm = utm;
+        this.version = version;
+    }
+
+    /**
+     * Encode as version, flags, expiry, limits, owner, domain, UTM tags, code and URL.
+     * The URL goes last so it is never split.
+     */
+    public String encode() {
+        int flags = (active ? FLAG_ACTIVE : 0)
+                | (passwordProtected ? FLAG_PASSWORD_PROTECTED : 0)
+                | (trackClicks ? FLAG_TRACK_CLICKS : 0);
+        StringBuilder sb = new StringBuilder(64 + (originalUrl != null ? originalUrl.length() : 0));
+        sb.append(version).append(SEPARATOR)
+                .append(flags).append(SEPARATOR)
+                .append(expiresAt != null ? expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : "")
+                .append(SEPARATOR)
+                .append(maxClicks != null ? maxClicks : "").append(SEPARATOR)
+                .append(totalClicks).append(SEPARATOR)
+                .append(nullToEmpty(userId)).append(SEPARATOR)
+                .append(nullToEmpty(teamId)).append(SEPARATOR)
+                .append(nullToEmpty(domain)).append(SEPARATOR)
+                .append(utm != null ? nullToEmpty(utm.getSource()) : "").append(SEPARATOR)
+                .append(utm != null ? nullToEmpty(utm.getMedium()) : "").append(SEPARATOR)
+                .append(utm != null ? nullToEmpty(utm.getCampaign()) : "").append(SEPARATOR)
+                .append(utm != null ? nullToEmpty(utm.getTerm()) : "").append(SEPARATOR)
+                .append(utm != null ? nullToEmpty(utm.getContent()) : "").append(SEPARATOR)
+                .append(nullToEmpty(shortCode)).append(SEPARATOR)
+                .append(nullToEmpty(originalUrl));
+        return sb.toString();
+    }
+
+    /**
+     * @return the decoded entry, or null if the value is not a valid encoding
+     */
+    public static RedirectEntry decode(String encoded) {
+        if (encoded == null) {
+            return null;
+        }
+        String[] parts = encoded.split(String.valueOf(SEPARATOR), FIELD_COUNT);
+        if (parts.length != FIELD_COUNT) {
+            return null;
+        }
+        try {
+            int flags = Integer.parseInt(parts[1]);
+            LocalDateTime expiresAt = parts[2].isEmpty() ? null
+                    : LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(parts[2])), ZoneId.systemDefault());
+            Integer maxClicks = parts[3].isEmpty() ? null : Integer.valueOf(parts[3]);
+            UtmTags utm = new UtmTags(emptyToNull(parts[8]), emptyToNull(parts[9]), emptyToNull(parts[10]),
+                    emptyToNull(parts[11]), emptyToNull(parts[12]));
+            return new RedirectEntry(emptyToNull(parts[13]), emptyToNull(parts[14]), emptyToNull(parts[7]),
+                    emptyToNull(parts[5]), emptyToNull(parts[6]),
+                    (flags & FLAG_ACTIVE) != 0, (flags & FLAG_PASSWORD_PROTECTED) != 0,
+                    (flags & FLAG_TRACK_CLICKS) != 0, expiresAt, maxClicks,
+                    Integer.parseInt(parts[4]), utm.isEmpty() ? null : utm, Long.parseLong(parts[0]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    public String getShortCode() { return shortCode; }
+    public String getOriginalUrl() { return originalUrl; }
+    public String getDomain() { return domain; }
+    public String getUserId() { return userId; }
+    public String getTeamId() { return teamId; }
+    public boolean isActive() { return active; }
+    public boolean isPasswordProtected() { return passwordProtected; }
+    public boolean isTrackClicks() { return trackClicks; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public Integer getMaxClicks() { return maxClicks; }
+    public int getTotalClicks() { return totalClicks; }
+    public UtmTags getUtm() { return utm; }
+    public long getVersion() { return version; }
+}
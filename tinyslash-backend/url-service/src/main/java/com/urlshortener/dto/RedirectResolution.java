@@ -0,0 +1,46 @@
+package com.urlshortener.dto;
+
+/**
+ * Typed outcome of resolving a short code on the redirect path
+ */
+public class RedirectResolution {
+
+    public enum Status {
+        FOUND,
+        INACTIVE,
+        EXPIRED,
+        MAX_CLICKS_REACHED,
+        PASSWORD_PROTECTED,
+        NOT_FOUND
+    }
+
+    private final Status status;
+    private final RedirectEntry entry;
+    private final String domainKey;
+    private final boolean domainMatched;
+
+    private RedirectResolution(Status status, RedirectEntry entry, String domainKey, boolean domainMatched) {
+        this.status = status;
+        this.entry = entry;
+        this.domainKey = domainKey;
+        this.domainMatched = domainMatched;
+    }
+
+    public static RedirectResolution notFound(String domainKey) {
+        return new RedirectResolution(Status.NOT_FOUND, null, domainKey, false);
+    }
+
+    public static RedirectResolution of(Status status, RedirectEntry entry, String domainKey, boolean domainMatched) {
+        return new RedirectResolution(status, entry, domainKey, domainMatched);
+    }
+
+    public Status getStatus() { return status; }
+
+    public RedirectEntry getEntry() { return entry; }
+
+    public String getDomainKey() { return domainKey; }
+
+    public boolean isDomainMatched() { return domainMatched; }
+
+    public boolean isFound() { return status == Status.FOUND; }
+}
@@ -59,6 +59,7 @@ public class ClickAnalytics {
     private String utmCampaign;
     private String utmTerm;
     private String utmContent;
+    private String channel; // UTM medium/source if declared, else the referrer type
     
     // Additional tracking
     private String language;
@@ -74,21 +75,29 @@ public class ClickAnalytics {
     private int month;
     private int year;
     
+    // Retention: set once the click is compacted into the rollups, removed by the TTL index
+    private LocalDateTime expiresAt;
+    
     // Constructors
     public ClickAnalytics() {}
     
     public ClickAnalytics(String shortCode, String userId, String ipAddress, String userAgent) {
+        this(shortCode, userId, ipAddress, userAgent, LocalDateTime.now());
+    }
+    
+    public ClickAnalytics(String shortCode, String userId, String ipAddress, String userAgent,
+                          LocalDateTime clickedAt) {
         this.shortCode = shortCode;
         this.userId = userId;
         this.ipAddress = ipAddress;
         this.userAgent = userAgent;
+        this.clickedAt = clickedAt;
         
-        LocalDateTime now = LocalDateTime.now();
-        this.hourOfDay = now.getHour();
-        this.dayOfWeek = now.getDayOfWeek().getValue();
-        this.dayOfMonth = now.getDayOfMonth();
-        this.month = now.getMonthValue();
-        this.year = now.getYear();
+        this.hourOfDay = clickedAt.getHour();
+        this.dayOfWeek = clickedAt.getDayOfWeek().getValue();
+        this.dayOfMonth = clickedAt.getDayOfMonth();
+        this.month = clickedAt.getMonthValue();
+        this.year = clickedAt.getYear();
     }
     
     // Getters and Setters
@@ -185,6 +194,9 @@ public class ClickAnalytics {
     public String getUtmContent() { return utmContent; }
     public void setUtmContent(String utmContent) { this.utmContent = utmContent; }
     
+    public String getChannel() { return channel; }
+    public void setChannel(String channel) { this.channel = channel; }
+    
     public String getLanguage() { return language; }
     public void setLanguage(String language) { this.language = language; }
     
@@ -214,4 +226,7 @@ public class ClickAnalytics {
     
     public int getYear() { return year; }
     public void setYear(int year) { this.year = year; }
+    
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
 }
\ No newline at end of file
@@ -0,0 +1,77 @@
+package com.urlshortener.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Raw click captured on the redirect path before it is enriched and persisted.
+ * Immutable so it can be handed to the ingestion flusher without copying.
+ */
+public final class ClickEvent {
+
+    private final String shortCode;
+    private final String userId;
+    private final String teamId; // scopeId for TEAM-scoped links, null otherwise
+    private final String domain; // the link's domain, null if not known yet
+    private final String ipAddress;
+    private final String userAgent;
+    private final String referrer;
+    private final LocalDateTime clickedAt;
+
+    // Optional dimensions supplied by the caller (e.g. the edge proxy)
+    private final String country;
+    private final String city;
+    private final String deviceType;
+    private final String browser;
+    private final String os;
+
+    // Campaign tags of the link's destination, from the redirect entry
+    private final UtmTags utm;
+
+    public ClickEvent(String shortCode, String userId, String teamId, String domain, String ipAddress,
+            String userAgent, String referrer) {
+        this(shortCode, userId, teamId, domain, ipAddress, userAgent, referrer, LocalDateTime.now(),
+                null, null, null, null, null, null);
+    }
+
+    public ClickEvent(String shortCode, String userId, String teamId, String domain, String ipAddress,
+            String userAgent, String referrer, LocalDateTime clickedAt, String country, String city,
+            String deviceType, String browser, String os, UtmTags utm) {
+        this.shortCode = shortCode;
+        this.userId = userId;
+        this.teamId = teamId;
+        this.domain = domain;
+        this.ipAddress = ipAddress;
+        this.userAgent = userAgent;
+        this.referrer = referrer;
+        this.clickedAt = clickedAt;
+        this.country = country;
+        this.city = city;
+        this.deviceType = deviceType;
+        this.browser = browser;
+        this.os = os;
+        this.utm = utm;
+    }
+
+    /**
+     * Copy of this event attributed to the given owner
+     */
+    public ClickEvent withOwner(String ownerUserId, String ownerTeamId, String linkDomain, UtmTags linkUtm) {
+        return new ClickEvent(shortCode, ownerUserId, ownerTeamId, linkDomain, ipAddress, userAgent, referrer,
+                clickedAt, country, city, deviceType, browser, os, linkUtm);
+    }
+
+    public String getShortCode() { return shortCode; }
+    public String getUserId() { return userId; }
+    public String getTeamId() { return teamId; }
+    public String getDomain() { return domain; }
+    public String getIpAddress() { return ipAddress; }
+    public String getUserAgent() { return userAgent; }
+    public String getReferrer() { return referrer; }
+    public LocalDateTime getClickedAt() { return clickedAt; }
+    public String getCountry() { return country; }
+    public String getCity() { return city; }
+    public String getDeviceType() { return deviceType; }
+    public String getBrowser() { return browser; }
+    public String getOs() { return os; }
+    public UtmTags getUtm() { return utm; }
+}
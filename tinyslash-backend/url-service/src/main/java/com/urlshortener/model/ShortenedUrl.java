@@ -1,6 +1,7 @@
 package com.urlshortener.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.index.Indexed;
 import java.time.LocalDateTime;
@@ -53,8 +54,14 @@ public class ShortenedUrl {
     // Analytics counters
     private int totalClicks = 0;
     private int uniqueClicks = 0;
+    private int botClicks = 0; // Crawler and link-preview hits, kept out of totalClicks
+
+    // Rolling windows live in ClickWindowService; these are never stored
+    @Transient
     private int todayClicks = 0;
+    @Transient
     private int thisWeekClicks = 0;
+    @Transient
     private int thisMonthClicks = 0;
     
     // Geographic data
@@ -82,6 +89,14 @@ public class ShortenedUrl {
     private LocalDateTime createdAt = LocalDateTime.now();
     private LocalDateTime updatedAt = LocalDateTime.now();
     private LocalDateTime lastClickedAt;
+    private long redirectVersion = 0; // Bumped whenever redirect-relevant fields change
+    
+    // Campaign parameters of originalUrl, parsed once at creation
+    private String utmSource;
+    private String utmMedium;
+    private String utmCampaign;
+    private String utmTerm;
+    private String utmContent;
     
     // Tags and categories
     private String[] tags;
@@ -174,6 +189,9 @@ public class ShortenedUrl {
     public int getUniqueClicks() { return uniqueClicks; }
     public void setUniqueClicks(int uniqueClicks) { this.uniqueClicks = uniqueClicks; }
     
+    public int getBotClicks() { return botClicks; }
+    public void setBotClicks(int botClicks) { this.botClicks = botClicks; }
+    
     public int getTodayClicks() { return todayClicks; }
     public void setTodayClicks(int todayClicks) { this.todayClicks = todayClicks; }
     
@@ -225,6 +243,24 @@ public class ShortenedUrl {
     public LocalDateTime getLastClickedAt() { return lastClickedAt; }
     public void setLastClickedAt(LocalDateTime lastClickedAt) { this.lastClickedAt = lastClickedAt; }
     
+    public long getRedirectVersion() { return redirectVersion; }
+    public void setRedirectVersion(long redirectVersion) { this.redirectVersion = redirectVersion; }
+    
+    public String getUtmSource() { return utmSource; }
+    public void setUtmSource(String utmSource) { this.utmSource = utmSource; }
+    
+    public String getUtmMedium() { return utmMedium; }
+    public void setUtmMedium(String utmMedium) { this.utmMedium = utmMedium; }
+    
+    public String getUtmCampaign() { return utmCampaign; }
+    public void setUtmCampaign(String utmCampaign) { this.utmCampaign = utmCampaign; }
+    
+    public String getUtmTerm() { return utmTerm; }
+    public void setUtmTerm(String utmTerm) { this.utmTerm = utmTerm; }
+    
+    public String getUtmContent() { return utmContent; }
+    public void setUtmContent(String utmContent) { this.utmContent = utmContent; }
+    
     public String[] getTags() { return tags; }
     public void setTags(String[] tags) { this.tags = tags; }
     
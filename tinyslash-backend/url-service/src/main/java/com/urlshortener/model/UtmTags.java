@@ -0,0 +1,117 @@
+package com.urlshortener.model;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * The utm_* campaign parameters of a link's destination URL.
+ *
+ * Parsed once when the link is created and stored on it, then carried on the
+ * cached redirect entry and each click event, so click ingestion never has to
+ * look at the destination URL again.
+ */
+public final class UtmTags {
+
+    private static final int MAX_LENGTH = 100;
+
+    private final String source;
+    private final String medium;
+    private final String campaign;
+    private final String term;
+    private final String content;
+
+    public UtmTags(String source, String medium, String campaign, String term, String content) {
+        this.source = clean(source);
+        this.medium = clean(medium);
+        this.campaign = clean(campaign);
+        this.term = clean(term);
+        this.content = clean(content);
+    }
+
+    /**
+     * Tags of a URL's query string, or null if it has none
+     */
+    public static UtmTags fromUrl(String url) {
+        if (url == null) {
+            return null;
+        }
+        int query = url.indexOf('?');
+        if (query < 0 || url.indexOf("utm_", query) < 0) {
+            return null;
+        }
+        int fragment = url.indexOf('#', query);
+        String queryString = url.substring(query + 1, fragment < 0 ? url.length() : fragment);
+
+        String source = null;
+        String medium = null;
+        String campaign = null;
+        String term = null;
+        String content = null;
+        for (String pair : queryString.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) {
+                continue;
+            }
+            String value = decode(pair.substring(eq + 1));
+            switch (pair.substring(0, eq).toLowerCase(Locale.ROOT)) {
+                case "utm_source":
+                    source = value;
+                    break;
+                case "utm_medium":
+                    medium = value;
+                    break;
+                case "utm_campaign":
+                    campaign = value;
+                    break;
+                case "utm_term":
+                    term = value;
+                    break;
+                case "utm_content":
+                    content = value;
+                    break;
+                default:
+                    break;
+            }
+        }
+        UtmTags tags = new UtmTags(source, medium, campaign, term, content);
+        return tags.isEmpty() ? null : tags;
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return value;
+        }
+    }
+
+    /**
+     * Trimmed, without control characters (they would break the redirect
+     * cache encoding), capped in length; null if nothing is left
+     */
+    private static String clean(String value) {
+        if (value == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(Math.min(value.length(), MAX_LENGTH));
+        for (int i = 0; i < value.length() && sb.length() < MAX_LENGTH; i++) {
+            char c = value.charAt(i);
+            if (!Character.isISOControl(c)) {
+                sb.append(c);
+            }
+        }
+        String cleaned = sb.toString().trim();
+        return cleaned.isEmpty() ? null : cleaned;
+    }
+
+    public boolean isEmpty() {
+        return source == null && medium == null && campaign == null && term == null && content == null;
+    }
+
+    public String getSource() { return source; }
+    public String getMedium() { return medium; }
+    public String getCampaign() { return campaign; }
+    public String getTerm() { return term; }
+    public String getContent() { return content; }
+}
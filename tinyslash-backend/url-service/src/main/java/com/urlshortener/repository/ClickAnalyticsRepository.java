@@ -67,10 +67,6 @@ public interface ClickAnalyticsRepository extends MongoRepository<ClickAnalytics
     @Query("{'clickedAt': {$gte: ?0}}")
     List<ClickAnalytics> findRecentClicks(LocalDateTime since);
 
-    // Get clicks by hour for a short code
-    @Query("{'shortCode': ?0}")
-    List<ClickAnalytics> findClicksForHourlyAnalysis(String shortCode);
-
     // Get top countries for a short code
     @Aggregation(pipeline = {
             "{ $match: { 'shortCode': ?0 } }",
@@ -104,35 +100,6 @@ public interface ClickAnalyticsRepository extends MongoRepository<ClickAnalytics
     })
     List<Object> getDailyClicksForLast30Days(String shortCode, LocalDateTime thirtyDaysAgo);
 
-    // --- System-wide Aggregations (Admin) ---
-
-    // Global top countries
-    @Aggregation(pipeline = {
-            "{ $group: { '_id': '$country', 'count': { $sum: 1 } } }",
-            "{ $sort: { 'count': -1 } }",
-            "{ $limit: 10 }"
-    })
-    List<Object> getTopCountriesSystemWide();
-
-    // Global top devices
-    @Aggregation(pipeline = {
-            "{ $group: { '_id': '$deviceType', 'count': { $sum: 1 } } }",
-            "{ $sort: { 'count': -1 } }"
-    })
-    List<Object> getTopDevicesSystemWide();
-
-    // Global top browsers
-    @Aggregation(pipeline = {
-            "{ $group: { '_id': '$browser', 'count': { $sum: 1 } } }",
-            "{ $sort: { 'count': -1 } }"
-    })
-    List<Object> getTopBrowsersSystemWide();
-
-    // Global daily clicks (last N days)
-    @Aggregation(pipeline = {
-            "{ $match: { 'clickedAt': { $gte: ?0 } } }",
-            "{ $group: { '_id': { $dateToString: { format: '%Y-%m-%d', date: '$clickedAt' } }, 'count': { $sum: 1 } } }",
-            "{ $sort: { '_id': 1 } }"
-    })
-    List<Object> getDailyClicksSystemWide(LocalDateTime since);
-}
\ No newline at end of file
+    // System-wide aggregations live in ClickStorageService, which runs them
+    // against either the standard or the time-series layout
+}
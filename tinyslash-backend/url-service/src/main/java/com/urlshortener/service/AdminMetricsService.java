@@ -0,0 +1,325 @@
+package com.urlshortener.service;
+
+import com.urlshortener.model.QrCode;
+import com.urlshortener.model.ShortenedUrl;
+import com.urlshortener.model.Team;
+import com.urlshortener.model.UploadedFile;
+import com.urlshortener.model.User;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Materialized admin dashboard totals.
+ *
+ * A single counter document holds the number of users, links, QR codes,
+ * files and teams, all-time link clicks, stored bytes and users per plan.
+ * Services bump it with $inc when they create or delete those entities or
+ * change a user's plan, and a daily snapshot of it is kept per date so
+ * 30-day growth is one lookup instead of a scan of every collection.
+ *
+ * Paths that do not report (admin tools, migrations, direct writes) are
+ * corrected by the reconciliation job, which recomputes the counters from
+ * count and $group pipelines and applies the difference to the stored value
+ * as an $inc, so increments that land while it runs are kept. Because each
+ * run applies the full difference it sees, runs are serialized across
+ * instances by a lease document; reads never reconcile inline. A fresh
+ * deployment is reconciled once in the background after startup.
+ */
+@Service
+public class AdminMetricsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminMetricsService.class);
+
+    static final String COLLECTION = "admin_metrics";
+    static final String SNAPSHOT_COLLECTION = "admin_metrics_daily";
+    private static final String TOTALS_ID = "totals";
+    private static final String LEASE_ID = "reconcile-lease";
+    private static final String PLANS = "plans";
+    private static final String DEFAULT_PLAN = "FREE";
+
+    public enum Metric {
+        USERS("users"),
+        LINKS("links"),
+        QR_CODES("qrCodes"),
+        FILES("files"),
+        TEAMS("teams"),
+        CLICKS("clicks"),
+        STORAGE_BYTES("storageBytes");
+
+        private final String field;
+
+        Metric(String field) {
+            this.field = field;
+        }
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${app.admin-metrics.reconcile-lease-minutes:30}")
+    private long leaseMinutes;
+
+    public void increment(Metric metric, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        apply(new Update().inc(metric.field, delta));
+    }
+
+    /**
+     * A user was created on the given plan
+     */
+    public void userCreated(String plan) {
+        apply(new Update().inc(Metric.USERS.field, 1).inc(planPath(plan), 1));
+    }
+
+    /**
+     * A user moved from one plan to another
+     */
+    public void planChanged(String oldPlan, String newPlan) {
+        if (planPath(oldPlan).equals(planPath(newPlan))) {
+            return;
+        }
+        apply(new Update().inc(planPath(oldPlan), -1).inc(planPath(newPlan), 1));
+    }
+
+    private void apply(Update update) {
+        try {
+            mongoTemplate.upsert(Query.query(Criteria.where("_id").is(TOTALS_ID)),
+                    update.set("updatedAt", new Date()), COLLECTION);
+        } catch (Exception e) {
+            // The next reconciliation corrects a missed increment
+            logger.warn("Failed to update admin metrics: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Current totals. Until the first reconciliation has run they only hold
+     * the increments reported since the document was created.
+     */
+    public MetricsSnapshot current() {
+        return new MetricsSnapshot(totals());
+    }
+
+    /**
+     * Totals as they were at the start of the given day, or null if no
+     * snapshot was taken that day
+     */
+    public MetricsSnapshot snapshotOn(LocalDate day) {
+        Document snapshot = mongoTemplate.findById(day.toString(), Document.class, SNAPSHOT_COLLECTION);
+        return snapshot != null ? new MetricsSnapshot(snapshot) : null;
+    }
+
+    @Scheduled(cron = "${app.admin-metrics.snapshot-cron:0 5 0 * * *}")
+    public void snapshotDaily() {
+        Document totals = totals();
+        String day = LocalDate.now().toString();
+        Document snapshot = new Document(totals);
+        snapshot.put("_id", day);
+        snapshot.put("takenAt", new Date());
+        mongoTemplate.findAndReplace(Query.query(Criteria.where("_id").is(day)), snapshot,
+                FindAndReplaceOptions.options().upsert(), Document.class, SNAPSHOT_COLLECTION);
+        logger.info("Admin metrics snapshot taken for {}", day);
+    }
+
+    @Async("batchJobExecutor")
+    @Scheduled(cron = "${app.admin-metrics.reconcile-cron:0 30 3 * * *}")
+    public void reconcileCounters() {
+        reconcile();
+    }
+
+    /**
+     * Materialize the totals of a deployment that was never reconciled
+     */
+    @Async("batchJobExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileIfNeeded() {
+        Document totals = mongoTemplate.findById(TOTALS_ID, Document.class, COLLECTION);
+        if (totals == null || totals.get("reconciledAt") == null) {
+            reconcile();
+        }
+    }
+
+    /**
+     * Correct the counter document from the collections themselves. Each
+     * counter is read right after its recomputation and only the difference
+     * is applied, so concurrent increments are never overwritten. Returns
+     * the current totals unchanged if another run holds the lease.
+     */
+    public Document reconcile() {
+        if (!acquireLease()) {
+            logger.debug("Admin metrics reconciliation already running elsewhere");
+            return totals();
+        }
+        try {
+            return reconcileUnderLease();
+        } finally {
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(LEASE_ID)),
+                    new Update().unset("leaseUntil").set("lastRunAt", new Date()), COLLECTION);
+        }
+    }
+
+    private Document reconcileUnderLease() {
+        Update correction = new Update();
+        correct(correction, Metric.USERS.field, count(User.class));
+        correct(correction, Metric.LINKS.field, count(ShortenedUrl.class));
+        correct(correction, Metric.QR_CODES.field, count(QrCode.class));
+        correct(correction, Metric.FILES.field, count(UploadedFile.class));
+        correct(correction, Metric.TEAMS.field, count(Team.class));
+        correct(correction, Metric.CLICKS.field, sum(ShortenedUrl.class, "totalClicks"));
+        correct(correction, Metric.STORAGE_BYTES.field, sum(UploadedFile.class, "fileSize"));
+
+        Document plans = planCounts();
+        Object observedPlans = observed(PLANS);
+        if (observedPlans instanceof Document) {
+            // Plans nobody is on any more go back to zero
+            ((Document) observedPlans).keySet().forEach(plan -> plans.putIfAbsent(plan, 0L));
+        }
+        plans.forEach((plan, count) -> correct(correction, PLANS + "." + plan, ((Number) count).longValue()));
+
+        Date now = new Date();
+        correction.set("updatedAt", now).set("reconciledAt", now);
+        Document totals = mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(TOTALS_ID)), correction,
+                FindAndModifyOptions.options().upsert(true).returnNew(true), Document.class, COLLECTION);
+        logger.info("Admin metrics reconciled: {} users, {} links", totals.get(Metric.USERS.field),
+                totals.get(Metric.LINKS.field));
+        return totals;
+    }
+
+    /**
+     * The totals document, created empty if it does not exist yet
+     */
+    private Document totals() {
+        return mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(TOTALS_ID)),
+                new Update().setOnInsert("updatedAt", new Date()),
+                FindAndModifyOptions.options().upsert(true).returnNew(true), Document.class, COLLECTION);
+    }
+
+    /**
+     * Take the reconciliation lease, false if another run holds it
+     */
+    private boolean acquireLease() {
+        Date now = new Date();
+        Query query = Query.query(Criteria.where("_id").is(LEASE_ID).orOperator(
+                Criteria.where("leaseUntil").exists(false),
+                Criteria.where("leaseUntil").lt(now)));
+        Update update = new Update().set("leaseUntil",
+                new Date(now.getTime() + TimeUnit.MINUTES.toMillis(leaseMinutes)));
+        try {
+            return mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), Document.class, COLLECTION) != null;
+        } catch (DuplicateKeyException e) {
+            // The lease document exists and its lease has not expired
+            return false;
+        }
+    }
+
+    private void correct(Update correction, String path, long recomputed) {
+        Object observed = observed(path);
+        long delta = recomputed - (observed instanceof Number ? ((Number) observed).longValue() : 0L);
+        correction.inc(path, delta);
+    }
+
+    /**
+     * Current stored value of one counter path, or null if it is not set
+     */
+    private Object observed(String path) {
+        Query query = Query.query(Criteria.where("_id").is(TOTALS_ID));
+        query.fields().include(path);
+        Document doc = mongoTemplate.findOne(query, Document.class, COLLECTION);
+        if (doc == null) {
+            return null;
+        }
+        Object value = doc;
+        for (String part : path.split("\\.")) {
+            value = value instanceof Document ? ((Document) value).get(part) : null;
+        }
+        return value;
+    }
+
+    private long count(Class<?> entity) {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(entity)).countDocuments();
+    }
+
+    private long sum(Class<?> entity, String field) {
+        Aggregation agg = Aggregation.newAggregation(Aggregation.group().sum(field).as("total"));
+        Document result = mongoTemplate.aggregate(agg, mongoTemplate.getCollectionName(entity), Document.class)
+                .getUniqueMappedResult();
+        return result != null && result.get("total") instanceof Number ? ((Number) result.get("total")).longValue()
+                : 0L;
+    }
+
+    private Document planCounts() {
+        Aggregation agg = Aggregation.newAggregation(Aggregation.group("subscriptionPlan").count().as("count"));
+        Document plans = new Document();
+        for (Document row : mongoTemplate.aggregate(agg, mongoTemplate.getCollectionName(User.class),
+                Document.class).getMappedResults()) {
+            String plan = planKey(row.getString("_id"));
+            long count = ((Number) row.get("count")).longValue();
+            plans.put(plan, plans.get(plan) instanceof Number ? ((Number) plans.get(plan)).longValue() + count : count);
+        }
+        return plans;
+    }
+
+    private static String planPath(String plan) {
+        return PLANS + "." + planKey(plan);
+    }
+
+    private static String planKey(String plan) {
+        return plan == null || plan.isBlank() ? DEFAULT_PLAN : AnalyticsService.counterKey(plan);
+    }
+
+    /**
+     * Totals read from the counter document or a daily snapshot
+     */
+    public static class MetricsSnapshot {
+        private final Document doc;
+
+        MetricsSnapshot(Document doc) {
+            this.doc = doc;
+        }
+
+        public long get(Metric metric) {
+            Object value = doc.get(metric.field);
+            return value instanceof Number ? ((Number) value).longValue() : 0L;
+        }
+
+        /**
+         * Users per subscription plan (FREE, PRO_MONTHLY, ...)
+         */
+        public Map<String, Long> getPlans() {
+            Map<String, Long> plans = new HashMap<>();
+            Object raw = doc.get(PLANS);
+            if (raw instanceof Document) {
+                ((Document) raw).forEach((plan, count) -> {
+                    if (count instanceof Number) {
+                        plans.put(plan, ((Number) count).longValue());
+                    }
+                });
+            }
+            return plans;
+        }
+    }
+}
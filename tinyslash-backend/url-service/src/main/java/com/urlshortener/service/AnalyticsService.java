@@ -1,16 +1,26 @@
 package com.urlshortener.service;
 
+import com.urlshortener.dto.LinkSummary;
 import com.urlshortener.model.ClickAnalytics;
+import com.urlshortener.model.ClickEvent;
 import com.urlshortener.model.ShortenedUrl;
+import com.urlshortener.model.UtmTags;
 import com.urlshortener.repository.ClickAnalyticsRepository;
 import com.urlshortener.repository.ShortenedUrlRepository;
+import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
@@ -30,8 +40,46 @@ public class AnalyticsService {
     @Autowired(required = false)
     private CacheService cacheService;
 
-    @CacheEvict(value = { "urlAnalytics", "userAnalytics", "clickCounts",
-            "realtimeAnalytics" }, key = "#shortCode", beforeInvocation = false)
+    @Autowired(required = false)
+    private MongoTemplate mongoTemplate;
+
+    @Autowired(required = false)
+    private ClickCounterService clickCounterService;
+
+    @Autowired(required = false)
+    private UniqueVisitorService uniqueVisitorService;
+
+    @Autowired(required = false)
+    private ClickRollupService clickRollupService;
+
+    @Autowired(required = false)
+    private ClickWindowService clickWindowService;
+
+    @Autowired(required = false)
+    private LinkLeaderboardService linkLeaderboardService;
+
+    @Autowired(required = false)
+    private ClickRetentionService clickRetentionService;
+
+    @Autowired
+    private ClickStorageService clickStorage;
+
+    @Autowired(required = false)
+    private GeoIpService geoIpService;
+
+    @Autowired(required = false)
+    private UserAgentService userAgentService;
+
+    @Autowired(required = false)
+    private BotDetectionService botDetectionService;
+
+    @Autowired(required = false)
+    private ReferrerAttributionService referrerAttributionService;
+
+    /**
+     * Record a single click synchronously (used by the explicit click API).
+     * The redirect path goes through {@link ClickIngestionService} instead.
+     */
     public ClickAnalytics recordClick(String shortCode, String ipAddress, String userAgent,
             String referrer, String country, String city,
             String deviceType, String browser, String os) {
@@ -42,62 +90,132 @@ public class AnalyticsService {
             return null;
         }
 
-        // Get the shortened URL
-        Optional<ShortenedUrl> urlOpt = shortenedUrlRepository.findByShortCode(shortCode);
-        if (urlOpt.isEmpty()) {
+        ClickEvent event = new ClickEvent(shortCode, null, null, null, ipAddress, userAgent, referrer,
+                LocalDateTime.now(), country, city, deviceType, browser, os, null);
+
+        List<ClickAnalytics> saved = persistClicks(List.of(event));
+        if (saved.isEmpty()) {
             throw new RuntimeException("Short URL not found");
         }
 
-        ShortenedUrl shortenedUrl = urlOpt.get();
+        logger.debug("Recorded click for URL: {} from IP: {}", shortCode, ipAddress);
 
-        // Create analytics record
-        ClickAnalytics analytics = new ClickAnalytics(shortCode, shortenedUrl.getUserId(), ipAddress, userAgent);
+        return saved.get(0);
+    }
 
-        // Set geographic data
-        analytics.setCountry(country);
-        analytics.setCity(city);
+    /**
+     * Persist a batch of raw clicks: one insertMany for the click events, while
+     * the per-link counters go to {@link ClickCounterService} which writes them
+     * as one coalesced $inc per link.
+     */
+    public List<ClickAnalytics> persistClicks(List<ClickEvent> events) {
+        if (events.isEmpty() || mongoTemplate == null) {
+            return List.of();
+        }
 
-        // Set device data
-        analytics.setDeviceType(deviceType);
-        analytics.setBrowser(browser);
-        analytics.setOperatingSystem(os);
-        analytics.setMobile("MOBILE".equals(deviceType));
+        Map<String, List<ClickEvent>> byShortCode = new LinkedHashMap<>();
+        for (ClickEvent event : events) {
+            byShortCode.computeIfAbsent(event.getShortCode(), k -> new ArrayList<>()).add(event);
+        }
 
-        // Set referrer data
-        analytics.setReferrer(referrer);
-        if (referrer != null && !referrer.isEmpty()) {
-            try {
-                java.net.URL url = new java.net.URL(referrer);
-                analytics.setReferrerDomain(url.getHost());
-                analytics.setReferrerType(determineReferrerType(url.getHost()));
-            } catch (Exception e) {
-                analytics.setReferrerType("DIRECT");
+        List<ClickAnalytics> rows = new ArrayList<>(events.size());
+        Map<String, String> owners = new HashMap<>();
+        Map<String, String> teams = new HashMap<>();
+        Map<String, String> domains = new HashMap<>();
+        Map<String, Map<String, Integer>> linkIncrements = new HashMap<>();
+        Map<String, LocalDateTime> lastClicks = new HashMap<>();
+
+        for (Map.Entry<String, List<ClickEvent>> entry : byShortCode.entrySet()) {
+            String shortCode = entry.getKey();
+            List<ClickEvent> clicks = entry.getValue();
+
+            ClickEvent first = resolveOwner(clicks.get(0));
+            if (first == null) {
+                logger.debug("Dropping {} clicks for unknown short code: {}", clicks.size(), shortCode);
+                continue;
+            }
+            String userId = first.getUserId();
+            String teamId = first.getTeamId();
+            owners.put(shortCode, userId);
+            teams.put(shortCode, teamId);
+            domains.put(shortCode, first.getDomain());
+
+            Map<String, Integer> increments = new HashMap<>();
+            Map<LocalDate, Set<String>> visitorsByDay = new HashMap<>();
+            Map<LocalDate, List<ClickAnalytics>> rowsByDay = new LinkedHashMap<>();
+            LocalDateTime lastClickedAt = null;
+
+            for (ClickEvent click : clicks) {
+                ClickAnalytics analytics = toClickAnalytics(click, userId);
+
+                // Robots the redirect-time classifier let through (or clicks recorded
+                // through the API) only count as bot hits
+                if (analytics.isBot() && botDetectionService != null) {
+                    botDetectionService.recordBotClick(shortCode, userId, "parser:" + analytics.getBotName());
+                    continue;
+                }
+
+                String visitorId = visitorId(click);
+                LocalDate day = click.getClickedAt().toLocalDate();
+                if (visitorId != null) {
+                    visitorsByDay.computeIfAbsent(day, d -> new LinkedHashSet<>()).add(visitorId);
+                }
+                rowsByDay.computeIfAbsent(day, d -> new ArrayList<>()).add(analytics);
+
+                if (lastClickedAt == null || click.getClickedAt().isAfter(lastClickedAt)) {
+                    lastClickedAt = click.getClickedAt();
+                }
+            }
+
+            // Unique clicks follow the growth of the link's daily HyperLogLog estimate,
+            // so their running total tracks the sketch count instead of register changes
+            rowsByDay.forEach((day, dayRows) -> {
+                Set<String> visitors = visitorsByDay.getOrDefault(day, Set.of());
+                long newVisitors = uniqueVisitorService != null && !visitors.isEmpty()
+                        ? uniqueVisitorService.recordLinkVisits(shortCode, visitors, day) : 0;
+                markUniqueClicks(dayRows, newVisitors);
+                for (ClickAnalytics analytics : dayRows) {
+                    rows.add(analytics);
+                    accumulateCounters(increments, analytics);
+                }
+            });
+
+            if (uniqueVisitorService != null) {
+                visitorsByDay.forEach((day, visitors) ->
+                        uniqueVisitorService.recordUserVisits(userId, visitors, day));
+            }
+
+            if (lastClickedAt != null) {
+                linkIncrements.put(shortCode, increments);
+                lastClicks.put(shortCode, lastClickedAt);
             }
-        } else {
-            analytics.setReferrerType("DIRECT");
         }
 
-        // Check if this is a unique click (same IP in last 24 hours)
-        LocalDateTime yesterday = LocalDateTime.now().minus(1, ChronoUnit.DAYS);
-        List<ClickAnalytics> recentClicks = clickAnalyticsRepository
-                .findByShortCodeAndClickedAtBetween(shortCode, yesterday, LocalDateTime.now());
+        if (rows.isEmpty()) {
+            return rows;
+        }
 
-        boolean isUnique = recentClicks.stream()
-                .noneMatch(click -> ipAddress.equals(click.getIpAddress()));
-        analytics.setUniqueClick(isUnique);
+        clickStorage.insert(rows);
 
-        // Save analytics
-        ClickAnalytics saved = clickAnalyticsRepository.save(analytics);
+        // Link counters are coalesced in memory and flushed as one $inc per link;
+        // the counter flush also takes care of cache invalidation
+        linkIncrements.forEach((shortCode, increments) -> clickCounterService.incrementAll(
+                shortCode, owners.get(shortCode), increments, lastClicks.get(shortCode)));
 
-        // Update URL statistics
-        updateUrlStatistics(shortenedUrl, analytics);
+        // Minute/hour/day rollups answer the time-series analytics queries; the
+        // rolling today/week/month windows are kept alongside them
+        for (ClickAnalytics row : rows) {
+            clickRollupService.record(row, teams.get(row.getShortCode()));
+            clickWindowService.record(row);
+        }
 
-        // Invalidate relevant caches
-        cacheService.invalidateUrlAnalytics(shortCode, shortenedUrl.getUserId());
+        // Heavy-hitter leaderboards (global, owner, custom domain)
+        linkIncrements.forEach((shortCode, increments) -> linkLeaderboardService.record(shortCode,
+                owners.get(shortCode), domains.get(shortCode), increments.getOrDefault("totalClicks", 0)));
 
-        logger.debug("Recorded click for URL: {} from IP: {}", shortCode, ipAddress);
+        logger.debug("Persisted {} clicks across {} links", rows.size(), owners.size());
 
-        return saved;
+        return rows;
     }
 
     @Cacheable(value = "urlAnalytics", key = "#shortCode + ':' + #userId")
@@ -118,9 +236,21 @@ public class AnalyticsService {
         // Basic statistics
         analytics.put("totalClicks", url.getTotalClicks());
         analytics.put("uniqueClicks", url.getUniqueClicks());
-        analytics.put("todayClicks", url.getTodayClicks());
-        analytics.put("thisWeekClicks", url.getThisWeekClicks());
-        analytics.put("thisMonthClicks", url.getThisMonthClicks());
+        ClickWindowService.WindowTotals window = clickWindowService.link(shortCode);
+        analytics.put("lastHourClicks", window.getLastHour());
+        analytics.put("todayClicks", window.getToday());
+        analytics.put("thisWeekClicks", window.getLastWeek());
+        analytics.put("thisMonthClicks", window.getLastMonth());
+
+        // Unique visitors from the daily HyperLogLog sketches
+        if (uniqueVisitorService != null) {
+            LocalDate today = LocalDate.now();
+            analytics.put("uniqueVisitorsToday", uniqueVisitorService.countLinkVisitors(shortCode, today, today));
+            analytics.put("uniqueVisitorsThisWeek",
+                    uniqueVisitorService.countLinkVisitors(shortCode, today.minusDays(6), today));
+            analytics.put("uniqueVisitorsThisMonth",
+                    uniqueVisitorService.countLinkVisitors(shortCode, today.minusDays(29), today));
+        }
 
         // Geographic data
         analytics.put("clicksByCountry", url.getClicksByCountry());
@@ -138,17 +268,11 @@ public class AnalyticsService {
         analytics.put("clicksByHour", url.getClicksByHour());
         analytics.put("clicksByDay", url.getClicksByDay());
 
-        // Recent activity
-        LocalDateTime last7Days = LocalDateTime.now().minus(7, ChronoUnit.DAYS);
-        List<ClickAnalytics> recentClicks = clickAnalyticsRepository
-                .findByShortCodeAndClickedAtBetween(shortCode, last7Days, LocalDateTime.now());
-
-        Map<String, Long> dailyClicks = recentClicks.stream()
-                .collect(Collectors.groupingBy(
-                        click -> click.getClickedAt().toLocalDate().toString(),
-                        Collectors.counting()));
-
-        analytics.put("last7DaysClicks", dailyClicks);
+        // Recent activity: at most 7 day buckets instead of a week of raw clicks
+        LocalDateTime now = LocalDateTime.now();
+        analytics.put("last7DaysClicks", clickRollupService.query(ClickRollupService.Scope.LINK, shortCode,
+                ClickRollupService.Granularity.DAY, now.toLocalDate().minusDays(6).atStartOfDay(), now)
+                .getClicksByDate());
 
         logger.debug("Retrieved analytics for URL: {} (user: {})", shortCode, userId);
 
@@ -157,24 +281,27 @@ public class AnalyticsService {
 
     @Cacheable(value = "userAnalytics", key = "#userId")
     public Map<String, Object> getUserAnalytics(String userId) {
-        // Get user's URLs
-        List<ShortenedUrl> userUrls = shortenedUrlRepository.findByUserId(userId);
-
         Map<String, Object> analytics = new HashMap<>();
 
-        // Overall statistics
-        int totalUrls = userUrls.size();
-        int totalClicks = userUrls.stream().mapToInt(ShortenedUrl::getTotalClicks).sum();
-        int totalUniqueClicks = userUrls.stream().mapToInt(ShortenedUrl::getUniqueClicks).sum();
-
-        analytics.put("totalUrls", totalUrls);
-        analytics.put("totalClicks", totalClicks);
-        analytics.put("totalUniqueClicks", totalUniqueClicks);
+        // Overall statistics: one $group over the owner's links instead of loading them
+        Aggregation totalsAgg = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("userId").is(userId)),
+                Aggregation.group().count().as("urls").sum("totalClicks").as("clicks")
+                        .sum("uniqueClicks").as("uniqueClicks"));
+        Document totals = mongoTemplate.aggregate(totalsAgg, ShortenedUrl.class, Document.class)
+                .getUniqueMappedResult();
+
+        analytics.put("totalUrls", totals != null ? number(totals.get("urls")) : 0L);
+        analytics.put("totalClicks", totals != null ? number(totals.get("clicks")) : 0L);
+        analytics.put("totalUniqueClicks", totals != null ? number(totals.get("uniqueClicks")) : 0L);
+        if (uniqueVisitorService != null) {
+            LocalDate today = LocalDate.now();
+            analytics.put("uniqueVisitorsLast30Days",
+                    uniqueVisitorService.countUserVisitors(userId, today.minusDays(29), today));
+        }
 
-        // Top performing URLs
-        List<Map<String, Object>> topUrls = userUrls.stream()
-                .sorted((a, b) -> Integer.compare(b.getTotalClicks(), a.getTotalClicks()))
-                .limit(10)
+        // Top performing URLs from the owner's leaderboard
+        List<Map<String, Object>> topUrls = linkLeaderboardService.topLinksForUser(userId, 10).stream()
                 .map(url -> {
                     Map<String, Object> urlData = new HashMap<>();
                     urlData.put("shortCode", url.getShortCode());
@@ -188,32 +315,35 @@ public class AnalyticsService {
 
         analytics.put("topUrls", topUrls);
 
-        // Aggregate geographic data
-        Map<String, Integer> allCountries = new HashMap<>();
-        Map<String, Integer> allDevices = new HashMap<>();
-        Map<String, Integer> allBrowsers = new HashMap<>();
-
-        for (ShortenedUrl url : userUrls) {
-            url.getClicksByCountry().forEach((country, count) -> allCountries.merge(country, count, Integer::sum));
-            url.getClicksByDevice().forEach((device, count) -> allDevices.merge(device, count, Integer::sum));
-            url.getClicksByBrowser().forEach((browser, count) -> allBrowsers.merge(browser, count, Integer::sum));
+        // Breakdowns from the owner's day buckets plus the raw clicks that are
+        // in no rollup yet (history not compacted so far)
+        LocalDateTime now = LocalDateTime.now();
+        ClickRollupService.RollupSeries rollups = clickRollupService.query(ClickRollupService.Scope.USER, userId,
+                ClickRollupService.Granularity.DAY, ClickRetentionService.EPOCH, now.plusMinutes(1));
+        ClickRetentionService.RawRange raw = clickRetentionService.uncompactedRange(ClickRollupService.Scope.USER);
+
+        Map<String, Long> countries = new HashMap<>(rollups.getClicksByCountry());
+        Map<String, Long> devices = new HashMap<>(rollups.getClicksByDevice());
+        Map<String, Long> browsers = new HashMap<>(rollups.getClicksByBrowser());
+        Map<String, Long> referrers = new HashMap<>(rollups.getClicksByReferrer());
+        if (raw != null) {
+            Criteria range = new Criteria().andOperator(clickStorage.forUser(userId),
+                    clickStorage.between(raw.getFrom(), raw.getTo()));
+            mergeCounts(countries, clickStorage.countBy("country", range));
+            mergeCounts(devices, clickStorage.countBy("deviceType", range));
+            mergeCounts(browsers, clickStorage.countBy("browser", range));
+            mergeCounts(referrers, clickStorage.countBy("referrerDomain", range));
         }
 
-        analytics.put("clicksByCountry", allCountries);
-        analytics.put("clicksByDevice", allDevices);
-        analytics.put("clicksByBrowser", allBrowsers);
-
-        // Recent activity (last 30 days)
-        LocalDateTime last30Days = LocalDateTime.now().minus(30, ChronoUnit.DAYS);
-        List<ClickAnalytics> recentClicks = clickAnalyticsRepository
-                .findByUserIdAndClickedAtBetween(userId, last30Days, LocalDateTime.now());
+        analytics.put("clicksByCountry", countries);
+        analytics.put("clicksByDevice", devices);
+        analytics.put("clicksByBrowser", browsers);
+        analytics.put("clicksByReferrer", topCounts(referrers, 20));
 
-        Map<String, Long> dailyActivity = recentClicks.stream()
-                .collect(Collectors.groupingBy(
-                        click -> click.getClickedAt().toLocalDate().toString(),
-                        Collectors.counting()));
-
-        analytics.put("last30DaysActivity", dailyActivity);
+        // Recent activity (last 30 days) from the owner's day buckets
+        analytics.put("last30DaysActivity", clickRollupService.query(ClickRollupService.Scope.USER, userId,
+                ClickRollupService.Granularity.DAY, now.toLocalDate().minusDays(29).atStartOfDay(), now)
+                .getClicksByDate());
 
         logger.debug("Retrieved user analytics for user: {}", userId);
 
@@ -226,28 +356,22 @@ public class AnalyticsService {
         LocalDateTime todayStart = now.toLocalDate().atStartOfDay();
         LocalDateTime hourStart = now.truncatedTo(ChronoUnit.HOURS);
 
-        // Get today's clicks for user
-        List<ClickAnalytics> todayClicks = clickAnalyticsRepository
-                .findByUserIdAndClickedAtBetween(userId, todayStart, now);
-
-        // Get this hour's clicks
-        List<ClickAnalytics> thisHourClicks = clickAnalyticsRepository
-                .findByUserIdAndClickedAtBetween(userId, hourStart, now);
+        // Today's hour buckets give both today's and this hour's totals
+        ClickRollupService.RollupSeries today = clickRollupService.query(ClickRollupService.Scope.USER, userId,
+                ClickRollupService.Granularity.HOUR, todayStart, now.plusMinutes(1));
 
         Map<String, Object> realtime = new HashMap<>();
-        realtime.put("clicksToday", todayClicks.size());
-        realtime.put("clicksThisHour", thisHourClicks.size());
-        realtime.put("uniqueClicksToday", todayClicks.stream()
-                .collect(Collectors.groupingBy(ClickAnalytics::getIpAddress))
-                .size());
-
-        // Recent clicks (last 10)
-        List<ClickAnalytics> recentClicks = clickAnalyticsRepository
-                .findByUserId(userId)
-                .stream()
-                .sorted((a, b) -> b.getClickedAt().compareTo(a.getClickedAt()))
-                .limit(10)
-                .collect(Collectors.toList());
+        realtime.put("clicksToday", today.getTotalClicks());
+        realtime.put("clicksThisHour", today.getClicksAt(hourStart));
+        realtime.put("uniqueClicksToday", uniqueVisitorService != null
+                ? uniqueVisitorService.countUserVisitors(userId, now.toLocalDate(), now.toLocalDate())
+                : today.getUniqueClicks());
+
+        // Recent clicks (last 10), read newest-first straight from the index
+        Query recentQuery = Query.query(clickStorage.forUser(userId))
+                .with(Sort.by(Sort.Direction.DESC, "clickedAt"))
+                .limit(10);
+        List<ClickAnalytics> recentClicks = clickStorage.find(recentQuery);
 
         List<Map<String, Object>> recentActivity = recentClicks.stream()
                 .map(click -> {
@@ -269,6 +393,47 @@ public class AnalyticsService {
         return realtime;
     }
 
+    /**
+     * An owner's clicks by UTM campaign and by channel over the last days,
+     * from their day buckets
+     */
+    public Map<String, Object> getCampaignAnalytics(String userId, int days) {
+        LocalDateTime now = LocalDateTime.now();
+        ClickRollupService.RollupSeries series = clickRollupService.query(ClickRollupService.Scope.USER, userId,
+                ClickRollupService.Granularity.DAY, now.toLocalDate().minusDays(days - 1).atStartOfDay(), now);
+
+        Map<String, Object> analytics = new HashMap<>();
+        analytics.put("days", days);
+        analytics.put("totalClicks", series.getTotalClicks());
+        analytics.put("clicksByCampaign", topCounts(series.getClicksByCampaign(), 50));
+        analytics.put("clicksByChannel", series.getClicksByChannel());
+        analytics.put("clicksByReferrer", topCounts(series.getClicksByReferrer(), 20));
+        return analytics;
+    }
+
+    /**
+     * One campaign's clicks over the last days with its channel, country,
+     * device and referrer mix
+     */
+    public Map<String, Object> getCampaignPerformance(String userId, String campaign, int days) {
+        LocalDateTime now = LocalDateTime.now();
+        ClickRollupService.RollupSeries series = clickRollupService.query(ClickRollupService.Scope.CAMPAIGN,
+                ClickRollupService.campaignKey(userId, campaign), ClickRollupService.Granularity.DAY,
+                now.toLocalDate().minusDays(days - 1).atStartOfDay(), now);
+
+        Map<String, Object> analytics = new HashMap<>();
+        analytics.put("campaign", campaign);
+        analytics.put("days", days);
+        analytics.put("totalClicks", series.getTotalClicks());
+        analytics.put("uniqueClicks", series.getUniqueClicks());
+        analytics.put("clicksByDate", series.getClicksByDate());
+        analytics.put("clicksByChannel", series.getClicksByChannel());
+        analytics.put("clicksByCountry", topCounts(series.getClicksByCountry(), 20));
+        analytics.put("clicksByDevice", series.getClicksByDevice());
+        analytics.put("clicksByReferrer", topCounts(series.getClicksByReferrer(), 20));
+        return analytics;
+    }
+
     /**
      * Get system-wide analytics for Admin Dashboard
      */
@@ -280,29 +445,76 @@ public class AnalyticsService {
 
         Map<String, Object> analytics = new HashMap<>();
 
+        // Clicks come from the GLOBAL day rollups plus the raw clicks that are
+        // in no rollup yet (history not compacted so far)
+        LocalDateTime now = LocalDateTime.now();
+        ClickRollupService.RollupSeries rollups = clickRollupService.query(ClickRollupService.Scope.GLOBAL,
+                ClickRollupService.GLOBAL_KEY, ClickRollupService.Granularity.DAY, ClickRetentionService.EPOCH,
+                now.plusMinutes(1));
+        ClickRetentionService.RawRange raw = clickRetentionService.uncompactedRange(ClickRollupService.Scope.GLOBAL);
+
         // Overall Counters
         long totalUrls = shortenedUrlRepository.count();
-        long totalClicks = clickAnalyticsRepository.count();
+        long totalClicks = rollups.getTotalClicks();
+        if (raw != null) {
+            totalClicks += clickStorage.count(clickStorage.between(raw.getFrom(), raw.getTo()));
+        }
         // Determine active users (users who have created a link in last 30 days)
         // This is an approximation. A better way would be users with clicks or logins.
-        long activeUsers = shortenedUrlRepository.findAll().stream()
-                .filter(u -> u.getCreatedAt().isAfter(LocalDateTime.now().minusDays(30)))
-                .map(ShortenedUrl::getUserId)
-                .distinct()
-                .count();
+        long activeUsers = mongoTemplate.findDistinct(
+                Query.query(Criteria.where("createdAt").gt(LocalDateTime.now().minusDays(30))),
+                "userId", ShortenedUrl.class, String.class).size();
 
         analytics.put("totalUrls", totalUrls);
         analytics.put("totalClicks", totalClicks);
         analytics.put("activeUsers", activeUsers);
 
-        // Top Performing Links (Global)
-        // Since we don't have a direct repository method for top URLs global,
-        // we can fetch a batch or rely on the `top 10` by clicks if we had an index.
-        // For now, let's just get top 10 from all URLs (might be slow if millions of
-        // URLs, fine for demo)
-        List<Map<String, Object>> topUrls = shortenedUrlRepository.findAll().stream()
-                .sorted((a, b) -> Integer.compare(b.getTotalClicks(), a.getTotalClicks()))
-                .limit(10)
+        // Top Performing Links (Global) from the heavy-hitter leaderboard
+        analytics.put("topUrls", getTopLinks(linkLeaderboardService.topLinks(10)));
+
+        Map<String, Long> countries = new HashMap<>(rollups.getClicksByCountry());
+        Map<String, Long> devices = new HashMap<>(rollups.getClicksByDevice());
+        Map<String, Long> browsers = new HashMap<>(rollups.getClicksByBrowser());
+        if (raw != null) {
+            Criteria range = clickStorage.between(raw.getFrom(), raw.getTo());
+            mergeCounts(countries, clickStorage.countBy("country", range));
+            mergeCounts(devices, clickStorage.countBy("deviceType", range));
+            mergeCounts(browsers, clickStorage.countBy("browser", range));
+        }
+        analytics.put("topCountries", topCounts(countries, 10));
+        analytics.put("topDevices", devices);
+        analytics.put("topBrowsers", browsers);
+
+        // Daily Clicks System Wide (Last 30 Days)
+        LocalDateTime thirtyDaysAgo = now.minusDays(30);
+        String firstDay = thirtyDaysAgo.toLocalDate().toString();
+        Map<String, Long> dailyClicks = new TreeMap<>(); // Sorted map
+        rollups.getClicksByDate().forEach((date, count) -> {
+            if (date.compareTo(firstDay) >= 0) {
+                dailyClicks.put(date, count);
+            }
+        });
+        if (raw != null && raw.getTo().isAfter(thirtyDaysAgo)) {
+            LocalDateTime from = raw.getFrom().isAfter(thirtyDaysAgo) ? raw.getFrom() : thirtyDaysAgo;
+            clickStorage.dailyClicks(clickStorage.between(from, raw.getTo()))
+                    .forEach((date, count) -> dailyClicks.merge(date, count, Long::sum));
+        }
+
+        analytics.put("clicksOverTime", dailyClicks);
+
+        return analytics;
+    }
+
+    /**
+     * Top links served on a custom domain; the default domain falls back to
+     * the global leaderboard
+     */
+    public List<Map<String, Object>> getDomainTopLinks(String domain, int limit) {
+        return getTopLinks(linkLeaderboardService.topLinksForDomain(domain, limit));
+    }
+
+    private List<Map<String, Object>> getTopLinks(List<LinkSummary> links) {
+        return links.stream()
                 .map(url -> {
                     Map<String, Object> urlData = new HashMap<>();
                     urlData.put("shortCode", url.getShortCode());
@@ -311,106 +523,169 @@ public class AnalyticsService {
                     return urlData;
                 })
                 .collect(Collectors.toList());
-        analytics.put("topUrls", topUrls);
-
-        // Aggregations using Repository Methods
-        analytics.put("topCountries", formatAggregationResult(clickAnalyticsRepository.getTopCountriesSystemWide()));
-        analytics.put("topDevices", formatAggregationResult(clickAnalyticsRepository.getTopDevicesSystemWide()));
-        analytics.put("topBrowsers", formatAggregationResult(clickAnalyticsRepository.getTopBrowsersSystemWide()));
-
-        // Daily Clicks System Wide (Last 30 Days)
-        LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
-        List<Object> dailyClicksRaw = clickAnalyticsRepository.getDailyClicksSystemWide(thirtyDaysAgo);
-        Map<String, Long> dailyClicks = new TreeMap<>(); // Sorted map
+    }
 
-        // Populate dailyClicks map
-        for (Object result : dailyClicksRaw) {
-            if (result instanceof Map) {
-                Map<?, ?> map = (Map<?, ?>) result;
-                String date = (String) map.get("_id");
-                Number count = (Number) map.get("count");
-                dailyClicks.put(date, count.longValue());
-            }
-        }
+    private static long number(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
 
-        analytics.put("clicksOverTime", dailyClicks);
+    private void mergeCounts(Map<String, Long> counts, Map<String, Long> results) {
+        results.forEach((key, count) -> counts.merge(counterKey(key), count, Long::sum));
+    }
 
-        return analytics;
+    private Map<String, Long> topCounts(Map<String, Long> counts, int limit) {
+        Map<String, Long> top = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(limit)
+                .forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+        return top;
     }
 
-    private Map<String, Long> formatAggregationResult(List<Object> results) {
-        Map<String, Long> formatted = new HashMap<>();
-        for (Object result : results) {
-            if (result instanceof Map) {
-                Map<?, ?> map = (Map<?, ?>) result;
-                String key = (String) map.get("_id");
-                Number count = (Number) map.get("count");
-                if (key != null) {
-                    formatted.put(key, count.longValue());
-                }
-            }
+    /**
+     * Attribute a click to its link owner, looking the link up only when the
+     * caller did not already know it
+     */
+    private ClickEvent resolveOwner(ClickEvent click) {
+        if (click.getUserId() != null) {
+            return click;
         }
-        return formatted;
+        return shortenedUrlRepository.findByShortCode(click.getShortCode())
+                .map(url -> click.withOwner(url.getUserId(),
+                        "TEAM".equals(url.getScopeType()) ? url.getScopeId() : null, url.getDomain(),
+                        UtmTags.fromUrl(url.getOriginalUrl())))
+                .orElse(null);
     }
 
-    private void updateUrlStatistics(ShortenedUrl url, ClickAnalytics analytics) {
-        // Update basic counters
-        url.setTotalClicks(url.getTotalClicks() + 1);
-        if (analytics.isUniqueClick()) {
-            url.setUniqueClicks(url.getUniqueClicks() + 1);
+    private String visitorId(ClickEvent click) {
+        if (click.getIpAddress() != null) {
+            return click.getIpAddress();
         }
+        return click.getUserAgent();
+    }
 
-        // Update time-based counters
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime todayStart = now.toLocalDate().atStartOfDay();
-        LocalDateTime weekStart = now.minus(7, ChronoUnit.DAYS);
-        LocalDateTime monthStart = now.minus(30, ChronoUnit.DAYS);
-
-        if (analytics.getClickedAt().isAfter(todayStart)) {
-            url.setTodayClicks(url.getTodayClicks() + 1);
-        }
-        if (analytics.getClickedAt().isAfter(weekStart)) {
-            url.setThisWeekClicks(url.getThisWeekClicks() + 1);
-        }
-        if (analytics.getClickedAt().isAfter(monthStart)) {
-            url.setThisMonthClicks(url.getThisMonthClicks() + 1);
+    /**
+     * Flag the first click of the first newVisitors distinct visitors of one
+     * link and day as unique
+     */
+    private void markUniqueClicks(List<ClickAnalytics> dayRows, long newVisitors) {
+        Set<String> marked = new HashSet<>();
+        for (ClickAnalytics analytics : dayRows) {
+            String visitorId = analytics.getIpAddress() != null ? analytics.getIpAddress() : analytics.getUserAgent();
+            boolean unique = visitorId != null && marked.size() < newVisitors && marked.add(visitorId);
+            analytics.setUniqueClick(unique);
         }
+    }
 
-        // Update geographic data
-        if (analytics.getCountry() != null) {
-            url.getClicksByCountry().merge(analytics.getCountry(), 1, Integer::sum);
-        }
-        if (analytics.getCity() != null) {
-            url.getClicksByCity().merge(analytics.getCity(), 1, Integer::sum);
+    private ClickAnalytics toClickAnalytics(ClickEvent click, String userId) {
+        ClickAnalytics analytics = new ClickAnalytics(click.getShortCode(), userId, click.getIpAddress(),
+                click.getUserAgent(), click.getClickedAt());
+
+        // Set geographic data: the edge's country wins, the geo database fills the gaps
+        String country = click.getCountry();
+        String city = click.getCity();
+        if (city == null && geoIpService != null) {
+            GeoIpService.Location location = geoIpService.lookup(click.getIpAddress());
+            if (location != null && (country == null || country.equalsIgnoreCase(location.getCountry()))) {
+                country = location.getCountry();
+                city = location.getCity();
+            }
         }
+        analytics.setCountry(country);
+        analytics.setCity(city);
 
-        // Update device data
-        if (analytics.getDeviceType() != null) {
-            url.getClicksByDevice().merge(analytics.getDeviceType(), 1, Integer::sum);
-        }
-        if (analytics.getBrowser() != null) {
-            url.getClicksByBrowser().merge(analytics.getBrowser(), 1, Integer::sum);
+        // Set device data: caller-supplied values win, the parsed user agent fills the rest
+        UserAgentService.ParsedUserAgent agent = userAgentService != null
+                ? userAgentService.parse(click.getUserAgent()) : null;
+        String deviceType = click.getDeviceType();
+        String browser = click.getBrowser();
+        String os = click.getOs();
+        if (agent != null) {
+            deviceType = deviceType != null ? deviceType : agent.getDeviceType();
+            browser = browser != null ? browser : agent.getBrowser();
+            os = os != null ? os : agent.getOperatingSystem();
+            if (click.getBrowser() == null) {
+                analytics.setBrowserVersion(agent.getBrowserVersion());
+                analytics.setBrowserEngine(agent.getBrowserEngine());
+            }
+            if (click.getOs() == null) {
+                analytics.setOsVersion(agent.getOsVersion());
+            }
+            analytics.setBot(agent.isBot());
+            analytics.setBotName(agent.getBotName());
         }
-        if (analytics.getOperatingSystem() != null) {
-            url.getClicksByOS().merge(analytics.getOperatingSystem(), 1, Integer::sum);
+        analytics.setDeviceType(deviceType);
+        analytics.setBrowser(browser);
+        analytics.setOperatingSystem(os);
+        analytics.setMobile("MOBILE".equals(deviceType));
+
+        // Set referrer data
+        String referrer = click.getReferrer();
+        analytics.setReferrer(referrer);
+        if (referrerAttributionService != null) {
+            // Registrable domain, so every subdomain of a referrer counts as one
+            String host = referrerAttributionService.referrerHost(referrer);
+            analytics.setReferrerDomain(referrerAttributionService.registrableDomain(host));
+            analytics.setReferrerType(referrerAttributionService.referrerType(host));
+        } else if (referrer != null && !referrer.isEmpty()) {
+            try {
+                java.net.URL url = new java.net.URL(referrer);
+                analytics.setReferrerDomain(url.getHost());
+                analytics.setReferrerType(determineReferrerType(url.getHost()));
+            } catch (Exception e) {
+                analytics.setReferrerType("DIRECT");
+            }
+        } else {
+            analytics.setReferrerType("DIRECT");
         }
 
-        // Update referrer data
-        if (analytics.getReferrerDomain() != null) {
-            url.getClicksByReferrer().merge(analytics.getReferrerDomain(), 1, Integer::sum);
+        // Set campaign data carried from the link
+        UtmTags utm = click.getUtm();
+        if (utm != null) {
+            analytics.setUtmSource(utm.getSource());
+            analytics.setUtmMedium(utm.getMedium());
+            analytics.setUtmCampaign(utm.getCampaign());
+            analytics.setUtmTerm(utm.getTerm());
+            analytics.setUtmContent(utm.getContent());
         }
+        analytics.setChannel(referrerAttributionService != null
+                ? referrerAttributionService.channel(utm, analytics.getReferrerType())
+                : analytics.getReferrerType());
+
+        return analytics;
+    }
 
-        // Update time-based data
-        String hourKey = String.valueOf(now.getHour());
-        String dayKey = now.getDayOfWeek().toString();
+    /**
+     * Fold one click into the per-link $inc document (dotted map paths)
+     */
+    private void accumulateCounters(Map<String, Integer> increments, ClickAnalytics analytics) {
+        increments.merge("totalClicks", 1, Integer::sum);
+        if (analytics.isUniqueClick()) {
+            increments.merge("uniqueClicks", 1, Integer::sum);
+        }
 
-        url.getClicksByHour().merge(hourKey, 1, Integer::sum);
-        url.getClicksByDay().merge(dayKey, 1, Integer::sum);
+        incrementMapCounter(increments, "clicksByCountry", analytics.getCountry());
+        incrementMapCounter(increments, "clicksByCity", analytics.getCity());
+        incrementMapCounter(increments, "clicksByDevice", analytics.getDeviceType());
+        incrementMapCounter(increments, "clicksByBrowser", analytics.getBrowser());
+        incrementMapCounter(increments, "clicksByOS", analytics.getOperatingSystem());
+        incrementMapCounter(increments, "clicksByReferrer", analytics.getReferrerDomain());
+        incrementMapCounter(increments, "clicksByHour", String.valueOf(analytics.getHourOfDay()));
+        incrementMapCounter(increments, "clicksByDay", analytics.getClickedAt().getDayOfWeek().toString());
+    }
 
-        url.setLastClickedAt(now);
-        url.setUpdatedAt(now);
+    private void incrementMapCounter(Map<String, Integer> increments, String field, String key) {
+        if (key == null || key.isEmpty()) {
+            return;
+        }
+        increments.merge(field + "." + counterKey(key), 1, Integer::sum);
+    }
 
-        shortenedUrlRepository.save(url);
+    /**
+     * Map keys become path segments in $inc, so dots and '$' must not leak into them
+     */
+    static String counterKey(String key) {
+        return key.replace('.', '_').replace('$', '_');
     }
 
     private String determineReferrerType(String domain) {
@@ -0,0 +1,251 @@
+package com.urlshortener.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Classifies redirect hits from crawlers, link-preview fetchers and scanners.
+ *
+ * The user agent is matched against a configurable signature list compiled
+ * into a {@link SignatureMatcher}, the client address against configured
+ * CIDR ranges, and a few headers real browsers always or never send are
+ * checked. A bot hit only bumps the link's botClicks counter through
+ * {@link ClickCounterService}: no raw click row, no rollups, no totalClicks
+ * and no cache invalidation. Each signature, range and heuristic has its own
+ * hit counter.
+ *
+ * Prefetch and preview requests (Purpose / Sec-Purpose) are not classified as
+ * bots: the redirect answers them with an uncacheable temporary redirect, so
+ * the navigation that follows comes back and is counted as the click.
+ */
+@Service
+public class BotDetectionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BotDetectionService.class);
+
+    // Generic markers are anchored ("bot/", "bot;") so device names like "CUBOT" do not match
+    static final List<String> DEFAULT_SIGNATURES = List.of(
+            "bot/", "bot;", "bot)", "bot-", "bot+", "bot.htm", "crawler", "spider", "slurp",
+            "googlebot", "bingbot", "applebot", "googleother", "google-inspectiontool", "bingpreview",
+            "facebookexternalhit", "facebookcatalog", "meta-externalagent", "slackbot", "slack-imgproxy",
+            "twitterbot", "discordbot", "telegrambot", "linkedinbot", "whatsapp/", "skypeuripreview",
+            "embedly", "pinterestbot", "redditbot", "iframely", "vkshare", "viber",
+            "headlesschrome", "phantomjs", "lighthouse", "python-requests", "python-urllib", "aiohttp",
+            "curl/", "wget/", "go-http-client", "okhttp", "java/", "libwww-perl", "apache-httpclient",
+            "scrapy", "httpx", "axios/", "node-fetch", "urlscan", "virustotal", "safebrowsing",
+            "barracuda", "proofpoint", "mimecast", "bitdefender", "zgrab", "masscan", "nmap", "nessus",
+            "censys", "pingdom", "uptimerobot", "statuscake");
+
+    static final String NO_USER_AGENT = "header:no-user-agent";
+    static final String NO_ACCEPT_LANGUAGE = "header:no-accept-language";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired(required = false)
+    private ClickCounterService clickCounterService;
+
+    @Value("${app.bot-detection.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.bot-detection.signatures:}")
+    private List<String> configuredSignatures;
+
+    @Value("${app.bot-detection.ip-ranges:}")
+    private List<String> configuredRanges;
+
+    @Value("${app.bot-detection.require-accept-language:false}")
+    private boolean requireAcceptLanguage;
+
+    private SignatureMatcher matcher;
+    private final List<IpRange> ranges = new ArrayList<>();
+    private final Map<String, Counter> hitCounters = new ConcurrentHashMap<>();
+    private Counter prefetchCounter;
+
+    @PostConstruct
+    public void initialize() {
+        List<String> signatures = configuredSignatures == null || configuredSignatures.stream()
+                .allMatch(String::isBlank) ? DEFAULT_SIGNATURES : configuredSignatures;
+        matcher = SignatureMatcher.compile(signatures);
+        prefetchCounter = Counter.builder("clicks.prefetches")
+                .description("Prefetch and preview hits answered without counting a click")
+                .register(meterRegistry);
+
+        if (configuredRanges != null) {
+            for (String cidr : configuredRanges) {
+                if (cidr.isBlank()) {
+                    continue;
+                }
+                IpRange range = IpRange.parse(cidr.trim());
+                if (range == null) {
+                    logger.warn("Ignoring invalid bot IP range: {}", cidr);
+                } else {
+                    ranges.add(range);
+                }
+            }
+        }
+
+        logger.info("Bot detection {} with {} user-agent signatures and {} IP ranges",
+                enabled ? "enabled" : "disabled", matcher.size(), ranges.size());
+    }
+
+    /**
+     * The signature, range or heuristic that marks a request as automated,
+     * or null for a presumed human. Header arguments may be null when unknown.
+     */
+    public String classify(String userAgent, String ipAddress, String acceptLanguage) {
+        if (!enabled) {
+            return null;
+        }
+        if (userAgent == null || userAgent.isBlank()) {
+            return NO_USER_AGENT;
+        }
+        int signature = matcher.find(userAgent);
+        if (signature >= 0) {
+            return "ua:" + matcher.signature(signature);
+        }
+        if (ipAddress != null && !ranges.isEmpty()) {
+            for (IpRange range : ranges) {
+                if (range.contains(ipAddress)) {
+                    return range.label;
+                }
+            }
+        }
+        if (requireAcceptLanguage && (acceptLanguage == null || acceptLanguage.isBlank())) {
+            return NO_ACCEPT_LANGUAGE;
+        }
+        return null;
+    }
+
+    /**
+     * Whether a Purpose / Sec-Purpose value marks a speculative prefetch or
+     * preview rather than a navigation. Counts the hit when it does.
+     */
+    public boolean isPrefetch(String purpose) {
+        if (!enabled || purpose == null) {
+            return false;
+        }
+        String value = purpose.toLowerCase(Locale.ROOT);
+        if (value.contains("prefetch") || value.contains("preview")) {
+            prefetchCounter.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Count a bot hit against its link and its classification
+     */
+    public void recordBotClick(String shortCode, String userId, String classification) {
+        hitCounters.computeIfAbsent(classification, label -> Counter.builder("clicks.bots")
+                .description("Redirect hits classified as bots, by matching signature")
+                .tag("signature", label)
+                .register(meterRegistry)).increment();
+        if (clickCounterService != null) {
+            clickCounterService.increment(shortCode, userId, "botClicks", 1);
+        }
+    }
+
+    /**
+     * Hits per signature since startup, highest first
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Long> hits = new LinkedHashMap<>();
+        hitCounters.entrySet().stream()
+                .sorted((a, b) -> Double.compare(b.getValue().count(), a.getValue().count()))
+                .forEach(entry -> hits.put(entry.getKey(), (long) entry.getValue().count()));
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("signatures", matcher.size());
+        stats.put("ipRanges", ranges.size());
+        stats.put("requireAcceptLanguage", requireAcceptLanguage);
+        stats.put("hits", hits);
+        stats.put("totalHits", hits.values().stream().mapToLong(Long::longValue).sum());
+        return stats;
+    }
+
+    /**
+     * An IPv4 or IPv6 CIDR block
+     */
+    private static final class IpRange {
+        private final String label;
+        private final long high;
+        private final long low;
+        private final int prefix;
+
+        private IpRange(String label, long high, long low, int prefix) {
+            this.label = label;
+            this.high = high;
+            this.low = low;
+            this.prefix = prefix;
+        }
+
+        private static IpRange parse(String cidr) {
+            int slash = cidr.indexOf('/');
+            String address = slash < 0 ? cidr : cidr.substring(0, slash);
+            boolean ipv6 = address.indexOf(':') >= 0;
+            long[] bits = toBits(address);
+            if (bits == null) {
+                return null;
+            }
+            int prefix;
+            try {
+                prefix = slash < 0 ? (ipv6 ? 128 : 32) : Integer.parseInt(cidr.substring(slash + 1));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (prefix < 0 || prefix > (ipv6 ? 128 : 32)) {
+                return null;
+            }
+            // IPv4 blocks are kept as IPv4-mapped IPv6 so one comparison covers both
+            int mappedPrefix = ipv6 ? prefix : prefix + 96;
+            return new IpRange("ip:" + cidr, bits[0] & mask(mappedPrefix, 0), bits[1] & mask(mappedPrefix, 64),
+                    mappedPrefix);
+        }
+
+        private boolean contains(String ip) {
+            long[] bits = toBits(ip);
+            return bits != null && (bits[0] & mask(prefix, 0)) == high && (bits[1] & mask(prefix, 64)) == low;
+        }
+
+        /**
+         * The address as IPv6 bits, IPv4 addresses mapped into ::ffff:0:0/96
+         */
+        private static long[] toBits(String ip) {
+            if (ip.indexOf(':') < 0) {
+                long v4 = GeoIpTable.parseIpv4(ip, 0, ip.length());
+                return v4 < 0 ? null : new long[] { 0L, 0xFFFF00000000L | v4 };
+            }
+            int[] groups = new int[8];
+            if (!GeoIpTable.parseIpv6(ip, groups)) {
+                return null;
+            }
+            return new long[] {
+                    (long) groups[0] << 48 | (long) groups[1] << 32 | (long) groups[2] << 16 | groups[3],
+                    (long) groups[4] << 48 | (long) groups[5] << 32 | (long) groups[6] << 16 | groups[7] };
+        }
+
+        /**
+         * Mask of the prefix bits falling in the 64-bit half starting at offset
+         */
+        private static long mask(int prefix, int offset) {
+            int bits = Math.max(0, Math.min(64, prefix - offset));
+            return bits == 0 ? 0L : -1L << (64 - bits);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.urlshortener.service;
+
+import com.urlshortener.model.QrCode;
+import com.urlshortener.model.ShortenedUrl;
+import com.urlshortener.model.UploadedFile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Set-based deletion of a user's URLs, QR codes and files.
+ *
+ * Each request costs one owned-keys lookup, one deleteMany filtered by
+ * userId and keys, and one batched cache eviction covering every affected
+ * entry, instead of a find/check/delete/evict cycle per item.
+ */
+@Service
+public class BulkDeleteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkDeleteService.class);
+
+    private static final String NOT_FOUND = "Not found or not owned by user";
+
+    // Per-user caches that aggregate link data (mirrors CacheService.invalidateUserAnalytics)
+    private static final String[] USER_CACHES = {
+            "userAnalytics", "dashboardOverview", "realtimeAnalytics", "userQRCodeSummaries", "userFileSummaries"
+    };
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Autowired
+    private RedirectResolver redirectResolver;
+
+    @Autowired(required = false)
+    private GridFsTemplate gridFsTemplate;
+
+    @Autowired
+    private AdminMetricsService adminMetrics;
+
+    public BulkDeleteResult deleteUrls(Collection<String> shortCodes, String userId) {
+        Set<String> requested = new LinkedHashSet<>(shortCodes);
+        Query owned = ownedBy(userId, Criteria.where("shortCode").in(requested));
+        owned.fields().include("shortCode").include("redirectVersion");
+
+        Map<String, Long> versions = new HashMap<>();
+        for (ShortenedUrl url : mongoTemplate.find(owned, ShortenedUrl.class)) {
+            versions.put(url.getShortCode(), url.getRedirectVersion() + 1);
+        }
+
+        long deleted = versions.isEmpty() ? 0
+                : mongoTemplate.remove(ownedBy(userId, Criteria.where("shortCode").in(versions.keySet())),
+                        ShortenedUrl.class).getDeletedCount();
+        adminMetrics.increment(AdminMetricsService.Metric.LINKS, -deleted);
+
+        if (!versions.isEmpty()) {
+            redirectResolver.raiseVersionFloors(versions);
+            Map<String, Collection<String>> evictions = userCacheKeys(userId);
+            evictions.put(redirectResolver.getCacheName(), versions.keySet());
+            evictions.put("urlAnalytics", versions.keySet());
+            evictions.put("clickCounts", versions.keySet());
+            cacheService.evictAll(evictions);
+            cacheService.evictUserPages("userUrls", userId);
+        }
+
+        logger.info("Bulk deleted {} of {} URLs for user: {}", deleted, requested.size(), userId);
+        return BulkDeleteResult.of(requested, versions.keySet(), deleted);
+    }
+
+    /**
+     * QR codes may be addressed by their qrCode identifier or their document id
+     */
+    public BulkDeleteResult deleteQrCodes(Collection<String> qrCodeIds, String userId) {
+        Set<String> requested = new LinkedHashSet<>(qrCodeIds);
+        Criteria byKey = new Criteria().orOperator(
+                Criteria.where("qrCode").in(requested), Criteria.where("id").in(requested));
+        Query owned = ownedBy(userId, byKey);
+        owned.fields().include("qrCode").include("id");
+
+        Set<String> found = new LinkedHashSet<>();
+        List<String> ids = new ArrayList<>();
+        for (QrCode qrCode : mongoTemplate.find(owned, QrCode.class)) {
+            ids.add(qrCode.getId());
+            if (requested.contains(qrCode.getQrCode())) {
+                found.add(qrCode.getQrCode());
+            }
+            if (requested.contains(qrCode.getId())) {
+                found.add(qrCode.getId());
+            }
+        }
+
+        long deleted = ids.isEmpty() ? 0
+                : mongoTemplate.remove(ownedBy(userId, Criteria.where("id").in(ids)), QrCode.class).getDeletedCount();
+        adminMetrics.increment(AdminMetricsService.Metric.QR_CODES, -deleted);
+
+        if (deleted > 0) {
+            cacheService.evictAll(Map.of("userQRCodeSummaries", List.of(userId)));
+        }
+
+        logger.info("Bulk deleted {} of {} QR codes for user: {}", deleted, requested.size(), userId);
+        return BulkDeleteResult.of(requested, found, deleted);
+    }
+
+    public BulkDeleteResult deleteFiles(Collection<String> fileCodes, String userId) {
+        Set<String> requested = new LinkedHashSet<>(fileCodes);
+        Query owned = ownedBy(userId, Criteria.where("fileCode").in(requested));
+        owned.fields().include("fileCode").include("fileSize");
+
+        Set<String> found = new LinkedHashSet<>();
+        long bytes = 0;
+        for (UploadedFile file : mongoTemplate.find(owned, UploadedFile.class)) {
+            found.add(file.getFileCode());
+            bytes += file.getFileSize();
+        }
+        if (found.isEmpty()) {
+            return BulkDeleteResult.of(requested, found, 0);
+        }
+
+        // File content lives in GridFS under the file code
+        if (gridFsTemplate != null) {
+            gridFsTemplate.delete(new Query(Criteria.where("filename").in(found)));
+        } else {
+            logger.warn("GridFS not available, skipping file content deletion");
+        }
+
+        long deleted = mongoTemplate.remove(ownedBy(userId, Criteria.where("fileCode").in(found)),
+                UploadedFile.class).getDeletedCount();
+        adminMetrics.increment(AdminMetricsService.Metric.FILES, -deleted);
+        adminMetrics.increment(AdminMetricsService.Metric.STORAGE_BYTES, -bytes);
+        cacheService.evictAll(Map.of("userFileSummaries", List.of(userId)));
+
+        logger.info("Bulk deleted {} of {} files for user: {}", deleted, requested.size(), userId);
+        return BulkDeleteResult.of(requested, found, deleted);
+    }
+
+    private static Query ownedBy(String userId, Criteria keys) {
+        return Query.query(new Criteria().andOperator(Criteria.where("userId").is(userId), keys));
+    }
+
+    private static Map<String, Collection<String>> userCacheKeys(String userId) {
+        Map<String, Collection<String>> keys = new HashMap<>();
+        for (String cacheName : USER_CACHES) {
+            keys.put(cacheName, List.of(userId));
+        }
+        return keys;
+    }
+
+    public static class BulkDeleteResult {
+        private final long deletedCount;
+        private final List<String> errors;
+
+        private BulkDeleteResult(long deletedCount, List<String> errors) {
+            this.deletedCount = deletedCount;
+            this.errors = errors;
+        }
+
+        static BulkDeleteResult of(Set<String> requested, Set<String> found, long deletedCount) {
+            List<String> errors = new ArrayList<>();
+            for (String key : requested) {
+                if (!found.contains(key)) {
+                    errors.add(key + ": " + NOT_FOUND);
+                }
+            }
+            return new BulkDeleteResult(deletedCount, errors);
+        }
+
+        public long getDeletedCount() { return deletedCount; }
+        public int getFailedCount() { return errors.size(); }
+        public List<String> getErrors() { return errors; }
+    }
+}
@@ -1,12 +1,24 @@
 package com.urlshortener.service;
 
+import com.urlshortener.config.TwoLevelCacheManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
@@ -14,6 +26,7 @@ import java.util.concurrent.TimeUnit;
 public class CacheService {
     
     private static final Logger logger = LoggerFactory.getLogger(CacheService.class);
+    private static final int EVICT_BATCH_SIZE = 1000;
     
     @Autowired
     private CacheManager cacheManager;
@@ -30,9 +43,9 @@ public class CacheService {
             clearCache("userAnalytics", userId);
             clearCache("dashboardOverview", userId);
             clearCache("realtimeAnalytics", userId);
-            clearCache("userUrls", userId);
-            clearCache("userQRCodes", userId);
-            clearCache("userFiles", userId);
+            evictUserPages("userUrls", userId);
+            clearCache("userQRCodeSummaries", userId);
+            clearCache("userFileSummaries", userId);
             
             logger.info("Invalidated analytics caches for user: {}", userId);
         } catch (Exception e) {
@@ -87,6 +100,103 @@ public class CacheService {
         }
     }
     
+    /**
+     * Evict many entries across several caches at once. With Redis the keys
+     * go out as pipelined multi-key DELs instead of one round trip per entry,
+     * and the node-local copies are dropped with one broadcast per cache.
+     */
+    public void evictAll(Map<String, ? extends Collection<String>> keysByCache) {
+        if (redisTemplate != null && redisCacheManager() != null) {
+            List<byte[]> redisKeys = new ArrayList<>();
+            // RedisCacheManager's default key prefix is "<cacheName>::"
+            keysByCache.forEach((cacheName, keys) -> keys.forEach(
+                    key -> redisKeys.add((cacheName + "::" + key).getBytes(StandardCharsets.UTF_8))));
+            if (redisKeys.isEmpty()) {
+                return;
+            }
+            try {
+                redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    deleteInBatches(connection, redisKeys);
+                    return null;
+                });
+                logger.debug("Evicted {} cache entries in one pipeline", redisKeys.size());
+                if (cacheManager instanceof TwoLevelCacheManager) {
+                    keysByCache.forEach((cacheName, keys) ->
+                            ((TwoLevelCacheManager) cacheManager).evictLocal(cacheName, keys));
+                }
+                return;
+            } catch (Exception e) {
+                logger.warn("Pipelined cache eviction failed, evicting entries individually: {}", e.getMessage());
+            }
+        }
+
+        keysByCache.forEach((cacheName, keys) -> {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                keys.forEach(cache::evict);
+            }
+        });
+    }
+
+    /**
+     * Evict every page cached for a user in a per-page cache such as userUrls,
+     * whose keys are "<userId>:<limit>:<cursor>". Redis keys are found with
+     * SCAN rather than KEYS so the server is never blocked.
+     */
+    public void evictUserPages(String cacheName, String userId) {
+        String keyPrefix = userId + ":";
+        try {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache == null) {
+                return;
+            }
+            if (redisTemplate != null && redisCacheManager() != null) {
+                ScanOptions options = ScanOptions.scanOptions().match(cacheName + "::" + keyPrefix + "*").count(500).build();
+                redisTemplate.execute((RedisCallback<Object>) connection -> {
+                    List<byte[]> keys = new ArrayList<>();
+                    try (Cursor<byte[]> cursor = connection.keyCommands().scan(options)) {
+                        cursor.forEachRemaining(keys::add);
+                    }
+                    deleteInBatches(connection, keys);
+                    return null;
+                });
+                if (cacheManager instanceof TwoLevelCacheManager) {
+                    ((TwoLevelCacheManager) cacheManager).evictLocalByPrefix(cacheName, keyPrefix);
+                }
+            } else if (cacheManager instanceof TwoLevelCacheManager) {
+                ((TwoLevelCacheManager) cacheManager).evictLocalByPrefix(cacheName, keyPrefix);
+            } else if (cache.getNativeCache() instanceof Map) {
+                ((Map<?, ?>) cache.getNativeCache()).keySet().removeIf(key -> key.toString().startsWith(keyPrefix));
+            } else {
+                cache.clear();
+            }
+            logger.debug("Evicted cached pages: {}:{}*", cacheName, keyPrefix);
+        } catch (Exception e) {
+            logger.error("Error evicting cached pages {}:{}", cacheName, userId, e);
+        }
+    }
+
+    /**
+     * The Redis cache manager, directly or as the L2 of the two-level manager
+     */
+    private RedisCacheManager redisCacheManager() {
+        if (cacheManager instanceof RedisCacheManager) {
+            return (RedisCacheManager) cacheManager;
+        }
+        if (cacheManager instanceof TwoLevelCacheManager
+                && ((TwoLevelCacheManager) cacheManager).getRemote() instanceof RedisCacheManager) {
+            return (RedisCacheManager) ((TwoLevelCacheManager) cacheManager).getRemote();
+        }
+        return null;
+    }
+
+    private static void deleteInBatches(RedisConnection connection, List<byte[]> keys) {
+        for (int from = 0; from < keys.size(); from += EVICT_BATCH_SIZE) {
+            List<byte[]> batch = keys.subList(from, Math.min(keys.size(), from + EVICT_BATCH_SIZE));
+            connection.keyCommands().del(batch.toArray(new byte[0][]));
+        }
+    }
+
     /**
      * Clear entire cache
      */
@@ -205,8 +315,8 @@ public class CacheService {
             if (keys != null) {
                 long analyticsCount = keys.stream().filter(k -> k.contains("analytics")).count();
                 long urlCount = keys.stream().filter(k -> k.contains("userUrls")).count();
-                long qrCount = keys.stream().filter(k -> k.contains("userQRCodes")).count();
-                long fileCount = keys.stream().filter(k -> k.contains("userFiles")).count();
+                long qrCount = keys.stream().filter(k -> k.contains("userQRCodeSummaries")).count();
+                long fileCount = keys.stream().filter(k -> k.contains("userFileSummaries")).count();
                 
                 logger.info("Cache breakdown - Analytics: {}, URLs: {}, QR: {}, Files: {}", 
                            analyticsCount, urlCount, qrCount, fileCount);
@@ -0,0 +1,305 @@
+package com.urlshortener.service;
+
+import com.urlshortener.model.ClickAnalytics;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Local archive tier for historical click analytics.
+ *
+ * Every day of raw clicks is sealed once into an immutable {@link ClickSegment}
+ * file: rows in time order, dictionary-encoded shortCode, owner, country,
+ * device, browser and referrer columns. Segments are indexed in memory by day,
+ * and each segment's dictionaries tell whether a link has any rows in it, so a
+ * query only maps and scans the segments that can match. Scans run in parallel
+ * over memory-mapped files and never touch Mongo, keeping long-range group-bys
+ * ("clicks by country for 2025") off the production collection.
+ *
+ * Sealing streams each finished day from {@link ClickStorageService} (the same
+ * cursor the exports use), oldest first, so the first runs seed the archive
+ * with the history still held in Mongo. The archive is local to the instance.
+ */
+@Service
+public class ClickArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClickArchiveService.class);
+
+    public enum GroupBy {
+        COUNTRY("country"),
+        DEVICE("device"),
+        BROWSER("browser"),
+        REFERRER("referrer"),
+        SHORT_CODE("shortCode"),
+        DAY(null),
+        MONTH(null);
+
+        private final String column;
+
+        GroupBy(String column) {
+            this.column = column;
+        }
+    }
+
+    @Autowired
+    private ClickStorageService clickStorage;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.click-archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.click-archive.dir:./data/click-archive}")
+    private String directory;
+
+    @Value("${app.click-archive.max-days-per-run:31}")
+    private int maxDaysPerRun;
+
+    @Value("${app.click-archive.scan-parallelism:4}")
+    private int scanParallelism;
+
+    private Path root;
+    private ForkJoinPool scanPool;
+    private final NavigableMap<LocalDate, ClickSegment> segments = new ConcurrentSkipListMap<>();
+    private final AtomicBoolean sealing = new AtomicBoolean();
+
+    @PostConstruct
+    public void initialize() {
+        if (!enabled) {
+            return;
+        }
+        root = Paths.get(directory);
+        scanPool = new ForkJoinPool(Math.max(1, scanParallelism));
+        try {
+            Files.createDirectories(root);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(root, "*" + ClickSegment.SUFFIX)) {
+                for (Path file : files) {
+                    try {
+                        ClickSegment segment = ClickSegment.open(file);
+                        segments.put(segment.getDay(), segment);
+                    } catch (IOException e) {
+                        logger.warn("Skipping unreadable click segment {}: {}", file, e.getMessage());
+                    }
+                }
+            }
+            logger.info("Click archive loaded {} segments from {}", segments.size(), root.toAbsolutePath());
+        } catch (IOException e) {
+            logger.error("Could not open click archive at {}: {}", directory, e.getMessage());
+        }
+
+        Gauge.builder("clicks.archive.segments", this, s -> s.segments.size())
+                .description("Sealed click archive segments")
+                .register(meterRegistry);
+        Gauge.builder("clicks.archive.bytes", this,
+                s -> s.segments.values().stream().mapToLong(ClickSegment::getSizeBytes).sum())
+                .description("Bytes of sealed click archive segments")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scanPool != null) {
+            scanPool.shutdown();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Seal every finished day after the newest segment, oldest first
+     */
+    @Async("batchJobExecutor")
+    @Scheduled(cron = "${app.click-archive.seal-cron:0 45 1 * * *}")
+    public void seal() {
+        if (!enabled || !sealing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            LocalDate today = LocalDate.now();
+            LocalDate day = segments.isEmpty() ? firstRawDay() : segments.lastKey().plusDays(1);
+            int sealed = 0;
+            while (day != null && day.isBefore(today) && sealed < maxDaysPerRun) {
+                sealDay(day);
+                day = day.plusDays(1);
+                sealed++;
+            }
+            if (sealed > 0) {
+                logger.info("Sealed {} days into the click archive, through {}", sealed, day.minusDays(1));
+            }
+        } catch (Exception e) {
+            logger.error("Click archive sealing failed: {}", e.getMessage());
+        } finally {
+            sealing.set(false);
+        }
+    }
+
+    private void sealDay(LocalDate day) throws IOException {
+        LocalDateTime from = day.atStartOfDay();
+        Query query = Query.query(clickStorage.between(from, from.plusDays(1)))
+                .with(Sort.by(Sort.Direction.ASC, "clickedAt"));
+        query.fields().include("shortCode", "userId", "clickedAt", "country", "deviceType", "browser",
+                "referrerDomain", "referrerType");
+
+        ClickSegment.Writer writer = new ClickSegment.Writer(day);
+        Map<String, String> values = new HashMap<>();
+        try (Stream<ClickAnalytics> clicks = clickStorage.stream(query)) {
+            Iterator<ClickAnalytics> it = clicks.iterator();
+            while (it.hasNext()) {
+                ClickAnalytics click = it.next();
+                values.put("shortCode", click.getShortCode());
+                values.put("userId", click.getUserId());
+                values.put("country", click.getCountry());
+                values.put("device", click.getDeviceType());
+                values.put("browser", click.getBrowser());
+                values.put("referrer", click.getReferrerDomain() != null
+                        ? click.getReferrerDomain() : click.getReferrerType());
+                writer.add(epochSecond(click.getClickedAt()), values);
+            }
+        }
+
+        // Empty days are sealed too so the archive knows they are covered
+        Path file = root.resolve(ClickSegment.fileName(day));
+        writer.writeTo(file);
+        segments.put(day, ClickSegment.open(file));
+        logger.debug("Sealed {} clicks for {} into {}", writer.getRows(), day, file);
+    }
+
+    private LocalDate firstRawDay() {
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "clickedAt")).limit(1);
+        query.fields().include("clickedAt");
+        ClickAnalytics first = clickStorage.findOne(query);
+        return first != null && first.getClickedAt() != null ? first.getClickedAt().toLocalDate() : null;
+    }
+
+    /**
+     * Count archived clicks in [from, to), optionally for one link or owner,
+     * grouped by a dimension or by day/month. Only sealed days are covered;
+     * the result says which.
+     */
+    public Map<String, Object> query(LocalDateTime from, LocalDateTime to, GroupBy groupBy, String shortCode,
+            String userId) {
+        if (!enabled) {
+            throw new IllegalStateException("Click archive is not enabled");
+        }
+        long fromSecond = epochSecond(from);
+        long toSecond = epochSecond(to);
+        String filterColumn = shortCode != null ? "shortCode" : userId != null ? "userId" : null;
+        String filterValue = shortCode != null ? shortCode : userId;
+
+        List<ClickSegment> candidates = segments.subMap(from.toLocalDate(), true, to.toLocalDate(), true).values()
+                .stream()
+                .filter(segment -> segment.overlaps(fromSecond, toSecond))
+                .filter(segment -> filterColumn == null || segment.code(filterColumn, filterValue) > 0)
+                .collect(Collectors.toList());
+
+        List<Map<String, Long>> partials;
+        try {
+            partials = scanPool.submit(() -> candidates.parallelStream()
+                    .map(segment -> scan(segment, fromSecond, toSecond, filterColumn, filterValue, groupBy))
+                    .collect(Collectors.toList())).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Archive query interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Archive query failed: " + e.getCause().getMessage(), e);
+        }
+
+        Map<String, Long> counts = new HashMap<>();
+        partials.forEach(partial -> partial.forEach((key, count) -> counts.merge(key, count, Long::sum)));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("from", from);
+        result.put("to", to);
+        result.put("groupBy", groupBy);
+        result.put("segmentsScanned", candidates.size());
+        result.put("totalClicks", counts.values().stream().mapToLong(Long::longValue).sum());
+        result.put("counts", sorted(counts, groupBy.column == null));
+        result.put("archivedFrom", segments.isEmpty() ? null : segments.firstKey());
+        result.put("archivedThrough", segments.isEmpty() ? null : segments.lastKey());
+        return result;
+    }
+
+    private static Map<String, Long> scan(ClickSegment segment, long fromSecond, long toSecond, String filterColumn,
+            String filterValue, GroupBy groupBy) {
+        int filterCode = filterColumn != null ? segment.code(filterColumn, filterValue) : -1;
+        long[] counts = segment.scan(fromSecond, toSecond, filterColumn, filterCode, groupBy.column);
+
+        Map<String, Long> partial = new HashMap<>();
+        if (groupBy.column == null) {
+            // A segment is one day, so time groups need no per-row work
+            String key = groupBy == GroupBy.DAY ? segment.getDay().toString()
+                    : segment.getDay().toString().substring(0, 7);
+            if (counts[0] > 0) {
+                partial.put(key, counts[0]);
+            }
+            return partial;
+        }
+        for (int code = 1; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                partial.put(segment.value(groupBy.column, code), counts[code]);
+            }
+        }
+        return partial;
+    }
+
+    private static Map<String, Long> sorted(Map<String, Long> counts, boolean byKey) {
+        Map<String, Long> sorted = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(byKey ? Map.Entry.comparingByKey() : Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+        return sorted;
+    }
+
+    /**
+     * Segments on disk and the days they cover
+     */
+    public Map<String, Object> getArchiveStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("segments", segments.size());
+        stats.put("rows", segments.values().stream().mapToLong(ClickSegment::getRows).sum());
+        stats.put("bytes", segments.values().stream().mapToLong(ClickSegment::getSizeBytes).sum());
+        stats.put("archivedFrom", segments.isEmpty() ? null : segments.firstKey());
+        stats.put("archivedThrough", segments.isEmpty() ? null : segments.lastKey());
+        stats.put("directory", root != null ? root.toAbsolutePath().toString() : directory);
+        return stats;
+    }
+
+    private static long epochSecond(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+}
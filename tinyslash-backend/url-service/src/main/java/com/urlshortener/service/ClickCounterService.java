@@ -0,0 +1,222 @@
+package com.urlshortener.service;
+
+import com.urlshortener.model.ShortenedUrl;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Write-coalescing click counters for ShortenedUrl documents.
+ *
+ * Increments land in an in-process table of LongAdder cells keyed by
+ * shortCode and counter path (e.g. "totalClicks", "clicksByCountry.IN"), so a
+ * viral link never does a read-modify-write per click. Every flush swaps the
+ * table out and issues a single atomic $inc per link, which keeps totals
+ * exact under concurrency and makes writes O(links) instead of O(clicks).
+ */
+@Service
+public class ClickCounterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClickCounterService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired(required = false)
+    private CacheService cacheService;
+
+    @Autowired(required = false)
+    private AdminMetricsService adminMetrics;
+
+    // Incrementers share the read side; the flusher takes the write side only to swap tables
+    private final StampedLock swapLock = new StampedLock();
+    private volatile Map<String, LinkCounters> table = new ConcurrentHashMap<>();
+
+    private Counter flushedLinksCounter;
+    private Counter flushFailuresCounter;
+
+    @PostConstruct
+    public void initializeMetrics() {
+        flushedLinksCounter = Counter.builder("clicks.counters.flushed_links")
+                .description("Links written by the coalesced counter flush")
+                .register(meterRegistry);
+        flushFailuresCounter = Counter.builder("clicks.counters.flush_failures")
+                .description("Counter flushes that failed and were re-queued")
+                .register(meterRegistry);
+        Gauge.builder("clicks.counters.pending_links", this, s -> s.table.size())
+                .description("Links with increments waiting for the next flush")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Add to one counter path of a link
+     */
+    public void increment(String shortCode, String userId, String path, long delta) {
+        long stamp = swapLock.readLock();
+        try {
+            table.computeIfAbsent(shortCode, k -> new LinkCounters(userId)).add(path, delta);
+        } finally {
+            swapLock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Add a batch of counter paths for one link and advance its lastClickedAt
+     */
+    public void incrementAll(String shortCode, String userId, Map<String, ? extends Number> deltas,
+            LocalDateTime lastClickedAt) {
+        long stamp = swapLock.readLock();
+        try {
+            LinkCounters counters = table.computeIfAbsent(shortCode, k -> new LinkCounters(userId));
+            deltas.forEach((path, delta) -> counters.add(path, delta.longValue()));
+            if (lastClickedAt != null) {
+                counters.lastClickedAt.accumulate(lastClickedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            }
+        } finally {
+            swapLock.unlockRead(stamp);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.click-counters.flush-interval-ms:1000}")
+    public void flush() {
+        Map<String, LinkCounters> pending;
+        long stamp = swapLock.writeLock();
+        try {
+            pending = table;
+            if (pending.isEmpty()) {
+                return;
+            }
+            table = new ConcurrentHashMap<>();
+        } finally {
+            swapLock.unlockWrite(stamp);
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ShortenedUrl.class);
+        LocalDateTime now = LocalDateTime.now();
+        List<Map.Entry<String, LinkCounters>> entries = new ArrayList<>(pending.entrySet());
+
+        for (Map.Entry<String, LinkCounters> entry : entries) {
+            LinkCounters counters = entry.getValue();
+            Update update = new Update();
+            counters.cells.forEach((path, cell) -> update.inc(path, narrow(cell.sum())));
+
+            long lastClicked = counters.lastClickedAt.get();
+            if (lastClicked != Long.MIN_VALUE) {
+                update.max("lastClickedAt",
+                        LocalDateTime.ofInstant(Instant.ofEpochMilli(lastClicked), ZoneId.systemDefault()));
+            }
+            update.set("updatedAt", now);
+            bulk.updateOne(Query.query(Criteria.where("shortCode").is(entry.getKey())), update);
+        }
+
+        long flushedClicks = 0;
+        for (Map.Entry<String, LinkCounters> entry : entries) {
+            flushedClicks += entry.getValue().total("totalClicks");
+        }
+
+        try {
+            bulk.execute();
+            flushedLinksCounter.increment(pending.size());
+        } catch (BulkOperationException e) {
+            // Unordered bulk: only the failed updates are put back for the next flush
+            flushFailuresCounter.increment();
+            logger.error("Failed to flush click counters for {} of {} links", e.getErrors().size(), entries.size());
+            for (var error : e.getErrors()) {
+                Map.Entry<String, LinkCounters> failed = entries.get(error.getIndex());
+                flushedClicks -= failed.getValue().total("totalClicks");
+                requeue(failed);
+            }
+        } catch (Exception e) {
+            flushFailuresCounter.increment();
+            logger.error("Failed to flush click counters for {} links: {}", pending.size(), e.getMessage());
+            entries.forEach(this::requeue);
+            return;
+        }
+
+        if (adminMetrics != null) {
+            adminMetrics.increment(AdminMetricsService.Metric.CLICKS, flushedClicks);
+        }
+
+        // Invalidate relevant caches once per link now that the totals are visible;
+        // links that only saw bot hits keep their cached analytics
+        if (cacheService != null) {
+            pending.forEach((shortCode, counters) -> {
+                if (counters.total("totalClicks") > 0) {
+                    cacheService.invalidateUrlAnalytics(shortCode, counters.userId);
+                }
+            });
+        }
+
+        logger.debug("Flushed click counters for {} links", pending.size());
+    }
+
+    /**
+     * Put a failed link's counts and its latest click time back for the next flush
+     */
+    private void requeue(Map.Entry<String, LinkCounters> entry) {
+        LinkCounters failed = entry.getValue();
+        long stamp = swapLock.readLock();
+        try {
+            LinkCounters counters = table.computeIfAbsent(entry.getKey(), k -> new LinkCounters(failed.userId));
+            failed.cells.forEach((path, cell) -> counters.add(path, cell.sum()));
+            counters.lastClickedAt.accumulate(failed.lastClickedAt.get());
+        } finally {
+            swapLock.unlockRead(stamp);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private static Number narrow(long value) {
+        return value <= Integer.MAX_VALUE && value >= Integer.MIN_VALUE ? (Number) (int) value : (Number) value;
+    }
+
+    private static final class LinkCounters {
+        private final String userId;
+        private final ConcurrentHashMap<String, LongAdder> cells = new ConcurrentHashMap<>();
+        private final LongAccumulator lastClickedAt = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+        private LinkCounters(String userId) {
+            this.userId = userId;
+        }
+
+        private void add(String path, long delta) {
+            cells.computeIfAbsent(path, k -> new LongAdder()).add(delta);
+        }
+
+        private long total(String path) {
+            LongAdder cell = cells.get(path);
+            return cell != null ? cell.sum() : 0L;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.urlshortener.service;
+
+import com.urlshortener.model.ClickEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded, asynchronous click-ingestion stage.
+ *
+ * The redirect path only enqueues a raw {@link ClickEvent} into a fixed-size
+ * array ring buffer; a single background flusher drains it in batches and hands
+ * each batch to {@link AnalyticsService#persistClicks(List)}, which writes the
+ * events with one insertMany and feeds the coalesced per-link counters.
+ * Redirect latency therefore no longer depends on Mongo write latency.
+ *
+ * When the buffer is full the overflow policy decides what happens:
+ * DROP discards the new click (counted in metrics), CALLER_RUNS persists it
+ * synchronously on the request thread. The buffer is drained on shutdown.
+ */
+@Service
+public class ClickIngestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClickIngestionService.class);
+
+    public enum OverflowPolicy {
+        DROP,
+        CALLER_RUNS
+    }
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.click-ingest.capacity:65536}")
+    private int capacity;
+
+    @Value("${app.click-ingest.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.click-ingest.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${app.click-ingest.overflow-policy:DROP}")
+    private OverflowPolicy overflowPolicy;
+
+    @Value("${app.click-ingest.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs;
+
+    private BlockingQueue<ClickEvent> buffer;
+    private Thread flusher;
+    private volatile boolean running = false;
+
+    private Counter acceptedCounter;
+    private Counter droppedCounter;
+    private Counter callerRunsCounter;
+    private Counter persistedCounter;
+    private Counter failedCounter;
+    private Timer flushTimer;
+
+    @PostConstruct
+    public void start() {
+        buffer = new ArrayBlockingQueue<>(capacity);
+
+        acceptedCounter = Counter.builder("clicks.ingest.accepted")
+                .description("Clicks accepted into the ingestion buffer")
+                .register(meterRegistry);
+        droppedCounter = Counter.builder("clicks.ingest.dropped")
+                .description("Clicks dropped because the ingestion buffer was full")
+                .register(meterRegistry);
+        callerRunsCounter = Counter.builder("clicks.ingest.caller_runs")
+                .description("Clicks persisted on the request thread because the buffer was full")
+                .register(meterRegistry);
+        persistedCounter = Counter.builder("clicks.ingest.persisted")
+                .description("Clicks written to the database by the flusher")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("clicks.ingest.failed")
+                .description("Clicks lost because a batch write failed")
+                .register(meterRegistry);
+        flushTimer = Timer.builder("clicks.ingest.flush")
+                .description("Time spent persisting one batch of clicks")
+                .register(meterRegistry);
+        Gauge.builder("clicks.ingest.queue_depth", this, ClickIngestionService::getQueueDepth)
+                .description("Clicks waiting in the ingestion buffer")
+                .register(meterRegistry);
+
+        running = true;
+        flusher = new Thread(this::runFlusher, "Click-Ingest-Flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+
+        logger.info("Click ingestion started (capacity: {}, batch: {}, interval: {}ms, overflow: {})",
+                capacity, batchSize, flushIntervalMs, overflowPolicy);
+    }
+
+    /**
+     * Capture a click without blocking the caller on I/O
+     *
+     * @return false if the click was dropped
+     */
+    public boolean submit(ClickEvent event) {
+        if (event == null) {
+            return false;
+        }
+        if (buffer.offer(event)) {
+            acceptedCounter.increment();
+            return true;
+        }
+
+        if (overflowPolicy == OverflowPolicy.CALLER_RUNS) {
+            callerRunsCounter.increment();
+            persist(List.of(event));
+            return true;
+        }
+
+        droppedCounter.increment();
+        return false;
+    }
+
+    public int getQueueDepth() {
+        return buffer == null ? 0 : buffer.size();
+    }
+
+    private void runFlusher() {
+        List<ClickEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                ClickEvent first = buffer.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, batchSize - 1);
+                persist(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void persist(List<ClickEvent> batch) {
+        long started = System.nanoTime();
+        try {
+            analyticsService.persistClicks(batch);
+            persistedCounter.increment(batch.size());
+        } catch (Exception e) {
+            failedCounter.increment(batch.size());
+            logger.error("Failed to persist {} clicks: {}", batch.size(), e.getMessage(), e);
+        } finally {
+            flushTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Stop the flusher and write out whatever is still buffered
+     */
+    @PreDestroy
+    public void shutdown() {
+        // The flusher polls with a timeout, so it exits after its current batch
+        running = false;
+        if (flusher != null) {
+            try {
+                flusher.join(shutdownTimeoutMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        long deadline = System.currentTimeMillis() + shutdownTimeoutMs;
+        int drained = 0;
+        List<ClickEvent> batch = new ArrayList<>(batchSize);
+        while (!buffer.isEmpty() && System.currentTimeMillis() < deadline) {
+            buffer.drainTo(batch, batchSize);
+            drained += batch.size();
+            persist(batch);
+            batch.clear();
+        }
+
+        if (!buffer.isEmpty()) {
+            logger.warn("Click ingestion shutdown timed out with {} clicks still buffered", buffer.size());
+        }
+        logger.info("Click ingestion stopped, drained {} buffered clicks", drained);
+    }
+}
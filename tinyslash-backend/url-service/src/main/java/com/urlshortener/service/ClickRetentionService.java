@@ -0,0 +1,543 @@
+package com.urlshortener.service;
+
+import com.urlshortener.model.ClickAnalytics;
+import com.urlshortener.model.ShortenedUrl;
+import com.urlshortener.model.User;
+import com.urlshortener.service.ClickRollupService.Granularity;
+import com.urlshortener.service.ClickRollupService.Scope;
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Retention of raw click events.
+ *
+ * The {@link ClickRollupService} buckets answer the analytics queries, so raw
+ * {@link ClickAnalytics} rows are only kept for a while for the recent-activity
+ * list and exports. Once a day of raw clicks is older than compact-after-days
+ * the compaction job:
+ *
+ * 1. folds the clicks of that day that predate the live rollups (each scope
+ *    started collecting at its watermark) into the day buckets, so history
+ *    from before the rollups existed is not lost, and
+ * 2. stamps every row of the day with an expiresAt based on its owner's plan;
+ *    the TTL index on click_analytics then removes it. In the time-series
+ *    layout ({@link ClickStorageService}) the collection-wide expiry applies
+ *    instead.
+ *
+ * Raw clicks between the last compacted day and a scope's watermark are in no
+ * rollup yet; {@link #uncompactedRange} tells readers which raw range to add
+ * on top of the rollups. The job runs under a lease so only one instance
+ * compacts at a time, and reports rows compacted and bytes reclaimed. The
+ * backfill records how far it got after every batch and renews the lease, so
+ * a run that is cut short resumes there instead of folding rows in twice.
+ */
+@Service
+public class ClickRetentionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClickRetentionService.class);
+
+    static final String COLLECTION = "click_retention";
+    private static final String STATE_ID = "state";
+
+    // Lower bound for ranges that start before any click
+    public static final LocalDateTime EPOCH = LocalDate.of(1970, 1, 1).atStartOfDay();
+
+    private static final int IN_CHUNK = 1000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ClickRollupService clickRollupService;
+
+    @Autowired
+    private ClickStorageService clickStorage;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.click-retention.compact-after-days:7}")
+    private int compactAfterDays;
+
+    @Value("${app.click-retention.plan-retention-days:FREE=30,PRO=90,BUSINESS=365}")
+    private String planRetentionDays;
+
+    @Value("${app.click-retention.max-days-per-run:31}")
+    private int maxDaysPerRun;
+
+    @Value("${app.click-retention.lease-minutes:60}")
+    private long leaseMinutes;
+
+    @Value("${app.click-retention.backfill-batch-size:10000}")
+    private int backfillBatchSize;
+
+    private final Map<String, Integer> retentionByTier = new HashMap<>();
+
+    private Counter backfilledRowsCounter;
+    private Counter scheduledRowsCounter;
+    private Counter reclaimedBytesCounter;
+
+    @PostConstruct
+    public void initialize() {
+        for (String entry : planRetentionDays.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length == 2) {
+                retentionByTier.put(parts[0].trim().toUpperCase(),
+                        Math.max(compactAfterDays, Integer.parseInt(parts[1].trim())));
+            }
+        }
+
+        backfilledRowsCounter = Counter.builder("clicks.retention.backfilled_rows")
+                .description("Raw clicks from before the live rollups folded into the day buckets")
+                .register(meterRegistry);
+        scheduledRowsCounter = Counter.builder("clicks.retention.expiring_rows")
+                .description("Raw clicks stamped for expiry by the TTL index")
+                .register(meterRegistry);
+        reclaimedBytesCounter = Counter.builder("clicks.retention.reclaimed_bytes")
+                .description("Estimated bytes of raw clicks stamped for expiry")
+                .register(meterRegistry);
+
+        try {
+            mongoTemplate.indexOps(ClickStorageService.STANDARD_COLLECTION).ensureIndex(new Index()
+                    .on("expiresAt", Sort.Direction.ASC)
+                    .expire(0, TimeUnit.SECONDS)
+                    .named("idx_click_ttl"));
+        } catch (Exception e) {
+            logger.warn("Could not ensure click TTL index: {}", e.getMessage());
+        }
+    }
+
+    @Async("batchJobExecutor")
+    @Scheduled(cron = "${app.click-retention.cron:0 15 2 * * *}")
+    public void compact() {
+        Document state = acquireLease();
+        if (state == null) {
+            logger.debug("Click compaction already running on another instance");
+            return;
+        }
+
+        try {
+            Map<Scope, LocalDateTime> watermarks = watermarks(state, true);
+            LocalDate cutoff = LocalDate.now().minusDays(compactAfterDays);
+            LocalDate day = state.getDate("compactedThrough") != null
+                    ? toLocalDateTime(state.getDate("compactedThrough")).toLocalDate()
+                    : firstRawDay();
+
+            LocalDateTime backfilledThrough = state.getDate("backfilledThrough") != null
+                    ? toLocalDateTime(state.getDate("backfilledThrough"))
+                    : null;
+
+            int days = 0;
+            while (day != null && day.isBefore(cutoff) && days < maxDaysPerRun) {
+                compactDay(day, watermarks, backfilledThrough);
+                backfilledThrough = null;
+                day = day.plusDays(1);
+                days++;
+                mongoTemplate.updateFirst(stateQuery(), new Update()
+                        .set("compactedThrough", toDate(day.atStartOfDay()))
+                        .unset("backfilledThrough"), COLLECTION);
+            }
+            if (days > 0) {
+                logger.info("Compacted {} days of raw clicks, now through {}", days, day);
+            }
+        } catch (Exception e) {
+            logger.error("Click compaction failed: {}", e.getMessage());
+        } finally {
+            mongoTemplate.updateFirst(stateQuery(),
+                    new Update().unset("leaseUntil").set("lastRunAt", new Date()), COLLECTION);
+        }
+    }
+
+    private void compactDay(LocalDate day, Map<Scope, LocalDateTime> watermarks, LocalDateTime backfilledThrough) {
+        LocalDateTime dayStart = day.atStartOfDay();
+        LocalDateTime dayEnd = dayStart.plusDays(1);
+
+        backfill(dayStart, dayEnd, watermarks, backfilledThrough);
+        Map<LocalDate, Long> expiring = scheduleExpiry(dayStart, dayEnd);
+
+        // Bytes the TTL monitor frees on each expiry date, estimated from the average row size
+        long rowSize = averageRowSize();
+        Update update = new Update()
+                .inc("rowsExpiring", expiring.values().stream().mapToLong(Long::longValue).sum());
+        expiring.forEach((expiresOn, rows) -> {
+            update.inc("bytesExpiring." + expiresOn, rows * rowSize);
+            reclaimedBytesCounter.increment(rows * rowSize);
+        });
+        mongoTemplate.updateFirst(stateQuery(), update, COLLECTION);
+    }
+
+    /**
+     * Fold the raw clicks of [from, to) that predate a scope's watermark
+     * into that scope's day buckets, resuming after backfilledThrough if an
+     * earlier run already folded part of the range
+     */
+    private long backfill(LocalDateTime from, LocalDateTime to, Map<Scope, LocalDateTime> watermarks,
+            LocalDateTime backfilledThrough) {
+        LocalDateTime latest = watermarks.values().stream().max(LocalDateTime::compareTo).orElse(from);
+        if (!latest.isAfter(from)) {
+            return 0;
+        }
+        LocalDateTime end = latest.isBefore(to) ? latest : to;
+        Criteria range = backfilledThrough != null && !backfilledThrough.isBefore(from)
+                ? Criteria.where("clickedAt").gt(backfilledThrough).lt(end)
+                : Criteria.where("clickedAt").gte(from).lt(end);
+
+        Map<String, String> teams = teamsOf(
+                clickStorage.findDistinct(Query.query(range), "shortCode", String.class));
+
+        Query rows = Query.query(range).with(Sort.by(Sort.Direction.ASC, "clickedAt"));
+        rows.fields().include("shortCode", "userId", "clickedAt", "isUniqueClick", "country", "deviceType",
+                "browser", "referrerDomain", "referrerType", "channel", "utmCampaign");
+
+        long count = 0;
+        int batch = 0;
+        LocalDateTime last = null;
+        try (Stream<ClickAnalytics> clicks = clickStorage.stream(rows)) {
+            Iterator<ClickAnalytics> it = clicks.iterator();
+            while (it.hasNext()) {
+                ClickAnalytics click = it.next();
+                // Batches end between distinct timestamps so the checkpoint splits no second
+                if (batch >= backfillBatchSize && !click.getClickedAt().equals(last)) {
+                    checkpoint(last, batch);
+                    batch = 0;
+                }
+                for (Scope scope : Scope.values()) {
+                    if (click.getClickedAt().isBefore(watermarks.get(scope))) {
+                        clickRollupService.backfill(scope, keyOf(scope, click, teams), click);
+                    }
+                }
+                last = click.getClickedAt();
+                batch++;
+                count++;
+            }
+        }
+
+        if (batch > 0) {
+            // Write the folded buckets before the day is marked compacted
+            checkpoint(last, batch);
+        }
+        return count;
+    }
+
+    /**
+     * Write the folded buckets, then record that every row up to and including
+     * through is in them and extend the lease for the next batch
+     */
+    private void checkpoint(LocalDateTime through, int rows) {
+        clickRollupService.flush();
+        backfilledRowsCounter.increment(rows);
+        mongoTemplate.updateFirst(stateQuery(), new Update()
+                .set("backfilledThrough", toDate(through))
+                .set("leaseUntil", new Date(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(leaseMinutes)))
+                .inc("rowsBackfilled", rows), COLLECTION);
+    }
+
+    private static String keyOf(Scope scope, ClickAnalytics click, Map<String, String> teams) {
+        switch (scope) {
+            case LINK:
+                return click.getShortCode();
+            case USER:
+                return click.getUserId();
+            case TEAM:
+                return teams.get(click.getShortCode());
+            case CAMPAIGN:
+                return ClickRollupService.campaignKey(click.getUserId(), click.getUtmCampaign());
+            default:
+                return ClickRollupService.GLOBAL_KEY;
+        }
+    }
+
+    private Map<String, String> teamsOf(List<String> shortCodes) {
+        Map<String, String> teams = new HashMap<>();
+        for (List<String> chunk : chunks(shortCodes)) {
+            Query query = Query.query(Criteria.where("shortCode").in(chunk).and("scopeType").is("TEAM"));
+            query.fields().include("shortCode", "scopeId");
+            mongoTemplate.find(query, ShortenedUrl.class)
+                    .forEach(url -> teams.put(url.getShortCode(), url.getScopeId()));
+        }
+        return teams;
+    }
+
+    /**
+     * Stamp the raw clicks of [from, to) with their expiry, grouped by the
+     * retention of each owner's plan. Returns the rows stamped per expiry date.
+     */
+    private Map<LocalDate, Long> scheduleExpiry(LocalDateTime from, LocalDateTime to) {
+        if (clickStorage.isTimeSeries()) {
+            // Time-series rows cannot carry a TTL index; the collection's expireAfterSeconds applies
+            return Map.of();
+        }
+        Criteria pending = Criteria.where("clickedAt").gte(from).lt(to).and("expiresAt").exists(false);
+        List<String> owners = mongoTemplate.findDistinct(Query.query(pending), "userId", ClickAnalytics.class,
+                String.class);
+
+        Map<Integer, List<String>> ownersByRetention = new HashMap<>();
+        for (List<String> chunk : chunks(owners)) {
+            Query query = Query.query(Criteria.where("_id").in(chunk));
+            query.fields().include("subscriptionPlan");
+            Map<String, Integer> retention = new HashMap<>();
+            mongoTemplate.find(query, User.class)
+                    .forEach(user -> retention.put(user.getId(), retentionDays(user.getSubscriptionPlan())));
+            chunk.forEach(userId -> ownersByRetention
+                    .computeIfAbsent(retention.getOrDefault(userId, retentionDays(null)), d -> new ArrayList<>())
+                    .add(userId));
+        }
+
+        Map<LocalDate, Long> stamped = new TreeMap<>();
+        for (Map.Entry<Integer, List<String>> group : ownersByRetention.entrySet()) {
+            LocalDateTime expiresAt = to.plusDays(group.getKey());
+            for (List<String> chunk : chunks(group.getValue())) {
+                Query query = Query.query(Criteria.where("clickedAt").gte(from).lt(to)
+                        .and("expiresAt").exists(false).and("userId").in(chunk));
+                stamp(query, expiresAt, stamped);
+            }
+        }
+
+        // Clicks without an owner get the default retention
+        stamp(Query.query(Criteria.where("clickedAt").gte(from).lt(to)
+                .and("expiresAt").exists(false).and("userId").is(null)),
+                to.plusDays(retentionDays(null)), stamped);
+
+        stamped.values().forEach(scheduledRowsCounter::increment);
+        return stamped;
+    }
+
+    private void stamp(Query query, LocalDateTime expiresAt, Map<LocalDate, Long> stamped) {
+        UpdateResult result = mongoTemplate.updateMulti(query, new Update().set("expiresAt", toDate(expiresAt)),
+                ClickAnalytics.class);
+        long rows = modified(result);
+        if (rows > 0) {
+            stamped.merge(expiresAt.toLocalDate(), rows, Long::sum);
+        }
+    }
+
+    private static long modified(UpdateResult result) {
+        return result.wasAcknowledged() ? result.getModifiedCount() : 0L;
+    }
+
+    /**
+     * Raw retention for a subscription plan (FREE, PRO_MONTHLY, BUSINESS_YEARLY, ...)
+     */
+    int retentionDays(String plan) {
+        String tier = "FREE";
+        if (plan != null && plan.contains("BUSINESS")) {
+            tier = "BUSINESS";
+        } else if (plan != null && plan.contains("PRO")) {
+            tier = "PRO";
+        }
+        return retentionByTier.getOrDefault(tier, retentionByTier.getOrDefault("FREE", compactAfterDays));
+    }
+
+    /**
+     * Raw clicks of a scope that are in no rollup yet: from the first day not
+     * compacted up to the time the scope's live rollups started. Null when
+     * compaction has caught up with the watermark.
+     */
+    public RawRange uncompactedRange(Scope scope) {
+        Document state = mongoTemplate.findById(STATE_ID, Document.class, COLLECTION);
+        LocalDateTime watermark = watermarks(state, false).get(scope);
+        LocalDateTime compactedThrough = state != null && state.getDate("compactedThrough") != null
+                ? toLocalDateTime(state.getDate("compactedThrough"))
+                : EPOCH;
+        return compactedThrough.isBefore(watermark) ? new RawRange(compactedThrough, watermark) : null;
+    }
+
+    /**
+     * Where compaction stands and how much raw storage it has reclaimed
+     */
+    public Map<String, Object> getRetentionStats() {
+        Document state = mongoTemplate.findById(STATE_ID, Document.class, COLLECTION);
+        Document raw = collectionStats(clickStorage.collection());
+        Document rollups = collectionStats(ClickRollupService.COLLECTION);
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("rawRows", mongoTemplate.getCollection(clickStorage.collection()).estimatedDocumentCount());
+        stats.put("storageMode", clickStorage.getMode());
+        stats.put("rawBytes", number(raw.get("size")));
+        stats.put("rawStorageBytes", number(raw.get("storageSize")));
+        stats.put("rollupBytes", number(rollups.get("size")));
+        stats.put("compactAfterDays", compactAfterDays);
+        stats.put("retentionDaysByPlan", new HashMap<>(retentionByTier));
+
+        long expiringBytes = 0;
+        long reclaimedBytes = 0;
+        if (state != null) {
+            stats.put("compactedThrough", state.getDate("compactedThrough"));
+            stats.put("lastRunAt", state.getDate("lastRunAt"));
+            stats.put("rowsBackfilled", number(state.get("rowsBackfilled")));
+            stats.put("rowsExpiring", number(state.get("rowsExpiring")));
+
+            // Stamped bytes whose expiry date has passed have been removed by the TTL monitor
+            Object byDay = state.get("bytesExpiring");
+            if (byDay instanceof Document) {
+                String today = LocalDate.now().toString();
+                for (Map.Entry<String, Object> entry : ((Document) byDay).entrySet()) {
+                    long bytes = number(entry.getValue());
+                    expiringBytes += bytes;
+                    if (entry.getKey().compareTo(today) <= 0) {
+                        reclaimedBytes += bytes;
+                    }
+                }
+            }
+        }
+        stats.put("bytesPendingExpiry", expiringBytes - reclaimedBytes);
+        stats.put("bytesReclaimed", reclaimedBytes);
+        return stats;
+    }
+
+    /**
+     * The time each scope's live rollups started: the oldest hour bucket if it
+     * falls on the scope's oldest day, else the start of that day. A scope
+     * without buckets starts now. Persisted on the first compaction so later
+     * reads agree.
+     */
+    private Map<Scope, LocalDateTime> watermarks(Document state, boolean persist) {
+        Map<Scope, LocalDateTime> watermarks = new EnumMap<>(Scope.class);
+        Object stored = state != null ? state.get("watermarks") : null;
+        if (stored instanceof Document) {
+            for (Scope scope : Scope.values()) {
+                Date date = ((Document) stored).getDate(scope.name());
+                if (date != null) {
+                    watermarks.put(scope, toLocalDateTime(date));
+                }
+            }
+        }
+        if (watermarks.size() == Scope.values().length) {
+            return watermarks;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Update update = new Update();
+        for (Scope scope : Scope.values()) {
+            if (watermarks.containsKey(scope)) {
+                continue;
+            }
+            LocalDateTime watermark = now;
+            LocalDateTime firstDay = clickRollupService.firstBucket(scope, Granularity.DAY);
+            if (firstDay != null) {
+                LocalDateTime firstHour = clickRollupService.firstBucket(scope, Granularity.HOUR);
+                watermark = firstHour != null && firstHour.toLocalDate().equals(firstDay.toLocalDate())
+                        ? firstHour
+                        : firstDay;
+            }
+            watermarks.put(scope, watermark);
+            update.set("watermarks." + scope.name(), toDate(watermark));
+        }
+        if (persist) {
+            mongoTemplate.updateFirst(stateQuery(), update, COLLECTION);
+        }
+        return watermarks;
+    }
+
+    private LocalDate firstRawDay() {
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "clickedAt")).limit(1);
+        query.fields().include("clickedAt");
+        ClickAnalytics first = clickStorage.findOne(query);
+        return first != null && first.getClickedAt() != null ? first.getClickedAt().toLocalDate() : null;
+    }
+
+    /**
+     * Take the compaction lease, or null if another instance holds it
+     */
+    private Document acquireLease() {
+        Date now = new Date();
+        Query query = Query.query(Criteria.where("_id").is(STATE_ID).orOperator(
+                Criteria.where("leaseUntil").exists(false),
+                Criteria.where("leaseUntil").lt(now)));
+        Update update = new Update().set("leaseUntil",
+                new Date(now.getTime() + TimeUnit.MINUTES.toMillis(leaseMinutes)));
+        try {
+            return mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), Document.class, COLLECTION);
+        } catch (DuplicateKeyException e) {
+            // The state document exists and its lease has not expired
+            return null;
+        }
+    }
+
+    private long averageRowSize() {
+        return number(collectionStats(clickStorage.collection()).get("avgObjSize"));
+    }
+
+    private Document collectionStats(String collection) {
+        try {
+            return mongoTemplate.executeCommand(new Document("collStats", collection));
+        } catch (Exception e) {
+            logger.debug("collStats failed for {}: {}", collection, e.getMessage());
+            return new Document();
+        }
+    }
+
+    private static Query stateQuery() {
+        return Query.query(Criteria.where("_id").is(STATE_ID));
+    }
+
+    private static List<List<String>> chunks(List<String> values) {
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < values.size(); i += IN_CHUNK) {
+            chunks.add(values.subList(i, Math.min(values.size(), i + IN_CHUNK)));
+        }
+        return chunks;
+    }
+
+    private static long number(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    private static Date toDate(LocalDateTime time) {
+        return Date.from(time.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static LocalDateTime toLocalDateTime(Date date) {
+        return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+    }
+
+    /**
+     * A [from, to) range of raw clicks
+     */
+    public static class RawRange {
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+
+        RawRange(LocalDateTime from, LocalDateTime to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        public LocalDateTime getFrom() { return from; }
+
+        public LocalDateTime getTo() { return to; }
+    }
+}
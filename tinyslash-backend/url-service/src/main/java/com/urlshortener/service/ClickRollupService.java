@@ -0,0 +1,539 @@
+package com.urlshortener.service;
+
+import com.urlshortener.model.ClickAnalytics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Incremental time-bucketed click rollups.
+ *
+ * Every persisted click is folded into minute, hour and day buckets for its
+ * link, its owner, (for team links) its team, (for tagged links) its owner's
+ * UTM campaign and the system-wide series. Each bucket document holds the
+ * click and unique-click totals plus country, device, browser, referrer,
+ * channel and campaign breakdowns. Increments are coalesced in memory like
+ * {@link ClickCounterService} and flushed as one upserting $inc per bucket.
+ *
+ * Analytics reads pick the coarsest granularity that still resolves the range
+ * (minutes up to 3 hours, hours up to 7 days, days beyond), so a dashboard
+ * range is answered from a few hundred bucket documents at most instead of
+ * raw click events. Minute and hour buckets expire through a TTL index.
+ *
+ * Referrers and campaigns are open-ended, so in the owner, team and global
+ * series each bucket admits at most max-breakdown-values distinct values per
+ * breakdown on each node; later values are counted under "(other)". That
+ * keeps the busiest buckets to a bounded number of $inc paths.
+ */
+@Service
+public class ClickRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClickRollupService.class);
+
+    static final String COLLECTION = "click_rollups";
+
+    // Key of the single GLOBAL series
+    public static final String GLOBAL_KEY = "all";
+
+    public enum Scope {
+        LINK,
+        USER,
+        TEAM,
+        GLOBAL,
+        CAMPAIGN
+    }
+
+    public enum Granularity {
+        MINUTE(ChronoUnit.MINUTES),
+        HOUR(ChronoUnit.HOURS),
+        DAY(ChronoUnit.DAYS);
+
+        private final ChronoUnit unit;
+
+        Granularity(ChronoUnit unit) {
+            this.unit = unit;
+        }
+
+        public LocalDateTime truncate(LocalDateTime time) {
+            return time.truncatedTo(unit);
+        }
+
+        /**
+         * Coarsest granularity that still gives a useful series for the range
+         */
+        public static Granularity forRange(LocalDateTime from, LocalDateTime to) {
+            Duration range = Duration.between(from, to);
+            if (range.compareTo(Duration.ofHours(3)) <= 0) {
+                return MINUTE;
+            }
+            if (range.compareTo(Duration.ofDays(7)) <= 0) {
+                return HOUR;
+            }
+            return DAY;
+        }
+    }
+
+    // Breakdown field in the bucket document -> value taken from the click
+    private static final String COUNTRIES = "countries";
+    private static final String DEVICES = "devices";
+    private static final String BROWSERS = "browsers";
+    private static final String REFERRERS = "referrers";
+    private static final String CHANNELS = "channels";
+    private static final String CAMPAIGNS = "campaigns";
+    static final String OTHER = "(other)";
+    private static final long ADMISSION_GRACE_MS = TimeUnit.MINUTES.toMillis(10);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.click-rollups.minute-retention-hours:48}")
+    private long minuteRetentionHours;
+
+    @Value("${app.click-rollups.hour-retention-days:90}")
+    private long hourRetentionDays;
+
+    @Value("${app.click-rollups.max-breakdown-values:100}")
+    private int maxBreakdownValues;
+
+    // Recorders share the read side; the flusher takes the write side only to swap tables
+    private final StampedLock swapLock = new StampedLock();
+    private volatile Map<String, Bucket> table = new ConcurrentHashMap<>();
+    // Table swapped out by the flush in progress, until its bulk write has returned
+    private volatile Map<String, Bucket> inFlight = Map.of();
+    // Values admitted per capped bucket breakdown, outliving the table swaps until the bucket is over
+    private final Map<String, Admission> admissions = new ConcurrentHashMap<>();
+
+    private Counter flushedBucketsCounter;
+    private Counter flushFailuresCounter;
+
+    @PostConstruct
+    public void initialize() {
+        flushedBucketsCounter = Counter.builder("clicks.rollups.flushed_buckets")
+                .description("Rollup buckets written by the coalesced flush")
+                .register(meterRegistry);
+        flushFailuresCounter = Counter.builder("clicks.rollups.flush_failures")
+                .description("Rollup flushes that failed and were re-queued")
+                .register(meterRegistry);
+        Gauge.builder("clicks.rollups.pending_buckets", this, s -> s.table.size())
+                .description("Rollup buckets with increments waiting for the next flush")
+                .register(meterRegistry);
+
+        try {
+            IndexOperations indexOps = mongoTemplate.indexOps(COLLECTION);
+            indexOps.ensureIndex(new Index()
+                    .on("scope", Sort.Direction.ASC)
+                    .on("key", Sort.Direction.ASC)
+                    .on("granularity", Sort.Direction.ASC)
+                    .on("bucket", Sort.Direction.ASC)
+                    .named("idx_rollup_series"));
+            indexOps.ensureIndex(new Index()
+                    .on("expiresAt", Sort.Direction.ASC)
+                    .expire(0, TimeUnit.SECONDS)
+                    .named("idx_rollup_ttl"));
+        } catch (Exception e) {
+            logger.warn("Could not ensure click rollup indexes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Key of an owner's campaign series, or null if the click has no campaign
+     */
+    public static String campaignKey(String userId, String campaign) {
+        if (userId == null || campaign == null || campaign.isEmpty()) {
+            return null;
+        }
+        return userId + "/" + campaign;
+    }
+
+    /**
+     * Fold one persisted click into the link, owner, team, campaign and global buckets
+     */
+    public void record(ClickAnalytics click, String teamId) {
+        if (click == null || click.getClickedAt() == null) {
+            return;
+        }
+        long stamp = swapLock.readLock();
+        try {
+            add(Scope.LINK, click.getShortCode(), click, false);
+            add(Scope.USER, click.getUserId(), click, false);
+            add(Scope.TEAM, teamId, click, false);
+            add(Scope.GLOBAL, GLOBAL_KEY, click, false);
+            add(Scope.CAMPAIGN, campaignKey(click.getUserId(), click.getUtmCampaign()), click, false);
+        } finally {
+            swapLock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Fold a click that predates the live rollups of a series into it,
+     * skipping granularities whose bucket would already have expired
+     */
+    void backfill(Scope scope, String key, ClickAnalytics click) {
+        if (click == null || click.getClickedAt() == null) {
+            return;
+        }
+        long stamp = swapLock.readLock();
+        try {
+            add(scope, key, click, true);
+        } finally {
+            swapLock.unlockRead(stamp);
+        }
+    }
+
+    private void add(Scope scope, String key, ClickAnalytics click, boolean skipExpired) {
+        if (key == null || key.isEmpty()) {
+            return;
+        }
+        for (Granularity granularity : Granularity.values()) {
+            LocalDateTime start = granularity.truncate(click.getClickedAt());
+            if (skipExpired) {
+                LocalDateTime expiresAt = expiry(granularity, start);
+                if (expiresAt != null && expiresAt.isBefore(LocalDateTime.now())) {
+                    continue;
+                }
+            }
+            String id = bucketId(scope, key, granularity, start);
+            Bucket bucket = table.computeIfAbsent(id, k -> new Bucket(scope, key, granularity, start));
+            bucket.add("clicks");
+            if (click.isUniqueClick()) {
+                bucket.add("uniqueClicks");
+            }
+            bucket.addDimension(COUNTRIES, click.getCountry());
+            bucket.addDimension(DEVICES, click.getDeviceType());
+            bucket.addDimension(BROWSERS, click.getBrowser());
+            String referrer = click.getReferrerDomain() != null ? click.getReferrerDomain() : click.getReferrerType();
+            boolean capped = scope != Scope.LINK && scope != Scope.CAMPAIGN;
+            bucket.addDimension(REFERRERS, capped ? admit(id, REFERRERS, granularity, start, referrer) : referrer);
+            bucket.addDimension(CHANNELS, click.getChannel());
+            bucket.addDimension(CAMPAIGNS, capped
+                    ? admit(id, CAMPAIGNS, granularity, start, click.getUtmCampaign()) : click.getUtmCampaign());
+        }
+    }
+
+    /**
+     * The value itself while the bucket's breakdown has room for it, else OTHER
+     */
+    private String admit(String bucketId, String field, Granularity granularity, LocalDateTime start, String value) {
+        if (value == null || value.isEmpty()) {
+            return value;
+        }
+        long bucketEnd = toDate(start.plus(1, granularity.unit)).getTime();
+        Admission admission = admissions.computeIfAbsent(bucketId + "|" + field, k -> new Admission(bucketEnd));
+        admission.lastUsed = System.currentTimeMillis();
+        Set<String> values = admission.values;
+        if (values.contains(value) || (values.size() < maxBreakdownValues && values.add(value))) {
+            return value;
+        }
+        return OTHER;
+    }
+
+    @Scheduled(fixedDelayString = "${app.click-rollups.flush-interval-ms:1000}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        admissions.values().removeIf(a -> a.bucketEnd < now && a.lastUsed < now - ADMISSION_GRACE_MS);
+
+        Map<String, Bucket> pending;
+        long stamp = swapLock.writeLock();
+        try {
+            pending = table;
+            if (pending.isEmpty()) {
+                return;
+            }
+            table = new ConcurrentHashMap<>();
+            inFlight = pending;
+        } finally {
+            swapLock.unlockWrite(stamp);
+        }
+        try {
+            write(pending);
+        } finally {
+            inFlight = Map.of();
+        }
+    }
+
+    private void write(Map<String, Bucket> pending) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, COLLECTION);
+        List<Map.Entry<String, Bucket>> entries = new ArrayList<>(pending.entrySet());
+
+        for (Map.Entry<String, Bucket> entry : entries) {
+            Bucket bucket = entry.getValue();
+            Update update = new Update();
+            bucket.cells.forEach((path, cell) -> update.inc(path, cell.sum()));
+            update.setOnInsert("scope", bucket.scope.name())
+                    .setOnInsert("key", bucket.key)
+                    .setOnInsert("granularity", bucket.granularity.name())
+                    .setOnInsert("bucket", toDate(bucket.start));
+            LocalDateTime expiresAt = expiry(bucket.granularity, bucket.start);
+            if (expiresAt != null) {
+                update.setOnInsert("expiresAt", toDate(expiresAt));
+            }
+            bulk.upsert(Query.query(Criteria.where("_id").is(entry.getKey())), update);
+        }
+
+        try {
+            bulk.execute();
+            flushedBucketsCounter.increment(pending.size());
+        } catch (BulkOperationException e) {
+            // Unordered bulk: only the failed upserts are put back for the next flush
+            flushFailuresCounter.increment();
+            logger.error("Failed to flush {} of {} click rollup buckets", e.getErrors().size(), entries.size());
+            e.getErrors().forEach(error -> requeue(entries.get(error.getIndex())));
+            return;
+        } catch (Exception e) {
+            flushFailuresCounter.increment();
+            logger.error("Failed to flush {} click rollup buckets: {}", pending.size(), e.getMessage());
+            entries.forEach(this::requeue);
+            return;
+        }
+
+        logger.debug("Flushed {} click rollup buckets", pending.size());
+    }
+
+    private void requeue(Map.Entry<String, Bucket> entry) {
+        Bucket failed = entry.getValue();
+        long stamp = swapLock.readLock();
+        try {
+            Bucket bucket = table.computeIfAbsent(entry.getKey(),
+                    id -> new Bucket(failed.scope, failed.key, failed.granularity, failed.start));
+            failed.cells.forEach((path, cell) -> bucket.add(path, cell.sum()));
+        } finally {
+            swapLock.unlockRead(stamp);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Clicks recorded on this node for one bucket that are not in the database
+     * yet, either waiting for the next flush or part of the one running
+     */
+    long pendingClicks(Scope scope, String key, Granularity granularity, LocalDateTime start) {
+        String id = bucketId(scope, key, granularity, granularity.truncate(start));
+        return pendingClicks(table.get(id)) + pendingClicks(inFlight.get(id));
+    }
+
+    private static long pendingClicks(Bucket bucket) {
+        LongAdder cell = bucket != null ? bucket.cells.get("clicks") : null;
+        return cell != null ? cell.sum() : 0L;
+    }
+
+    /**
+     * Read a range using the granularity chosen by {@link Granularity#forRange}
+     */
+    public RollupSeries query(Scope scope, String key, LocalDateTime from, LocalDateTime to) {
+        return query(scope, key, Granularity.forRange(from, to), from, to);
+    }
+
+    /**
+     * Read the buckets of one series that overlap [from, to)
+     */
+    public RollupSeries query(Scope scope, String key, Granularity granularity, LocalDateTime from,
+            LocalDateTime to) {
+        Query query = Query.query(Criteria.where("scope").is(scope.name())
+                .and("key").is(key)
+                .and("granularity").is(granularity.name())
+                .and("bucket").gte(toDate(granularity.truncate(from))).lt(toDate(to)))
+                .with(Sort.by(Sort.Direction.ASC, "bucket"));
+
+        RollupSeries series = new RollupSeries(granularity);
+        for (Document doc : mongoTemplate.find(query, Document.class, COLLECTION)) {
+            series.add(doc);
+        }
+        return series;
+    }
+
+    /**
+     * Start of the oldest bucket of a scope at the given granularity, or null
+     * if the scope has none
+     */
+    LocalDateTime firstBucket(Scope scope, Granularity granularity) {
+        Query query = Query.query(Criteria.where("scope").is(scope.name())
+                .and("granularity").is(granularity.name()))
+                .with(Sort.by(Sort.Direction.ASC, "bucket"))
+                .limit(1);
+        query.fields().include("bucket");
+        Document first = mongoTemplate.findOne(query, Document.class, COLLECTION);
+        return first != null ? toLocalDateTime(first.getDate("bucket")) : null;
+    }
+
+    private LocalDateTime expiry(Granularity granularity, LocalDateTime start) {
+        switch (granularity) {
+            case MINUTE:
+                return start.plusHours(minuteRetentionHours);
+            case HOUR:
+                return start.plusDays(hourRetentionDays);
+            default:
+                return null;
+        }
+    }
+
+    private static String bucketId(Scope scope, String key, Granularity granularity, LocalDateTime start) {
+        return scope.name().charAt(0) + ":" + key + ":" + granularity.name().charAt(0) + ":"
+                + start.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    private static Date toDate(LocalDateTime time) {
+        return Date.from(time.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static LocalDateTime toLocalDateTime(Date date) {
+        return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+    }
+
+    private static final class Admission {
+        private final Set<String> values = ConcurrentHashMap.newKeySet();
+        private final long bucketEnd;
+        private volatile long lastUsed;
+
+        private Admission(long bucketEnd) {
+            this.bucketEnd = bucketEnd;
+        }
+    }
+
+    private static final class Bucket {
+        private final Scope scope;
+        private final String key;
+        private final Granularity granularity;
+        private final LocalDateTime start;
+        private final ConcurrentHashMap<String, LongAdder> cells = new ConcurrentHashMap<>();
+
+        private Bucket(Scope scope, String key, Granularity granularity, LocalDateTime start) {
+            this.scope = scope;
+            this.key = key;
+            this.granularity = granularity;
+            this.start = start;
+        }
+
+        private void add(String path) {
+            add(path, 1);
+        }
+
+        private void add(String path, long delta) {
+            cells.computeIfAbsent(path, k -> new LongAdder()).add(delta);
+        }
+
+        private void addDimension(String field, String value) {
+            if (value != null && !value.isEmpty()) {
+                add(field + "." + AnalyticsService.counterKey(value));
+            }
+        }
+    }
+
+    /**
+     * Bucketed clicks of one series plus breakdown totals over the whole range
+     */
+    public static class RollupSeries {
+        private final Granularity granularity;
+        private final Map<LocalDateTime, Long> clicks = new TreeMap<>();
+        private long totalClicks;
+        private long uniqueClicks;
+        private final Map<String, Map<String, Long>> breakdowns = new HashMap<>();
+
+        RollupSeries(Granularity granularity) {
+            this.granularity = granularity;
+        }
+
+        private void add(Document doc) {
+            long bucketClicks = number(doc.get("clicks"));
+            clicks.merge(toLocalDateTime(doc.getDate("bucket")), bucketClicks, Long::sum);
+            totalClicks += bucketClicks;
+            uniqueClicks += number(doc.get("uniqueClicks"));
+            for (String field : new String[] { COUNTRIES, DEVICES, BROWSERS, REFERRERS, CHANNELS, CAMPAIGNS }) {
+                Object values = doc.get(field);
+                if (values instanceof Document) {
+                    Map<String, Long> breakdown = breakdowns.computeIfAbsent(field, f -> new HashMap<>());
+                    ((Document) values).forEach((k, v) -> breakdown.merge(k, number(v), Long::sum));
+                }
+            }
+        }
+
+        private static long number(Object value) {
+            return value instanceof Number ? ((Number) value).longValue() : 0L;
+        }
+
+        public Granularity getGranularity() { return granularity; }
+
+        public Map<LocalDateTime, Long> getClicks() { return clicks; }
+
+        public long getTotalClicks() { return totalClicks; }
+
+        public long getUniqueClicks() { return uniqueClicks; }
+
+        public Map<String, Long> getClicksByCountry() { return breakdown(COUNTRIES); }
+
+        public Map<String, Long> getClicksByDevice() { return breakdown(DEVICES); }
+
+        public Map<String, Long> getClicksByBrowser() { return breakdown(BROWSERS); }
+
+        public Map<String, Long> getClicksByReferrer() { return breakdown(REFERRERS); }
+
+        public Map<String, Long> getClicksByChannel() { return breakdown(CHANNELS); }
+
+        public Map<String, Long> getClicksByCampaign() { return breakdown(CAMPAIGNS); }
+
+        private Map<String, Long> breakdown(String field) {
+            return breakdowns.getOrDefault(field, Map.of());
+        }
+
+        /**
+         * Clicks keyed by ISO date (yyyy-MM-dd), only for days that had clicks
+         */
+        public Map<String, Long> getClicksByDate() {
+            Map<String, Long> byDate = new LinkedHashMap<>();
+            clicks.forEach((start, count) -> {
+                if (count > 0) {
+                    byDate.merge(start.toLocalDate().toString(), count, Long::sum);
+                }
+            });
+            return byDate;
+        }
+
+        /**
+         * Clicks in the bucket that starts at the given time
+         */
+        public long getClicksAt(LocalDateTime bucketStart) {
+            return clicks.getOrDefault(granularity.truncate(bucketStart), 0L);
+        }
+    }
+}
@@ -0,0 +1,466 @@
+package com.urlshortener.service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One sealed day of click events in a columnar file.
+ *
+ * Layout: the column data, then a footer, then the footer offset and a magic
+ * number. Rows are sorted by time. The time column holds seconds since the
+ * segment's base second as ints; every other column is dictionary encoded with
+ * 1, 2 or 4 byte codes depending on the dictionary size, code 0 meaning no
+ * value. Each dictionary follows its codes as an int offset table and the
+ * UTF-8 values, sorted by unsigned byte order so codes follow that order too.
+ * The footer lists the row count, time range and, per column, its dictionary
+ * size and the positions of its codes and dictionary.
+ *
+ * Files are written once to a temporary name and moved into place, then only
+ * ever read through a read-only memory mapping. Opening a segment only parses
+ * the footer: value lookups binary-search the mapped dictionary and values are
+ * decoded when a result needs them, so heap use does not grow with the archive.
+ */
+final class ClickSegment {
+
+    static final int MAGIC = 0x54534353; // "TSCS"
+    static final int VERSION = 2;
+    static final String SUFFIX = ".seg";
+
+    static final String TIME = "time";
+    static final List<String> DIMENSIONS = List.of("shortCode", "userId", "country", "device", "browser",
+            "referrer");
+
+    private final Path path;
+    private final LocalDate day;
+    private final int rows;
+    private final long baseSecond;
+    private final long maxSecond;
+    private final ByteBuffer time;
+    private final Map<String, Column> columns;
+    private final long sizeBytes;
+
+    private ClickSegment(Path path, LocalDate day, int rows, long baseSecond, long maxSecond, ByteBuffer time,
+            Map<String, Column> columns, long sizeBytes) {
+        this.path = path;
+        this.day = day;
+        this.rows = rows;
+        this.baseSecond = baseSecond;
+        this.maxSecond = maxSecond;
+        this.time = time;
+        this.columns = columns;
+        this.sizeBytes = sizeBytes;
+    }
+
+    Path getPath() { return path; }
+
+    LocalDate getDay() { return day; }
+
+    int getRows() { return rows; }
+
+    long getSizeBytes() { return sizeBytes; }
+
+    static String fileName(LocalDate day) {
+        return "clicks-" + day + SUFFIX;
+    }
+
+    /**
+     * Map a sealed segment file
+     */
+    static ClickSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (size < 12 || buffer.getInt((int) size - 4) != MAGIC) {
+                throw new IOException("Not a click segment: " + path);
+            }
+            int footerOffset = (int) buffer.getLong((int) size - 12);
+
+            ByteBuffer footer = buffer.duplicate();
+            footer.position(footerOffset);
+            if (footer.getInt() != MAGIC || footer.getInt() != VERSION) {
+                throw new IOException("Unsupported click segment: " + path);
+            }
+            LocalDate day = LocalDate.ofEpochDay(footer.getLong());
+            int rows = footer.getInt();
+            long baseSecond = footer.getLong();
+            long maxSecond = footer.getLong();
+            ByteBuffer time = slice(buffer, footer.getInt(), rows * 4);
+
+            Map<String, Column> columns = new HashMap<>();
+            int columnCount = footer.getInt();
+            for (int c = 0; c < columnCount; c++) {
+                String name = readString(footer);
+                int entries = footer.getInt();
+                int width = footer.get();
+                ByteBuffer codes = slice(buffer, footer.getInt(), rows * width);
+                int dictionaryOffset = footer.getInt();
+                ByteBuffer offsets = slice(buffer, dictionaryOffset, (entries + 1) * 4);
+                ByteBuffer values = slice(buffer, dictionaryOffset + (entries + 1) * 4, offsets.getInt(entries * 4));
+                columns.put(name, new Column(entries, width, codes, offsets, values));
+            }
+            return new ClickSegment(path, day, rows, baseSecond, maxSecond, time, columns, size);
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        return buffer.duplicate().position(offset).limit(offset + length).slice();
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    boolean overlaps(long fromSecond, long toSecond) {
+        return baseSecond < toSecond && maxSecond >= fromSecond;
+    }
+
+    /**
+     * Dictionary code of a value in a column, or -1 if no row has it
+     */
+    int code(String column, String value) {
+        Column col = columns.get(column);
+        return col != null ? col.lookup(value) : -1;
+    }
+
+    /**
+     * Value behind a dictionary code of a column
+     */
+    String value(String column, int code) {
+        return columns.get(column).value(code);
+    }
+
+    /**
+     * Count rows in [fromSecond, toSecond) whose filter column has the given
+     * code (or all rows when filterCode is negative), per code of groupColumn
+     */
+    long[] scan(long fromSecond, long toSecond, String filterColumn, int filterCode, String groupColumn) {
+        int start = firstRowAtOrAfter(fromSecond);
+        int end = firstRowAtOrAfter(toSecond);
+        Column group = groupColumn != null ? columns.get(groupColumn) : null;
+        Column filter = filterCode >= 0 ? columns.get(filterColumn) : null;
+
+        long[] counts = new long[group != null ? group.entries : 1];
+        for (int row = start; row < end; row++) {
+            if (filter != null && filter.code(row) != filterCode) {
+                continue;
+            }
+            counts[group != null ? group.code(row) : 0]++;
+        }
+        return counts;
+    }
+
+    /**
+     * Rows are in time order, so a range is two binary searches
+     */
+    private int firstRowAtOrAfter(long second) {
+        long target = second - baseSecond;
+        if (target <= 0) {
+            return 0;
+        }
+        if (target > Integer.MAX_VALUE) {
+            return rows;
+        }
+        int lo = 0;
+        int hi = rows;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (time.getInt(mid * 4) < target) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static final class Column {
+        private final int entries;
+        private final int width;
+        private final ByteBuffer codes;
+        private final ByteBuffer offsets;
+        private final ByteBuffer values;
+
+        private Column(int entries, int width, ByteBuffer codes, ByteBuffer offsets, ByteBuffer values) {
+            this.entries = entries;
+            this.width = width;
+            this.codes = codes;
+            this.offsets = offsets;
+            this.values = values;
+        }
+
+        /**
+         * Binary search of the sorted dictionary, skipping the empty code 0
+         */
+        private int lookup(String value) {
+            if (value == null || value.isEmpty()) {
+                return -1;
+            }
+            byte[] key = value.getBytes(StandardCharsets.UTF_8);
+            int lo = 1;
+            int hi = entries - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int cmp = compare(mid, key);
+                if (cmp < 0) {
+                    lo = mid + 1;
+                } else if (cmp > 0) {
+                    hi = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Unsigned byte order of a dictionary entry against a key
+         */
+        private int compare(int code, byte[] key) {
+            int start = offsets.getInt(code * 4);
+            int length = offsets.getInt(code * 4 + 4) - start;
+            int common = Math.min(length, key.length);
+            for (int i = 0; i < common; i++) {
+                int cmp = Byte.compareUnsigned(values.get(start + i), key[i]);
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return Integer.compare(length, key.length);
+        }
+
+        private String value(int code) {
+            int start = offsets.getInt(code * 4);
+            byte[] bytes = new byte[offsets.getInt(code * 4 + 4) - start];
+            values.get(start, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private int code(int row) {
+            switch (width) {
+                case 1:
+                    return codes.get(row) & 0xFF;
+                case 2:
+                    return codes.getShort(row * 2) & 0xFFFF;
+                default:
+                    return codes.getInt(row * 4);
+            }
+        }
+    }
+
+    /**
+     * Accumulates one day of clicks in time order and writes them as a segment
+     */
+    static final class Writer {
+        private final LocalDate day;
+        private final Map<String, Dictionary> dictionaries = new HashMap<>();
+        private int[] seconds = new int[1024];
+        private int rows;
+        private long baseSecond = -1;
+        private long maxSecond;
+
+        Writer(LocalDate day) {
+            this.day = day;
+            for (String column : DIMENSIONS) {
+                dictionaries.put(column, new Dictionary());
+            }
+        }
+
+        int getRows() { return rows; }
+
+        /**
+         * Append a row; epochSecond must not be before the previous row's
+         */
+        void add(long epochSecond, Map<String, String> values) {
+            if (baseSecond < 0) {
+                baseSecond = epochSecond;
+            }
+            if (rows == seconds.length) {
+                seconds = Arrays.copyOf(seconds, rows * 2);
+            }
+            seconds[rows] = (int) (epochSecond - baseSecond);
+            maxSecond = epochSecond;
+            for (String column : DIMENSIONS) {
+                dictionaries.get(column).add(values.get(column), rows);
+            }
+            rows++;
+        }
+
+        /**
+         * Write to a temporary file next to target and move it into place
+         */
+        void writeTo(Path target) throws IOException {
+            Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            try (CountingOutputStream counting = new CountingOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024));
+                    DataOutputStream out = new DataOutputStream(counting)) {
+                int timeOffset = (int) counting.count;
+                for (int i = 0; i < rows; i++) {
+                    out.writeInt(seconds[i]);
+                }
+                Map<String, Integer> codeOffsets = new HashMap<>();
+                Map<String, Integer> dictionaryOffsets = new HashMap<>();
+                for (String column : DIMENSIONS) {
+                    Dictionary dictionary = dictionaries.get(column);
+                    dictionary.sort();
+                    out.flush();
+                    codeOffsets.put(column, (int) counting.count);
+                    dictionary.writeCodes(out, rows);
+                    out.flush();
+                    dictionaryOffsets.put(column, (int) counting.count);
+                    dictionary.writeValues(out);
+                }
+
+                out.flush();
+                long footerOffset = counting.count;
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(day.toEpochDay());
+                out.writeInt(rows);
+                out.writeLong(Math.max(0, baseSecond));
+                out.writeLong(maxSecond);
+                out.writeInt(timeOffset);
+                out.writeInt(DIMENSIONS.size());
+                for (String column : DIMENSIONS) {
+                    Dictionary dictionary = dictionaries.get(column);
+                    writeString(out, column);
+                    out.writeInt(dictionary.values.size());
+                    out.writeByte(dictionary.width());
+                    out.writeInt(codeOffsets.get(column));
+                    out.writeInt(dictionaryOffsets.get(column));
+                }
+                out.writeLong(footerOffset);
+                out.writeInt(MAGIC);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        private static void writeString(DataOutputStream out, String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            int length = Math.min(bytes.length, 0xFFFF);
+            out.writeShort(length);
+            out.write(bytes, 0, length);
+        }
+    }
+
+    /**
+     * Dictionary of one column while writing; code 0 is reserved for no value.
+     * Codes are handed out in arrival order and renumbered into sorted order
+     * before the segment is written.
+     */
+    private static final class Dictionary {
+        private List<String> values = new ArrayList<>(List.of(""));
+        private final Map<String, Integer> codesByValue = new HashMap<>();
+        private int[] codes = new int[1024];
+        private int[] remap;
+
+        private void add(String value, int row) {
+            int code = 0;
+            if (value != null && !value.isEmpty()) {
+                code = codesByValue.computeIfAbsent(value, v -> {
+                    values.add(v);
+                    return values.size() - 1;
+                });
+            }
+            if (row == codes.length) {
+                codes = Arrays.copyOf(codes, row * 2);
+            }
+            codes[row] = code;
+        }
+
+        private int width() {
+            if (values.size() <= 0xFF + 1) {
+                return 1;
+            }
+            return values.size() <= 0xFFFF + 1 ? 2 : 4;
+        }
+
+        private void sort() {
+            byte[][] encoded = new byte[values.size()][];
+            Integer[] order = new Integer[values.size() - 1];
+            for (int i = 1; i < values.size(); i++) {
+                encoded[i] = values.get(i).getBytes(StandardCharsets.UTF_8);
+                order[i - 1] = i;
+            }
+            Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(encoded[a], encoded[b]));
+
+            remap = new int[values.size()];
+            List<String> sorted = new ArrayList<>(values.size());
+            sorted.add("");
+            for (int i = 0; i < order.length; i++) {
+                remap[order[i]] = i + 1;
+                sorted.add(values.get(order[i]));
+            }
+            values = sorted;
+        }
+
+        private void writeCodes(DataOutputStream out, int rows) throws IOException {
+            int width = width();
+            for (int i = 0; i < rows; i++) {
+                int code = remap[codes[i]];
+                if (width == 1) {
+                    out.writeByte(code);
+                } else if (width == 2) {
+                    out.writeShort(code);
+                } else {
+                    out.writeInt(code);
+                }
+            }
+        }
+
+        /**
+         * Offset table (one entry past the last value) followed by the UTF-8 values
+         */
+        private void writeValues(DataOutputStream out) throws IOException {
+            List<byte[]> encoded = new ArrayList<>(values.size());
+            int offset = 0;
+            out.writeInt(0);
+            for (String value : values) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                encoded.add(bytes);
+                offset += bytes.length;
+                out.writeInt(offset);
+            }
+            for (byte[] bytes : encoded) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static final class CountingOutputStream extends java.io.FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
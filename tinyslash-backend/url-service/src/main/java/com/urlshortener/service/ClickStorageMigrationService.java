@@ -0,0 +1,292 @@
+package com.urlshortener.service;
+
+import com.mongodb.client.model.InsertManyOptions;
+import com.urlshortener.model.ClickAnalytics;
+import com.urlshortener.service.ClickStorageService.Layout;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Tools for moving raw clicks to the time-series layout.
+ *
+ * The migration copies click_analytics into the time-series collection in
+ * _id order, checkpointing after every batch so it can be run repeatedly
+ * until done. Time-series collections do not enforce unique _ids, so the end
+ * of each batch is recorded before it is inserted; a run that resumes after
+ * an interrupted insert skips the clicks of that batch that already landed. The benchmark loads the same synthetic clicks into a scratch
+ * collection of each layout and compares insert throughput, storage size and
+ * the latency of the click queries, then drops both.
+ */
+@Service
+public class ClickStorageMigrationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClickStorageMigrationService.class);
+
+    static final String CHECKPOINT_COLLECTION = "click_storage_migrations";
+    private static final String CHECKPOINT_ID = "time_series";
+
+    private static final String BENCH_STANDARD = "click_bench_standard";
+    private static final String BENCH_TIME_SERIES = "click_bench_time_series";
+    private static final int BENCH_BATCH_SIZE = 500;
+    private static final int BENCH_QUERY_RUNS = 15;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ClickStorageService clickStorageService;
+
+    /**
+     * Copy up to maxDocuments raw clicks into the time-series collection,
+     * resuming after the last copied _id
+     */
+    public Map<String, Object> migrateToTimeSeries(int batchSize, long maxDocuments) {
+        String target = clickStorageService.getTimeSeriesCollection();
+        if (!clickStorageService.ensureTimeSeriesCollection(target,
+                clickStorageService.getTimeSeriesExpireAfterDays())) {
+            throw new IllegalStateException("Collection " + target + " exists and is not a time-series collection");
+        }
+
+        Query checkpointQuery = Query.query(Criteria.where("_id").is(CHECKPOINT_ID));
+        Document checkpoint = mongoTemplate.findOne(checkpointQuery, Document.class, CHECKPOINT_COLLECTION);
+        if (checkpoint == null) {
+            checkpoint = new Document("_id", CHECKPOINT_ID).append("copied", 0L).append("startedAt", new Date());
+        }
+        Object lastId = checkpoint.get("lastId");
+        Object pendingThrough = checkpoint.get("pendingThrough");
+        long copied = 0;
+        long started = System.currentTimeMillis();
+
+        while (copied < maxDocuments) {
+            Query batch = new Query().with(Sort.by(Sort.Direction.ASC, "_id"));
+            Criteria range = Criteria.where("_id");
+            if (lastId != null) {
+                range.gt(lastId);
+            }
+            if (pendingThrough != null) {
+                // Redo exactly the batch an earlier run was inserting when it stopped
+                batch.addCriteria(range.lte(pendingThrough));
+            } else {
+                if (lastId != null) {
+                    batch.addCriteria(range);
+                }
+                batch.limit((int) Math.min(batchSize, maxDocuments - copied));
+            }
+            List<Document> docs = mongoTemplate.find(batch, Document.class, ClickStorageService.STANDARD_COLLECTION);
+            if (docs.isEmpty() && pendingThrough == null) {
+                checkpoint.put("completedAt", new Date());
+                break;
+            }
+
+            Object batchEnd = pendingThrough != null ? pendingThrough : docs.get(docs.size() - 1).get("_id");
+            List<Document> toInsert = pendingThrough != null ? notYetCopied(target, docs) : docs;
+            if (pendingThrough == null) {
+                checkpoint.put("pendingThrough", batchEnd);
+                mongoTemplate.findAndReplace(checkpointQuery, checkpoint, FindAndReplaceOptions.options().upsert(),
+                        Document.class, CHECKPOINT_COLLECTION);
+            }
+
+            toInsert.forEach(ClickStorageService::toTimeSeries);
+            if (!toInsert.isEmpty()) {
+                mongoTemplate.getCollection(target).insertMany(toInsert, new InsertManyOptions().ordered(false));
+            }
+            copied += docs.size();
+            lastId = batchEnd;
+            pendingThrough = null;
+
+            checkpoint.remove("pendingThrough");
+            checkpoint.put("lastId", lastId);
+            checkpoint.put("copied", ((Number) checkpoint.get("copied")).longValue() + docs.size());
+            checkpoint.put("updatedAt", new Date());
+            mongoTemplate.findAndReplace(checkpointQuery, checkpoint, FindAndReplaceOptions.options().upsert(),
+                    Document.class, CHECKPOINT_COLLECTION);
+        }
+        mongoTemplate.findAndReplace(checkpointQuery, checkpoint, FindAndReplaceOptions.options().upsert(),
+                Document.class, CHECKPOINT_COLLECTION);
+
+        long remaining = lastId != null
+                ? mongoTemplate.count(Query.query(Criteria.where("_id").gt(lastId)),
+                        ClickStorageService.STANDARD_COLLECTION)
+                : mongoTemplate.getCollection(ClickStorageService.STANDARD_COLLECTION).estimatedDocumentCount();
+
+        logger.info("Copied {} clicks to {} in {}ms, {} remaining", copied, target,
+                System.currentTimeMillis() - started, remaining);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("target", target);
+        result.put("copiedThisRun", copied);
+        result.put("copiedTotal", checkpoint.get("copied"));
+        result.put("remaining", remaining);
+        result.put("done", remaining == 0);
+        result.put("activeMode", clickStorageService.getMode());
+        return result;
+    }
+
+    /**
+     * Clicks of an interrupted batch that are not in the target yet. The
+     * clickedAt bounds let the lookup prune buckets.
+     */
+    private List<Document> notYetCopied(String target, List<Document> docs) {
+        if (docs.isEmpty()) {
+            return docs;
+        }
+        List<Object> ids = new ArrayList<>(docs.size());
+        Date from = null;
+        Date to = null;
+        for (Document doc : docs) {
+            ids.add(doc.get("_id"));
+            Date clickedAt = doc.getDate("clickedAt");
+            if (clickedAt != null) {
+                from = from == null || clickedAt.before(from) ? clickedAt : from;
+                to = to == null || clickedAt.after(to) ? clickedAt : to;
+            }
+        }
+        Criteria criteria = Criteria.where("_id").in(ids);
+        if (from != null) {
+            criteria.and("clickedAt").gte(from).lte(to);
+        }
+        Query existing = Query.query(criteria);
+        existing.fields().include("_id");
+        Set<Object> copied = new HashSet<>();
+        mongoTemplate.find(existing, Document.class, target).forEach(doc -> copied.add(doc.get("_id")));
+
+        List<Document> missing = new ArrayList<>(docs.size() - copied.size());
+        for (Document doc : docs) {
+            if (!copied.contains(doc.get("_id"))) {
+                missing.add(doc);
+            }
+        }
+        logger.info("Resuming interrupted batch: {} of {} clicks already copied", copied.size(), docs.size());
+        return missing;
+    }
+
+    /**
+     * Load the same synthetic clicks into both layouts and compare them
+     */
+    public Map<String, Object> benchmark(int rows) {
+        List<ClickAnalytics> clicks = syntheticClicks(rows);
+        Layout standard = Layout.standard(BENCH_STANDARD);
+        Layout timeSeries = Layout.timeSeries(BENCH_TIME_SERIES);
+
+        dropBenchCollections();
+        try {
+            IndexOperations indexOps = mongoTemplate.indexOps(BENCH_STANDARD);
+            indexOps.ensureIndex(new Index().on("shortCode", Sort.Direction.ASC));
+            indexOps.ensureIndex(new Index().on("userId", Sort.Direction.ASC));
+            indexOps.ensureIndex(new Index().on("clickedAt", Sort.Direction.DESC));
+            clickStorageService.ensureTimeSeriesCollection(BENCH_TIME_SERIES, 0);
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("rows", rows);
+            result.put("standard", measure(standard, clicks));
+            result.put("timeSeries", measure(timeSeries, clicks));
+            return result;
+        } finally {
+            dropBenchCollections();
+        }
+    }
+
+    private Map<String, Object> measure(Layout layout, List<ClickAnalytics> clicks) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+
+        long started = System.nanoTime();
+        for (int i = 0; i < clicks.size(); i += BENCH_BATCH_SIZE) {
+            clickStorageService.insert(layout, new ArrayList<>(clicks.subList(i,
+                    Math.min(clicks.size(), i + BENCH_BATCH_SIZE))));
+        }
+        long insertNanos = System.nanoTime() - started;
+        stats.put("insertMs", insertNanos / 1_000_000);
+        stats.put("insertRowsPerSecond", insertNanos > 0 ? clicks.size() * 1_000_000_000L / insertNanos : 0);
+
+        Document collStats = mongoTemplate.executeCommand(new Document("collStats", layout.collection));
+        stats.put("storageBytes", collStats.get("storageSize"));
+        stats.put("indexBytes", collStats.get("totalIndexSize"));
+
+        LocalDateTime now = LocalDateTime.now();
+        Criteria lastWeek = Criteria.where("clickedAt").gte(now.minusDays(7)).lt(now);
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("linkWeekCountMs", medianMs(() -> mongoTemplate.count(Query.query(
+                Criteria.where(layout.field("shortCode")).is("bench0001").and("clickedAt").gte(now.minusDays(7))),
+                layout.collection)));
+        latency.put("userCountriesMs", medianMs(() -> clickStorageService.countBy(layout, "country",
+                Criteria.where(layout.field("userId")).is("user001"))));
+        latency.put("systemDevicesWeekMs", medianMs(() -> clickStorageService.countBy(layout, "deviceType",
+                lastWeek)));
+        latency.put("systemDailyMonthMs", medianMs(() -> clickStorageService.dailyClicks(layout,
+                Criteria.where("clickedAt").gte(now.minusDays(30)).lt(now))));
+        latency.put("userRecentMs", medianMs(() -> mongoTemplate.find(Query.query(
+                Criteria.where(layout.field("userId")).is("user001"))
+                .with(Sort.by(Sort.Direction.DESC, "clickedAt")).limit(10), Document.class, layout.collection)));
+        stats.put("queryMedianMs", latency);
+        return stats;
+    }
+
+    private static double medianMs(Supplier<?> query) {
+        query.get(); // warm up
+        long[] runs = new long[BENCH_QUERY_RUNS];
+        for (int i = 0; i < runs.length; i++) {
+            long started = System.nanoTime();
+            query.get();
+            runs[i] = System.nanoTime() - started;
+        }
+        Arrays.sort(runs);
+        return runs[runs.length / 2] / 1_000_000.0;
+    }
+
+    /**
+     * Clicks over the last 30 days, in time order, spread over 1000 links
+     * and 100 owners with a skew towards the first links
+     */
+    private static List<ClickAnalytics> syntheticClicks(int rows) {
+        String[] countries = { "India", "United States", "Germany", "United Kingdom", "Brazil", "Japan" };
+        String[] devices = { "DESKTOP", "MOBILE", "TABLET" };
+        String[] browsers = { "Chrome", "Safari", "Firefox", "Edge" };
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.now().minusDays(30);
+        long spanSeconds = 30L * 24 * 3600;
+
+        List<ClickAnalytics> clicks = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            int link = (int) Math.min(999, Math.abs(random.nextGaussian()) * 150);
+            ClickAnalytics click = new ClickAnalytics(String.format("bench%04d", link),
+                    String.format("user%03d", link % 100), "10.0." + random.nextInt(256) + "." + random.nextInt(256),
+                    "Mozilla/5.0", start.plusSeconds(spanSeconds * i / Math.max(1, rows)));
+            click.setId(new ObjectId().toHexString());
+            click.setCountry(countries[random.nextInt(countries.length)]);
+            click.setDeviceType(devices[random.nextInt(devices.length)]);
+            click.setBrowser(browsers[random.nextInt(browsers.length)]);
+            click.setUniqueClick(random.nextInt(3) == 0);
+            clicks.add(click);
+        }
+        return clicks;
+    }
+
+    private void dropBenchCollections() {
+        mongoTemplate.dropCollection(BENCH_STANDARD);
+        mongoTemplate.dropCollection(BENCH_TIME_SERIES);
+    }
+}
@@ -0,0 +1,276 @@
+package com.urlshortener.service;
+
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.CreateCollectionOptions;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.TimeSeriesGranularity;
+import com.mongodb.client.model.TimeSeriesOptions;
+import com.urlshortener.model.ClickAnalytics;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Where raw click events are stored.
+ *
+ * STANDARD keeps one document per click in click_analytics with secondary
+ * indexes. TIME_SERIES writes them to a MongoDB time-series collection with
+ * clickedAt as the time field and {shortCode, userId} as the meta field, so
+ * clicks of one link are bucketed and compressed together. shortCode and
+ * userId are also kept on the measurement, so documents map onto
+ * {@link ClickAnalytics} unchanged; filters go through {@link #field} to hit
+ * the meta field. Time-series retention is the collection's expireAfterSeconds.
+ *
+ * The click aggregations formerly declared on ClickAnalyticsRepository live
+ * here so they run against either layout.
+ */
+@Service
+public class ClickStorageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClickStorageService.class);
+
+    static final String STANDARD_COLLECTION = "click_analytics";
+    static final String META_FIELD = "meta";
+    private static final List<String> META_KEYS = List.of("shortCode", "userId");
+
+    public enum Mode {
+        STANDARD,
+        TIME_SERIES
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${app.click-storage.mode:STANDARD}")
+    private Mode mode;
+
+    @Value("${app.click-storage.time-series-collection:click_events}")
+    private String timeSeriesCollection;
+
+    @Value("${app.click-storage.time-series-expire-after-days:365}")
+    private long timeSeriesExpireAfterDays;
+
+    private Layout layout;
+
+    @PostConstruct
+    public void initialize() {
+        if (mode == Mode.TIME_SERIES) {
+            layout = Layout.timeSeries(timeSeriesCollection);
+            ensureTimeSeriesCollection(timeSeriesCollection, timeSeriesExpireAfterDays);
+        } else {
+            layout = Layout.standard(STANDARD_COLLECTION);
+        }
+        logger.info("Click events stored in {} ({})", layout.collection, mode);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public boolean isTimeSeries() {
+        return layout.timeSeries;
+    }
+
+    public String collection() {
+        return layout.collection;
+    }
+
+    /**
+     * Path to filter a click field on: shortCode and userId resolve to the
+     * meta field in time-series mode
+     */
+    public String field(String name) {
+        return layout.field(name);
+    }
+
+    public String getTimeSeriesCollection() {
+        return timeSeriesCollection;
+    }
+
+    public long getTimeSeriesExpireAfterDays() {
+        return timeSeriesExpireAfterDays;
+    }
+
+    /**
+     * Create the time-series collection unless it exists, or bring an existing
+     * one's expiry in line with expireAfterDays. Returns false if a collection
+     * of that name exists but is not a time-series one.
+     */
+    boolean ensureTimeSeriesCollection(String name, long expireAfterDays) {
+        MongoDatabase db = mongoTemplate.getDb();
+        for (Document info : db.listCollections().filter(new Document("name", name))) {
+            if (!"timeseries".equals(info.getString("type"))) {
+                logger.error("Collection {} exists but is not a time-series collection", name);
+                return false;
+            }
+            Document existing = info.get("options", Document.class);
+            Object expireAfterSeconds = existing != null ? existing.get("expireAfterSeconds") : null;
+            long wanted = TimeUnit.DAYS.toSeconds(expireAfterDays);
+            if (expireAfterDays > 0 && !(expireAfterSeconds instanceof Number
+                    && ((Number) expireAfterSeconds).longValue() == wanted)) {
+                db.runCommand(new Document("collMod", name).append("expireAfterSeconds", wanted));
+                logger.info("Set expiry of time-series collection {} to {} days", name, expireAfterDays);
+            }
+            return true;
+        }
+        CreateCollectionOptions options = new CreateCollectionOptions()
+                .timeSeriesOptions(new TimeSeriesOptions("clickedAt")
+                        .metaField(META_FIELD)
+                        .granularity(TimeSeriesGranularity.SECONDS));
+        if (expireAfterDays > 0) {
+            options.expireAfter(expireAfterDays, TimeUnit.DAYS);
+        }
+        db.createCollection(name, options);
+        logger.info("Created time-series collection {} (expire after {} days)", name, expireAfterDays);
+        return true;
+    }
+
+    public void insert(List<ClickAnalytics> rows) {
+        insert(layout, rows);
+    }
+
+    void insert(Layout target, List<ClickAnalytics> rows) {
+        if (!target.timeSeries) {
+            mongoTemplate.insert(rows, target.collection);
+            return;
+        }
+        List<Document> docs = new ArrayList<>(rows.size());
+        for (ClickAnalytics row : rows) {
+            Document doc = new Document();
+            mongoTemplate.getConverter().write(row, doc);
+            docs.add(toTimeSeries(doc));
+        }
+        mongoTemplate.getCollection(target.collection).insertMany(docs, new InsertManyOptions().ordered(false));
+    }
+
+    /**
+     * Add the meta field to a click document in the standard layout
+     */
+    static Document toTimeSeries(Document doc) {
+        Document meta = new Document();
+        for (String key : META_KEYS) {
+            meta.put(key, doc.get(key));
+        }
+        doc.put(META_FIELD, meta);
+        return doc;
+    }
+
+    public List<ClickAnalytics> find(Query query) {
+        return mongoTemplate.find(query, ClickAnalytics.class, layout.collection);
+    }
+
+    public ClickAnalytics findOne(Query query) {
+        return mongoTemplate.findOne(query, ClickAnalytics.class, layout.collection);
+    }
+
+    public Stream<ClickAnalytics> stream(Query query) {
+        return mongoTemplate.stream(query, ClickAnalytics.class, layout.collection);
+    }
+
+    public <T> List<T> findDistinct(Query query, String field, Class<T> type) {
+        return mongoTemplate.findDistinct(query, field(field), layout.collection, ClickAnalytics.class, type);
+    }
+
+    public long count(Criteria criteria) {
+        return mongoTemplate.count(Query.query(criteria), layout.collection);
+    }
+
+    public Criteria between(LocalDateTime from, LocalDateTime to) {
+        return Criteria.where("clickedAt").gte(from).lt(to);
+    }
+
+    public Criteria forLink(String shortCode) {
+        return Criteria.where(field("shortCode")).is(shortCode);
+    }
+
+    public Criteria forUser(String userId) {
+        return Criteria.where(field("userId")).is(userId);
+    }
+
+    /**
+     * Clicks grouped by a field (country, deviceType, browser, ...), highest first
+     */
+    public Map<String, Long> countBy(String groupField, Criteria match) {
+        return countBy(layout, groupField, match);
+    }
+
+    Map<String, Long> countBy(Layout target, String groupField, Criteria match) {
+        Aggregation agg = Aggregation.newAggregation(
+                Aggregation.match(match),
+                Aggregation.group(target.field(groupField)).count().as("count"),
+                Aggregation.sort(Sort.Direction.DESC, "count"));
+        return toCounts(mongoTemplate.aggregate(agg, target.collection, Document.class).getMappedResults());
+    }
+
+    /**
+     * Clicks per day (yyyy-MM-dd), oldest first
+     */
+    public Map<String, Long> dailyClicks(Criteria match) {
+        return dailyClicks(layout, match);
+    }
+
+    Map<String, Long> dailyClicks(Layout target, Criteria match) {
+        Aggregation agg = Aggregation.newAggregation(
+                Aggregation.match(match),
+                Aggregation.project().and(DateOperators.DateToString.dateOf("clickedAt").toString("%Y-%m-%d"))
+                        .as("day"),
+                Aggregation.group("day").count().as("count"),
+                Aggregation.sort(Sort.Direction.ASC, "_id"));
+        return toCounts(mongoTemplate.aggregate(agg, target.collection, Document.class).getMappedResults());
+    }
+
+    private static Map<String, Long> toCounts(List<Document> results) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Document row : results) {
+            Object key = row.get("_id");
+            Object count = row.get("count");
+            if (key != null && count instanceof Number) {
+                counts.put(key.toString(), ((Number) count).longValue());
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * A collection and the way click fields map onto it
+     */
+    static final class Layout {
+        final String collection;
+        final boolean timeSeries;
+
+        private Layout(String collection, boolean timeSeries) {
+            this.collection = collection;
+            this.timeSeries = timeSeries;
+        }
+
+        static Layout standard(String collection) {
+            return new Layout(collection, false);
+        }
+
+        static Layout timeSeries(String collection) {
+            return new Layout(collection, true);
+        }
+
+        String field(String name) {
+            return timeSeries && META_KEYS.contains(name) ? META_FIELD + "." + name : name;
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.urlshortener.service;
+
+import com.urlshortener.model.ClickAnalytics;
+import com.urlshortener.service.ClickRollupService.Granularity;
+import com.urlshortener.service.ClickRollupService.RollupSeries;
+import com.urlshortener.service.ClickRollupService.Scope;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rolling click windows per link, per owner and system-wide.
+ *
+ * Each window is a ring of 60 minute slots and 30 day slots with running
+ * totals for the last hour, today, the last 7 days and the last 30 days.
+ * The ring advances lazily on every read and write: slots that fall out of a
+ * window are subtracted from its total and cleared, so every total is O(1)
+ * and nothing ever has to reset counters across the links collection.
+ *
+ * A window is seeded from the minute and day {@link ClickRollupService}
+ * buckets, plus the buckets this node has not flushed yet, the first time it
+ * is read. Once it is older than resync-interval-ms it is re-seeded on read so
+ * clicks ingested by other instances show up; the fresh seed is merged slot by
+ * slot keeping the larger count, so clicks this node already counted are never
+ * dropped by a rollup that lags behind. Only reads create windows: clicks
+ * are folded into windows that already exist and otherwise left to the
+ * rollups, so memory follows the series people look at rather than every
+ * link clicked. Windows nobody read for a while are dropped and rebuilt on
+ * demand.
+ */
+@Service
+public class ClickWindowService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClickWindowService.class);
+
+    @Autowired
+    private ClickRollupService clickRollupService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.click-windows.resync-interval-ms:60000}")
+    private long resyncIntervalMs;
+
+    @Value("${app.click-windows.idle-timeout-ms:1800000}")
+    private long idleTimeoutMs;
+
+    private final Map<String, ClickWindow> windows = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void initialize() {
+        Gauge.builder("clicks.windows.active", this, s -> s.windows.size())
+                .description("Rolling click windows held in memory")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Fold one persisted click into the existing windows of its link, owner
+     * and the global series. A window created later is seeded from the
+     * rollups, which already hold the click.
+     */
+    public void record(ClickAnalytics click) {
+        if (click == null || click.getClickedAt() == null) {
+            return;
+        }
+        long minute = minuteOf(click.getClickedAt());
+        long day = dayOf(click.getClickedAt());
+        add(Scope.LINK, click.getShortCode(), minute, day);
+        add(Scope.USER, click.getUserId(), minute, day);
+        add(Scope.GLOBAL, ClickRollupService.GLOBAL_KEY, minute, day);
+    }
+
+    private void add(Scope scope, String key, long minute, long day) {
+        if (key == null || key.isEmpty()) {
+            return;
+        }
+        ClickWindow window = windows.get(windowId(scope, key));
+        if (window != null) {
+            window.add(minute, day, 1);
+        }
+    }
+
+    public WindowTotals link(String shortCode) {
+        return totals(Scope.LINK, shortCode);
+    }
+
+    public WindowTotals user(String userId) {
+        return totals(Scope.USER, userId);
+    }
+
+    public WindowTotals global() {
+        return totals(Scope.GLOBAL, ClickRollupService.GLOBAL_KEY);
+    }
+
+    private WindowTotals totals(Scope scope, String key) {
+        LocalDateTime now = LocalDateTime.now();
+        long nowMillis = System.currentTimeMillis();
+        String id = windowId(scope, key);
+
+        ClickWindow window = windows.get(id);
+        if (window == null) {
+            ClickWindow seeded = seed(scope, key, now, nowMillis);
+            window = windows.putIfAbsent(id, seeded);
+            if (window == null) {
+                window = seeded;
+            } else {
+                // Another read created the window while this one was seeding
+                window.merge(seeded, nowMillis);
+            }
+        } else if (nowMillis - window.seededAt > resyncIntervalMs) {
+            window.merge(seed(scope, key, now, nowMillis), nowMillis);
+        }
+        window.lastReadAt = nowMillis;
+        return window.totals(minuteOf(now), dayOf(now));
+    }
+
+    /**
+     * A window built from the persisted rollups and the buckets still pending
+     * on this node. The rollups are read first, so a flush completing in
+     * between can only leave clicks out, which the merge then covers.
+     */
+    private ClickWindow seed(Scope scope, String key, LocalDateTime now, long nowMillis) {
+        ClickWindow window = new ClickWindow(minuteOf(now), dayOf(now), nowMillis);
+        Map<Long, Long> dayClicks = new HashMap<>();
+        Map<Long, Long> minuteClicks = new HashMap<>();
+        try {
+            LocalDateTime to = now.plusMinutes(1);
+            RollupSeries days = clickRollupService.query(scope, key, Granularity.DAY,
+                    now.minusDays(ClickWindow.DAYS - 1), to);
+            days.getClicks().forEach((start, clicks) -> dayClicks.merge(dayOf(start), clicks, Long::sum));
+
+            RollupSeries minutes = clickRollupService.query(scope, key, Granularity.MINUTE,
+                    now.minusMinutes(ClickWindow.MINUTES - 1), to);
+            minutes.getClicks().forEach((start, clicks) -> minuteClicks.merge(minuteOf(start), clicks, Long::sum));
+        } catch (Exception e) {
+            logger.warn("Could not seed click window {}:{} from rollups: {}", scope, key, e.getMessage());
+        }
+
+        for (int age = 0; age < ClickWindow.DAYS; age++) {
+            LocalDateTime start = now.minusDays(age);
+            long pending = clickRollupService.pendingClicks(scope, key, Granularity.DAY, start);
+            window.addDay(dayOf(start), dayClicks.getOrDefault(dayOf(start), 0L) + pending);
+        }
+        for (int age = 0; age < ClickWindow.MINUTES; age++) {
+            LocalDateTime start = now.minusMinutes(age);
+            long pending = clickRollupService.pendingClicks(scope, key, Granularity.MINUTE, start);
+            window.addMinute(minuteOf(start), minuteClicks.getOrDefault(minuteOf(start), 0L) + pending);
+        }
+        return window;
+    }
+
+    @Scheduled(fixedDelayString = "${app.click-windows.evict-interval-ms:300000}")
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMs;
+        int before = windows.size();
+        windows.values().removeIf(window -> window.lastReadAt < cutoff);
+        int evicted = before - windows.size();
+        if (evicted > 0) {
+            logger.debug("Evicted {} idle click windows", evicted);
+        }
+    }
+
+    private static String windowId(Scope scope, String key) {
+        return scope.name() + ":" + key;
+    }
+
+    private static long minuteOf(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    private static long dayOf(LocalDateTime time) {
+        return time.toLocalDate().toEpochDay();
+    }
+
+    /**
+     * Minute and day rings of one series. Slot i holds the clicks of the
+     * minute (day) whose index is congruent to i; the head is the newest
+     * minute (day) the ring has advanced to.
+     */
+    static final class ClickWindow {
+        static final int MINUTES = 60;
+        static final int DAYS = 30;
+        private static final int WEEK = 7;
+
+        private final int[] minutes = new int[MINUTES];
+        private final int[] days = new int[DAYS];
+        private long headMinute;
+        private long headDay;
+        private long lastHour;
+        private long lastWeek;
+        private long lastMonth;
+
+        private volatile long seededAt;
+        private volatile long lastReadAt;
+
+        ClickWindow(long minute, long day, long seededAt) {
+            this.headMinute = minute;
+            this.headDay = day;
+            this.seededAt = seededAt;
+            this.lastReadAt = seededAt;
+        }
+
+        synchronized void add(long minute, long day, long clicks) {
+            advance(minute, day);
+            addMinute(minute, clicks);
+            addDay(day, clicks);
+        }
+
+        /**
+         * Take the larger count of every slot from a freshly seeded window
+         * and recompute the running totals
+         */
+        synchronized void merge(ClickWindow seeded, long seededAt) {
+            synchronized (seeded) {
+                long minute = Math.max(headMinute, seeded.headMinute);
+                long day = Math.max(headDay, seeded.headDay);
+                advance(minute, day);
+                seeded.advance(minute, day);
+
+                lastHour = 0;
+                for (int i = 0; i < MINUTES; i++) {
+                    minutes[i] = Math.max(minutes[i], seeded.minutes[i]);
+                    lastHour += minutes[i];
+                }
+                lastWeek = 0;
+                lastMonth = 0;
+                for (int age = 0; age < DAYS; age++) {
+                    int slot = slot(headDay - age, DAYS);
+                    days[slot] = Math.max(days[slot], seeded.days[slot]);
+                    lastMonth += days[slot];
+                    if (age < WEEK) {
+                        lastWeek += days[slot];
+                    }
+                }
+            }
+            this.seededAt = seededAt;
+        }
+
+        synchronized void addMinute(long minute, long clicks) {
+            long age = headMinute - minute;
+            if (age >= 0 && age < MINUTES) {
+                minutes[slot(minute, MINUTES)] += (int) clicks;
+                lastHour += clicks;
+            }
+        }
+
+        synchronized void addDay(long day, long clicks) {
+            long age = headDay - day;
+            if (age >= 0 && age < DAYS) {
+                days[slot(day, DAYS)] += (int) clicks;
+                lastMonth += clicks;
+                if (age < WEEK) {
+                    lastWeek += clicks;
+                }
+            }
+        }
+
+        synchronized WindowTotals totals(long minute, long day) {
+            advance(minute, day);
+            return new WindowTotals(lastHour, days[slot(headDay, DAYS)], lastWeek, lastMonth);
+        }
+
+        /**
+         * Move the heads forward, retiring the slots that leave each window.
+         * Each step is constant work and a ring never takes more steps than
+         * it has slots.
+         */
+        private void advance(long minute, long day) {
+            if (minute > headMinute) {
+                if (minute - headMinute >= MINUTES) {
+                    Arrays.fill(minutes, 0);
+                    lastHour = 0;
+                } else {
+                    for (long m = headMinute + 1; m <= minute; m++) {
+                        int slot = slot(m, MINUTES);
+                        lastHour -= minutes[slot];
+                        minutes[slot] = 0;
+                    }
+                }
+                headMinute = minute;
+            }
+
+            if (day > headDay) {
+                if (day - headDay >= DAYS) {
+                    Arrays.fill(days, 0);
+                    lastWeek = 0;
+                    lastMonth = 0;
+                } else {
+                    for (long d = headDay + 1; d <= day; d++) {
+                        lastWeek -= days[slot(d - WEEK, DAYS)];
+                        int slot = slot(d, DAYS);
+                        lastMonth -= days[slot];
+                        days[slot] = 0;
+                    }
+                }
+                headDay = day;
+            }
+        }
+
+        private static int slot(long index, int size) {
+            return (int) Math.floorMod(index, (long) size);
+        }
+    }
+
+    /**
+     * Rolling totals of one series at the time it was read
+     */
+    public static class WindowTotals {
+        private final long lastHour;
+        private final long today;
+        private final long lastWeek;
+        private final long lastMonth;
+
+        WindowTotals(long lastHour, long today, long lastWeek, long lastMonth) {
+            this.lastHour = lastHour;
+            this.today = today;
+            this.lastWeek = lastWeek;
+            this.lastMonth = lastMonth;
+        }
+
+        public long getLastHour() { return lastHour; }
+
+        public long getToday() { return today; }
+
+        public long getLastWeek() { return lastWeek; }
+
+        public long getLastMonth() { return lastMonth; }
+    }
+}
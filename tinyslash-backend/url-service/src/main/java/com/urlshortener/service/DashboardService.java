@@ -1,5 +1,9 @@
 package com.urlshortener.service;
 
+import com.urlshortener.dto.CursorPage;
+import com.urlshortener.dto.FileSummary;
+import com.urlshortener.dto.LinkSummary;
+import com.urlshortener.dto.QrCodeSummary;
 import com.urlshortener.model.ShortenedUrl;
 import com.urlshortener.model.QrCode;
 import com.urlshortener.model.UploadedFile;
@@ -8,6 +12,10 @@ import com.urlshortener.repository.QrCodeRepository;
 import com.urlshortener.repository.UploadedFileRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,25 +34,28 @@ public class DashboardService {
     private final QrCodeRepository qrCodeRepository;
     private final UploadedFileRepository uploadedFileRepository;
     private final AnalyticsService analyticsService;
-    private final com.urlshortener.repository.UserRepository userRepository;
-    private final com.urlshortener.repository.TeamRepository teamRepository;
-    private final ResourceUsageService resourceUsageService;
+    private final KeysetPaginationService keysetPagination;
+    private final MongoTemplate mongoTemplate;
+    private final ClickWindowService clickWindowService;
+    private final AdminMetricsService adminMetrics;
 
     @Autowired
     public DashboardService(ShortenedUrlRepository shortenedUrlRepository,
             QrCodeRepository qrCodeRepository,
             UploadedFileRepository uploadedFileRepository,
             AnalyticsService analyticsService,
-            com.urlshortener.repository.UserRepository userRepository,
-            com.urlshortener.repository.TeamRepository teamRepository,
-            ResourceUsageService resourceUsageService) {
+            KeysetPaginationService keysetPagination,
+            MongoTemplate mongoTemplate,
+            ClickWindowService clickWindowService,
+            AdminMetricsService adminMetrics) {
         this.shortenedUrlRepository = shortenedUrlRepository;
         this.qrCodeRepository = qrCodeRepository;
         this.uploadedFileRepository = uploadedFileRepository;
         this.analyticsService = analyticsService;
-        this.userRepository = userRepository;
-        this.teamRepository = teamRepository;
-        this.resourceUsageService = resourceUsageService;
+        this.keysetPagination = keysetPagination;
+        this.mongoTemplate = mongoTemplate;
+        this.clickWindowService = clickWindowService;
+        this.adminMetrics = adminMetrics;
     }
 
     /**
@@ -54,91 +65,45 @@ public class DashboardService {
     public Map<String, Object> getAdminDashboardOverview() {
         Map<String, Object> dashboard = new HashMap<>();
 
-        // 1. Core Metrics & Growth Calculation
+        // 1. Core Metrics & Growth Calculation, from the materialized counters and
+        // the snapshot taken 30 days ago
         LocalDateTime thirtyDaysAgo = LocalDateTime.now().minus(30, ChronoUnit.DAYS);
+        AdminMetricsService.MetricsSnapshot current = adminMetrics.current();
+        AdminMetricsService.MetricsSnapshot baseline = adminMetrics.snapshotOn(thirtyDaysAgo.toLocalDate());
 
-        // Users
-        List<com.urlshortener.model.User> allUsers = userRepository.findAll();
-        long totalUsers = allUsers.size();
-        long newUsersLast30Days = allUsers.stream()
-                .filter(u -> u.getCreatedAt() != null && u.getCreatedAt().isAfter(thirtyDaysAgo))
-                .count();
-        String usersGrowth = calculateGrowthPercentage(newUsersLast30Days, totalUsers - newUsersLast30Days);
-
-        // Links
-        List<ShortenedUrl> allLinks = shortenedUrlRepository.findAll();
-        long totalLinks = allLinks.size();
-        long newLinksLast30Days = allLinks.stream()
-                .filter(u -> u.getCreatedAt() != null && u.getCreatedAt().isAfter(thirtyDaysAgo))
-                .count();
-        String linksGrowth = calculateGrowthPercentage(newLinksLast30Days, totalLinks - newLinksLast30Days);
-
-        // QR Codes
-        List<QrCode> allQrCodes = qrCodeRepository.findAll();
-        long totalQrCodes = allQrCodes.size();
-        long newQrCodesLast30Days = allQrCodes.stream()
-                .filter(q -> q.getCreatedAt() != null && q.getCreatedAt().isAfter(thirtyDaysAgo))
-                .count();
-        String qrGrowth = calculateGrowthPercentage(newQrCodesLast30Days, totalQrCodes - newQrCodesLast30Days);
-
-        // Files
-        List<UploadedFile> allFiles = uploadedFileRepository.findAll();
-        long totalFiles = allFiles.size();
-        long newFilesLast30Days = allFiles.stream()
-                .filter(f -> f.getUploadedAt() != null && f.getUploadedAt().isAfter(thirtyDaysAgo))
-                .count();
-        String filesGrowth = calculateGrowthPercentage(newFilesLast30Days, totalFiles - newFilesLast30Days);
-
-        // Teams
-        List<com.urlshortener.model.Team> allTeams = teamRepository.findAll();
-        long totalTeams = allTeams.size();
-        long newTeamsLast30Days = allTeams.stream()
-                .filter(t -> t.getCreatedAt() != null && t.getCreatedAt().isAfter(thirtyDaysAgo))
-                .count();
-        String teamsGrowth = calculateGrowthPercentage(newTeamsLast30Days, totalTeams - newTeamsLast30Days);
-
-        // Clicks
-        // Using 'thisMonthClicks' from all URLs as a proxy for "recent growth" in
-        // activity
-        long totalClicks = allLinks.stream().mapToLong(ShortenedUrl::getTotalClicks).sum();
-        long clicksThisMonth = allLinks.stream().mapToLong(ShortenedUrl::getThisMonthClicks).sum();
-        // Growth of total clicks isn't quite right with just thisMonth, but we compare
-        // this month's activity contribution to total
-        // Or simpler: just use "0%" if total is 0, else thisMonth/Total (which is
-        // meaningless)
-        // Better: Compare Date-based clicks if available. Since we lack history, we'll
-        // conservatively use a placeholder
-        // OR better, assuming steady growth, we can just show "0%" if we can't
-        // calculate it, to be "Real".
-        // HOWEVER, to be "Real" but friendly, lets calculate % increase of total clicks
-        // contributed by this month.
+        long totalUsers = current.get(AdminMetricsService.Metric.USERS);
+        String usersGrowth = growthSince(current, baseline, AdminMetricsService.Metric.USERS,
+                com.urlshortener.model.User.class, "createdAt", thirtyDaysAgo);
+
+        long totalLinks = current.get(AdminMetricsService.Metric.LINKS);
+        String linksGrowth = growthSince(current, baseline, AdminMetricsService.Metric.LINKS,
+                ShortenedUrl.class, "createdAt", thirtyDaysAgo);
+
+        long totalQrCodes = current.get(AdminMetricsService.Metric.QR_CODES);
+        String qrGrowth = growthSince(current, baseline, AdminMetricsService.Metric.QR_CODES,
+                QrCode.class, "createdAt", thirtyDaysAgo);
+
+        long totalFiles = current.get(AdminMetricsService.Metric.FILES);
+        String filesGrowth = growthSince(current, baseline, AdminMetricsService.Metric.FILES,
+                UploadedFile.class, "uploadedAt", thirtyDaysAgo);
+
+        long totalTeams = current.get(AdminMetricsService.Metric.TEAMS);
+        String teamsGrowth = growthSince(current, baseline, AdminMetricsService.Metric.TEAMS,
+                com.urlshortener.model.Team.class, "createdAt", thirtyDaysAgo);
+
+        // Clicks: this month's share of all clicks, from the global rolling window
+        long totalClicks = current.get(AdminMetricsService.Metric.CLICKS);
+        long clicksThisMonth = clickWindowService.global().getLastMonth();
         String clicksGrowth = calculateGrowthPercentage(clicksThisMonth, totalClicks - clicksThisMonth);
 
-        // Revenue (Estimate)
-        long totalRevenue = allUsers.stream()
-                .mapToLong(u -> {
-                    String plan = u.getSubscriptionPlan();
-                    if ("PRO_MONTHLY".equals(plan))
-                        return 10;
-                    if ("BUSINESS_MONTHLY".equals(plan))
-                        return 50;
-                    return 0;
-                })
-                .sum();
-        // For revenue growth, we'd need history of payments.
-        // We'll proxy it by "New Users Revenue" vs "Old Users Revenue"
-        long newUsersRevenue = allUsers.stream()
-                .filter(u -> u.getCreatedAt() != null && u.getCreatedAt().isAfter(thirtyDaysAgo))
-                .mapToLong(u -> {
-                    String plan = u.getSubscriptionPlan();
-                    if ("PRO_MONTHLY".equals(plan))
-                        return 10;
-                    if ("BUSINESS_MONTHLY".equals(plan))
-                        return 50;
-                    return 0;
-                })
-                .sum();
-        String revenueGrowth = calculateGrowthPercentage(newUsersRevenue, totalRevenue - newUsersRevenue);
+        // Revenue (Estimate) from the users per plan
+        Map<String, Long> planCounts = planTiers(current.getPlans());
+        long totalRevenue = monthlyRevenue(current.getPlans());
+        // Without a snapshot there is no revenue history to compare against
+        String revenueGrowth = baseline != null
+                ? calculateGrowthPercentage(totalRevenue - monthlyRevenue(baseline.getPlans()),
+                        monthlyRevenue(baseline.getPlans()))
+                : "0%";
 
         // Metrics List for Frontend
         List<Map<String, Object>> metrics = new ArrayList<>();
@@ -150,17 +115,12 @@ public class DashboardService {
         metrics.add(createMetric("Active Teams", totalTeams, teamsGrowth, "teams:read", "Globe"));
         metrics.add(createMetric("Monthly Revenue", "$" + totalRevenue, revenueGrowth, "billing:read", "CreditCard"));
 
-        // Add Storage Metric from ResourceService
-        Map<String, Object> resourceStats = resourceUsageService.getGlobalResourceUsage();
-        Map<String, Object> storage = (Map<String, Object>) resourceStats.get("storage");
-        if (storage != null) {
-            long usedBytes = ((Number) storage.get("used")).longValue();
-            String formattedStorage = formatBytes(usedBytes);
-            metrics.add(createMetric("Storage Used", formattedStorage, "+0.0%", "resources:read", "HardDrive")); // No
-                                                                                                                 // history
-                                                                                                                 // for
-                                                                                                                 // storage
-        }
+        long usedBytes = current.get(AdminMetricsService.Metric.STORAGE_BYTES);
+        String storageGrowth = baseline != null
+                ? calculateGrowthPercentage(usedBytes - baseline.get(AdminMetricsService.Metric.STORAGE_BYTES),
+                        baseline.get(AdminMetricsService.Metric.STORAGE_BYTES))
+                : "+0.0%";
+        metrics.add(createMetric("Storage Used", formatBytes(usedBytes), storageGrowth, "resources:read", "HardDrive"));
 
         dashboard.put("metrics", metrics);
 
@@ -169,16 +129,12 @@ public class DashboardService {
         // Fetch recent 5 items from each collection and merge
 
         // Recent Users
-        userRepository.findAll().stream() // Ideally perform sorting in DB
-                .sorted((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()))
-                .limit(5)
+        mongoTemplate.find(newestFirst("createdAt", 5), com.urlshortener.model.User.class)
                 .forEach(u -> activity.add(createActivity(
                         "user_signup", u.getEmail(), "Signed up", u.getCreatedAt())));
 
         // Recent Links
-        shortenedUrlRepository.findAll().stream()
-                .sorted((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()))
-                .limit(5)
+        mongoTemplate.find(newestFirst("createdAt", 5), ShortenedUrl.class)
                 .forEach(u -> activity.add(createActivity(
                         "link_created", "User " + u.getUserId().substring(0, 5), "Created link " + u.getShortCode(),
                         u.getCreatedAt())));
@@ -195,11 +151,6 @@ public class DashboardService {
         dashboard.put("recentActivity", activity);
 
         // 3. Revenue Breakdown
-        // Reuse getUserPlanDistribution logic or re-calculate
-        Map<String, Object> userStats = (Map<String, Object>) resourceStats.get("users");
-        Map<String, Long> planCounts = userStats != null ? (Map<String, Long>) userStats.get("byPlan")
-                : new HashMap<>();
-
         List<Map<String, Object>> revenueBreakdown = new ArrayList<>();
         revenueBreakdown.add(createRevenueItem("Free", planCounts.getOrDefault("Free", 0L), 0));
         revenueBreakdown.add(
@@ -326,20 +277,10 @@ public class DashboardService {
 
         dashboard.put("totalClicks", totalClicks + totalQRScans + totalFileDownloads);
 
-        // Time-based statistics
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime todayStart = now.toLocalDate().atStartOfDay();
-        LocalDateTime weekStart = now.minus(7, ChronoUnit.DAYS);
-
-        int clicksToday = urls.stream()
-                .filter(url -> url.getLastClickedAt() != null && url.getLastClickedAt().isAfter(todayStart))
-                .mapToInt(ShortenedUrl::getTodayClicks)
-                .sum();
-
-        int clicksThisWeek = urls.stream()
-                .filter(url -> url.getLastClickedAt() != null && url.getLastClickedAt().isAfter(weekStart))
-                .mapToInt(ShortenedUrl::getThisWeekClicks)
-                .sum();
+        // Time-based statistics from the owner's rolling click window
+        ClickWindowService.WindowTotals window = clickWindowService.user(userId);
+        long clicksToday = window.getToday();
+        long clicksThisWeek = window.getLastWeek();
 
         dashboard.put("clicksToday", clicksToday);
         dashboard.put("clicksThisWeek", clicksThisWeek);
@@ -426,30 +367,49 @@ public class DashboardService {
     }
 
     /**
-     * Get user's URLs with caching
+     * Get all of a user's URLs as list rows (unpaged, uncached; prefer getUserUrlsPage)
      */
-    @Cacheable(value = "userUrls", key = "#userId")
-    public List<ShortenedUrl> getUserUrls(String userId) {
+    public List<LinkSummary> getUserUrls(String userId) {
         logger.debug("Fetching URLs for user: {}", userId);
-        return shortenedUrlRepository.findByUserIdAndIsActiveTrue(userId);
+        return findActiveSummaries(userId, ShortenedUrl.class, LinkSummary.class);
+    }
+
+    /**
+     * Get one page of a user's URLs, newest first, with per-page caching
+     */
+    @Cacheable(value = "userUrls", key = "#userId + ':' + #limit + ':' + (#cursor ?: '')")
+    public CursorPage<LinkSummary> getUserUrlsPage(String userId, String cursor, Integer limit) {
+        logger.debug("Fetching URL page for user: {}", userId);
+        return keysetPagination.findSummaries(Criteria.where("userId").is(userId).and("isActive").is(true),
+                "createdAt", cursor, limit, ShortenedUrl.class, LinkSummary.class);
     }
 
     /**
      * Get user's QR codes with caching
      */
-    @Cacheable(value = "userQRCodes", key = "#userId")
-    public List<QrCode> getUserQRCodes(String userId) {
+    @Cacheable(value = "userQRCodeSummaries", key = "#userId")
+    public List<QrCodeSummary> getUserQRCodes(String userId) {
         logger.debug("Fetching QR codes for user: {}", userId);
-        return qrCodeRepository.findByUserIdAndIsActiveTrue(userId);
+        return findActiveSummaries(userId, QrCode.class, QrCodeSummary.class);
     }
 
     /**
      * Get user's files with caching
      */
-    @Cacheable(value = "userFiles", key = "#userId")
-    public List<UploadedFile> getUserFiles(String userId) {
+    @Cacheable(value = "userFileSummaries", key = "#userId")
+    public List<FileSummary> getUserFiles(String userId) {
         logger.debug("Fetching files for user: {}", userId);
-        return uploadedFileRepository.findByUserIdAndIsActiveTrue(userId);
+        return findActiveSummaries(userId, UploadedFile.class, FileSummary.class);
+    }
+
+    /**
+     * List rows only need scalar fields, so the per-item analytics maps are
+     * projected out in Mongo instead of being loaded and discarded
+     */
+    private <T> List<T> findActiveSummaries(String userId, Class<?> entityType, Class<T> summaryType) {
+        Query query = Query.query(Criteria.where("userId").is(userId).and("isActive").is(true));
+        return mongoTemplate.find(keysetPagination.includeSummaryFields(query, summaryType), summaryType,
+                mongoTemplate.getCollectionName(entityType));
     }
 
     /**
@@ -467,9 +427,10 @@ public class DashboardService {
         Map<String, Object> counts = new HashMap<>();
         counts.put("totalClicks", url.getTotalClicks());
         counts.put("uniqueClicks", url.getUniqueClicks());
-        counts.put("todayClicks", url.getTodayClicks());
-        counts.put("thisWeekClicks", url.getThisWeekClicks());
-        counts.put("thisMonthClicks", url.getThisMonthClicks());
+        ClickWindowService.WindowTotals window = clickWindowService.link(shortCode);
+        counts.put("todayClicks", window.getToday());
+        counts.put("thisWeekClicks", window.getLastWeek());
+        counts.put("thisMonthClicks", window.getLastMonth());
         counts.put("lastClickedAt", url.getLastClickedAt());
 
         return counts;
@@ -531,6 +492,48 @@ public class DashboardService {
         return clicksOverTime;
     }
 
+    /**
+     * Growth of a counter over the last 30 days relative to its value 30 days
+     * ago. Until a snapshot from that day exists, the new entities are counted
+     * from their creation date instead.
+     */
+    private String growthSince(AdminMetricsService.MetricsSnapshot current,
+            AdminMetricsService.MetricsSnapshot baseline, AdminMetricsService.Metric metric,
+            Class<?> entity, String dateField, LocalDateTime since) {
+        long total = current.get(metric);
+        if (baseline != null) {
+            long previous = baseline.get(metric);
+            return calculateGrowthPercentage(total - previous, previous);
+        }
+        long recent = mongoTemplate.count(Query.query(Criteria.where(dateField).gt(since)), entity);
+        return calculateGrowthPercentage(recent, total - recent);
+    }
+
+    private Query newestFirst(String dateField, int limit) {
+        return new Query().with(Sort.by(Sort.Direction.DESC, dateField)).limit(limit);
+    }
+
+    /**
+     * Users per plan tier (Free, Pro, Business) from users per plan
+     */
+    private Map<String, Long> planTiers(Map<String, Long> plans) {
+        Map<String, Long> tiers = new HashMap<>();
+        plans.forEach((plan, count) -> {
+            String tier = "Free";
+            if (plan.contains("PRO")) {
+                tier = "Pro";
+            } else if (plan.contains("BUSINESS")) {
+                tier = "Business";
+            }
+            tiers.merge(tier, count, Long::sum);
+        });
+        return tiers;
+    }
+
+    private long monthlyRevenue(Map<String, Long> plans) {
+        return plans.getOrDefault("PRO_MONTHLY", 0L) * 10 + plans.getOrDefault("BUSINESS_MONTHLY", 0L) * 50;
+    }
+
     private String calculateGrowthPercentage(long currentPeriodValue, long previousTotalValue) {
         if (previousTotalValue <= 0) {
             return currentPeriodValue > 0 ? "+100%" : "0%";
@@ -0,0 +1,371 @@
+package com.urlshortener.service;
+
+import com.urlshortener.model.Domain;
+import com.urlshortener.model.OptimizedDomain;
+import com.urlshortener.repository.DomainRepository;
+import com.urlshortener.repository.OptimizedDomainRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Precompiled host routing table for the redirect path.
+ *
+ * Verified custom domains are loaded from the domains collection into an
+ * immutable snapshot: an exact-host map plus a reversed-label suffix trie for
+ * wildcard entries ("*.example.com") and the legacy default hosts. A lookup is
+ * one hash probe, falling back to a walk bounded by the host's label count.
+ * The snapshot is rebuilt on a schedule and whenever a domain is verified or
+ * transferred, and swapped in through a volatile reference.
+ *
+ * Redirect counts per custom domain are coalesced in memory and written back
+ * in one bulk update per collection and flush. Each route remembers the
+ * domain name exactly as stored ("*.example.com" for wildcards) and which
+ * model it was loaded from, so the update finds the right document.
+ */
+@Service
+public class DomainRoutingTable {
+
+    private static final Logger logger = LoggerFactory.getLogger(DomainRoutingTable.class);
+    private static final String WILDCARD_PREFIX = "*.";
+
+    @Autowired(required = false)
+    private DomainRepository domainRepository;
+
+    @Autowired(required = false)
+    private OptimizedDomainRepository optimizedDomainRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.shorturl.domain:https://pebly.vercel.app}")
+    private String shortUrlDomain;
+
+    @Value("${app.redirect.legacy-domains:pebly.vercel.app,onrender.com}")
+    private List<String> legacyDomains;
+
+    private String defaultDomainKey;
+    private HostRoute defaultRoute;
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    // Keyed by route instance: a refresh builds new routes, and both generations flush on their own.
+    // Redirects share the read side; the flusher takes the write side only to swap tables
+    private final StampedLock swapLock = new StampedLock();
+    private volatile Map<HostRoute, LongAdder> pendingRedirects = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void initialize() {
+        defaultDomainKey = stripHost(shortUrlDomain);
+        defaultRoute = new HostRoute(defaultDomainKey, null, null, null, null);
+
+        Gauge.builder("domains.routing.entries", this, t -> t.snapshot.size())
+                .description("Hosts in the custom-domain routing table")
+                .register(meterRegistry);
+
+        refresh();
+    }
+
+    /**
+     * Rebuild the table from the verified domains in the database
+     */
+    @Scheduled(initialDelayString = "${app.domain-routing.refresh-interval-ms:300000}",
+            fixedDelayString = "${app.domain-routing.refresh-interval-ms:300000}")
+    public synchronized void refresh() {
+        Map<String, HostRoute> exact = new HashMap<>();
+        TrieNode wildcards = new TrieNode();
+
+        // Default and legacy hosts: the exact name and every subdomain route to the default key
+        exact.put(defaultDomainKey, defaultRoute);
+        for (String legacy : legacyDomains) {
+            String host = stripHost(legacy);
+            if (!host.isEmpty()) {
+                exact.put(host, defaultRoute);
+                wildcards.insert(host, defaultRoute);
+            }
+        }
+
+        int loaded = 0;
+        if (domainRepository != null) {
+            try {
+                for (Domain domain : domainRepository.findByStatus("VERIFIED")) {
+                    if (!domain.isBlacklisted()) {
+                        loaded += register(exact, wildcards, domain.getDomainName(), domain.getOwnerType(),
+                                domain.getOwnerId(), Domain.class);
+                    }
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to load verified domains for routing: {}", e.getMessage());
+            }
+        }
+        if (optimizedDomainRepository != null) {
+            try {
+                for (OptimizedDomain domain : optimizedDomainRepository.findActiveVerifiedDomains()) {
+                    String ownerType = domain.getOwnerType() != null ? domain.getOwnerType().name() : null;
+                    loaded += register(exact, wildcards, domain.getDomainName(), ownerType, domain.getOwnerId(),
+                            OptimizedDomain.class);
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to load optimized domains for routing: {}", e.getMessage());
+            }
+        }
+
+        snapshot = new Snapshot(exact, wildcards);
+        logger.info("Domain routing table rebuilt with {} custom hosts ({} entries)", loaded, snapshot.size());
+    }
+
+    /**
+     * Route a request host. Unknown hosts get an unverified route keyed by the
+     * host itself so callers keep their previous behaviour for them.
+     */
+    public HostRoute route(String host) {
+        String key = stripHost(host);
+        if (key.isEmpty()) {
+            return defaultRoute;
+        }
+        Snapshot current = snapshot;
+        HostRoute route = current.exact.get(key);
+        if (route == null) {
+            route = current.wildcards.match(key);
+        }
+        return route != null ? route : new HostRoute(key, null, null, null, null);
+    }
+
+    /**
+     * Canonical domain key for a request host or a stored link domain
+     */
+    public String domainKey(String host) {
+        return route(host).getDomainKey();
+    }
+
+    public String getDefaultDomainKey() {
+        return defaultDomainKey;
+    }
+
+    /**
+     * Count one redirect served on a verified custom domain
+     */
+    public void recordRedirect(HostRoute route) {
+        if (route != null && route.isCustom()) {
+            addRedirects(route, 1);
+        }
+    }
+
+    private void addRedirects(HostRoute route, long count) {
+        long stamp = swapLock.readLock();
+        try {
+            pendingRedirects.computeIfAbsent(route, k -> new LongAdder()).add(count);
+        } finally {
+            swapLock.unlockRead(stamp);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.domain-routing.stats-flush-interval-ms:10000}")
+    public void flushRedirectStats() {
+        Map<HostRoute, LongAdder> pending;
+        long stamp = swapLock.writeLock();
+        try {
+            pending = pendingRedirects;
+            if (pending.isEmpty()) {
+                return;
+            }
+            pendingRedirects = new ConcurrentHashMap<>();
+        } finally {
+            swapLock.unlockWrite(stamp);
+        }
+
+        Map<HostRoute, Long> deltas = new HashMap<>();
+        pending.forEach((route, adder) -> {
+            long count = adder.sum();
+            if (count > 0) {
+                deltas.put(route, count);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<Class<?>, Map<HostRoute, Long>> byModel = new HashMap<>();
+        deltas.forEach((route, count) -> byModel.computeIfAbsent(route.model, k -> new HashMap<>()).put(route, count));
+
+        byModel.forEach((model, routes) -> {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED,
+                    mongoTemplate.getCollectionName(model));
+            routes.forEach((route, count) -> bulk.updateOne(
+                    Query.query(Criteria.where("domainName").is(route.storedName)), redirectUpdate(model, count, now)));
+            try {
+                bulk.execute();
+            } catch (Exception e) {
+                logger.warn("Failed to flush redirect stats for {} domains: {}", routes.size(), e.getMessage());
+                routes.forEach(this::addRedirects);
+            }
+        });
+    }
+
+    private static Update redirectUpdate(Class<?> model, long count, LocalDateTime now) {
+        if (model == OptimizedDomain.class) {
+            return new Update().inc("totalRedirects", count)
+                    .inc("performanceStats.totalRequests", count)
+                    .set("updatedAt", now);
+        }
+        return new Update().inc("totalRedirects", count).set("lastUsed", now);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushRedirectStats();
+    }
+
+    private int register(Map<String, HostRoute> exact, TrieNode wildcards, String domainName, String ownerType,
+            String ownerId, Class<?> model) {
+        String host = stripHost(domainName);
+        if (host.startsWith(WILDCARD_PREFIX)) {
+            String base = host.substring(WILDCARD_PREFIX.length());
+            if (base.isEmpty()) {
+                return 0;
+            }
+            wildcards.insert(base, new HostRoute(base, ownerType, ownerId, domainName, model));
+            return 1;
+        }
+        if (host.isEmpty() || exact.get(host) == defaultRoute) {
+            return 0;
+        }
+        exact.put(host, new HostRoute(host, ownerType, ownerId, domainName, model));
+        return 1;
+    }
+
+    static String stripHost(String value) {
+        if (value == null) {
+            return "";
+        }
+        String host = value.trim().toLowerCase(Locale.ROOT);
+        int scheme = host.indexOf("://");
+        if (scheme >= 0) {
+            host = host.substring(scheme + 3);
+        }
+        int slash = host.indexOf('/');
+        if (slash >= 0) {
+            host = host.substring(0, slash);
+        }
+        int port = host.indexOf(':');
+        if (port >= 0) {
+            host = host.substring(0, port);
+        }
+        if (host.endsWith(".")) {
+            host = host.substring(0, host.length() - 1);
+        }
+        return host;
+    }
+
+    /**
+     * Where a host routes to: the canonical domain key and, for verified
+     * custom domains, the owning user or team and the stored domain document
+     */
+    public static final class HostRoute {
+        private final String domainKey;
+        private final String ownerType;
+        private final String ownerId;
+        private final String storedName; // domainName as stored, null unless custom
+        private final Class<?> model; // Domain or OptimizedDomain, null unless custom
+
+        HostRoute(String domainKey, String ownerType, String ownerId, String storedName, Class<?> model) {
+            this.domainKey = domainKey;
+            this.ownerType = ownerType;
+            this.ownerId = ownerId;
+            this.storedName = storedName;
+            this.model = model;
+        }
+
+        public String getDomainKey() { return domainKey; }
+        public String getOwnerType() { return ownerType; }
+        public String getOwnerId() { return ownerId; }
+        public String getStoredName() { return storedName; }
+        public boolean isCustom() { return storedName != null; }
+    }
+
+    private static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(Map.of(), new TrieNode());
+
+        private final Map<String, HostRoute> exact;
+        private final TrieNode wildcards;
+
+        private Snapshot(Map<String, HostRoute> exact, TrieNode wildcards) {
+            this.exact = exact;
+            this.wildcards = wildcards;
+        }
+
+        private int size() {
+            return exact.size() + wildcards.count();
+        }
+    }
+
+    /**
+     * Suffix trie over reversed host labels ("a.example.com" is walked as
+     * com -> example -> a). A route stored on a node matches strict subdomains
+     * of that node's name; the deepest match wins.
+     */
+    private static final class TrieNode {
+        private final Map<String, TrieNode> children = new HashMap<>();
+        private HostRoute route;
+
+        private void insert(String host, HostRoute target) {
+            String[] labels = host.split("\\.");
+            TrieNode node = this;
+            for (int i = labels.length - 1; i >= 0; i--) {
+                node = node.children.computeIfAbsent(labels[i], k -> new TrieNode());
+            }
+            node.route = target;
+        }
+
+        private HostRoute match(String host) {
+            HostRoute best = null;
+            TrieNode node = this;
+            int end = host.length();
+            while (end > 0) {
+                int dot = host.lastIndexOf('.', end - 1);
+                node = node.children.get(host.substring(dot + 1, end));
+                if (node == null) {
+                    break;
+                }
+                // A wildcard needs at least one more label to the left
+                if (node.route != null && dot >= 0) {
+                    best = node.route;
+                }
+                end = dot;
+            }
+            return best;
+        }
+
+        private int count() {
+            int total = route != null ? 1 : 0;
+            for (TrieNode child : children.values()) {
+                total += child.count();
+            }
+            return total;
+        }
+    }
+}
@@ -53,6 +53,9 @@ public class DomainService {
     @Autowired
     private CloudflareSaasService cloudflareSaasService;
 
+    @Autowired(required = false)
+    private DomainRoutingTable domainRoutingTable;
+
     private final SecureRandom secureRandom = new SecureRandom();
 
     /**
@@ -135,6 +138,9 @@ public class DomainService {
 
         // Clear cache
         clearDomainCache(domain.getOwnerId(), domain.getOwnerType());
+        if (domain.isVerified()) {
+            refreshRouting();
+        }
 
         return DomainResponse.forPublicApi(domain);
     }
@@ -191,6 +197,7 @@ public class DomainService {
         // Clear caches for both old and new owners
         clearDomainCache(domain.getOwnerId(), domain.getOwnerType());
         clearDomainCache(request.getTargetOwnerId(), request.getTargetOwnerType());
+        refreshRouting();
 
         // Send confirmation email
         sendTransferConfirmationEmail(domain, request.getReason());
@@ -385,6 +392,12 @@ public class DomainService {
         // Cache eviction handled by annotation
     }
 
+    private void refreshRouting() {
+        if (domainRoutingTable != null) {
+            domainRoutingTable.refresh();
+        }
+    }
+
     private void sendTransferConfirmationEmail(Domain domain, String reason) {
         try {
             if (emailService == null) {
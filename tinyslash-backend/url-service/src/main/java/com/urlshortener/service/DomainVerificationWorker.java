@@ -28,6 +28,9 @@ public class DomainVerificationWorker {
     
     @Autowired
     private EmailService emailService;
+
+    @Autowired(required = false)
+    private DomainRoutingTable domainRoutingTable;
     
     /**
      * Scheduled task to process pending domain verifications
@@ -128,6 +131,9 @@ public class DomainVerificationWorker {
             if (isVerified) {
                 domain.markAsVerified();
                 domainRepository.save(domain);
+                if (domainRoutingTable != null) {
+                    domainRoutingTable.refresh();
+                }
                 
                 // Trigger SSL provisioning
                 sslProvisioningService.provisionSslAsync(domain);
@@ -0,0 +1,283 @@
+package com.urlshortener.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Streaming export of links, raw click events and QR codes.
+ *
+ * Rows are read through a server-side cursor as raw BSON documents limited to
+ * the requested fields and written to the output as they arrive, so memory
+ * stays constant whatever the row count. Only whitelisted fields can be
+ * exported (never passwords or storage paths).
+ */
+@Service
+public class ExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
+    private static final int CURSOR_BATCH_SIZE = 1000;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    public enum Dataset {
+        LINKS("shortened_urls", "createdAt",
+                List.of("shortCode", "originalUrl", "shortUrl", "title", "domain", "isActive", "totalClicks",
+                        "uniqueClicks", "createdAt", "lastClickedAt"),
+                List.of("shortCode", "originalUrl", "shortUrl", "userId", "scopeType", "scopeId", "title",
+                        "description", "domain", "customAlias", "isPasswordProtected", "expiresAt", "maxClicks",
+                        "isActive", "trackClicks", "totalClicks", "uniqueClicks", "clicksByCountry", "clicksByCity",
+                        "clicksByDevice", "clicksByBrowser", "clicksByOS", "clicksByReferrer", "clicksByHour",
+                        "clicksByDay", "tags", "category", "notes", "createdAt", "updatedAt", "lastClickedAt")),
+        CLICKS("click_analytics", "clickedAt",
+                List.of("shortCode", "clickedAt", "country", "city", "deviceType", "browser", "operatingSystem",
+                        "referrer", "referrerType", "utmSource", "utmMedium", "utmCampaign", "isUniqueClick",
+                        "isBot"),
+                List.of("shortCode", "userId", "clickedAt", "ipAddress", "userAgent", "sessionId", "isUniqueClick",
+                        "country", "countryCode", "region", "city", "timezone", "latitude", "longitude",
+                        "deviceType", "deviceBrand", "deviceModel", "operatingSystem", "osVersion", "browser",
+                        "browserVersion", "browserEngine", "referrer", "referrerDomain", "referrerType",
+                        "utmSource", "utmMedium", "utmCampaign", "utmTerm", "utmContent", "language",
+                        "screenResolution", "isMobile", "isBot", "botName")),
+        QR_CODES("qr_codes", "createdAt",
+                List.of("qrCode", "contentType", "content", "shortCode", "title", "isActive", "totalScans",
+                        "uniqueScans", "createdAt", "lastScannedAt"),
+                List.of("qrCode", "contentType", "content", "shortCode", "fileCode", "userId", "scopeType",
+                        "scopeId", "style", "format", "size", "title", "description", "tags", "category",
+                        "isActive", "isPublic", "trackScans", "expiresAt", "totalScans", "uniqueScans",
+                        "todayScans", "thisWeekScans", "thisMonthScans", "scansByCountry", "scansByCity",
+                        "scansByDevice", "scansByBrowser", "scansByOS", "scansByHour", "scansByDay", "createdAt",
+                        "updatedAt", "lastScannedAt"));
+
+        private final String collection;
+        private final String timeField;
+        private final List<String> defaultFields;
+        private final Set<String> allowedFields;
+
+        Dataset(String collection, String timeField, List<String> defaultFields, List<String> allowedFields) {
+            this.collection = collection;
+            this.timeField = timeField;
+            this.defaultFields = defaultFields;
+            this.allowedFields = new LinkedHashSet<>(allowedFields);
+        }
+
+        public String getTimeField() { return timeField; }
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ClickStorageService clickStorage;
+
+    /**
+     * Validate a comma-separated field list against the dataset's whitelist
+     *
+     * @throws IllegalArgumentException for unknown or non-exportable fields
+     */
+    public List<String> resolveFields(Dataset dataset, String fieldsParam) {
+        if (fieldsParam == null || fieldsParam.isBlank()) {
+            return dataset.defaultFields;
+        }
+        if ("all".equalsIgnoreCase(fieldsParam.trim())) {
+            return new ArrayList<>(dataset.allowedFields);
+        }
+
+        List<String> fields = new ArrayList<>();
+        for (String field : fieldsParam.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!dataset.allowedFields.contains(name)) {
+                throw new IllegalArgumentException("Field '" + name + "' cannot be exported from "
+                        + dataset.name().toLowerCase(Locale.ROOT));
+            }
+            fields.add(name);
+        }
+        return fields.isEmpty() ? dataset.defaultFields : fields;
+    }
+
+    /**
+     * Stream one dataset for a user to the output stream. The caller owns the
+     * stream (and any gzip wrapper around it).
+     *
+     * @param shortCode optional filter (links and click events of one short code)
+     * @param from      inclusive start day on the dataset's time field, or null
+     * @param to        inclusive end day, or null
+     * @return number of rows written
+     */
+    public long export(Dataset dataset, String userId, String shortCode, LocalDate from, LocalDate to,
+            List<String> fields, Format format, OutputStream out) throws IOException {
+        Query query = buildQuery(dataset, userId, shortCode, from, to, fields);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        long rows = 0;
+        long started = System.currentTimeMillis();
+
+        if (format == Format.CSV) {
+            writeCsvRow(writer, fields);
+        }
+
+        try (Stream<Document> cursor = mongoTemplate.stream(query, Document.class, collectionOf(dataset))) {
+            var iterator = cursor.iterator();
+            while (iterator.hasNext()) {
+                Document doc = iterator.next();
+                if (format == Format.CSV) {
+                    List<Object> values = new ArrayList<>(fields.size());
+                    for (String field : fields) {
+                        values.add(toCsvValue(normalize(doc.get(field))));
+                    }
+                    writeCsvRow(writer, values);
+                } else {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    for (String field : fields) {
+                        row.put(field, normalize(doc.get(field)));
+                    }
+                    writer.write(objectMapper.writeValueAsString(row));
+                    writer.write('\n');
+                }
+                rows++;
+            }
+        }
+        writer.flush();
+
+        logger.info("Exported {} {} rows for user {} as {} in {}ms", rows, dataset, userId, format,
+                System.currentTimeMillis() - started);
+        return rows;
+    }
+
+    private Query buildQuery(Dataset dataset, String userId, String shortCode, LocalDate from, LocalDate to,
+            List<String> fields) {
+        Criteria criteria = Criteria.where(fieldOf(dataset, "userId")).is(userId);
+        if (shortCode != null && !shortCode.isBlank()) {
+            criteria = criteria.and(fieldOf(dataset, "shortCode")).is(shortCode);
+        }
+        if (from != null || to != null) {
+            Criteria range = Criteria.where(dataset.timeField);
+            if (from != null) {
+                range = range.gte(toDate(from));
+            }
+            if (to != null) {
+                range = range.lt(toDate(to.plusDays(1)));
+            }
+            criteria = new Criteria().andOperator(criteria, range);
+        }
+
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, dataset.timeField))
+                .cursorBatchSize(CURSOR_BATCH_SIZE);
+        query.fields().include(fields.toArray(new String[0])).exclude("_id");
+        return query;
+    }
+
+    /**
+     * Clicks live in whichever collection the click storage mode uses
+     */
+    private String collectionOf(Dataset dataset) {
+        return dataset == Dataset.CLICKS ? clickStorage.collection() : dataset.collection;
+    }
+
+    private String fieldOf(Dataset dataset, String field) {
+        return dataset == Dataset.CLICKS ? clickStorage.field(field) : field;
+    }
+
+    private static Date toDate(LocalDate day) {
+        return Date.from(day.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    /**
+     * Convert BSON values to plain JSON-friendly ones
+     */
+    private static Object normalize(Object value) {
+        if (value instanceof Date) {
+            return ((Date) value).toInstant().toString();
+        }
+        if (value instanceof ObjectId) {
+            return ((ObjectId) value).toHexString();
+        }
+        if (value instanceof Document) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            ((Document) value).forEach((k, v) -> map.put(k, normalize(v)));
+            return map;
+        }
+        if (value instanceof Collection) {
+            List<Object> list = new ArrayList<>();
+            for (Object item : (Collection<?>) value) {
+                list.add(normalize(item));
+            }
+            return list;
+        }
+        return value;
+    }
+
+    private Object toCsvValue(Object value) throws IOException {
+        if (value instanceof Map || value instanceof List) {
+            return objectMapper.writeValueAsString(value);
+        }
+        if (value instanceof Object[]) {
+            return objectMapper.writeValueAsString(Arrays.asList((Object[]) value));
+        }
+        return value;
+    }
+
+    private static void writeCsvRow(Writer writer, List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = values.get(i);
+            if (value != null) {
+                writer.write(escapeCsv(value));
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private static String escapeCsv(Object value) {
+        String text = value.toString();
+        // Keep spreadsheet tools from evaluating user-supplied text as a formula
+        if (value instanceof String && !text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
@@ -1,12 +1,13 @@
 package com.urlshortener.service;
 
+import com.urlshortener.dto.CursorPage;
+import com.urlshortener.dto.FileSummary;
 import com.urlshortener.model.UploadedFile;
 import com.urlshortener.model.User;
 import com.urlshortener.repository.UploadedFileRepository;
 import com.urlshortener.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
@@ -40,6 +41,8 @@ public class FileUploadService {
     private final GridFsTemplate gridFsTemplate;
     private final CacheService cacheService;
     private final SubscriptionService subscriptionService;
+    private final KeysetPaginationService keysetPagination;
+    private final AdminMetricsService adminMetrics;
 
     @Value("${app.shorturl.domain:https://pebly.vercel.app}")
     private String shortUrlDomain;
@@ -49,12 +52,16 @@ public class FileUploadService {
             UserRepository userRepository,
             GridFsTemplate gridFsTemplate,
             CacheService cacheService,
-            SubscriptionService subscriptionService) {
+            SubscriptionService subscriptionService,
+            KeysetPaginationService keysetPagination,
+            AdminMetricsService adminMetrics) {
         this.uploadedFileRepository = uploadedFileRepository;
         this.userRepository = userRepository;
         this.gridFsTemplate = gridFsTemplate;
         this.cacheService = cacheService;
         this.subscriptionService = subscriptionService;
+        this.keysetPagination = keysetPagination;
+        this.adminMetrics = adminMetrics;
     }
 
     private static final long MAX_FILE_SIZE = 50 * 1024 * 1024; // 50MB
@@ -155,13 +162,15 @@ public class FileUploadService {
 
             // Save metadata to database
             UploadedFile saved = uploadedFileRepository.save(uploadedFile);
+            adminMetrics.increment(AdminMetricsService.Metric.FILES, 1);
+            adminMetrics.increment(AdminMetricsService.Metric.STORAGE_BYTES, saved.getFileSize());
 
             // Update user statistics
             if (userId != null) {
                 updateUserStats(userId);
                 subscriptionService.incrementFileUsage(userId);
                 // Invalidate user files cache
-                cacheService.clearCache("userFiles", userId);
+                cacheService.clearCache("userFileSummaries", userId);
             }
 
             logger.info("Uploaded file: {} for user: {}", saved.getFileCode(), userId);
@@ -209,10 +218,11 @@ public class FileUploadService {
         return gridFsTemplate.getResource(gridFSFile);
     }
 
-    @Cacheable(value = "userFiles", key = "#userId")
-    public List<UploadedFile> getUserFiles(String userId) {
-        logger.debug("Fetching files for user: {}", userId);
-        return uploadedFileRepository.findByUserIdAndIsActiveTrue(userId);
+    // One page of a user's files, most recently uploaded first
+    public CursorPage<FileSummary> getUserFilesPage(String userId, String cursor, Integer limit) {
+        logger.debug("Fetching file page for user: {}", userId);
+        return keysetPagination.findSummaries(Criteria.where("userId").is(userId).and("isActive").is(true),
+                "uploadedAt", cursor, limit, UploadedFile.class, FileSummary.class);
     }
 
     public List<UploadedFile> getAllFiles() {
@@ -220,6 +230,10 @@ public class FileUploadService {
         return uploadedFileRepository.findAll();
     }
 
+    public CursorPage<UploadedFile> getAllFilesPage(String cursor, Integer limit) {
+        return keysetPagination.find(new Criteria(), "uploadedAt", cursor, limit, UploadedFile.class);
+    }
+
     public UploadedFile updateFile(String fileCode, String userId, UploadedFile updates) {
         Optional<UploadedFile> existingOpt = uploadedFileRepository.findByFileCode(fileCode);
 
@@ -255,7 +269,7 @@ public class FileUploadService {
         UploadedFile updated = uploadedFileRepository.save(existing);
 
         // Invalidate relevant caches
-        cacheService.clearCache("userFiles", userId);
+        cacheService.clearCache("userFileSummaries", userId);
 
         logger.info("Updated file: {} for user: {}", fileCode, userId);
 
@@ -286,9 +300,11 @@ public class FileUploadService {
 
         // Hard delete from database - actually remove the record
         uploadedFileRepository.delete(existing);
+        adminMetrics.increment(AdminMetricsService.Metric.FILES, -1);
+        adminMetrics.increment(AdminMetricsService.Metric.STORAGE_BYTES, -existing.getFileSize());
 
         // Invalidate relevant caches
-        cacheService.clearCache("userFiles", userId);
+        cacheService.clearCache("userFileSummaries", userId);
 
         logger.info("Permanently deleted file: {} for user: {}", fileCode, userId);
     }
@@ -0,0 +1,192 @@
+package com.urlshortener.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Offline IP-to-location lookup for click enrichment.
+ *
+ * The range database configured in app.geoip.database is loaded into a
+ * {@link GeoIpTable} of sorted primitive arrays and swapped in atomically; a
+ * scheduled check reloads it when the file's modification time changes. A
+ * small LRU in front of the table answers repeat visitors without parsing
+ * their address again. Without a database every lookup returns null.
+ */
+@Service
+public class GeoIpService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeoIpService.class);
+
+    private static final Location NOT_FOUND = new Location(null, null);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.geoip.database:}")
+    private String database;
+
+    @Value("${app.geoip.cache-size:4096}")
+    private int cacheSize;
+
+    private volatile Loaded loaded = new Loaded(GeoIpTable.EMPTY, 0, null, 0);
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @PostConstruct
+    public void initialize() {
+        reloadIfChanged();
+
+        Gauge.builder("geoip.ranges", this,
+                s -> s.loaded.table.getIpv4Ranges() + s.loaded.table.getIpv6Ranges())
+                .description("IP ranges in the loaded geo database")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return loaded.table != GeoIpTable.EMPTY;
+    }
+
+    /**
+     * Country and city of an address, or null if unknown
+     */
+    public Location lookup(String ip) {
+        if (ip == null || ip.isEmpty()) {
+            return null;
+        }
+        Loaded current = loaded;
+        if (current.table == GeoIpTable.EMPTY) {
+            return null;
+        }
+        lookups.increment();
+
+        Location location;
+        synchronized (current.cache) {
+            location = current.cache.get(ip);
+        }
+        if (location != null) {
+            cacheHits.increment();
+        } else {
+            location = current.table.lookup(ip);
+            if (location == null) {
+                location = NOT_FOUND;
+            }
+            synchronized (current.cache) {
+                current.cache.put(ip, location);
+            }
+        }
+
+        if (location == NOT_FOUND) {
+            misses.increment();
+            return null;
+        }
+        return location;
+    }
+
+    /**
+     * Load the database at startup and again whenever the file changes
+     */
+    @Scheduled(fixedDelayString = "${app.geoip.reload-check-ms:60000}")
+    public void reloadIfChanged() {
+        if (database == null || database.isBlank()) {
+            return;
+        }
+        Path file = Paths.get(database);
+        try {
+            if (!Files.isRegularFile(file)) {
+                if (loaded.loadedAt == null) {
+                    logger.warn("Geo IP database {} not found, clicks will not be geo-enriched", file);
+                }
+                return;
+            }
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            if (modified == loaded.modified) {
+                return;
+            }
+
+            long started = System.currentTimeMillis();
+            GeoIpTable table = GeoIpTable.load(file);
+            loaded = new Loaded(table, modified, Instant.now(), cacheSize);
+            logger.info("Loaded geo IP database {} in {}ms: {} IPv4 ranges, {} IPv6 ranges, {} locations"
+                    + " ({} lines skipped)", file, System.currentTimeMillis() - started, table.getIpv4Ranges(),
+                    table.getIpv6Ranges(), table.getLocations(), table.getSkippedLines());
+        } catch (IOException | RuntimeException e) {
+            // Keep serving the previous table
+            logger.error("Failed to load geo IP database {}: {}", file, e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Loaded current = loaded;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", isEnabled());
+        stats.put("database", database);
+        stats.put("loadedAt", current.loadedAt);
+        stats.put("ipv4Ranges", current.table.getIpv4Ranges());
+        stats.put("ipv6Ranges", current.table.getIpv6Ranges());
+        stats.put("locations", current.table.getLocations());
+        stats.put("lookups", lookups.sum());
+        stats.put("cacheHits", cacheHits.sum());
+        stats.put("misses", misses.sum());
+        synchronized (current.cache) {
+            stats.put("cachedAddresses", current.cache.size());
+        }
+        return stats;
+    }
+
+    /**
+     * A location from the range database; instances are shared between lookups
+     */
+    public static final class Location {
+        private final String country;
+        private final String city;
+
+        Location(String country, String city) {
+            this.country = country;
+            this.city = city;
+        }
+
+        public String getCountry() { return country; }
+        public String getCity() { return city; }
+    }
+
+    /**
+     * A loaded table with its own address cache, so a reload starts cold
+     */
+    private static final class Loaded {
+        private final GeoIpTable table;
+        private final long modified;
+        private final Instant loadedAt;
+        private final Map<String, Location> cache;
+
+        private Loaded(GeoIpTable table, long modified, Instant loadedAt, int cacheSize) {
+            this.table = table;
+            this.modified = modified;
+            this.loadedAt = loadedAt;
+            this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Location> eldest) {
+                    return size() > cacheSize;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.urlshortener.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Immutable IP range table loaded from a CSV range database.
+ *
+ * Each line is start,end,country[,city] where start and end are IPv4 or IPv6
+ * literals (quoted or not); lines that do not parse, such as a header, are
+ * skipped. IPv4 ranges are kept as parallel int arrays and IPv6 ranges as
+ * parallel long arrays (high and low 64 bits), both sorted by range start, so
+ * a lookup is one binary search. Locations are interned, and addresses are
+ * parsed by hand, so lookups allocate nothing.
+ */
+final class GeoIpTable {
+
+    static final GeoIpTable EMPTY = new GeoIpTable(new int[0], new int[0], new int[0], new long[0], new long[0],
+            new long[0], new long[0], new int[0], new GeoIpService.Location[0], 0);
+
+    private static final ThreadLocal<int[]> GROUPS = ThreadLocal.withInitial(() -> new int[8]);
+
+    private final int[] v4Start;
+    private final int[] v4End;
+    private final int[] v4Location;
+    private final long[] v6StartHigh;
+    private final long[] v6StartLow;
+    private final long[] v6EndHigh;
+    private final long[] v6EndLow;
+    private final int[] v6Location;
+    private final GeoIpService.Location[] locations;
+    private final int skippedLines;
+
+    private GeoIpTable(int[] v4Start, int[] v4End, int[] v4Location, long[] v6StartHigh, long[] v6StartLow,
+            long[] v6EndHigh, long[] v6EndLow, int[] v6Location, GeoIpService.Location[] locations,
+            int skippedLines) {
+        this.v4Start = v4Start;
+        this.v4End = v4End;
+        this.v4Location = v4Location;
+        this.v6StartHigh = v6StartHigh;
+        this.v6StartLow = v6StartLow;
+        this.v6EndHigh = v6EndHigh;
+        this.v6EndLow = v6EndLow;
+        this.v6Location = v6Location;
+        this.locations = locations;
+        this.skippedLines = skippedLines;
+    }
+
+    int getIpv4Ranges() { return v4Start.length; }
+
+    int getIpv6Ranges() { return v6StartHigh.length; }
+
+    int getLocations() { return locations.length; }
+
+    int getSkippedLines() { return skippedLines; }
+
+    /**
+     * Location of an IPv4 or IPv6 literal, or null if it is not covered
+     */
+    GeoIpService.Location lookup(String ip) {
+        if (ip == null || ip.isEmpty()) {
+            return null;
+        }
+        if (ip.indexOf(':') < 0) {
+            long v4 = parseIpv4(ip, 0, ip.length());
+            return v4 < 0 ? null : lookupIpv4((int) v4);
+        }
+        int[] groups = GROUPS.get();
+        if (!parseIpv6(ip, groups)) {
+            return null;
+        }
+        if (groups[0] == 0 && groups[1] == 0 && groups[2] == 0 && groups[3] == 0 && groups[4] == 0
+                && groups[5] == 0xFFFF) {
+            // IPv4-mapped address
+            return lookupIpv4(groups[6] << 16 | groups[7]);
+        }
+        return lookupIpv6(high(groups), low(groups));
+    }
+
+    private GeoIpService.Location lookupIpv4(int ip) {
+        int lo = 0;
+        int hi = v4Start.length - 1;
+        int found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (Integer.compareUnsigned(v4Start[mid], ip) <= 0) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        if (found < 0 || Integer.compareUnsigned(ip, v4End[found]) > 0) {
+            return null;
+        }
+        return locations[v4Location[found]];
+    }
+
+    private GeoIpService.Location lookupIpv6(long high, long low) {
+        int lo = 0;
+        int hi = v6StartHigh.length - 1;
+        int found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(v6StartHigh[mid], v6StartLow[mid], high, low) <= 0) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        if (found < 0 || compare(high, low, v6EndHigh[found], v6EndLow[found]) > 0) {
+            return null;
+        }
+        return locations[v6Location[found]];
+    }
+
+    private static int compare(long aHigh, long aLow, long bHigh, long bLow) {
+        int cmp = Long.compareUnsigned(aHigh, bHigh);
+        return cmp != 0 ? cmp : Long.compareUnsigned(aLow, bLow);
+    }
+
+    private static long high(int[] groups) {
+        return (long) groups[0] << 48 | (long) groups[1] << 32 | (long) groups[2] << 16 | groups[3];
+    }
+
+    private static long low(int[] groups) {
+        return (long) groups[4] << 48 | (long) groups[5] << 32 | (long) groups[6] << 16 | groups[7];
+    }
+
+    /**
+     * Dotted-quad in s[from, to) as an unsigned value, or -1 if malformed
+     */
+    static long parseIpv4(String s, int from, int to) {
+        long value = 0;
+        int octets = 0;
+        int octet = 0;
+        int digits = 0;
+        for (int i = from; i <= to; i++) {
+            char c = i < to ? s.charAt(i) : '.';
+            if (c == '.') {
+                if (digits == 0 || octet > 255 || ++octets > 4) {
+                    return -1;
+                }
+                value = value << 8 | octet;
+                octet = 0;
+                digits = 0;
+            } else if (c >= '0' && c <= '9' && digits < 3) {
+                octet = octet * 10 + (c - '0');
+                digits++;
+            } else {
+                return -1;
+            }
+        }
+        return octets == 4 ? value : -1;
+    }
+
+    /**
+     * Fill the eight 16-bit groups of an IPv6 literal; false if malformed
+     */
+    static boolean parseIpv6(String s, int[] groups) {
+        int n = s.indexOf('%');
+        if (n < 0) {
+            n = s.length();
+        }
+        int count = 0;
+        int gap = -1;
+        int i = 0;
+        if (n >= 2 && s.charAt(0) == ':' && s.charAt(1) == ':') {
+            gap = 0;
+            i = 2;
+        } else if (n > 0 && s.charAt(0) == ':') {
+            return false;
+        }
+
+        while (i < n) {
+            if (count == 8) {
+                return false;
+            }
+            int j = i;
+            int value = 0;
+            boolean dotted = false;
+            while (j < n && s.charAt(j) != ':') {
+                char c = s.charAt(j);
+                if (c == '.') {
+                    dotted = true;
+                    break;
+                }
+                int digit = Character.digit(c, 16);
+                if (digit < 0 || j - i == 4) {
+                    return false;
+                }
+                value = value << 4 | digit;
+                j++;
+            }
+            if (dotted) {
+                // Trailing embedded IPv4, e.g. ::ffff:192.0.2.1
+                long v4 = parseIpv4(s, i, n);
+                if (v4 < 0 || count > 6) {
+                    return false;
+                }
+                groups[count++] = (int) (v4 >>> 16);
+                groups[count++] = (int) (v4 & 0xFFFF);
+                break;
+            }
+            if (j == i) {
+                return false;
+            }
+            groups[count++] = value;
+            if (j == n) {
+                break;
+            }
+            j++;
+            if (j < n && s.charAt(j) == ':') {
+                if (gap >= 0) {
+                    return false;
+                }
+                gap = count;
+                j++;
+            } else if (j == n) {
+                return false;
+            }
+            i = j;
+        }
+
+        if (gap < 0) {
+            return count == 8;
+        }
+        if (count == 8) {
+            return false;
+        }
+        int tail = count - gap;
+        for (int k = tail - 1; k >= 0; k--) {
+            groups[8 - tail + k] = groups[gap + k];
+        }
+        for (int k = gap; k < 8 - tail; k++) {
+            groups[k] = 0;
+        }
+        return true;
+    }
+
+    /**
+     * Read a range database; .gz files are decompressed on the fly
+     */
+    static GeoIpTable load(Path file) throws IOException {
+        List<long[]> v4 = new ArrayList<>();
+        List<long[]> v6 = new ArrayList<>();
+        Map<String, Integer> locationIds = new HashMap<>();
+        List<GeoIpService.Location> locations = new ArrayList<>();
+        int[] groups = new int[8];
+        int skipped = 0;
+
+        try (InputStream raw = Files.newInputStream(file);
+                InputStream in = file.getFileName().toString().endsWith(".gz") ? new GZIPInputStream(raw) : raw;
+                BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.charAt(0) == '#') {
+                    continue;
+                }
+                String[] cols = line.split(",", -1);
+                if (cols.length < 3) {
+                    skipped++;
+                    continue;
+                }
+                String start = unquote(cols[0]);
+                String end = unquote(cols[1]);
+                String country = unquote(cols[2]);
+                String city = cols.length > 3 ? unquote(cols[3]) : "";
+                if (country.isEmpty()) {
+                    skipped++;
+                    continue;
+                }
+
+                if (start.indexOf(':') < 0) {
+                    long from = parseIpv4(start, 0, start.length());
+                    long to = parseIpv4(end, 0, end.length());
+                    if (from < 0 || to < from) {
+                        skipped++;
+                        continue;
+                    }
+                    v4.add(new long[] { from, to, intern(country, city, locationIds, locations) });
+                } else {
+                    if (!parseIpv6(start, groups)) {
+                        skipped++;
+                        continue;
+                    }
+                    long fromHigh = high(groups);
+                    long fromLow = low(groups);
+                    if (!parseIpv6(end, groups) || compare(high(groups), low(groups), fromHigh, fromLow) < 0) {
+                        skipped++;
+                        continue;
+                    }
+                    v6.add(new long[] { fromHigh, fromLow, high(groups), low(groups),
+                            intern(country, city, locationIds, locations) });
+                }
+            }
+        }
+
+        v4.sort(Comparator.comparingLong(r -> r[0]));
+        v6.sort((a, b) -> compare(a[0], a[1], b[0], b[1]));
+
+        int[] v4Start = new int[v4.size()];
+        int[] v4End = new int[v4.size()];
+        int[] v4Location = new int[v4.size()];
+        for (int i = 0; i < v4.size(); i++) {
+            long[] range = v4.get(i);
+            v4Start[i] = (int) range[0];
+            v4End[i] = (int) range[1];
+            v4Location[i] = (int) range[2];
+        }
+        long[] v6StartHigh = new long[v6.size()];
+        long[] v6StartLow = new long[v6.size()];
+        long[] v6EndHigh = new long[v6.size()];
+        long[] v6EndLow = new long[v6.size()];
+        int[] v6Location = new int[v6.size()];
+        for (int i = 0; i < v6.size(); i++) {
+            long[] range = v6.get(i);
+            v6StartHigh[i] = range[0];
+            v6StartLow[i] = range[1];
+            v6EndHigh[i] = range[2];
+            v6EndLow[i] = range[3];
+            v6Location[i] = (int) range[4];
+        }
+        return new GeoIpTable(v4Start, v4End, v4Location, v6StartHigh, v6StartLow, v6EndHigh, v6EndLow,
+                v6Location, locations.toArray(new GeoIpService.Location[0]), skipped);
+    }
+
+    private static int intern(String country, String city, Map<String, Integer> ids,
+            List<GeoIpService.Location> locations) {
+        return ids.computeIfAbsent(country + '\u0000' + city, key -> {
+            locations.add(new GeoIpService.Location(country, city.isEmpty() ? null : city));
+            return locations.size() - 1;
+        });
+    }
+
+    private static String unquote(String value) {
+        String trimmed = value.trim();
+        if (trimmed.length() >= 2 && trimmed.charAt(0) == '"' && trimmed.charAt(trimmed.length() - 1) == '"') {
+            return trimmed.substring(1, trimmed.length() - 1).trim();
+        }
+        return trimmed;
+    }
+}
@@ -0,0 +1,171 @@
+package com.urlshortener.service;
+
+import com.urlshortener.dto.CursorPage;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Keyset pagination over (sort timestamp DESC, _id DESC).
+ *
+ * Each page is one indexed range query that starts right after the last row
+ * of the previous page, so page N costs the same as page 1 (no skip) and rows
+ * inserted meanwhile do not shift later pages. The continuation token is an
+ * opaque base64url encoding of the last row's timestamp and id.
+ *
+ * Rows without a timestamp sort after all others and are paged by id alone.
+ */
+@Service
+public class KeysetPaginationService {
+
+    private static final Base64.Encoder TOKEN_ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder TOKEN_DECODER = Base64.getUrlDecoder();
+    private static final String NULL_TIME = "-";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${app.pagination.default-page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${app.pagination.max-page-size:100}")
+    private int maxPageSize;
+
+    /**
+     * Clamp a requested page size to [1, max-page-size]
+     */
+    public int pageSize(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(requested, maxPageSize);
+    }
+
+    /**
+     * Fetch one page of entities matching the filter, newest first
+     *
+     * @param timeField     the timestamp field to page on (e.g. createdAt)
+     * @param cursor        token from the previous page, or null for the first page
+     * @param includeFields optional projection; the keyset fields are always added
+     * @throws IllegalArgumentException if the cursor is not a valid token
+     */
+    public <T> CursorPage<T> find(Criteria filter, String timeField, String cursor, Integer limit,
+            Class<T> type, String... includeFields) {
+        return findPage(filter, timeField, cursor, limit, type, type, includeFields);
+    }
+
+    /**
+     * Fetch one page of an entity's collection mapped onto a summary type.
+     * Only the fields the summary maps are read from Mongo.
+     */
+    public <T> CursorPage<T> findSummaries(Criteria filter, String timeField, String cursor, Integer limit,
+            Class<?> entityType, Class<T> summaryType) {
+        return findPage(filter, timeField, cursor, limit, entityType, summaryType, summaryFields(summaryType));
+    }
+
+    /**
+     * Restrict a query to the Mongo fields a summary type maps, so list views
+     * never load the per-item analytics maps of the full document
+     */
+    public Query includeSummaryFields(Query query, Class<?> summaryType) {
+        query.fields().include(summaryFields(summaryType));
+        return query;
+    }
+
+    private String[] summaryFields(Class<?> summaryType) {
+        List<String> fields = new ArrayList<>();
+        for (MongoPersistentProperty property : mongoTemplate.getConverter().getMappingContext()
+                .getRequiredPersistentEntity(summaryType)) {
+            fields.add(property.getFieldName());
+        }
+        return fields.toArray(new String[0]);
+    }
+
+    private <T> CursorPage<T> findPage(Criteria filter, String timeField, String cursor, Integer limit,
+            Class<?> entityType, Class<T> type, String... includeFields) {
+        int size = pageSize(limit);
+
+        Criteria criteria = filter;
+        if (cursor != null && !cursor.isBlank()) {
+            criteria = new Criteria().andOperator(filter, after(timeField, cursor));
+        }
+
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, timeField).and(Sort.by(Sort.Direction.DESC, "_id")))
+                .limit(size + 1);
+        if (includeFields.length > 0) {
+            query.fields().include(includeFields).include(timeField);
+        }
+
+        List<Document> docs = mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(entityType));
+
+        boolean hasMore = docs.size() > size;
+        if (hasMore) {
+            docs = docs.subList(0, size);
+        }
+
+        List<T> items = new ArrayList<>(docs.size());
+        for (Document doc : docs) {
+            items.add(mongoTemplate.getConverter().read(type, doc));
+        }
+
+        String nextCursor = hasMore ? encode(docs.get(docs.size() - 1), timeField) : null;
+        return new CursorPage<>(items, nextCursor, size);
+    }
+
+    /**
+     * Rows strictly after the cursor position in (time DESC, _id DESC) order
+     */
+    private static Criteria after(String timeField, String cursor) {
+        String decoded;
+        try {
+            decoded = new String(TOKEN_DECODER.decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+
+        int separator = decoded.indexOf(':');
+        if (separator <= 0 || separator == decoded.length() - 1) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        String time = decoded.substring(0, separator);
+        String idText = decoded.substring(separator + 1);
+        Object id = ObjectId.isValid(idText) ? new ObjectId(idText) : idText;
+
+        if (NULL_TIME.equals(time)) {
+            return new Criteria().andOperator(Criteria.where(timeField).is(null), Criteria.where("_id").lt(id));
+        }
+
+        Date at;
+        try {
+            at = new Date(Long.parseLong(time));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return new Criteria().orOperator(
+                Criteria.where(timeField).lt(at),
+                new Criteria().andOperator(Criteria.where(timeField).is(at), Criteria.where("_id").lt(id)),
+                Criteria.where(timeField).is(null));
+    }
+
+    private static String encode(Document last, String timeField) {
+        Object time = last.get(timeField);
+        Object id = last.get("_id");
+        String idText = id instanceof ObjectId ? ((ObjectId) id).toHexString() : String.valueOf(id);
+        String timeText = time instanceof Date ? String.valueOf(((Date) time).getTime()) : NULL_TIME;
+        return TOKEN_ENCODER.encodeToString((timeText + ":" + idText).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,456 @@
+package com.urlshortener.service;
+
+import com.mongodb.client.result.UpdateResult;
+import com.urlshortener.dto.LinkSummary;
+import com.urlshortener.model.ShortenedUrl;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Top-N link leaderboards (global, per owner, per custom domain) kept with
+ * the Space-Saving heavy-hitter algorithm.
+ *
+ * A board tracks at most {@code capacity} links. A link that is not tracked
+ * takes over the slot of the smallest counter and inherits its count as an
+ * overestimate, so every link with more than total/capacity clicks is always
+ * on the board. Memory per board is bounded no matter how many links it sees.
+ *
+ * Clicks are summarised per board in memory and, like the click counters,
+ * flushed periodically: each flush merges the local summary into the stored
+ * board document under a version check, so several instances can feed the
+ * same board. A board is seeded from the links' click totals the first time
+ * it is needed. Reads take the top candidates from one document and order
+ * them by their exact click totals.
+ */
+@Service
+public class LinkLeaderboardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LinkLeaderboardService.class);
+
+    static final String COLLECTION = "link_leaderboards";
+    private static final String GLOBAL_BOARD = "global";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DomainRoutingTable domainRoutingTable;
+
+    @Autowired
+    private KeysetPaginationService keysetPagination;
+
+    @Value("${app.link-leaderboards.capacity:100}")
+    private int capacity;
+
+    // Recorders share the read side; the flusher takes the write side only to swap tables
+    private final StampedLock swapLock = new StampedLock();
+    private volatile Map<String, SpaceSaving> pending = new ConcurrentHashMap<>();
+
+    private Counter flushConflictsCounter;
+
+    @PostConstruct
+    public void initialize() {
+        flushConflictsCounter = Counter.builder("links.leaderboards.flush_conflicts")
+                .description("Leaderboard merges re-queued after a concurrent update or failure")
+                .register(meterRegistry);
+        Gauge.builder("links.leaderboards.pending_boards", this, s -> s.pending.size())
+                .description("Leaderboards with clicks waiting for the next flush")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Count clicks for a link on the global board, its owner's board and,
+     * for links on a custom domain, that domain's board
+     */
+    public void record(String shortCode, String userId, String domain, long clicks) {
+        if (shortCode == null || clicks <= 0) {
+            return;
+        }
+        long stamp = swapLock.readLock();
+        try {
+            offer(GLOBAL_BOARD, shortCode, clicks);
+            if (userId != null) {
+                offer(userBoard(userId), shortCode, clicks);
+            }
+            String domainBoard = domainBoard(domain);
+            if (domainBoard != null) {
+                offer(domainBoard, shortCode, clicks);
+            }
+        } finally {
+            swapLock.unlockRead(stamp);
+        }
+    }
+
+    private void offer(String board, String shortCode, long clicks) {
+        pending.computeIfAbsent(board, id -> new SpaceSaving(capacity)).offer(shortCode, clicks);
+    }
+
+    public List<LinkSummary> topLinks(int limit) {
+        return topLinks(GLOBAL_BOARD, limit);
+    }
+
+    public List<LinkSummary> topLinksForUser(String userId, int limit) {
+        return topLinks(userBoard(userId), limit);
+    }
+
+    public List<LinkSummary> topLinksForDomain(String domain, int limit) {
+        String board = domainBoard(domain);
+        return board != null ? topLinks(board, limit) : topLinks(GLOBAL_BOARD, limit);
+    }
+
+    /**
+     * Top links of a board: the strongest candidates by estimated count,
+     * re-ranked by their stored click totals
+     */
+    private List<LinkSummary> topLinks(String board, int limit) {
+        List<Tracked> entries = load(board);
+        // A few spare candidates cover links deleted since they were counted
+        List<String> candidates = new ArrayList<>();
+        for (int i = 0; i < entries.size() && candidates.size() < limit * 2; i++) {
+            candidates.add(entries.get(i).item);
+        }
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+
+        Query query = Query.query(Criteria.where("shortCode").in(candidates));
+        List<LinkSummary> links = new ArrayList<>(mongoTemplate.find(
+                keysetPagination.includeSummaryFields(query, LinkSummary.class), LinkSummary.class,
+                mongoTemplate.getCollectionName(ShortenedUrl.class)));
+        links.sort(Comparator.comparingInt(LinkSummary::getTotalClicks).reversed());
+        return links.size() > limit ? links.subList(0, limit) : links;
+    }
+
+    private List<Tracked> load(String board) {
+        Document doc = mongoTemplate.findById(board, Document.class, COLLECTION);
+        if (doc != null) {
+            return entries(doc);
+        }
+        List<Tracked> seeded = seed(board);
+        try {
+            mongoTemplate.insert(boardDocument(board, seeded, 1L), COLLECTION);
+        } catch (DuplicateKeyException e) {
+            // Another request seeded it first; either copy is a valid starting point
+        }
+        return seeded;
+    }
+
+    /**
+     * Starting entries for a new board: the links with the most clicks so far
+     */
+    private List<Tracked> seed(String board) {
+        Criteria criteria = new Criteria();
+        if (board.startsWith("user:")) {
+            criteria = Criteria.where("userId").is(board.substring("user:".length()));
+        } else if (board.startsWith("domain:")) {
+            criteria = Criteria.where("domain").is(board.substring("domain:".length()));
+        }
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "totalClicks"))
+                .limit(capacity);
+        query.fields().include("shortCode", "totalClicks");
+
+        List<Tracked> seeded = new ArrayList<>();
+        for (Document link : mongoTemplate.find(query, Document.class,
+                mongoTemplate.getCollectionName(ShortenedUrl.class))) {
+            Object clicks = link.get("totalClicks");
+            seeded.add(new Tracked(link.getString("shortCode"),
+                    clicks instanceof Number ? ((Number) clicks).longValue() : 0L, 0L));
+        }
+        return seeded;
+    }
+
+    @Scheduled(fixedDelayString = "${app.link-leaderboards.flush-interval-ms:10000}")
+    public void flush() {
+        Map<String, SpaceSaving> boards;
+        long stamp = swapLock.writeLock();
+        try {
+            boards = pending;
+            if (boards.isEmpty()) {
+                return;
+            }
+            pending = new ConcurrentHashMap<>();
+        } finally {
+            swapLock.unlockWrite(stamp);
+        }
+
+        Map<String, Document> stored = new HashMap<>();
+        try {
+            Query query = Query.query(Criteria.where("_id").in(boards.keySet()));
+            for (Document doc : mongoTemplate.find(query, Document.class, COLLECTION)) {
+                stored.put(doc.getString("_id"), doc);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to load {} leaderboards for merge: {}", boards.size(), e.getMessage());
+            boards.forEach(this::requeue);
+            return;
+        }
+
+        int merged = 0;
+        for (Map.Entry<String, SpaceSaving> entry : boards.entrySet()) {
+            try {
+                if (mergeInto(entry.getKey(), stored.get(entry.getKey()), entry.getValue())) {
+                    merged++;
+                    continue;
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to merge leaderboard {}: {}", entry.getKey(), e.getMessage());
+            }
+            flushConflictsCounter.increment();
+            requeue(entry.getKey(), entry.getValue());
+        }
+
+        logger.debug("Merged {} of {} leaderboards", merged, boards.size());
+    }
+
+    /**
+     * Merge a local summary into the stored board; false if the board changed
+     * underneath us and the summary has to wait for the next flush
+     */
+    private boolean mergeInto(String board, Document doc, SpaceSaving local) {
+        if (doc == null) {
+            // Create the board from the links' totals, then merge the summary into it
+            try {
+                mongoTemplate.insert(boardDocument(board, seed(board), 1L), COLLECTION);
+            } catch (DuplicateKeyException e) {
+                // Seeded concurrently; merge into that copy instead
+            }
+            doc = mongoTemplate.findById(board, Document.class, COLLECTION);
+            if (doc == null) {
+                return false;
+            }
+        }
+
+        List<Tracked> storedEntries = entries(doc);
+        long storedMin = storedEntries.size() >= capacity ? storedEntries.get(storedEntries.size() - 1).count : 0L;
+        List<Tracked> result = merge(storedEntries, storedMin, local.snapshot(), local.minCount(), capacity);
+
+        long version = doc.get("version") instanceof Number ? ((Number) doc.get("version")).longValue() : 0L;
+        Query query = Query.query(Criteria.where("_id").is(board).and("version").is(doc.get("version")));
+        Update update = new Update()
+                .set("entries", toDocuments(result))
+                .set("version", version + 1)
+                .set("updatedAt", new Date());
+        UpdateResult written = mongoTemplate.updateFirst(query, update, COLLECTION);
+        return written.getMatchedCount() > 0;
+    }
+
+    /**
+     * Fold a summary that could not be written back into the pending one. The
+     * two are combined with the summary merge rule, so counts keep their error
+     * bounds instead of being re-offered as fresh clicks.
+     */
+    private void requeue(String board, SpaceSaving summary) {
+        long stamp = swapLock.readLock();
+        try {
+            pending.computeIfAbsent(board, id -> new SpaceSaving(capacity)).absorb(summary);
+        } finally {
+            swapLock.unlockRead(stamp);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private static String userBoard(String userId) {
+        return "user:" + userId;
+    }
+
+    private String domainBoard(String domain) {
+        if (domain == null || domain.isBlank()) {
+            return null;
+        }
+        String key = domainRoutingTable.domainKey(domain);
+        return key.equals(domainRoutingTable.getDefaultDomainKey()) ? null : "domain:" + key;
+    }
+
+    /**
+     * Merge two Space-Saving summaries. A link missing from a full summary may
+     * still have had up to that summary's smallest count, so it is charged
+     * that much (as error) before the union is cut back to capacity.
+     */
+    static List<Tracked> merge(List<Tracked> a, long minA, List<Tracked> b, long minB, int capacity) {
+        Map<String, Tracked> union = new HashMap<>();
+        for (Tracked t : a) {
+            union.put(t.item, new Tracked(t.item, t.count + minB, t.error + minB));
+        }
+        for (Tracked t : b) {
+            Tracked existing = union.get(t.item);
+            if (existing != null) {
+                union.put(t.item, new Tracked(t.item, existing.count - minB + t.count,
+                        existing.error - minB + t.error));
+            } else {
+                union.put(t.item, new Tracked(t.item, t.count + minA, t.error + minA));
+            }
+        }
+        List<Tracked> result = new ArrayList<>(union.values());
+        result.sort(Tracked.BY_COUNT_DESC);
+        return result.size() > capacity ? new ArrayList<>(result.subList(0, capacity)) : result;
+    }
+
+    private static List<Tracked> entries(Document doc) {
+        List<Tracked> entries = new ArrayList<>();
+        Object raw = doc.get("entries");
+        if (raw instanceof List) {
+            for (Object item : (List<?>) raw) {
+                if (item instanceof Document) {
+                    Document entry = (Document) item;
+                    entries.add(new Tracked(entry.getString("code"), number(entry.get("count")),
+                            number(entry.get("error"))));
+                }
+            }
+        }
+        entries.sort(Tracked.BY_COUNT_DESC);
+        return entries;
+    }
+
+    private static Document boardDocument(String board, List<Tracked> entries, long version) {
+        return new Document("_id", board)
+                .append("entries", toDocuments(entries))
+                .append("version", version)
+                .append("updatedAt", new Date());
+    }
+
+    private static List<Document> toDocuments(List<Tracked> entries) {
+        List<Document> docs = new ArrayList<>(entries.size());
+        for (Tracked t : entries) {
+            docs.add(new Document("code", t.item).append("count", t.count).append("error", t.error));
+        }
+        return docs;
+    }
+
+    private static long number(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    /**
+     * One monitored link: estimated count and the overestimate it may carry
+     */
+    static final class Tracked {
+        static final Comparator<Tracked> BY_COUNT_DESC = Comparator.comparingLong((Tracked t) -> t.count)
+                .reversed().thenComparing(t -> t.item);
+
+        final String item;
+        final long count;
+        final long error;
+
+        Tracked(String item, long count, long error) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Space-Saving summary over a fixed number of counters. Counters are kept
+     * ordered by count so the smallest one is found in O(log capacity).
+     */
+    static final class SpaceSaving {
+        private static final Comparator<Slot> BY_COUNT = Comparator.comparingLong((Slot s) -> s.count)
+                .thenComparing(s -> s.item);
+
+        private final int capacity;
+        private final Map<String, Slot> slots = new HashMap<>();
+        private final TreeSet<Slot> byCount = new TreeSet<>(BY_COUNT);
+
+        SpaceSaving(int capacity) {
+            this.capacity = capacity;
+        }
+
+        synchronized void offer(String item, long weight) {
+            Slot slot = slots.get(item);
+            if (slot != null) {
+                byCount.remove(slot);
+                slot.count += weight;
+                byCount.add(slot);
+                return;
+            }
+
+            if (slots.size() < capacity) {
+                slot = new Slot(item, weight, 0L);
+            } else {
+                Slot evicted = byCount.pollFirst();
+                slots.remove(evicted.item);
+                slot = new Slot(item, evicted.count + weight, evicted.count);
+            }
+            slots.put(item, slot);
+            byCount.add(slot);
+        }
+
+        /**
+         * Replace this summary with its merge with another one
+         */
+        void absorb(SpaceSaving other) {
+            List<Tracked> otherEntries = other.snapshot();
+            long otherMin = other.minCount();
+            synchronized (this) {
+                List<Tracked> merged = merge(snapshot(), minCount(), otherEntries, otherMin, capacity);
+                slots.clear();
+                byCount.clear();
+                for (Tracked t : merged) {
+                    Slot slot = new Slot(t.item, t.count, t.error);
+                    slots.put(t.item, slot);
+                    byCount.add(slot);
+                }
+            }
+        }
+
+        /**
+         * Upper bound on the count of any item the summary is not tracking
+         */
+        synchronized long minCount() {
+            return slots.size() < capacity || byCount.isEmpty() ? 0L : byCount.first().count;
+        }
+
+        synchronized List<Tracked> snapshot() {
+            List<Tracked> snapshot = new ArrayList<>(slots.size());
+            for (Slot slot : byCount.descendingSet()) {
+                snapshot.add(new Tracked(slot.item, slot.count, slot.error));
+            }
+            return snapshot;
+        }
+
+        private static final class Slot {
+            private final String item;
+            private long count;
+            private final long error;
+
+            private Slot(String item, long count, long error) {
+                this.item = item;
+                this.count = count;
+                this.error = error;
+            }
+        }
+    }
+}
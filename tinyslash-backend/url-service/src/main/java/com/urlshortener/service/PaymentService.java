@@ -27,6 +27,9 @@ public class PaymentService {
     
     @Autowired
     private UserRepository userRepository;
+
+    @Autowired
+    private AdminMetricsService adminMetrics;
     
     @Value("${razorpay.key.id}")
     private String razorpayKeyId;
@@ -121,10 +124,12 @@ public class PaymentService {
         subscriptionRepository.save(subscription);
         
         // Update user plan with correct format
+        String previousPlan = user.getSubscriptionPlan();
         user.setSubscriptionPlan(userPlanType);
         user.setSubscriptionExpiry(expiryDate);
         user.setUpdatedAt(LocalDateTime.now());
         userRepository.save(user);
+        adminMetrics.planChanged(previousPlan, userPlanType);
         
         System.out.println("✅ Subscription activated successfully:");
         System.out.println("   User ID: " + userId);
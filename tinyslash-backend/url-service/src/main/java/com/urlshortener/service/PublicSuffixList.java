@@ -0,0 +1,122 @@
+package com.urlshortener.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Public suffix rules and the registrable-domain algorithm of publicsuffix.org.
+ *
+ * Rules are plain suffixes ("co.uk"), wildcards ("*.ck") and exceptions
+ * ("!www.ck"); a host with no matching rule falls back to its last label. The
+ * registrable domain is the longest matching public suffix plus one more
+ * label, so "l.facebook.com" and "m.facebook.com" both give "facebook.com",
+ * and "news.bbc.co.uk" gives "bbc.co.uk".
+ */
+final class PublicSuffixList {
+
+    // The multi-label suffixes referrers actually come from, for when no list file is configured
+    static final List<String> BUILT_IN = List.of(
+            "co.uk", "org.uk", "ac.uk", "gov.uk", "me.uk", "ltd.uk", "plc.uk", "net.uk", "sch.uk", "nhs.uk",
+            "com.au", "net.au", "org.au", "edu.au", "gov.au", "co.nz", "org.nz", "net.nz", "govt.nz",
+            "co.in", "net.in", "org.in", "firm.in", "gen.in", "ind.in", "ac.in", "edu.in", "gov.in", "nic.in",
+            "com.br", "net.br", "org.br", "gov.br", "co.jp", "ne.jp", "or.jp", "ac.jp", "go.jp",
+            "co.kr", "or.kr", "ac.kr", "com.cn", "net.cn", "org.cn", "gov.cn", "com.hk", "com.sg", "com.my",
+            "com.tw", "com.mx", "com.ar", "com.tr", "co.za", "co.id", "com.ph", "com.pk", "com.ng", "com.eg",
+            "com.sa", "co.il", "com.ua", "com.vn", "com.co", "com.pe", "com.ve", "co.th", "com.bd", "com.np",
+            "com.lk", "co.ke", "com.gh", "com.qa", "com.kw", "co.ae",
+            "blogspot.com", "github.io", "gitlab.io", "herokuapp.com", "vercel.app", "netlify.app", "pages.dev",
+            "workers.dev", "web.app", "firebaseapp.com", "appspot.com", "azurewebsites.net", "cloudfront.net",
+            "s3.amazonaws.com", "fly.dev", "onrender.com", "glitch.me", "wixsite.com");
+
+    private final Set<String> rules;
+    private final Set<String> wildcards;
+    private final Set<String> exceptions;
+
+    private PublicSuffixList(Set<String> rules, Set<String> wildcards, Set<String> exceptions) {
+        this.rules = rules;
+        this.wildcards = wildcards;
+        this.exceptions = exceptions;
+    }
+
+    static PublicSuffixList of(Collection<String> lines) {
+        Set<String> rules = new HashSet<>();
+        Set<String> wildcards = new HashSet<>();
+        Set<String> exceptions = new HashSet<>();
+        for (String raw : lines) {
+            String line = raw.trim().toLowerCase(Locale.ROOT);
+            int space = line.indexOf(' ');
+            if (space > 0) {
+                line = line.substring(0, space);
+            }
+            if (line.isEmpty() || line.startsWith("//")) {
+                continue;
+            }
+            if (line.startsWith("!")) {
+                exceptions.add(line.substring(1));
+            } else if (line.startsWith("*.")) {
+                wildcards.add(line.substring(2));
+            } else {
+                rules.add(line);
+            }
+        }
+        return new PublicSuffixList(rules, wildcards, exceptions);
+    }
+
+    /**
+     * Read a list in the publicsuffix.org format (UTF-8, // comments)
+     */
+    static PublicSuffixList load(Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return of(lines);
+    }
+
+    int size() {
+        return rules.size() + wildcards.size() + exceptions.size();
+    }
+
+    /**
+     * Registrable domain of a lower-case host, or the host itself if it is an
+     * IP literal, a bare suffix or a single label
+     */
+    String registrableDomain(String host) {
+        if (host.indexOf('.') < 0 || host.indexOf(':') >= 0 || Character.isDigit(host.charAt(host.length() - 1))) {
+            return host;
+        }
+        // Walk from the full host towards the TLD; the first (longest) hit wins
+        int start = 0;
+        int previous = -1;
+        while (true) {
+            String candidate = host.substring(start);
+            if (exceptions.contains(candidate)) {
+                // An exception rule makes the candidate itself registrable
+                return candidate;
+            }
+            int dot = candidate.indexOf('.');
+            boolean wildcard = dot > 0 && wildcards.contains(candidate.substring(dot + 1));
+            if (rules.contains(candidate) || wildcard) {
+                return previous >= 0 ? host.substring(previous) : host;
+            }
+            if (dot < 0) {
+                // No rule matched: the last label is the suffix
+                return previous >= 0 ? host.substring(previous) : host;
+            }
+            previous = start;
+            start += dot + 1;
+        }
+    }
+}
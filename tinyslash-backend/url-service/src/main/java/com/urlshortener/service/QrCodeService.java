@@ -1,13 +1,15 @@
 package com.urlshortener.service;
 
+import com.urlshortener.dto.CursorPage;
+import com.urlshortener.dto.QrCodeSummary;
 import com.urlshortener.model.QrCode;
 import com.urlshortener.model.User;
 import com.urlshortener.repository.QrCodeRepository;
 import com.urlshortener.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,6 +38,12 @@ public class QrCodeService {
     @Autowired
     private CacheService cacheService;
 
+    @Autowired
+    private KeysetPaginationService keysetPagination;
+
+    @Autowired
+    private AdminMetricsService adminMetrics;
+
     @Value("${app.shorturl.domain:https://pebly.vercel.app}")
     private String shortUrlDomain;
 
@@ -88,12 +96,13 @@ public class QrCodeService {
 
         // Save to database
         QrCode saved = qrCodeRepository.save(qrCode);
+        adminMetrics.increment(AdminMetricsService.Metric.QR_CODES, 1);
 
         // Update user statistics
         if (userId != null) {
             updateUserStats(userId);
             // Invalidate user QR codes cache
-            cacheService.clearCache("userQRCodes", userId);
+            cacheService.clearCache("userQRCodeSummaries", userId);
         }
 
         logger.info("Created QR code: {} for user: {}", saved.getQrCode(), userId);
@@ -109,10 +118,11 @@ public class QrCodeService {
         return qrCodeRepository.findById(id);
     }
 
-    @Cacheable(value = "userQRCodes", key = "#userId")
-    public List<QrCode> getUserQrCodes(String userId) {
-        logger.debug("Fetching QR codes for user: {}", userId);
-        return qrCodeRepository.findByUserIdAndIsActiveTrue(userId);
+    // One page of a user's QR codes, newest first
+    public CursorPage<QrCodeSummary> getUserQrCodesPage(String userId, String cursor, Integer limit) {
+        logger.debug("Fetching QR code page for user: {}", userId);
+        return keysetPagination.findSummaries(Criteria.where("userId").is(userId).and("isActive").is(true),
+                "createdAt", cursor, limit, QrCode.class, QrCodeSummary.class);
     }
 
     // Get QR codes by scope (user or team)
@@ -168,7 +178,7 @@ public class QrCodeService {
         QrCode updated = qrCodeRepository.save(existing);
 
         // Invalidate relevant caches
-        cacheService.clearCache("userQRCodes", userId);
+        cacheService.clearCache("userQRCodeSummaries", userId);
 
         logger.info("Updated QR code: {} for user: {}", qrCodeId, userId);
 
@@ -195,9 +205,10 @@ public class QrCodeService {
 
         // Hard delete - actually remove from database
         qrCodeRepository.delete(existing);
+        adminMetrics.increment(AdminMetricsService.Metric.QR_CODES, -1);
 
         // Invalidate relevant caches
-        cacheService.clearCache("userQRCodes", userId);
+        cacheService.clearCache("userQRCodeSummaries", userId);
 
         logger.info("Permanently deleted QR code: {} for user: {}", qrCodeId, userId);
     }
@@ -312,6 +323,10 @@ public class QrCodeService {
         return qrCodeRepository.findAll();
     }
 
+    public CursorPage<QrCode> getAllQrCodesPage(String cursor, Integer limit) {
+        return keysetPagination.find(new Criteria(), "createdAt", cursor, limit, QrCode.class);
+    }
+
     private void updateUserStats(String userId) {
         Optional<User> userOpt = userRepository.findById(userId);
         if (userOpt.isPresent()) {
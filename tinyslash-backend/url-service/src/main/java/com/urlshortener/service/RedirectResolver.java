@@ -0,0 +1,227 @@
+package com.urlshortener.service;
+
+import com.urlshortener.dto.RedirectEntry;
+import com.urlshortener.dto.RedirectResolution;
+import com.urlshortener.model.ShortenedUrl;
+import com.urlshortener.model.UtmTags;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves a short code for the redirect path with a single cache hit or a
+ * single indexed Mongo query.
+ *
+ * Short codes are unique across the collection, so the lookup goes straight to
+ * the shortCode index and the requesting host is only compared afterwards.
+ * Hosts are mapped to canonical domain keys by {@link DomainRoutingTable}, so
+ * legacy default hosts (null domain, old Vercel/Render hosts) no longer need
+ * their own round trips.
+ * Unknown codes are rejected up front by {@link ShortCodeFilterService}.
+ *
+ * Only a {@link RedirectEntry} projection is read and cached, never the full
+ * document with its analytics maps.
+ */
+@Service
+public class RedirectResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedirectResolver.class);
+    private static final String CACHE_NAME = "redirect_entries";
+
+    private final MongoTemplate mongoTemplate;
+    private final CacheManager cacheManager;
+    private final ShortCodeFilterService shortCodeFilter;
+    private final DomainRoutingTable domainRoutingTable;
+
+    // Minimum version a cached entry must carry after an update; cleared once a fresh entry is loaded
+    private final Map<String, Long> versionFloors = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RedirectResolver(MongoTemplate mongoTemplate, CacheManager cacheManager,
+            ShortCodeFilterService shortCodeFilter, DomainRoutingTable domainRoutingTable) {
+        this.mongoTemplate = mongoTemplate;
+        this.cacheManager = cacheManager;
+        this.shortCodeFilter = shortCodeFilter;
+        this.domainRoutingTable = domainRoutingTable;
+    }
+
+    /**
+     * Resolve a short code requested on the given host
+     */
+    public RedirectResolution resolve(String shortCode, String hostDomain) {
+        String domainKey = normalizeDomain(hostDomain);
+
+        // Definite misses never reach Redis or Mongo
+        if (!shortCodeFilter.mightContain(shortCode)) {
+            return RedirectResolution.notFound(domainKey);
+        }
+
+        Optional<RedirectEntry> entryOpt = lookup(shortCode);
+        if (entryOpt.isEmpty()) {
+            shortCodeFilter.recordFalsePositive();
+            return RedirectResolution.notFound(domainKey);
+        }
+
+        RedirectEntry entry = entryOpt.get();
+        boolean domainMatched = domainKey.equals(normalizeDomain(entry.getDomain()));
+        if (!domainMatched) {
+            logger.debug("Short code {} owned by domain {} was requested on {}", shortCode, entry.getDomain(), domainKey);
+        }
+
+        return RedirectResolution.of(classify(entry), entry, domainKey, domainMatched);
+    }
+
+    /**
+     * Map a request host or stored link domain to its canonical domain key.
+     * Null, blank and legacy default hosts all collapse to the default domain.
+     */
+    public String normalizeDomain(String domain) {
+        return domainRoutingTable.domainKey(domain);
+    }
+
+    public String getDefaultDomainKey() {
+        return domainRoutingTable.getDefaultDomainKey();
+    }
+
+    /**
+     * Invalidate the cached entry for a link that was saved with the given
+     * redirect version. Older copies are rejected even if a concurrent reader
+     * puts one back after the eviction.
+     */
+    public void invalidate(String shortCode, long version) {
+        versionFloors.merge(shortCode, version, Math::max);
+        evict(shortCode);
+    }
+
+    /**
+     * Record new minimum versions for many links whose cached entries the
+     * caller evicts itself (e.g. in one batched eviction)
+     */
+    public void raiseVersionFloors(Map<String, Long> versions) {
+        versions.forEach((shortCode, version) -> versionFloors.merge(shortCode, version, Math::max));
+    }
+
+    public String getCacheName() {
+        return CACHE_NAME;
+    }
+
+    /**
+     * Drop the cached entry for a short code after it was updated or deleted
+     */
+    public void evict(String shortCode) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            return;
+        }
+        try {
+            cache.evict(shortCode);
+        } catch (Exception e) {
+            logger.warn("Failed to evict redirect cache for {}: {}", shortCode, e.getMessage());
+        }
+    }
+
+    private Optional<RedirectEntry> lookup(String shortCode) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        Long floor = versionFloors.get(shortCode);
+
+        if (cache != null) {
+            try {
+                RedirectEntry cached = RedirectEntry.decode(cache.get(shortCode, String.class));
+                if (cached != null && (floor == null || cached.getVersion() >= floor)) {
+                    return Optional.of(cached);
+                }
+            } catch (Exception e) {
+                logger.warn("Redirect cache read failed for {}: {}", shortCode, e.getMessage());
+            }
+        }
+
+        Optional<RedirectEntry> entryOpt = load(shortCode);
+        if (floor != null && (entryOpt.isEmpty() || entryOpt.get().getVersion() >= floor)) {
+            versionFloors.remove(shortCode, floor);
+        }
+
+        // Links with a click limit are not cached: their totalClicks must be read fresh
+        if (cache != null && entryOpt.isPresent() && entryOpt.get().getMaxClicks() == null) {
+            try {
+                cache.put(shortCode, entryOpt.get().encode());
+            } catch (Exception e) {
+                logger.warn("Redirect cache write failed for {}: {}", shortCode, e.getMessage());
+            }
+        }
+
+        return entryOpt;
+    }
+
+    /**
+     * Indexed lookup that only returns the fields a redirect needs
+     */
+    private Optional<RedirectEntry> load(String shortCode) {
+        Query query = Query.query(Criteria.where("shortCode").is(shortCode));
+        query.fields().include("shortCode", "originalUrl", "domain", "userId", "scopeType", "scopeId",
+                "isActive", "isPasswordProtected", "trackClicks", "expiresAt", "maxClicks", "totalClicks",
+                "redirectVersion", "utmSource", "utmMedium", "utmCampaign", "utmTerm", "utmContent");
+
+        Document doc = mongoTemplate.findOne(query, Document.class,
+                mongoTemplate.getCollectionName(ShortenedUrl.class));
+        if (doc == null) {
+            return Optional.empty();
+        }
+
+        Date expiresAt = doc.getDate("expiresAt");
+        Number maxClicks = (Number) doc.get("maxClicks");
+        Number totalClicks = (Number) doc.get("totalClicks");
+        Number version = (Number) doc.get("redirectVersion");
+        String teamId = "TEAM".equals(doc.getString("scopeType")) ? doc.getString("scopeId") : null;
+        UtmTags utm = new UtmTags(doc.getString("utmSource"), doc.getString("utmMedium"),
+                doc.getString("utmCampaign"), doc.getString("utmTerm"), doc.getString("utmContent"));
+        if (utm.isEmpty()) {
+            // Links created before the tags were stored
+            utm = UtmTags.fromUrl(doc.getString("originalUrl"));
+        }
+
+        return Optional.of(new RedirectEntry(
+                doc.getString("shortCode"),
+                doc.getString("originalUrl"),
+                doc.getString("domain"),
+                doc.getString("userId"),
+                teamId,
+                doc.getBoolean("isActive", true),
+                doc.getBoolean("isPasswordProtected", false),
+                doc.getBoolean("trackClicks", true),
+                expiresAt != null ? LocalDateTime.ofInstant(expiresAt.toInstant(), ZoneId.systemDefault()) : null,
+                maxClicks != null ? maxClicks.intValue() : null,
+                totalClicks != null ? totalClicks.intValue() : 0,
+                utm,
+                version != null ? version.longValue() : 0L));
+    }
+
+    private RedirectResolution.Status classify(RedirectEntry entry) {
+        if (entry.isPasswordProtected()) {
+            return RedirectResolution.Status.PASSWORD_PROTECTED;
+        }
+        if (!entry.isActive()) {
+            return RedirectResolution.Status.INACTIVE;
+        }
+        if (entry.getExpiresAt() != null && entry.getExpiresAt().isBefore(LocalDateTime.now())) {
+            return RedirectResolution.Status.EXPIRED;
+        }
+        if (entry.getMaxClicks() != null && entry.getTotalClicks() >= entry.getMaxClicks()) {
+            return RedirectResolution.Status.MAX_CLICKS_REACHED;
+        }
+        return RedirectResolution.Status.FOUND;
+    }
+}
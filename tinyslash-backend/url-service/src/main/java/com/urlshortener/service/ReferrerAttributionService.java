@@ -0,0 +1,197 @@
+package com.urlshortener.service;
+
+import com.urlshortener.model.UtmTags;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Attributes a click to a referrer domain and a marketing channel.
+ *
+ * Referrer hosts are reduced to their registrable domain with a
+ * {@link PublicSuffixList}, so "l.facebook.com" and "m.facebook.com" count
+ * as one referrer and "news.bbc.co.uk" as "bbc.co.uk". The referrer type
+ * comes from a compiled lookup table tried from the most to the least
+ * specific key: the full host and its parents down to the registrable domain
+ * ("mail.google.com" is EMAIL), then the registrable domain's brand label on
+ * any suffix ("google" covers google.com and google.co.uk alike).
+ *
+ * The channel of a click prefers what the marketer declared on the link:
+ * utm_medium, then utm_source looked up like a referrer, then the referrer
+ * type.
+ */
+@Service
+public class ReferrerAttributionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferrerAttributionService.class);
+
+    public static final String DIRECT = "DIRECT";
+    public static final String SEARCH = "SEARCH";
+    public static final String SOCIAL = "SOCIAL";
+    public static final String EMAIL = "EMAIL";
+    public static final String PAID = "PAID";
+    public static final String AFFILIATE = "AFFILIATE";
+    public static final String WEBSITE = "WEBSITE";
+
+    // Brand labels: match the registrable domain's first label on any public suffix
+    private static final Map<String, List<String>> BUILT_IN_BRANDS = Map.of(
+            SEARCH, List.of("google", "bing", "yahoo", "duckduckgo", "baidu", "yandex", "ecosia", "ask", "naver",
+                    "seznam", "startpage", "qwant", "sogou", "aol"),
+            SOCIAL, List.of("facebook", "instagram", "twitter", "linkedin", "reddit", "pinterest", "tiktok",
+                    "youtube", "snapchat", "tumblr", "quora", "whatsapp", "telegram", "discord", "vk", "weibo",
+                    "threads", "mastodon", "medium"));
+
+    // Hosts and registrable domains, matched exactly
+    private static final Map<String, List<String>> BUILT_IN_DOMAINS = Map.of(
+            SEARCH, List.of("search.brave.com", "search.yahoo.com", "kagi.com"),
+            SOCIAL, List.of("t.co", "x.com", "fb.com", "fb.me", "lnkd.in", "youtu.be", "t.me", "wa.me",
+                    "bsky.app", "news.ycombinator.com", "redd.it", "pin.it"),
+            EMAIL, List.of("mail.google.com", "inbox.google.com", "mail.yahoo.com", "mail.aol.com",
+                    "outlook.live.com", "outlook.office.com", "outlook.office365.com", "outlook.com",
+                    "hotmail.com", "mail.proton.me", "proton.me", "protonmail.com", "mail.zoho.com",
+                    "mail.yandex.ru", "mail.ru", "gmx.net", "web.de", "list-manage.com", "mailchi.mp",
+                    "sendgrid.net", "hubspotemail.net", "substack.com"));
+
+    private static final Map<String, String> MEDIUM_CHANNELS = Map.ofEntries(
+            Map.entry("cpc", PAID), Map.entry("ppc", PAID), Map.entry("paid", PAID), Map.entry("cpm", PAID),
+            Map.entry("cpv", PAID), Map.entry("display", PAID), Map.entry("banner", PAID),
+            Map.entry("paidsearch", PAID), Map.entry("paid_search", PAID), Map.entry("paid-search", PAID),
+            Map.entry("paidsocial", PAID), Map.entry("paid_social", PAID), Map.entry("paid-social", PAID),
+            Map.entry("email", EMAIL), Map.entry("e-mail", EMAIL), Map.entry("newsletter", EMAIL),
+            Map.entry("social", SOCIAL), Map.entry("social-network", SOCIAL), Map.entry("social-media", SOCIAL),
+            Map.entry("sm", SOCIAL), Map.entry("organic", SEARCH), Map.entry("search", SEARCH),
+            Map.entry("affiliate", AFFILIATE), Map.entry("partner", AFFILIATE), Map.entry("referral", WEBSITE));
+
+    @Value("${app.attribution.public-suffix-file:}")
+    private String publicSuffixFile;
+
+    @Value("${app.attribution.channels:}")
+    private List<String> configuredChannels;
+
+    private PublicSuffixList suffixes;
+    private final Map<String, String> domainChannels = new HashMap<>();
+    private final Map<String, String> brandChannels = new HashMap<>();
+
+    @PostConstruct
+    public void initialize() {
+        suffixes = PublicSuffixList.of(PublicSuffixList.BUILT_IN);
+        if (publicSuffixFile != null && !publicSuffixFile.isBlank()) {
+            Path file = Paths.get(publicSuffixFile);
+            try {
+                suffixes = PublicSuffixList.load(file);
+            } catch (IOException e) {
+                logger.error("Failed to load public suffix list {}, using the built-in rules: {}", file,
+                        e.getMessage());
+            }
+        }
+
+        BUILT_IN_BRANDS.forEach((channel, brands) -> brands.forEach(brand -> brandChannels.put(brand, channel)));
+        BUILT_IN_DOMAINS.forEach((channel, domains) -> domains.forEach(domain -> domainChannels.put(domain, channel)));
+
+        // domain=CHANNEL pairs; a domain without a dot is taken as a brand label
+        if (configuredChannels != null) {
+            for (String pair : configuredChannels) {
+                String[] parts = pair.split("=");
+                if (parts.length != 2 || parts[0].isBlank() || parts[1].isBlank()) {
+                    continue;
+                }
+                String key = parts[0].trim().toLowerCase(Locale.ROOT);
+                String channel = parts[1].trim().toUpperCase(Locale.ROOT);
+                (key.indexOf('.') < 0 ? brandChannels : domainChannels).put(key, channel);
+            }
+        }
+
+        logger.info("Referrer attribution ready: {} public suffix rules, {} domains, {} brands",
+                suffixes.size(), domainChannels.size(), brandChannels.size());
+    }
+
+    /**
+     * Host of a referrer URL, lower-cased without a trailing dot, or null
+     */
+    public String referrerHost(String referrer) {
+        if (referrer == null || referrer.isBlank()) {
+            return null;
+        }
+        try {
+            String host = URI.create(referrer.trim()).getHost();
+            if (host == null || host.isEmpty()) {
+                return null;
+            }
+            host = host.toLowerCase(Locale.ROOT);
+            return host.endsWith(".") ? host.substring(0, host.length() - 1) : host;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public String registrableDomain(String host) {
+        return host == null || host.isEmpty() ? null : suffixes.registrableDomain(host.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * SEARCH, SOCIAL, EMAIL or WEBSITE for a referrer host; DIRECT without one
+     */
+    public String referrerType(String host) {
+        if (host == null || host.isEmpty()) {
+            return DIRECT;
+        }
+        String channel = lookup(host.toLowerCase(Locale.ROOT));
+        return channel != null ? channel : WEBSITE;
+    }
+
+    /**
+     * Channel of a click: declared by the link's UTM tags if they say, else
+     * the referrer type
+     */
+    public String channel(UtmTags utm, String referrerType) {
+        if (utm != null) {
+            if (utm.getMedium() != null) {
+                String medium = utm.getMedium().toLowerCase(Locale.ROOT);
+                String channel = MEDIUM_CHANNELS.get(medium);
+                if (channel != null) {
+                    return channel;
+                }
+                if (medium.startsWith("paid") || medium.endsWith("cpc")) {
+                    return PAID;
+                }
+            }
+            if (utm.getSource() != null) {
+                String source = utm.getSource().toLowerCase(Locale.ROOT);
+                String channel = source.indexOf('.') >= 0 ? lookup(source) : brandChannels.get(source);
+                if (channel != null) {
+                    return channel;
+                }
+            }
+        }
+        return referrerType != null ? referrerType : DIRECT;
+    }
+
+    private String lookup(String host) {
+        String registrable = suffixes.registrableDomain(host);
+        // Full host, then each parent down to the registrable domain
+        String candidate = host;
+        while (true) {
+            String channel = domainChannels.get(candidate);
+            if (channel != null) {
+                return channel;
+            }
+            if (candidate.length() <= registrable.length()) {
+                break;
+            }
+            candidate = candidate.substring(candidate.indexOf('.') + 1);
+        }
+        int dot = registrable.indexOf('.');
+        return dot > 0 ? brandChannels.get(registrable.substring(0, dot)) : null;
+    }
+}
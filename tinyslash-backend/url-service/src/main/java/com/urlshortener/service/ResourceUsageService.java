@@ -3,7 +3,6 @@ package com.urlshortener.service;
 import com.urlshortener.repository.UploadedFileRepository;
 import com.urlshortener.repository.UserRepository;
 import com.urlshortener.repository.ShortenedUrlRepository;
-import com.urlshortener.repository.ClickAnalyticsRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.mongodb.core.MongoTemplate;
@@ -32,7 +31,7 @@ public class ResourceUsageService {
   private ShortenedUrlRepository shortenedUrlRepository;
 
   @Autowired
-  private ClickAnalyticsRepository clickAnalyticsRepository;
+  private AdminMetricsService adminMetrics;
 
   /**
    * Get global resource usage statistics
@@ -131,7 +130,8 @@ public class ResourceUsageService {
     Map<String, Object> stats = new HashMap<>();
 
     // Proxy for API Usage: Total Clicks + Link Creations + File Uploads (All time)
-    long totalClicks = clickAnalyticsRepository.count();
+    // Raw click rows expire, so all-time clicks come from the materialized counters
+    long totalClicks = adminMetrics.current().get(AdminMetricsService.Metric.CLICKS);
     long totalUrls = shortenedUrlRepository.count();
     long totalFiles = uploadedFileRepository.count();
 
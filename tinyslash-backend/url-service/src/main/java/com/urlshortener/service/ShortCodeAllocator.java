@@ -0,0 +1,210 @@
+package com.urlshortener.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hi/lo short code allocator.
+ *
+ * Each node leases a block of sequence numbers from a counter document with
+ * one atomic $inc, then hands them out with a lock-free getAndIncrement.
+ * Sequence numbers are permuted inside the 6-character keyspace by a keyed
+ * Feistel network (cycle-walked to stay below 62^6), so consecutive codes do
+ * not look sequential, and then encoded to base62. The permutation is a
+ * bijection, so two sequence numbers never produce the same code and creation
+ * needs no existence check. Once the 6-character space is exhausted codes
+ * simply grow to 7+ characters.
+ */
+@Service
+public class ShortCodeAllocator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShortCodeAllocator.class);
+
+    private static final String COLLECTION = "id_sequences";
+    private static final String SEQUENCE_NAME = "short_code";
+
+    static final String ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    private static final int MIN_LENGTH = 6;
+    private static final long KEYSPACE = pow(ALPHABET.length(), MIN_LENGTH); // 62^6, just under 2^36
+    private static final int HALF_BITS = 18;
+    private static final long HALF_MASK = (1L << HALF_BITS) - 1;
+    private static final int ROUNDS = 4;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.short-code.block-size:1000}")
+    private int blockSize;
+
+    @Value("${app.short-code.scramble:true}")
+    private boolean scramble;
+
+    @Value("${app.short-code.scramble-key:tinyslash-short-codes}")
+    private String scrambleKey;
+
+    private final long[] roundKeys = new long[ROUNDS];
+    private volatile Block current = new Block(0, 0);
+
+    private Counter blocksLeasedCounter;
+
+    @PostConstruct
+    public void initialize() {
+        long seed = fnv1a(scrambleKey);
+        for (int i = 0; i < ROUNDS; i++) {
+            seed = mix64(seed + 0x9e3779b97f4a7c15L);
+            roundKeys[i] = seed;
+        }
+
+        blocksLeasedCounter = Counter.builder("shortcode.allocator.blocks_leased")
+                .description("Sequence blocks leased from the counter document")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Next unique short code
+     */
+    public String nextCode() {
+        return encode(nextSequence());
+    }
+
+    /**
+     * A batch of unique short codes for bulk link creation. The sequence
+     * values are claimed as ranges, one atomic add per block touched.
+     */
+    public List<String> nextCodes(int count) {
+        List<String> codes = new ArrayList<>(count);
+        while (codes.size() < count) {
+            Block block = current;
+            int wanted = count - codes.size();
+            long start = block.next.getAndAdd(wanted);
+            long end = Math.min(start + wanted, block.end);
+            for (long value = start; value < end; value++) {
+                codes.add(encode(value));
+            }
+            if (end - start < wanted) {
+                leaseBlock(block);
+            }
+        }
+        return codes;
+    }
+
+    private long nextSequence() {
+        while (true) {
+            Block block = current;
+            long value = block.next.getAndIncrement();
+            if (value < block.end) {
+                return value;
+            }
+            leaseBlock(block);
+        }
+    }
+
+    /**
+     * Replace an exhausted block. Only one thread leases; the others retry
+     * against the block it installs.
+     */
+    private synchronized void leaseBlock(Block exhausted) {
+        if (current != exhausted) {
+            return;
+        }
+        Document counter = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(SEQUENCE_NAME)),
+                new Update().inc("next", (long) blockSize),
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                Document.class, COLLECTION);
+
+        long hi = ((Number) counter.get("next")).longValue();
+        current = new Block(hi - blockSize, hi);
+        blocksLeasedCounter.increment();
+        logger.debug("Leased short code block [{}, {})", hi - blockSize, hi);
+    }
+
+    String encode(long sequence) {
+        long value = scramble && sequence < KEYSPACE ? permute(sequence) : sequence;
+        StringBuilder sb = new StringBuilder(MIN_LENGTH + 1);
+        do {
+            sb.append(ALPHABET.charAt((int) (value % ALPHABET.length())));
+            value /= ALPHABET.length();
+        } while (value > 0);
+        while (sb.length() < MIN_LENGTH) {
+            sb.append(ALPHABET.charAt(0));
+        }
+        return sb.reverse().toString();
+    }
+
+    /**
+     * Keyed bijection on [0, 62^6): a 36-bit Feistel network, re-applied
+     * until the result falls back inside the keyspace
+     */
+    private long permute(long value) {
+        long result = value;
+        do {
+            result = feistel(result);
+        } while (result >= KEYSPACE);
+        return result;
+    }
+
+    private long feistel(long value) {
+        long left = (value >>> HALF_BITS) & HALF_MASK;
+        long right = value & HALF_MASK;
+        for (long key : roundKeys) {
+            long next = left ^ (mix64(right ^ key) & HALF_MASK);
+            left = right;
+            right = next;
+        }
+        return (left << HALF_BITS) | right;
+    }
+
+    private static long fnv1a(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long mix64(long value) {
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb1a5bfe8d7c5L;
+        return value ^ (value >>> 33);
+    }
+
+    private static long pow(int base, int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= base;
+        }
+        return result;
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
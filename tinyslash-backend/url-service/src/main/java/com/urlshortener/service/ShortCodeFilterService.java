@@ -0,0 +1,380 @@
+package com.urlshortener.service;
+
+import com.urlshortener.model.ShortenedUrl;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * Negative-lookup Bloom filter over every existing short code.
+ *
+ * A "definitely absent" answer lets the redirect path return 404 for scanner
+ * and typo traffic without touching Redis or Mongo. Codes are added on
+ * creation and broadcast to the other nodes over Redis pub/sub; since pub/sub
+ * is fire-and-forget, each node also catches up on recently created codes
+ * every minute, which bounds how long a lost message can hide a new link.
+ * Deletions are picked up by the periodic rebuild (until then a deleted code
+ * only costs the normal lookup). The filter answers "maybe" for everything
+ * until the first build has completed.
+ */
+@Service
+public class ShortCodeFilterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShortCodeFilterService.class);
+    private static final char SEPARATOR = '\u001f';
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired(required = false)
+    private RedisConnectionFactory redisConnectionFactory;
+
+    @Autowired(required = false)
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Value("${app.shortcode-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.shortcode-filter.false-positive-rate:0.01}")
+    private double targetFalsePositiveRate;
+
+    @Value("${app.shortcode-filter.min-capacity:1000000}")
+    private long minCapacity;
+
+    @Value("${app.shortcode-filter.channel:tinyslash:shortcode-filter}")
+    private String channel;
+
+    @Value("${app.shortcode-filter.catch-up-overlap-ms:120000}")
+    private long catchUpOverlapMs;
+
+    private volatile BloomFilter current;
+    private volatile BloomFilter building;
+    // Rebuilds run on the batch executor; a slow one must not overlap the next
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private volatile boolean ready = false;
+
+    private final AtomicLong insertions = new AtomicLong();
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private StringRedisTemplate publisher;
+    // Creation time up to which every code is known to be in the filter
+    private volatile LocalDateTime syncedUntil;
+
+    private Counter definiteMissCounter;
+    private Counter maybeCounter;
+    private Counter falsePositiveCounter;
+
+    @PostConstruct
+    public void initializeMetrics() {
+        definiteMissCounter = Counter.builder("shortcode.filter.lookups")
+                .description("Short code lookups answered by the Bloom filter")
+                .tag("result", "absent")
+                .register(meterRegistry);
+
+        maybeCounter = Counter.builder("shortcode.filter.lookups")
+                .description("Short code lookups answered by the Bloom filter")
+                .tag("result", "maybe")
+                .register(meterRegistry);
+
+        falsePositiveCounter = Counter.builder("shortcode.filter.false_positives")
+                .description("Lookups the filter passed through that were not found in the database")
+                .register(meterRegistry);
+
+        Gauge.builder("shortcode.filter.entries", insertions, AtomicLong::get)
+                .description("Short codes inserted into the current filter")
+                .register(meterRegistry);
+
+        Gauge.builder("shortcode.filter.expected_fpp", this, ShortCodeFilterService::getExpectedFalsePositiveRate)
+                .description("Theoretical false-positive probability of the current filter")
+                .register(meterRegistry);
+
+        Gauge.builder("shortcode.filter.observed_fpp", this, ShortCodeFilterService::getObservedFalsePositiveRate)
+                .description("Share of filter pass-throughs that turned out to be misses")
+                .register(meterRegistry);
+
+        if (redisConnectionFactory != null && listenerContainer != null) {
+            publisher = new StringRedisTemplate(redisConnectionFactory);
+            listenerContainer.addMessageListener((message, pattern) -> onBroadcast(
+                    new String(message.getBody(), StandardCharsets.UTF_8)), new ChannelTopic(channel));
+            logger.info("Short code filter additions broadcast on channel {}", channel);
+        }
+    }
+
+    /**
+     * @return false only when the short code definitely does not exist
+     */
+    public boolean mightContain(String shortCode) {
+        BloomFilter filter = current;
+        if (!enabled || !ready || filter == null || shortCode == null) {
+            return true;
+        }
+        boolean maybe = filter.mightContain(shortCode);
+        if (maybe) {
+            maybeCounter.increment();
+        } else {
+            definiteMissCounter.increment();
+        }
+        return maybe;
+    }
+
+    /**
+     * Register a freshly created short code on this node and the others
+     */
+    public void add(String shortCode) {
+        if (shortCode == null) {
+            return;
+        }
+        addLocal(shortCode);
+        publish(List.of(shortCode));
+    }
+
+    /**
+     * Register a batch of freshly created short codes with a single broadcast
+     */
+    public void addAll(Collection<String> shortCodes) {
+        if (shortCodes.isEmpty()) {
+            return;
+        }
+        shortCodes.forEach(this::addLocal);
+        publish(shortCodes);
+    }
+
+    private void addLocal(String shortCode) {
+        BloomFilter filter = current;
+        if (filter != null) {
+            filter.put(shortCode);
+            insertions.incrementAndGet();
+        }
+        BloomFilter inProgress = building;
+        if (inProgress != null) {
+            inProgress.put(shortCode);
+        }
+    }
+
+    private void publish(Collection<String> shortCodes) {
+        if (publisher == null) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder(16 + shortCodes.size() * 10).append(nodeId);
+        shortCodes.forEach(code -> sb.append(SEPARATOR).append(code));
+        try {
+            publisher.convertAndSend(channel, sb.toString());
+        } catch (Exception e) {
+            // The catch-up scan picks the codes up on the other nodes
+            logger.warn("Failed to broadcast {} new short codes: {}", shortCodes.size(), e.getMessage());
+        }
+    }
+
+    void onBroadcast(String message) {
+        String[] parts = message.split(String.valueOf(SEPARATOR));
+        if (parts.length < 2 || nodeId.equals(parts[0])) {
+            return;
+        }
+        for (int i = 1; i < parts.length; i++) {
+            if (!parts[i].isEmpty()) {
+                addLocal(parts[i]);
+            }
+        }
+    }
+
+    /**
+     * Called when the filter answered "maybe" but the lookup found nothing
+     */
+    public void recordFalsePositive() {
+        falsePositiveCounter.increment();
+    }
+
+    /**
+     * Rebuild from the shortened_urls collection at startup and periodically,
+     * so deleted codes drop out and the filter is resized to the current count
+     */
+    @Async("batchJobExecutor")
+    @Scheduled(initialDelayString = "${app.shortcode-filter.initial-delay-ms:0}",
+            fixedDelayString = "${app.shortcode-filter.rebuild-interval-ms:21600000}")
+    public void rebuild() {
+        if (!enabled || !rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+
+        long started = System.currentTimeMillis();
+        LocalDateTime scanStarted = LocalDateTime.now();
+        try {
+            long count = mongoTemplate.getCollection(mongoTemplate.getCollectionName(ShortenedUrl.class))
+                    .estimatedDocumentCount();
+            BloomFilter next = BloomFilter.create(Math.max(count * 2, minCapacity), targetFalsePositiveRate);
+            building = next;
+
+            Query query = new Query();
+            query.fields().include("shortCode");
+
+            long loaded = 0;
+            try (Stream<ShortenedUrl> stream = mongoTemplate.stream(query, ShortenedUrl.class)) {
+                for (ShortenedUrl url : (Iterable<ShortenedUrl>) stream::iterator) {
+                    if (url.getShortCode() != null) {
+                        next.put(url.getShortCode());
+                        loaded++;
+                    }
+                }
+            }
+
+            current = next;
+            building = null;
+            insertions.set(loaded);
+            syncedUntil = scanStarted;
+            ready = true;
+
+            logger.info("Short code filter rebuilt with {} codes ({} bits, {} hashes) in {} ms",
+                    loaded, next.bitSize(), next.hashCount(), System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            building = null;
+            logger.error("Failed to rebuild short code filter: {}", e.getMessage(), e);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * Add codes created on other nodes whose broadcast never arrived. The scan
+     * overlaps the previous one so documents inserted late are not skipped.
+     */
+    @Scheduled(fixedDelayString = "${app.shortcode-filter.catch-up-interval-ms:60000}")
+    public void catchUp() {
+        LocalDateTime since = syncedUntil;
+        if (!enabled || !ready || since == null) {
+            return;
+        }
+
+        LocalDateTime scanStarted = LocalDateTime.now();
+        Query query = Query.query(Criteria.where("createdAt").gte(since.minusNanos(catchUpOverlapMs * 1_000_000L)));
+        query.fields().include("shortCode");
+        try (Stream<ShortenedUrl> stream = mongoTemplate.stream(query, ShortenedUrl.class)) {
+            stream.map(ShortenedUrl::getShortCode).filter(code -> code != null).forEach(this::addLocal);
+            syncedUntil = scanStarted;
+        } catch (Exception e) {
+            logger.warn("Short code filter catch-up failed: {}", e.getMessage());
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public double getExpectedFalsePositiveRate() {
+        BloomFilter filter = current;
+        return filter == null ? 1.0 : filter.expectedFalsePositiveRate(insertions.get());
+    }
+
+    public double getObservedFalsePositiveRate() {
+        double passed = maybeCounter.count();
+        return passed == 0 ? 0.0 : falsePositiveCounter.count() / passed;
+    }
+
+    /**
+     * Lock-free Bloom filter backed by an AtomicLongArray, using double hashing
+     * (Kirsch-Mitzenmacher) over two 64-bit string hashes.
+     */
+    static final class BloomFilter {
+
+        private final AtomicLongArray words;
+        private final long bits;
+        private final int hashes;
+
+        private BloomFilter(long bits, int hashes) {
+            this.bits = bits;
+            this.hashes = hashes;
+            this.words = new AtomicLongArray((int) ((bits + 63) >>> 6));
+        }
+
+        static BloomFilter create(long expectedInsertions, double fpp) {
+            double ln2 = Math.log(2);
+            long bits = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (ln2 * ln2));
+            bits = Math.max(64, Math.min(bits, (long) Integer.MAX_VALUE * 64));
+            int hashes = Math.max(1, (int) Math.round((double) bits / expectedInsertions * ln2));
+            return new BloomFilter(bits, hashes);
+        }
+
+        void put(String value) {
+            long h1 = fnv1a64(value);
+            long h2 = mix64(h1);
+            for (int i = 0; i < hashes; i++) {
+                long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+                int index = (int) (bit >>> 6);
+                long mask = 1L << (bit & 63);
+                long word;
+                do {
+                    word = words.get(index);
+                    if ((word & mask) != 0) {
+                        break;
+                    }
+                } while (!words.compareAndSet(index, word, word | mask));
+            }
+        }
+
+        boolean mightContain(String value) {
+            long h1 = fnv1a64(value);
+            long h2 = mix64(h1);
+            for (int i = 0; i < hashes; i++) {
+                long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+                if ((words.get((int) (bit >>> 6)) & (1L << (bit & 63))) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        double expectedFalsePositiveRate(long inserted) {
+            return Math.pow(1 - Math.exp(-(double) hashes * inserted / bits), hashes);
+        }
+
+        long bitSize() {
+            return bits;
+        }
+
+        int hashCount() {
+            return hashes;
+        }
+
+        private static long fnv1a64(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+
+        private static long mix64(long z) {
+            z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+            z = (z ^ (z >>> 33)) * 0xc4ceb1a5bfe8d7c5L;
+            return (z ^ (z >>> 33)) | 1L;
+        }
+    }
+}
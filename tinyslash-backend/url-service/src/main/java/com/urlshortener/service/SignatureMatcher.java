@@ -0,0 +1,129 @@
+package com.urlshortener.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Aho-Corasick automaton over a fixed set of ASCII signatures, matched
+ * case-insensitively.
+ *
+ * The trie's failure links are folded into a dense transition table, so
+ * matching reads each character once with a single array lookup and no
+ * backtracking, whatever the number of signatures. Characters outside ASCII
+ * cannot be part of a signature and send the automaton back to the root.
+ */
+final class SignatureMatcher {
+
+    private static final int ALPHABET = 128;
+
+    private final String[] signatures;
+    private final int[][] next;
+    // Longest signature ending at each state, or -1
+    private final int[] output;
+
+    private SignatureMatcher(String[] signatures, int[][] next, int[] output) {
+        this.signatures = signatures;
+        this.next = next;
+        this.output = output;
+    }
+
+    static SignatureMatcher compile(List<String> patterns) {
+        List<String> signatures = new ArrayList<>();
+        List<int[]> next = new ArrayList<>();
+        List<Integer> output = new ArrayList<>();
+        next.add(newState());
+        output.add(-1);
+
+        // Build the trie
+        for (String pattern : patterns) {
+            String signature = pattern.trim().toLowerCase(Locale.ROOT);
+            if (signature.isEmpty() || signatures.contains(signature)
+                    || !signature.chars().allMatch(c -> c < ALPHABET)) {
+                continue;
+            }
+            int state = 0;
+            for (int i = 0; i < signature.length(); i++) {
+                char c = signature.charAt(i);
+                if (next.get(state)[c] <= 0) {
+                    next.get(state)[c] = next.size();
+                    next.add(newState());
+                    output.add(-1);
+                }
+                state = next.get(state)[c];
+            }
+            output.set(state, signatures.size());
+            signatures.add(signature);
+        }
+
+        // Breadth-first: resolve failure links into direct transitions
+        int[] fail = new int[next.size()];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        int[] root = next.get(0);
+        for (int c = 0; c < ALPHABET; c++) {
+            if (root[c] > 0) {
+                fail[root[c]] = 0;
+                queue.add(root[c]);
+            } else {
+                root[c] = 0;
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            if (output.get(state) < 0) {
+                output.set(state, output.get(fail[state]));
+            }
+            int[] row = next.get(state);
+            int[] failRow = next.get(fail[state]);
+            for (int c = 0; c < ALPHABET; c++) {
+                if (row[c] > 0) {
+                    fail[row[c]] = failRow[c];
+                    queue.add(row[c]);
+                } else {
+                    row[c] = failRow[c];
+                }
+            }
+        }
+
+        int[] outputs = new int[output.size()];
+        for (int i = 0; i < outputs.length; i++) {
+            outputs[i] = output.get(i);
+        }
+        return new SignatureMatcher(signatures.toArray(new String[0]), next.toArray(new int[0][]), outputs);
+    }
+
+    private static int[] newState() {
+        int[] row = new int[ALPHABET];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    int size() {
+        return signatures.length;
+    }
+
+    String signature(int index) {
+        return signatures[index];
+    }
+
+    /**
+     * Index of the first signature found in text (the longest one ending at
+     * that position), or -1
+     */
+    int find(CharSequence text) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                c += 'a' - 'A';
+            }
+            state = c < ALPHABET ? next[state][c] : 0;
+            if (output[state] >= 0) {
+                return output[state];
+            }
+        }
+        return -1;
+    }
+}
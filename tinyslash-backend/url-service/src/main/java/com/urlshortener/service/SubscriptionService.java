@@ -4,6 +4,10 @@ import com.urlshortener.model.User;
 import com.urlshortener.model.PlanPolicy;
 import com.urlshortener.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,6 +28,12 @@ public class SubscriptionService {
     @Autowired
     private com.urlshortener.repository.SubscriptionRepository subscriptionRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private AdminMetricsService adminMetrics;
+
     /**
      * Get all subscriptions (for admin)
      */
@@ -252,6 +262,21 @@ public class SubscriptionService {
         userRepository.save(user);
     }
 
+    /**
+     * Increment URL usage for a whole batch with a single atomic $inc
+     */
+    public void incrementUrlUsage(String userId, int count) {
+        if (userId == null || count <= 0)
+            return;
+
+        Update update = new Update()
+                .inc("dailyUrlsCreated", count)
+                .inc("monthlyUrlsCreated", count)
+                .inc("totalUrls", count)
+                .set("updatedAt", LocalDateTime.now());
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(userId)), update, User.class);
+    }
+
     // ... (Increment methods for QR and Files remain similar, just calling save)
 
     public void incrementQrCodeUsage(String userId) {
@@ -322,6 +347,7 @@ public class SubscriptionService {
             return;
 
         User user = userOpt.get();
+        String previousPlan = user.getSubscriptionPlan();
         user.setSubscriptionPlan(planType);
         user.setSubscriptionId(subscriptionId);
         user.setCustomerId(customerId);
@@ -338,6 +364,7 @@ public class SubscriptionService {
         user.setUpdatedAt(LocalDateTime.now());
 
         userRepository.save(user);
+        adminMetrics.planChanged(previousPlan, planType);
         logger.info("Upgraded user {} to plan: {}", userId, planType);
     }
 
@@ -456,6 +483,34 @@ public class SubscriptionService {
         return Math.max(0, limit - user.getMonthlyFilesUploaded());
     }
 
+    /**
+     * Remaining URL quota and link feature flags from a single user read,
+     * so a bulk request checks its plan once instead of per link
+     */
+    public UrlQuota getUrlQuota(String userId) {
+        Optional<User> userOpt = userRepository.findById(userId);
+        if (userOpt.isEmpty())
+            return new UrlQuota(0, false, false, false);
+
+        User user = userOpt.get();
+        resetDailyUsageIfNeeded(user);
+        resetMonthlyUsageIfNeeded(user);
+
+        if (isInTrialPeriod(user))
+            return new UrlQuota(Integer.MAX_VALUE, true, true, true);
+
+        PlanPolicy policy = PlanPolicy.fromString(user.getSubscriptionPlan());
+        if (policy != PlanPolicy.FREE && !isSubscriptionActive(user))
+            policy = PlanPolicy.FREE;
+
+        int limit = policy.getUrlsPerMonth();
+        int remaining = limit == Integer.MAX_VALUE ? Integer.MAX_VALUE
+                : Math.max(0, limit - user.getMonthlyUrlsCreated());
+
+        return new UrlQuota(remaining, policy.hasFeature("customAlias"),
+                policy.hasFeature("passwordProtection"), policy.hasFeature("linkExpiration"));
+    }
+
     /**
      * Get user's current plan info
      */
@@ -500,16 +555,37 @@ public class SubscriptionService {
                 continue;
 
             if (user.getSubscriptionExpiry() != null && user.getSubscriptionExpiry().isBefore(now)) {
+                String previousPlan = user.getSubscriptionPlan();
                 user.setSubscriptionPlan(FREE_PLAN);
                 user.setSubscriptionId(null);
                 user.setSubscriptionExpiry(null);
                 user.setUpdatedAt(now);
                 userRepository.save(user);
+                adminMetrics.planChanged(previousPlan, FREE_PLAN);
                 expiredCount++;
             }
         }
     }
 
+    public static class UrlQuota {
+        private final int remainingUrls;
+        private final boolean customAlias;
+        private final boolean passwordProtection;
+        private final boolean linkExpiration;
+
+        public UrlQuota(int remainingUrls, boolean customAlias, boolean passwordProtection, boolean linkExpiration) {
+            this.remainingUrls = remainingUrls;
+            this.customAlias = customAlias;
+            this.passwordProtection = passwordProtection;
+            this.linkExpiration = linkExpiration;
+        }
+
+        public int getRemainingUrls() { return remainingUrls; }
+        public boolean canUseCustomAlias() { return customAlias; }
+        public boolean canUsePasswordProtection() { return passwordProtection; }
+        public boolean canSetExpiration() { return linkExpiration; }
+    }
+
     public static class UserPlanInfo {
         private String plan;
         private boolean hasPremiumAccess;
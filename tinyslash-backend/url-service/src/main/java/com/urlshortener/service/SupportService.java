@@ -1,5 +1,6 @@
 package com.urlshortener.service;
 
+import com.urlshortener.dto.CursorPage;
 import com.urlshortener.model.SupportTicket;
 import com.urlshortener.model.SupportResponse;
 import com.urlshortener.model.User;
@@ -11,6 +12,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,6 +36,9 @@ public class SupportService {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private KeysetPaginationService keysetPagination;
+
     /**
      * Get all tickets (Admin)
      */
@@ -41,6 +46,13 @@ public class SupportService {
         return supportTicketRepository.findAll(Sort.by(Sort.Direction.DESC, "createdAt"));
     }
 
+    /**
+     * Get one page of all tickets, newest first (Admin)
+     */
+    public CursorPage<SupportTicket> getAllTicketsPage(String cursor, Integer limit) {
+        return keysetPagination.find(new Criteria(), "createdAt", cursor, limit, SupportTicket.class);
+    }
+
     /**
      * Create a new support ticket
      */
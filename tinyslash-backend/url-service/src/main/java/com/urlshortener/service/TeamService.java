@@ -22,16 +22,19 @@ public class TeamService {
     private final TeamInviteRepository teamInviteRepository;
     private final UserRepository userRepository;
     private final EmailService emailService;
+    private final AdminMetricsService adminMetrics;
 
     @Autowired
     public TeamService(TeamRepository teamRepository,
             TeamInviteRepository teamInviteRepository,
             UserRepository userRepository,
-            EmailService emailService) {
+            EmailService emailService,
+            AdminMetricsService adminMetrics) {
         this.teamRepository = teamRepository;
         this.teamInviteRepository = teamInviteRepository;
         this.userRepository = userRepository;
         this.emailService = emailService;
+        this.adminMetrics = adminMetrics;
     }
 
     // Create a new team
@@ -55,6 +58,7 @@ public class TeamService {
         updateTeamLimits(team, "FREE");
 
         Team savedTeam = teamRepository.save(team);
+        adminMetrics.increment(AdminMetricsService.Metric.TEAMS, 1);
 
         // Auto-provision 7-day business trial for new teams
         if ("FREE".equals(savedTeam.getSubscriptionPlan())) {
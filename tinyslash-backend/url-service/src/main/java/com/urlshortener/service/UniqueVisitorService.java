@@ -0,0 +1,268 @@
+package com.urlshortener.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Unique-visitor counting with HyperLogLog sketches.
+ *
+ * One sketch is kept per link and per user for each day. Week and month
+ * figures are unions of the daily sketches, so every estimate is O(1) in the
+ * number of clicks. Sketches live in Redis (PFADD/PFCOUNT) when it is
+ * configured, expiring retention-days after their day, otherwise in a local
+ * in-memory store for spring.cache.type=simple (single node, lost on
+ * restart, pruned after the retention window). The local
+ * store also stands in while Redis is unreachable, so it is capped at
+ * local-max-sketches: when full, the oldest days are dropped first and new
+ * keys for today are not tracked until there is room again.
+ */
+@Service
+public class UniqueVisitorService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UniqueVisitorService.class);
+    private static final String KEY_PREFIX = "pebly:hll:";
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    @Autowired(required = false)
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Value("${app.unique-visitors.retention-days:40}")
+    private int retentionDays;
+
+    @Value("${app.unique-visitors.local-precision:12}")
+    private int localPrecision;
+
+    @Value("${app.unique-visitors.local-max-sketches:10000}")
+    private int localMaxSketches;
+
+    private final Map<String, HyperLogLog> localSketches = new ConcurrentHashMap<>();
+
+    /**
+     * Add a batch of visitors to the link's daily sketch
+     *
+     * @return how much the day's estimate grew, i.e. roughly how many of the
+     *         visitors had not been seen on this link that day
+     */
+    public long recordLinkVisits(String shortCode, Collection<String> visitorIds, LocalDate day) {
+        if (visitorIds.isEmpty()) {
+            return 0;
+        }
+        String key = linkKey(shortCode, day);
+        long before = count(List.of(key));
+        add(key, day, visitorIds);
+        long after = count(List.of(key));
+        // The estimate can wobble slightly where linear counting hands over
+        return Math.max(0, Math.min(after - before, visitorIds.size()));
+    }
+
+    /**
+     * Add a batch of visitors to a user's daily sketch
+     */
+    public void recordUserVisits(String userId, Collection<String> visitorIds, LocalDate day) {
+        if (userId == null || visitorIds.isEmpty()) {
+            return;
+        }
+        add(userKey(userId, day), day, visitorIds);
+    }
+
+    public long countLinkVisitors(String shortCode, LocalDate from, LocalDate to) {
+        List<String> keys = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            keys.add(linkKey(shortCode, day));
+        }
+        return count(keys);
+    }
+
+    public long countUserVisitors(String userId, LocalDate from, LocalDate to) {
+        List<String> keys = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            keys.add(userKey(userId, day));
+        }
+        return count(keys);
+    }
+
+    private void add(String key, LocalDate day, Collection<String> visitorIds) {
+        if (redisTemplate != null) {
+            // The expiry is absolute, so setting it on every add is idempotent
+            // and nothing has to remember which keys already have one
+            Date expiresAt = Date.from(day.plusDays(retentionDays + 1L).atStartOfDay(ZoneId.systemDefault()).toInstant());
+            Object[] values = visitorIds.toArray();
+            try {
+                redisTemplate.executePipelined(new SessionCallback<Object>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public <K, V> Object execute(RedisOperations<K, V> operations) {
+                        RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                        ops.opsForHyperLogLog().add(key, values);
+                        ops.expireAt(key, expiresAt);
+                        return null;
+                    }
+                });
+                return;
+            } catch (Exception e) {
+                logger.warn("Redis HyperLogLog add failed for {}, using local sketch: {}", key, e.getMessage());
+            }
+        }
+
+        HyperLogLog sketch = localSketches.get(key);
+        if (sketch == null) {
+            if (localSketches.size() >= localMaxSketches && !evictOldestLocalDay()) {
+                logger.debug("Local unique-visitor store is full, not tracking {}", key);
+                return;
+            }
+            sketch = localSketches.computeIfAbsent(key, k -> new HyperLogLog(localPrecision));
+        }
+        for (String visitorId : visitorIds) {
+            sketch.offer(visitorId);
+        }
+    }
+
+    /**
+     * Drop the local sketches of the oldest day before today
+     *
+     * @return false if only today's sketches are left
+     */
+    private synchronized boolean evictOldestLocalDay() {
+        if (localSketches.size() < localMaxSketches) {
+            return true;
+        }
+        String today = LocalDate.now().format(DAY_FORMAT);
+        String oldest = localSketches.keySet().stream()
+                .map(UniqueVisitorService::dayOf)
+                .filter(day -> day.compareTo(today) < 0)
+                .min(String::compareTo)
+                .orElse(null);
+        if (oldest == null) {
+            return false;
+        }
+        int before = localSketches.size();
+        localSketches.keySet().removeIf(key -> dayOf(key).equals(oldest));
+        logger.info("Local unique-visitor store full, dropped {} sketches from {}",
+                before - localSketches.size(), oldest);
+        return true;
+    }
+
+    private long count(List<String> keys) {
+        if (redisTemplate != null) {
+            try {
+                Long estimate = redisTemplate.opsForHyperLogLog().size(keys.toArray(new String[0]));
+                return estimate != null ? estimate : 0L;
+            } catch (Exception e) {
+                logger.warn("Redis HyperLogLog count failed, using local sketches: {}", e.getMessage());
+            }
+        }
+
+        HyperLogLog union = new HyperLogLog(localPrecision);
+        for (String key : keys) {
+            HyperLogLog sketch = localSketches.get(key);
+            if (sketch != null) {
+                union.merge(sketch);
+            }
+        }
+        return union.estimate();
+    }
+
+    /**
+     * Drop local sketches that fell out of the retention window
+     */
+    @Scheduled(cron = "0 15 0 * * *")
+    public void pruneExpiredSketches() {
+        String cutoff = LocalDate.now().minusDays(retentionDays).format(DAY_FORMAT);
+        int before = localSketches.size();
+        localSketches.keySet().removeIf(key -> dayOf(key).compareTo(cutoff) < 0);
+        logger.info("Pruned {} expired local unique-visitor sketches", before - localSketches.size());
+    }
+
+    private static String dayOf(String key) {
+        return key.substring(key.lastIndexOf(':') + 1);
+    }
+
+    private static String linkKey(String shortCode, LocalDate day) {
+        return KEY_PREFIX + "link:" + shortCode + ":" + day.format(DAY_FORMAT);
+    }
+
+    private static String userKey(String userId, LocalDate day) {
+        return KEY_PREFIX + "user:" + userId + ":" + day.format(DAY_FORMAT);
+    }
+
+    /**
+     * Minimal dense HyperLogLog (Flajolet et al.) with the small-range
+     * linear-counting correction. Register updates are racy but monotonic,
+     * which only ever costs a negligible under-count.
+     */
+    static final class HyperLogLog {
+
+        private final int precision;
+        private final byte[] registers;
+
+        HyperLogLog(int precision) {
+            this.precision = precision;
+            this.registers = new byte[1 << precision];
+        }
+
+        boolean offer(String value) {
+            long hash = hash64(value);
+            int index = (int) (hash >>> (64 - precision));
+            byte rank = (byte) (Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1);
+            if (registers[index] < rank) {
+                registers[index] = rank;
+                return true;
+            }
+            return false;
+        }
+
+        void merge(HyperLogLog other) {
+            for (int i = 0; i < registers.length; i++) {
+                if (other.registers[i] > registers[i]) {
+                    registers[i] = other.registers[i];
+                }
+            }
+        }
+
+        long estimate() {
+            int m = registers.length;
+            double sum = 0;
+            int zeros = 0;
+            for (byte register : registers) {
+                sum += 1.0 / (1L << register);
+                if (register == 0) {
+                    zeros++;
+                }
+            }
+            double alpha = 0.7213 / (1 + 1.079 / m);
+            double estimate = alpha * m * m / sum;
+            if (estimate <= 2.5 * m && zeros > 0) {
+                estimate = m * Math.log((double) m / zeros);
+            }
+            return Math.round(estimate);
+        }
+
+        private static long hash64(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+            hash = (hash ^ (hash >>> 33)) * 0xc4ceb1a5bfe8d7c5L;
+            return hash ^ (hash >>> 33);
+        }
+    }
+}
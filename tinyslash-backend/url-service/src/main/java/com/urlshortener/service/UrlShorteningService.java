@@ -1,7 +1,9 @@
 package com.urlshortener.service;
 
+import com.urlshortener.dto.CursorPage;
 import com.urlshortener.model.ShortenedUrl;
 import com.urlshortener.model.User;
+import com.urlshortener.model.UtmTags;
 import com.urlshortener.repository.ShortenedUrlRepository;
 import com.urlshortener.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,13 +11,27 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Optional;
-import java.util.Random;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 public class UrlShorteningService {
@@ -26,23 +42,45 @@ public class UrlShorteningService {
     private final UserRepository userRepository;
     private final CacheService cacheService;
     private final SubscriptionService subscriptionService;
+    private final RedirectResolver redirectResolver;
+    private final ShortCodeFilterService shortCodeFilter;
+    private final ShortCodeAllocator shortCodeAllocator;
+    private final MongoTemplate mongoTemplate;
+    private final KeysetPaginationService keysetPagination;
+    private final AdminMetricsService adminMetrics;
 
     @Autowired
     public UrlShorteningService(ShortenedUrlRepository shortenedUrlRepository,
             UserRepository userRepository,
             CacheService cacheService,
-            SubscriptionService subscriptionService) {
+            SubscriptionService subscriptionService,
+            RedirectResolver redirectResolver,
+            ShortCodeFilterService shortCodeFilter,
+            ShortCodeAllocator shortCodeAllocator,
+            MongoTemplate mongoTemplate,
+            KeysetPaginationService keysetPagination,
+            AdminMetricsService adminMetrics) {
         this.shortenedUrlRepository = shortenedUrlRepository;
         this.userRepository = userRepository;
         this.cacheService = cacheService;
         this.subscriptionService = subscriptionService;
+        this.redirectResolver = redirectResolver;
+        this.shortCodeFilter = shortCodeFilter;
+        this.shortCodeAllocator = shortCodeAllocator;
+        this.mongoTemplate = mongoTemplate;
+        this.keysetPagination = keysetPagination;
+        this.adminMetrics = adminMetrics;
     }
 
     @Value("${app.shorturl.domain:https://pebly.vercel.app}")
     private String shortUrlDomain;
 
-    private static final String CHARACTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
-    private static final int SHORT_CODE_LENGTH = 6;
+    // Allocated codes can only collide with legacy random codes or custom aliases
+    private static final int MAX_CODE_ATTEMPTS = 5;
+    private static final String DUPLICATE_KEY = "duplicate key";
+
+    @Value("${app.bulk-urls.chunk-size:1000}")
+    private int bulkChunkSize;
 
     public ShortenedUrl createShortUrl(String originalUrl, String userId, String customAlias,
             String password, Integer expirationDays, Integer maxClicks, String title, String description) {
@@ -88,80 +126,278 @@ public class UrlShorteningService {
 
         // Generate or validate short code
         String shortCode;
-        if (customAlias != null && !customAlias.trim().isEmpty()) {
+        boolean generatedCode = customAlias == null || customAlias.trim().isEmpty();
+        if (!generatedCode) {
             if (shortenedUrlRepository.existsByCustomAlias(customAlias)) {
                 throw new RuntimeException("Custom alias already exists");
             }
             shortCode = customAlias;
         } else {
-            shortCode = generateUniqueShortCode();
+            shortCode = shortCodeAllocator.nextCode();
         }
 
         // Create shortened URL
-        ShortenedUrl shortenedUrl = new ShortenedUrl(originalUrl, shortCode, userId, scopeType, scopeId);
+        ShortenedUrl shortenedUrl = buildShortenedUrl(originalUrl, shortCode, userId, customAlias, password,
+                expirationDays, maxClicks, title, description, scopeType, scopeId, customDomain);
+
+        // Save to database; the unique shortCode index is the only collision check
+        ShortenedUrl saved = null;
+        for (int attempt = 1; saved == null; attempt++) {
+            try {
+                saved = shortenedUrlRepository.save(shortenedUrl);
+            } catch (DuplicateKeyException e) {
+                if (!generatedCode || attempt >= MAX_CODE_ATTEMPTS) {
+                    throw e;
+                }
+                logger.warn("Allocated short code {} is already taken, allocating another", shortCode);
+                shortCode = shortCodeAllocator.nextCode();
+                shortenedUrl.setShortCode(shortCode);
+                shortenedUrl.setShortUrl(buildShortUrl(customDomain, shortCode, shortenedUrl.isPasswordProtected()));
+            }
+        }
+        shortCodeFilter.add(shortCode);
+        adminMetrics.increment(AdminMetricsService.Metric.LINKS, 1);
 
-        // Set password protection first (before generating short URL)
-        boolean isPasswordProtected = password != null && !password.trim().isEmpty();
-        if (isPasswordProtected) {
-            shortenedUrl.setPassword(password);
-            shortenedUrl.setPasswordProtected(true);
+        // Update user statistics and usage tracking
+        if (userId != null) {
+            updateUserStats(userId);
+            subscriptionService.incrementUrlUsage(userId);
+            // Invalidate user URLs cache
+            cacheService.evictUserPages("userUrls", userId);
         }
 
-        // Set the complete short URL with custom domain or default domain
-        String domainToUse = customDomain != null ? customDomain : shortUrlDomain;
-        String baseUrl = domainToUse.startsWith("http") ? domainToUse : "https://" + domainToUse;
+        logger.info("Created short URL: {} for user: {}", shortCode, userId);
 
-        // For password-protected links, use /redirect/ path
-        String fullShortUrl;
-        if (isPasswordProtected) {
-            fullShortUrl = baseUrl + "/redirect/" + shortCode;
-        } else {
-            fullShortUrl = baseUrl + "/" + shortCode;
+        return saved;
+    }
+
+    /**
+     * Create many short URLs for one owner.
+     *
+     * Items are validated in parallel, the plan is checked once for the whole
+     * batch, codes come from the block allocator and each chunk is written with
+     * one unordered insertMany. Usage counters are bumped with a single $inc at
+     * the end. Per-item results are handed to the sink chunk by chunk, in input
+     * order, so the caller can stream them back.
+     */
+    public int createShortUrlsBatch(String userId, String scopeType, String scopeId, String customDomain,
+            List<Map<String, Object>> items, Consumer<Map<String, Object>> results) {
+        SubscriptionService.UrlQuota quota = subscriptionService.getUrlQuota(userId);
+        int remaining = quota.getRemainingUrls();
+        int created = 0;
+
+        try {
+            for (int from = 0; from < items.size(); from += bulkChunkSize) {
+                int to = Math.min(items.size(), from + bulkChunkSize);
+                int offset = from;
+
+                // Stateless validation runs in parallel; quota and alias checks are sequential
+                List<BatchItem> chunk = IntStream.range(from, to).parallel()
+                        .mapToObj(i -> validateBatchItem(i, items.get(i), quota))
+                        .collect(Collectors.toList());
+
+                rejectTakenAliases(chunk);
+                for (BatchItem item : chunk) {
+                    if (item.error == null) {
+                        if (remaining <= 0) {
+                            item.error = "Monthly URL limit reached. Upgrade your plan to create more URLs.";
+                        } else if (remaining != Integer.MAX_VALUE) {
+                            remaining--;
+                        }
+                    }
+                }
+
+                created += insertBatch(chunk, userId, scopeType, scopeId, customDomain);
+
+                for (BatchItem item : chunk) {
+                    results.accept(item.toResult());
+                }
+                logger.debug("Processed batch items {}-{} for user: {}", offset, to - 1, userId);
+            }
+        } finally {
+            if (created > 0) {
+                adminMetrics.increment(AdminMetricsService.Metric.LINKS, created);
+                subscriptionService.incrementUrlUsage(userId, created);
+                cacheService.evictUserPages("userUrls", userId);
+            }
         }
-        shortenedUrl.setShortUrl(fullShortUrl);
 
-        // Store the domain for multi-tenant support
-        if (customDomain != null) {
-            // For custom domains, store the custom domain
-            shortenedUrl.setDomain(customDomain);
-        } else {
-            // For default domain URLs, store the default domain (not the original URL's
-            // domain)
-            String defaultDomain = extractDomainFromUrl(shortUrlDomain);
-            shortenedUrl.setDomain(defaultDomain);
+        logger.info("Created {} of {} short URLs in batch for user: {}", created, items.size(), userId);
+        return created;
+    }
+
+    private BatchItem validateBatchItem(int index, Map<String, Object> request, SubscriptionService.UrlQuota quota) {
+        BatchItem item = new BatchItem(index);
+        if (request == null) {
+            item.error = "Entry must be a JSON object";
+            return item;
         }
 
-        shortenedUrl.setCustomAlias(customAlias);
-        shortenedUrl.setTitle(title);
-        shortenedUrl.setDescription(description);
+        item.originalUrl = asString(request.get("originalUrl"));
+        item.customAlias = asString(request.get("customAlias"));
+        item.password = asString(request.get("password"));
+        item.title = asString(request.get("title"));
+        item.description = asString(request.get("description"));
 
-        // Set expiration
-        if (expirationDays != null && expirationDays > 0) {
-            shortenedUrl.setExpiresAt(LocalDateTime.now().plusDays(expirationDays));
+        try {
+            item.expirationDays = asInteger(request.get("expirationDays"));
+            item.maxClicks = asInteger(request.get("maxClicks"));
+        } catch (NumberFormatException e) {
+            item.error = "expirationDays and maxClicks must be numbers";
+            return item;
         }
 
-        // Set max clicks limit
-        if (maxClicks != null && maxClicks > 0) {
-            shortenedUrl.setMaxClicks(maxClicks);
+        boolean hasAlias = item.customAlias != null && !item.customAlias.trim().isEmpty();
+        if (item.originalUrl == null || item.originalUrl.trim().isEmpty()) {
+            item.error = "Original URL is required";
+        } else if (!isValidUrl(item.originalUrl)) {
+            item.error = "Invalid URL format";
+        } else if (hasAlias && !quota.canUseCustomAlias()) {
+            item.error = "Custom aliases are available with Premium plans only.";
+        } else if (item.password != null && !item.password.trim().isEmpty() && !quota.canUsePasswordProtection()) {
+            item.error = "Password protection is available with Premium plans only.";
+        } else if (item.expirationDays != null && item.expirationDays > 0 && !quota.canSetExpiration()) {
+            item.error = "Link expiration is available with Premium plans only.";
+        }
+
+        if (!hasAlias) {
+            item.customAlias = null;
         }
+        return item;
+    }
 
-        // Note: Domain is already set above for custom domains
-        // Don't overwrite the custom domain with the original URL's domain
+    /**
+     * Reject aliases repeated within the chunk or already in use, with one query
+     */
+    private void rejectTakenAliases(List<BatchItem> chunk) {
+        Map<String, BatchItem> byAlias = new HashMap<>();
+        for (BatchItem item : chunk) {
+            if (item.error == null && item.customAlias != null && byAlias.putIfAbsent(item.customAlias, item) != null) {
+                item.error = "Custom alias already exists";
+            }
+        }
+        if (byAlias.isEmpty()) {
+            return;
+        }
 
-        // Save to database
-        ShortenedUrl saved = shortenedUrlRepository.save(shortenedUrl);
+        Query query = Query.query(new Criteria().orOperator(
+                Criteria.where("shortCode").in(byAlias.keySet()),
+                Criteria.where("customAlias").in(byAlias.keySet())));
+        query.fields().include("shortCode").include("customAlias");
+        for (ShortenedUrl existing : mongoTemplate.find(query, ShortenedUrl.class)) {
+            for (String taken : new String[] { existing.getShortCode(), existing.getCustomAlias() }) {
+                BatchItem item = taken != null ? byAlias.get(taken) : null;
+                if (item != null) {
+                    item.error = "Custom alias already exists";
+                }
+            }
+        }
+    }
 
-        // Update user statistics and usage tracking
-        if (userId != null) {
-            updateUserStats(userId);
-            subscriptionService.incrementUrlUsage(userId);
-            // Invalidate user URLs cache
-            cacheService.clearCache("userUrls", userId);
+    /**
+     * Unordered insertMany of the valid items. Generated codes that hit a
+     * legacy code are re-allocated and retried; other failures are reported.
+     */
+    private int insertBatch(List<BatchItem> chunk, String userId, String scopeType, String scopeId,
+            String customDomain) {
+        List<BatchItem> pending = new ArrayList<>();
+        for (BatchItem item : chunk) {
+            if (item.error == null) {
+                pending.add(item);
+            }
         }
 
-        logger.info("Created short URL: {} for user: {}", shortCode, userId);
+        int inserted = 0;
+        for (int attempt = 1; !pending.isEmpty(); attempt++) {
+            List<ShortenedUrl> documents = new ArrayList<>(pending.size());
+            int generated = (int) pending.stream().filter(item -> item.customAlias == null).count();
+            Iterator<String> codes = shortCodeAllocator.nextCodes(generated).iterator();
+            for (BatchItem item : pending) {
+                String shortCode = item.customAlias != null ? item.customAlias : codes.next();
+                item.url = buildShortenedUrl(item.originalUrl, shortCode, userId, item.customAlias, item.password,
+                        item.expirationDays, item.maxClicks, item.title, item.description, scopeType, scopeId,
+                        customDomain);
+                documents.add(item.url);
+            }
 
-        return saved;
+            Map<Integer, String> failures = new HashMap<>();
+            try {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ShortenedUrl.class)
+                        .insert(documents)
+                        .execute();
+            } catch (BulkOperationException e) {
+                e.getErrors().forEach(error -> failures.put(error.getIndex(),
+                        error.getCode() == 11000 ? DUPLICATE_KEY : error.getMessage()));
+            } catch (Exception e) {
+                logger.error("Batch insert of {} URLs failed: {}", documents.size(), e.getMessage());
+                pending.forEach(item -> item.error = "Failed to save URL");
+                break;
+            }
+
+            List<BatchItem> retry = new ArrayList<>();
+            List<String> created = new ArrayList<>(pending.size());
+            for (int i = 0; i < pending.size(); i++) {
+                BatchItem item = pending.get(i);
+                String failure = failures.get(i);
+                if (failure == null) {
+                    created.add(item.url.getShortCode());
+                    inserted++;
+                } else if (DUPLICATE_KEY.equals(failure) && item.customAlias == null
+                        && attempt < MAX_CODE_ATTEMPTS) {
+                    retry.add(item);
+                } else {
+                    item.error = DUPLICATE_KEY.equals(failure) ? "Custom alias already exists" : failure;
+                }
+            }
+            shortCodeFilter.addAll(created);
+            pending = retry;
+        }
+        return inserted;
+    }
+
+    private static String asString(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    private static Integer asInteger(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        if (value instanceof String && !((String) value).isEmpty()) {
+            return Integer.parseInt((String) value);
+        }
+        return null;
+    }
+
+    private static final class BatchItem {
+        private final int index;
+        private String originalUrl;
+        private String customAlias;
+        private String password;
+        private String title;
+        private String description;
+        private Integer expirationDays;
+        private Integer maxClicks;
+        private ShortenedUrl url;
+        private String error;
+
+        private BatchItem(int index) {
+            this.index = index;
+        }
+
+        private Map<String, Object> toResult() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("index", index);
+            result.put("success", error == null);
+            if (error == null) {
+                result.put("shortCode", url.getShortCode());
+                result.put("shortUrl", url.getShortUrl());
+                result.put("originalUrl", url.getOriginalUrl());
+            } else {
+                result.put("message", error);
+            }
+            return result;
+        }
     }
 
     public Optional<ShortenedUrl> getByShortCode(String shortCode) {
@@ -193,26 +429,17 @@ public class UrlShorteningService {
      * Direct database lookup without caching (fallback method)
      */
     public Optional<ShortenedUrl> getByShortCodeAndDomainDirect(String shortCode, String domain) {
-        try {
-            // First try to find by shortCode and exact domain match
-            Optional<ShortenedUrl> urlOpt = shortenedUrlRepository.findByShortCodeAndDomain(shortCode, domain);
-
-            // If not found and we have a domain, try some fallback strategies
-            if (urlOpt.isEmpty() && domain != null) {
-                String defaultDomain = extractDomainFromUrl(shortUrlDomain);
-
-                // For default domain requests, also try with null domain (legacy URLs)
-                if (domain.equals(defaultDomain)) {
-                    urlOpt = shortenedUrlRepository.findByShortCodeAndDomain(shortCode, null);
-                }
+        if (!shortCodeFilter.mightContain(shortCode)) {
+            return Optional.empty();
+        }
 
-                // If still not found, try shortCode only (most permissive)
-                if (urlOpt.isEmpty()) {
-                    urlOpt = shortenedUrlRepository.findByShortCode(shortCode);
-                }
+        try {
+            // Short codes are globally unique, so every domain fallback used to end
+            // at the shortCode-only lookup anyway: resolve it in one indexed query
+            if (domain == null) {
+                return shortenedUrlRepository.findByShortCodeAndDomain(shortCode, null);
             }
-
-            return urlOpt;
+            return shortenedUrlRepository.findByShortCode(shortCode);
         } catch (Exception e) {
             logger.error("Database lookup failed for shortCode: {} domain: {}", shortCode, domain, e);
             return Optional.empty();
@@ -227,6 +454,67 @@ public class UrlShorteningService {
         return shortenedUrlRepository.findByShortCode(shortCode);
     }
 
+    private ShortenedUrl buildShortenedUrl(String originalUrl, String shortCode, String userId, String customAlias,
+            String password, Integer expirationDays, Integer maxClicks, String title, String description,
+            String scopeType, String scopeId, String customDomain) {
+        ShortenedUrl shortenedUrl = new ShortenedUrl(originalUrl, shortCode, userId, scopeType, scopeId);
+
+        // Campaign parameters are parsed once here and travel with the redirect entry
+        UtmTags utm = UtmTags.fromUrl(originalUrl);
+        if (utm != null) {
+            shortenedUrl.setUtmSource(utm.getSource());
+            shortenedUrl.setUtmMedium(utm.getMedium());
+            shortenedUrl.setUtmCampaign(utm.getCampaign());
+            shortenedUrl.setUtmTerm(utm.getTerm());
+            shortenedUrl.setUtmContent(utm.getContent());
+        }
+
+        // Set password protection first (before generating short URL)
+        boolean isPasswordProtected = password != null && !password.trim().isEmpty();
+        if (isPasswordProtected) {
+            shortenedUrl.setPassword(password);
+            shortenedUrl.setPasswordProtected(true);
+        }
+
+        // Set the complete short URL with custom domain or default domain
+        shortenedUrl.setShortUrl(buildShortUrl(customDomain, shortCode, isPasswordProtected));
+
+        // Store the domain for multi-tenant support
+        if (customDomain != null) {
+            // For custom domains, store the custom domain
+            shortenedUrl.setDomain(customDomain);
+        } else {
+            // For default domain URLs, store the default domain (not the original URL's
+            // domain)
+            String defaultDomain = extractDomainFromUrl(shortUrlDomain);
+            shortenedUrl.setDomain(defaultDomain);
+        }
+
+        shortenedUrl.setCustomAlias(customAlias);
+        shortenedUrl.setTitle(title);
+        shortenedUrl.setDescription(description);
+
+        // Set expiration
+        if (expirationDays != null && expirationDays > 0) {
+            shortenedUrl.setExpiresAt(LocalDateTime.now().plusDays(expirationDays));
+        }
+
+        // Set max clicks limit
+        if (maxClicks != null && maxClicks > 0) {
+            shortenedUrl.setMaxClicks(maxClicks);
+        }
+
+        return shortenedUrl;
+    }
+
+    private String buildShortUrl(String customDomain, String shortCode, boolean isPasswordProtected) {
+        String domainToUse = customDomain != null ? customDomain : shortUrlDomain;
+        String baseUrl = domainToUse.startsWith("http") ? domainToUse : "https://" + domainToUse;
+
+        // For password-protected links, use /redirect/ path
+        return isPasswordProtected ? baseUrl + "/redirect/" + shortCode : baseUrl + "/" + shortCode;
+    }
+
     private String extractDomainFromUrl(String url) {
         try {
             java.net.URL parsedUrl = new java.net.URL(url);
@@ -236,7 +524,6 @@ public class UrlShorteningService {
         }
     }
 
-    @Cacheable(value = "userUrls", key = "#userId")
     public List<ShortenedUrl> getUserUrls(String userId) {
         logger.debug("Fetching URLs for user: {}", userId);
         return shortenedUrlRepository.findByUserIdAndIsActiveTrue(userId);
@@ -248,6 +535,13 @@ public class UrlShorteningService {
         return shortenedUrlRepository.findByScopeTypeAndScopeIdAndIsActiveTrue(scopeType, scopeId);
     }
 
+    // One page of a scope's URLs, newest first
+    public CursorPage<ShortenedUrl> getUrlsByScopePage(String scopeType, String scopeId, String cursor, Integer limit) {
+        logger.debug("Fetching URL page for scope: {} - {}", scopeType, scopeId);
+        return keysetPagination.find(Criteria.where("scopeType").is(scopeType).and("scopeId").is(scopeId)
+                .and("isActive").is(true), "createdAt", cursor, limit, ShortenedUrl.class);
+    }
+
     // Get team URLs (for team members)
     public List<ShortenedUrl> getTeamUrls(String teamId) {
         return getUrlsByScope("TEAM", teamId);
@@ -286,11 +580,13 @@ public class UrlShorteningService {
             existing.setNotes(updates.getNotes());
 
         existing.setUpdatedAt(LocalDateTime.now());
+        existing.setRedirectVersion(existing.getRedirectVersion() + 1);
 
         ShortenedUrl updated = shortenedUrlRepository.save(existing);
 
         // Invalidate relevant caches
-        cacheService.clearCache("userUrls", userId);
+        redirectResolver.invalidate(shortCode, updated.getRedirectVersion());
+        cacheService.evictUserPages("userUrls", userId);
         cacheService.invalidateUrlAnalytics(shortCode, userId);
 
         logger.info("Updated URL: {} for user: {}", shortCode, userId);
@@ -300,13 +596,14 @@ public class UrlShorteningService {
 
     @CacheEvict(value = { "clickCounts", "urlAnalytics", "userAnalytics" }, key = "#shortCode")
     public void incrementClicks(String shortCode) {
-        Optional<ShortenedUrl> urlOpt = shortenedUrlRepository.findByShortCode(shortCode);
-        if (urlOpt.isPresent()) {
-            ShortenedUrl url = urlOpt.get();
-            url.setTotalClicks(url.getTotalClicks() + 1);
-            url.setLastClickedAt(LocalDateTime.now());
-            shortenedUrlRepository.save(url);
-
+        // Atomic $inc instead of read-modify-save, so concurrent clicks are not lost
+        Update update = new Update()
+                .inc("totalClicks", 1)
+                .set("lastClickedAt", LocalDateTime.now());
+        ShortenedUrl url = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("shortCode").is(shortCode)), update, ShortenedUrl.class);
+
+        if (url != null) {
             // Invalidate user analytics cache
             cacheService.invalidateUserAnalytics(url.getUserId());
 
@@ -330,34 +627,16 @@ public class UrlShorteningService {
 
         // Hard delete - actually remove from database
         shortenedUrlRepository.delete(existing);
+        adminMetrics.increment(AdminMetricsService.Metric.LINKS, -1);
 
         // Invalidate relevant caches
-        cacheService.clearCache("userUrls", userId);
+        redirectResolver.invalidate(shortCode, existing.getRedirectVersion() + 1);
+        cacheService.evictUserPages("userUrls", userId);
         cacheService.invalidateUrlAnalytics(shortCode, userId);
 
         logger.info("Permanently deleted URL: {} for user: {}", shortCode, userId);
     }
 
-    private String generateUniqueShortCode() {
-        String shortCode;
-        do {
-            shortCode = generateRandomString(SHORT_CODE_LENGTH);
-        } while (shortenedUrlRepository.existsByShortCode(shortCode));
-
-        return shortCode;
-    }
-
-    private String generateRandomString(int length) {
-        Random random = new Random();
-        StringBuilder sb = new StringBuilder(length);
-
-        for (int i = 0; i < length; i++) {
-            sb.append(CHARACTERS.charAt(random.nextInt(CHARACTERS.length())));
-        }
-
-        return sb.toString();
-    }
-
     private boolean isValidUrl(String url) {
         try {
             new java.net.URL(url);
@@ -371,6 +650,10 @@ public class UrlShorteningService {
         return shortenedUrlRepository.findAll();
     }
 
+    public CursorPage<ShortenedUrl> getAllUrlsPage(String cursor, Integer limit) {
+        return keysetPagination.find(new Criteria(), "createdAt", cursor, limit, ShortenedUrl.class);
+    }
+
     private void updateUserStats(String userId) {
         Optional<User> userOpt = userRepository.findById(userId);
         if (userOpt.isPresent()) {
@@ -0,0 +1,225 @@
+package com.urlshortener.service;
+
+import eu.bitwalker.useragentutils.Browser;
+import eu.bitwalker.useragentutils.BrowserType;
+import eu.bitwalker.useragentutils.OperatingSystem;
+import eu.bitwalker.useragentutils.UserAgent;
+import eu.bitwalker.useragentutils.Version;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.PostConstruct;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cached user-agent parsing for click enrichment.
+ *
+ * Parsing a UA string walks UserAgentUtils' browser and OS pattern lists,
+ * which is far too slow to repeat for every click, while real traffic comes
+ * from a few thousand distinct strings. Parsed results are kept in a bounded
+ * concurrent map. Hits only set a reference bit; when the map outgrows its
+ * limit one thread sweeps it CLOCK-style, dropping entries that were not read
+ * since the previous sweep, down to 90% of the limit.
+ *
+ * Runs on the ingestion flusher, never on the request thread.
+ */
+@Service
+public class UserAgentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserAgentService.class);
+
+    // Longer strings are almost always junk or attacks; their tail adds nothing
+    private static final int MAX_USER_AGENT_LENGTH = 512;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.user-agent.cache-size:10000}")
+    private int cacheSize;
+
+    private final ConcurrentHashMap<String, Entry> cache = new ConcurrentHashMap<>();
+    private final ReentrantLock sweepLock = new ReentrantLock();
+
+    private Counter hitCounter;
+    private Counter missCounter;
+    private Counter evictionCounter;
+
+    @PostConstruct
+    public void initialize() {
+        hitCounter = Counter.builder("clicks.useragent.cache_hits")
+                .description("User-agent lookups answered from the parse cache")
+                .register(meterRegistry);
+        missCounter = Counter.builder("clicks.useragent.cache_misses")
+                .description("User-agent strings parsed because they were not cached")
+                .register(meterRegistry);
+        evictionCounter = Counter.builder("clicks.useragent.cache_evictions")
+                .description("Parsed user agents evicted from the cache")
+                .register(meterRegistry);
+        Gauge.builder("clicks.useragent.cache_size", cache, Map::size)
+                .description("Parsed user agents in the cache")
+                .register(meterRegistry);
+        Gauge.builder("clicks.useragent.cache_hit_ratio", this, UserAgentService::getHitRatio)
+                .description("Share of user-agent lookups answered from the cache")
+                .register(meterRegistry);
+
+        logger.info("User-agent parse cache limited to {} entries", cacheSize);
+    }
+
+    /**
+     * Parsed form of a user agent, or null for a missing one
+     */
+    public ParsedUserAgent parse(String userAgent) {
+        if (userAgent == null || userAgent.isBlank()) {
+            return null;
+        }
+        String key = userAgent.length() > MAX_USER_AGENT_LENGTH
+                ? userAgent.substring(0, MAX_USER_AGENT_LENGTH) : userAgent;
+
+        Entry entry = cache.get(key);
+        if (entry != null) {
+            entry.referenced = true;
+            hitCounter.increment();
+            return entry.parsed;
+        }
+
+        missCounter.increment();
+        ParsedUserAgent parsed = ParsedUserAgent.of(key);
+        cache.putIfAbsent(key, new Entry(parsed));
+        if (cache.size() > cacheSize) {
+            sweep();
+        }
+        return parsed;
+    }
+
+    /**
+     * Second-chance sweep: clear reference bits, evict what had none
+     */
+    private void sweep() {
+        if (!sweepLock.tryLock()) {
+            return;
+        }
+        try {
+            int target = (int) (cacheSize * 0.9);
+            int evicted = 0;
+            for (int pass = 0; pass < 2 && cache.size() > target; pass++) {
+                Iterator<Entry> it = cache.values().iterator();
+                while (it.hasNext() && cache.size() > target) {
+                    Entry entry = it.next();
+                    if (entry.referenced) {
+                        entry.referenced = false;
+                    } else {
+                        it.remove();
+                        evicted++;
+                    }
+                }
+            }
+            evictionCounter.increment(evicted);
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    public double getHitRatio() {
+        double hits = hitCounter.count();
+        double total = hits + missCounter.count();
+        return total == 0 ? 0.0 : hits / total;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("cacheSize", cache.size());
+        stats.put("cacheLimit", cacheSize);
+        stats.put("hits", (long) hitCounter.count());
+        stats.put("misses", (long) missCounter.count());
+        stats.put("evictions", (long) evictionCounter.count());
+        stats.put("hitRatio", getHitRatio());
+        return stats;
+    }
+
+    private static final class Entry {
+        private final ParsedUserAgent parsed;
+        private volatile boolean referenced;
+
+        private Entry(ParsedUserAgent parsed) {
+            this.parsed = parsed;
+        }
+    }
+
+    /**
+     * The click dimensions derived from one user-agent string
+     */
+    public static final class ParsedUserAgent {
+        private final String deviceType;
+        private final String operatingSystem;
+        private final String osVersion;
+        private final String browser;
+        private final String browserVersion;
+        private final String browserEngine;
+        private final boolean bot;
+        private final String botName;
+
+        private ParsedUserAgent(String deviceType, String operatingSystem, String osVersion, String browser,
+                String browserVersion, String browserEngine, boolean bot, String botName) {
+            this.deviceType = deviceType;
+            this.operatingSystem = operatingSystem;
+            this.osVersion = osVersion;
+            this.browser = browser;
+            this.browserVersion = browserVersion;
+            this.browserEngine = browserEngine;
+            this.bot = bot;
+            this.botName = botName;
+        }
+
+        static ParsedUserAgent of(String userAgent) {
+            UserAgent parsed = UserAgent.parseUserAgentString(userAgent);
+            Browser browser = parsed.getBrowser();
+            OperatingSystem os = parsed.getOperatingSystem();
+            Version version = parsed.getBrowserVersion();
+            boolean bot = browser.getBrowserType() == BrowserType.ROBOT;
+
+            return new ParsedUserAgent(
+                    deviceType(os),
+                    os == OperatingSystem.UNKNOWN ? null : os.getGroup().getName(),
+                    os == OperatingSystem.UNKNOWN ? null : os.getName(),
+                    browser == Browser.UNKNOWN ? null : browser.getGroup().getName(),
+                    version != null ? version.getVersion() : null,
+                    browser == Browser.UNKNOWN ? null : browser.getRenderingEngine().getName(),
+                    bot,
+                    bot ? browser.getName() : null);
+        }
+
+        private static String deviceType(OperatingSystem os) {
+            switch (os.getDeviceType()) {
+                case COMPUTER:
+                    return "DESKTOP";
+                case MOBILE:
+                case WEARABLE:
+                    return "MOBILE";
+                case TABLET:
+                    return "TABLET";
+                default:
+                    return null;
+            }
+        }
+
+        public String getDeviceType() { return deviceType; }
+        public String getOperatingSystem() { return operatingSystem; }
+        public String getOsVersion() { return osVersion; }
+        public String getBrowser() { return browser; }
+        public String getBrowserVersion() { return browserVersion; }
+        public String getBrowserEngine() { return browserEngine; }
+        public boolean isBot() { return bot; }
+        public String getBotName() { return botName; }
+        public boolean isMobile() { return "MOBILE".equals(deviceType); }
+    }
+}
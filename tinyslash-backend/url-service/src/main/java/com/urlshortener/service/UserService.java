@@ -18,11 +18,14 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final AdminMetricsService adminMetrics;
 
     @Autowired
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder,
+            AdminMetricsService adminMetrics) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.adminMetrics = adminMetrics;
     }
 
     public User registerUser(String email, String password, String firstName, String lastName) {
@@ -45,7 +48,9 @@ public class UserService {
         // Default role
         user.getRoles().add("ROLE_USER");
 
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        adminMetrics.userCreated(savedUser.getSubscriptionPlan());
+        return savedUser;
     }
 
     public User loginUser(String email, String password) {
@@ -102,7 +107,9 @@ public class UserService {
         // Default role
         user.getRoles().add("ROLE_USER");
 
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        adminMetrics.userCreated(savedUser.getSubscriptionPlan());
+        return savedUser;
     }
 
     public Optional<User> findById(String id) {
@@ -176,7 +183,9 @@ public class UserService {
         user.setSubscriptionPlan(plan);
         user.setActive("ACTIVE".equals(status));
         user.setEmailVerified(emailVerified);
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        adminMetrics.userCreated(savedUser.getSubscriptionPlan());
+        return savedUser;
     }
 
     public User updateUserByAdmin(String id, Object updateRequest) {
@@ -0,0 +1,83 @@
+package com.urlshortener.dto;
+
+import com.urlshortener.model.UtmTags;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RedirectEntryTest {
+
+    @Test
+    void roundTripsEveryField() {
+        LocalDateTime expiresAt = LocalDateTime.of(2026, 3, 14, 15, 9, 26);
+        UtmTags utm = new UtmTags("newsletter", "email", "spring", "shoes", "banner");
+        RedirectEntry entry = new RedirectEntry("abc123", "https://example.com/a?b=c|d", "go.example.com",
+                "user-1", "team-1", true, true, false, expiresAt, 500, 42, utm, 7L);
+
+        RedirectEntry decoded = RedirectEntry.decode(entry.encode());
+
+        assertNotNull(decoded);
+        assertEquals("abc123", decoded.getShortCode());
+        assertEquals("https://example.com/a?b=c|d", decoded.getOriginalUrl());
+        assertEquals("go.example.com", decoded.getDomain());
+        assertEquals("user-1", decoded.getUserId());
+        assertEquals("team-1", decoded.getTeamId());
+        assertTrue(decoded.isActive());
+        assertTrue(decoded.isPasswordProtected());
+        assertFalse(decoded.isTrackClicks());
+        assertEquals(expiresAt, decoded.getExpiresAt());
+        assertEquals(500, decoded.getMaxClicks());
+        assertEquals(42, decoded.getTotalClicks());
+        assertEquals(7L, decoded.getVersion());
+        assertEquals("newsletter", decoded.getUtm().getSource());
+        assertEquals("email", decoded.getUtm().getMedium());
+        assertEquals("spring", decoded.getUtm().getCampaign());
+        assertEquals("shoes", decoded.getUtm().getTerm());
+        assertEquals("banner", decoded.getUtm().getContent());
+    }
+
+    @Test
+    void roundTripsNullFields() {
+        RedirectEntry entry = new RedirectEntry("abc123", "https://example.com", null, null, null,
+                false, false, true, null, null, 0, null, 0L);
+
+        RedirectEntry decoded = RedirectEntry.decode(entry.encode());
+
+        assertNotNull(decoded);
+        assertNull(decoded.getDomain());
+        assertNull(decoded.getUserId());
+        assertNull(decoded.getTeamId());
+        assertNull(decoded.getExpiresAt());
+        assertNull(decoded.getMaxClicks());
+        assertNull(decoded.getUtm());
+        assertFalse(decoded.isActive());
+        assertTrue(decoded.isTrackClicks());
+    }
+
+    @Test
+    void keepsSeparatorsInsideTheUrl() {
+        String url = "https://example.com/path\u001fwith\u001fseparators";
+        RedirectEntry entry = new RedirectEntry("abc123", url, null, null, null,
+                true, false, true, null, null, 0, null, 1L);
+
+        assertEquals(url, RedirectEntry.decode(entry.encode()).getOriginalUrl());
+    }
+
+    @Test
+    void rejectsInvalidEncodings() {
+        assertNull(RedirectEntry.decode(null));
+        assertNull(RedirectEntry.decode(""));
+        assertNull(RedirectEntry.decode("https://example.com"));
+
+        String valid = new RedirectEntry("abc123", "https://example.com", null, null, null,
+                true, false, true, null, null, 0, null, 1L).encode();
+        assertNull(RedirectEntry.decode("x" + valid.substring(1)));
+        assertNull(RedirectEntry.decode(valid.substring(valid.indexOf('\u001f') + 1)));
+    }
+}
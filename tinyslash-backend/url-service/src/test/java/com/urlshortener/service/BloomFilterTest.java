@@ -0,0 +1,43 @@
+package com.urlshortener.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    @Test
+    void containsEveryInsertedValue() {
+        ShortCodeFilterService.BloomFilter filter = ShortCodeFilterService.BloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("code" + i);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("code" + i));
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTarget() {
+        ShortCodeFilterService.BloomFilter filter = ShortCodeFilterService.BloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("code" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("other" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        ShortCodeFilterService.BloomFilter filter = ShortCodeFilterService.BloomFilter.create(1_000, 0.01);
+        assertFalse(filter.mightContain("abc123"));
+        assertTrue(filter.bitSize() >= 64);
+        assertTrue(filter.hashCount() >= 1);
+    }
+}
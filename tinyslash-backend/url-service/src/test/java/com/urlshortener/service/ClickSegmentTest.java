@@ -0,0 +1,130 @@
+package com.urlshortener.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClickSegmentTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 1, 15);
+    private static final long BASE = DAY.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+
+    @TempDir
+    Path dir;
+
+    private static Map<String, String> row(String shortCode, String country, String browser) {
+        Map<String, String> values = new HashMap<>();
+        values.put("shortCode", shortCode);
+        values.put("userId", "user-1");
+        values.put("country", country);
+        values.put("browser", browser);
+        return values;
+    }
+
+    private ClickSegment write(ClickSegment.Writer writer) throws IOException {
+        Path path = dir.resolve(ClickSegment.fileName(DAY));
+        writer.writeTo(path);
+        return ClickSegment.open(path);
+    }
+
+    @Test
+    void roundTripsDictionaryColumns() throws IOException {
+        ClickSegment.Writer writer = new ClickSegment.Writer(DAY);
+        writer.add(BASE, row("zeta", "US", "Chrome"));
+        writer.add(BASE + 10, row("alpha", "IN", null));
+        writer.add(BASE + 10, row("Émile", "US", "Firefox"));
+        writer.add(BASE + 3600, row("alpha", null, "Chrome"));
+
+        ClickSegment segment = write(writer);
+
+        assertEquals(4, segment.getRows());
+        assertEquals(DAY, segment.getDay());
+        assertTrue(segment.getSizeBytes() > 0);
+        for (String value : new String[] { "zeta", "alpha", "Émile" }) {
+            int code = segment.code("shortCode", value);
+            assertTrue(code > 0, value);
+            assertEquals(value, segment.value("shortCode", code));
+        }
+        assertEquals(-1, segment.code("shortCode", "missing"));
+        assertEquals(-1, segment.code("shortCode", ""));
+        assertEquals(-1, segment.code("nope", "alpha"));
+        assertEquals("", segment.value("country", 0));
+    }
+
+    @Test
+    void codesFollowUnsignedByteOrder() throws IOException {
+        ClickSegment.Writer writer = new ClickSegment.Writer(DAY);
+        writer.add(BASE, row("b", "US", null));
+        writer.add(BASE, row("é", "US", null));
+        writer.add(BASE, row("a", "US", null));
+        writer.add(BASE, row("Z", "US", null));
+
+        ClickSegment segment = write(writer);
+
+        int z = segment.code("shortCode", "Z");
+        int a = segment.code("shortCode", "a");
+        int b = segment.code("shortCode", "b");
+        int e = segment.code("shortCode", "é");
+        assertTrue(z < a && a < b && b < e);
+    }
+
+    @Test
+    void scansTimeRangesWithFilterAndGrouping() throws IOException {
+        ClickSegment.Writer writer = new ClickSegment.Writer(DAY);
+        writer.add(BASE, row("zeta", "US", "Chrome"));
+        writer.add(BASE + 10, row("alpha", "IN", null));
+        writer.add(BASE + 10, row("alpha", "US", "Firefox"));
+        writer.add(BASE + 3600, row("alpha", null, "Chrome"));
+        ClickSegment segment = write(writer);
+
+        assertArrayEquals(new long[] { 4 }, segment.scan(BASE, BASE + 86_400, null, -1, null));
+        assertArrayEquals(new long[] { 2 }, segment.scan(BASE + 10, BASE + 3600, null, -1, null));
+
+        int alpha = segment.code("shortCode", "alpha");
+        long[] byCountry = segment.scan(BASE, BASE + 86_400, "shortCode", alpha, "country");
+        assertEquals(1, byCountry[0]);
+        assertEquals(1, byCountry[segment.code("country", "IN")]);
+        assertEquals(1, byCountry[segment.code("country", "US")]);
+
+        assertTrue(segment.overlaps(BASE + 3600, BASE + 3601));
+        assertFalse(segment.overlaps(BASE + 3601, BASE + 7200));
+        assertFalse(segment.overlaps(BASE - 10, BASE));
+    }
+
+    @Test
+    void widensCodesForLargeDictionaries() throws IOException {
+        ClickSegment.Writer writer = new ClickSegment.Writer(DAY);
+        for (int i = 0; i < 70_000; i++) {
+            writer.add(BASE + i / 100, row("code" + i, i % 2 == 0 ? "US" : "IN", null));
+        }
+        ClickSegment segment = write(writer);
+
+        for (int i = 0; i < 70_000; i += 997) {
+            String value = "code" + i;
+            assertEquals(value, segment.value("shortCode", segment.code("shortCode", value)));
+        }
+        int code = segment.code("shortCode", "code69999");
+        long[] counts = segment.scan(BASE, BASE + 86_400, "shortCode", code, "country");
+        assertEquals(1, counts[segment.code("country", "IN")]);
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path path = dir.resolve("garbage.seg");
+        Files.write(path, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13 });
+        assertThrows(IOException.class, () -> ClickSegment.open(path));
+    }
+}
@@ -0,0 +1,122 @@
+package com.urlshortener.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeoIpTableTest {
+
+    private static final String CSV = String.join("\n",
+            "start,end,country,city",
+            "# comment",
+            "\"1.0.0.0\",\"1.0.0.255\",\"AU\",\"Sydney\"",
+            "8.8.8.0,8.8.8.255,US,Mountain View",
+            "200.0.0.0,255.255.255.255,BR",
+            "10.0.0.5,10.0.0.1,XX,Backwards",
+            "2001:db8::,2001:db8::ffff,DE,Berlin",
+            "2001:db8:1::,2001:db8:1:ffff:ffff:ffff:ffff:ffff,US,Mountain View",
+            "not-an-ip,1.2.3.4,FR",
+            "1.2.3.4,1.2.3.5,",
+            "");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void parsesIpv4() {
+        assertEquals(0x08080808L, GeoIpTable.parseIpv4("8.8.8.8", 0, 7));
+        assertEquals(0xFFFFFFFFL, GeoIpTable.parseIpv4("255.255.255.255", 0, 15));
+        assertEquals(0x01020304L, GeoIpTable.parseIpv4("x1.2.3.4y", 1, 8));
+        assertEquals(-1, GeoIpTable.parseIpv4("256.0.0.1", 0, 9));
+        assertEquals(-1, GeoIpTable.parseIpv4("1.2.3", 0, 5));
+        assertEquals(-1, GeoIpTable.parseIpv4("1.2.3.4.5", 0, 9));
+        assertEquals(-1, GeoIpTable.parseIpv4("1..3.4", 0, 6));
+        assertEquals(-1, GeoIpTable.parseIpv4("1.2.3.0004", 0, 10));
+    }
+
+    @Test
+    void parsesIpv6() {
+        int[] groups = new int[8];
+        assertTrue(GeoIpTable.parseIpv6("2001:db8::1", groups));
+        assertArrayEquals(new int[] { 0x2001, 0xdb8, 0, 0, 0, 0, 0, 1 }, groups);
+
+        assertTrue(GeoIpTable.parseIpv6("::", groups));
+        assertArrayEquals(new int[8], groups);
+
+        assertTrue(GeoIpTable.parseIpv6("::ffff:192.0.2.1", groups));
+        assertArrayEquals(new int[] { 0, 0, 0, 0, 0, 0xffff, 0xc000, 0x0201 }, groups);
+
+        assertTrue(GeoIpTable.parseIpv6("fe80::1%eth0", groups));
+        assertArrayEquals(new int[] { 0xfe80, 0, 0, 0, 0, 0, 0, 1 }, groups);
+
+        assertTrue(GeoIpTable.parseIpv6("1:2:3:4:5:6:7:8", groups));
+        assertArrayEquals(new int[] { 1, 2, 3, 4, 5, 6, 7, 8 }, groups);
+
+        assertFalse(GeoIpTable.parseIpv6("1::2::3", groups));
+        assertFalse(GeoIpTable.parseIpv6("1:2:3:4:5:6:7:8:9", groups));
+        assertFalse(GeoIpTable.parseIpv6(":1:2", groups));
+        assertFalse(GeoIpTable.parseIpv6("1:2:3:4:5:6:7:", groups));
+        assertFalse(GeoIpTable.parseIpv6("12345::", groups));
+        assertFalse(GeoIpTable.parseIpv6("g::1", groups));
+    }
+
+    @Test
+    void loadsRangesAndSkipsBadLines() throws IOException {
+        Path file = dir.resolve("geo.csv");
+        Files.writeString(file, CSV);
+
+        GeoIpTable table = GeoIpTable.load(file);
+
+        assertEquals(3, table.getIpv4Ranges());
+        assertEquals(2, table.getIpv6Ranges());
+        // Sydney, Mountain View (shared), BR, Berlin
+        assertEquals(4, table.getLocations());
+        // header, backwards range, unparseable start, missing country
+        assertEquals(4, table.getSkippedLines());
+    }
+
+    @Test
+    void looksUpIpv4Ipv6AndMappedAddresses() throws IOException {
+        Path file = dir.resolve("geo.csv");
+        Files.writeString(file, CSV);
+        GeoIpTable table = GeoIpTable.load(file);
+
+        assertEquals("Sydney", table.lookup("1.0.0.1").getCity());
+        assertEquals("US", table.lookup("8.8.8.8").getCountry());
+        assertEquals("BR", table.lookup("250.1.2.3").getCountry());
+        assertNull(table.lookup("250.1.2.3").getCity());
+        assertEquals("Sydney", table.lookup("::ffff:1.0.0.7").getCity());
+        assertEquals("Berlin", table.lookup("2001:db8::42").getCity());
+        assertEquals("US", table.lookup("2001:db8:1:2::1").getCountry());
+
+        assertNull(table.lookup("1.0.1.0"));
+        assertNull(table.lookup("7.255.255.255"));
+        assertNull(table.lookup("2001:db8::1:0"));
+        assertNull(table.lookup("not an ip"));
+        assertNull(table.lookup(null));
+    }
+
+    @Test
+    void readsGzippedFiles() throws IOException {
+        Path file = dir.resolve("geo.csv.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(CSV.getBytes(StandardCharsets.UTF_8));
+        }
+
+        GeoIpTable table = GeoIpTable.load(file);
+        assertEquals(3, table.getIpv4Ranges());
+        assertEquals("Berlin", table.lookup("2001:db8::1").getCity());
+    }
+}
@@ -0,0 +1,100 @@
+package com.urlshortener.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ShortCodeAllocatorTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+
+    private ShortCodeAllocator allocator(boolean scramble, int blockSize) {
+        ShortCodeAllocator allocator = new ShortCodeAllocator();
+        ReflectionTestUtils.setField(allocator, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(allocator, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(allocator, "blockSize", blockSize);
+        ReflectionTestUtils.setField(allocator, "scramble", scramble);
+        ReflectionTestUtils.setField(allocator, "scrambleKey", "test-key");
+        allocator.initialize();
+
+        AtomicLong counter = new AtomicLong();
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Document.class), anyString()))
+                .thenAnswer(invocation -> new Document("next", counter.addAndGet(blockSize)));
+        return allocator;
+    }
+
+    @Test
+    void unscrambledCodesCountInBase62() {
+        ShortCodeAllocator allocator = allocator(false, 1000);
+        assertEquals("aaaaaa", allocator.encode(0));
+        assertEquals("aaaaab", allocator.encode(1));
+        assertEquals("aaaaba", allocator.encode(ShortCodeAllocator.ALPHABET.length()));
+    }
+
+    @Test
+    void scramblingIsABijectionOverTheSequence() {
+        ShortCodeAllocator allocator = allocator(true, 1000);
+        Set<String> seen = new HashSet<>();
+        for (long sequence = 0; sequence < 200_000; sequence++) {
+            String code = allocator.encode(sequence);
+            assertEquals(6, code.length());
+            assertTrue(code.chars().allMatch(c -> ShortCodeAllocator.ALPHABET.indexOf(c) >= 0), code);
+            assertTrue(seen.add(code), "duplicate code " + code);
+        }
+    }
+
+    @Test
+    void scramblingHidesTheOrder() {
+        ShortCodeAllocator allocator = allocator(true, 1000);
+        assertNotEquals("aaaaab", allocator.encode(1));
+        assertNotEquals(allocator.encode(1).substring(0, 5), allocator.encode(2).substring(0, 5));
+    }
+
+    @Test
+    void scramblingDependsOnTheKey() {
+        ShortCodeAllocator first = allocator(true, 1000);
+        ShortCodeAllocator second = allocator(true, 1000);
+        ReflectionTestUtils.setField(second, "scrambleKey", "another-key");
+        second.initialize();
+        assertNotEquals(first.encode(42), second.encode(42));
+    }
+
+    @Test
+    void nextCodesSpansBlocks() {
+        ShortCodeAllocator allocator = allocator(true, 1000);
+        String single = allocator.nextCode();
+        List<String> codes = allocator.nextCodes(2500);
+
+        assertEquals(2500, codes.size());
+        Set<String> unique = new HashSet<>(codes);
+        unique.add(single);
+        assertEquals(2501, unique.size());
+        // [0, 1000) for nextCode and the start of the batch, then two more blocks
+        verify(mongoTemplate, times(3)).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Document.class), anyString());
+        assertEquals(allocator.encode(1), codes.get(0));
+        assertEquals(allocator.encode(2500), codes.get(2499));
+    }
+}
@@ -0,0 +1,44 @@
+package com.urlshortener.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SignatureMatcherTest {
+
+    private final SignatureMatcher matcher = SignatureMatcher.compile(
+            List.of("bot/", "googlebot", "crawler", "curl/", " Spider ", "", "bot/", "ünicode"));
+
+    @Test
+    void skipsBlankDuplicateAndNonAsciiSignatures() {
+        assertEquals(5, matcher.size());
+        assertEquals("spider", matcher.signature(matcher.find("a SPIDER b")));
+    }
+
+    @Test
+    void matchesCaseInsensitively() {
+        assertEquals("crawler", matcher.signature(matcher.find("Mozilla/5.0 (compatible; SomeCrawler/1.0)")));
+        assertEquals("curl/", matcher.signature(matcher.find("CURL/8.4.0")));
+    }
+
+    @Test
+    void reportsTheLongestSignatureEndingAtTheFirstMatch() {
+        assertEquals("googlebot", matcher.signature(matcher.find("Mozilla/5.0 (compatible; Googlebot/2.1)")));
+    }
+
+    @Test
+    void followsFailureLinksAcrossPartialMatches() {
+        // "googlecrawler" has to fall back from the "google" branch into "crawler"
+        assertEquals("crawler", matcher.signature(matcher.find("googlecrawler")));
+        assertEquals("bot/", matcher.signature(matcher.find("robobot/1.0")));
+    }
+
+    @Test
+    void returnsMinusOneWithoutAMatch() {
+        assertEquals(-1, matcher.find("Mozilla/5.0 (Linux; Android 14; CUBOT KingKong) Chrome/120.0"));
+        assertEquals(-1, matcher.find(""));
+        assertEquals(-1, matcher.find("spïder bøt/"));
+    }
+}